@@ -0,0 +1,12 @@
+/**
+ * Benchmarks and regression checks of the engine and the Swing front-end.
+ *
+ * Kept out of the other modules so that they do not ship with the game,
+ * and so that jdk.management (needed for per thread allocation counts) is
+ * only required here.
+ */
+module uk.ac.york.minesweeper.bench {
+    requires java.management;
+    requires jdk.management;
+    requires uk.ac.york.minesweeper.ui;
+}
@@ -0,0 +1,180 @@
+package uk.ac.york.minesweeper.bench;
+
+import java.awt.Dimension;
+import java.awt.Graphics2D;
+import java.awt.event.InputEvent;
+import java.awt.event.MouseEvent;
+import java.awt.event.MouseListener;
+import java.awt.image.BufferedImage;
+import java.lang.management.ManagementFactory;
+
+import uk.ac.york.minesweeper.Minefield;
+import uk.ac.york.minesweeper.TileState;
+import uk.ac.york.minesweeper.ui.MinefieldPanel;
+
+/**
+ * Regression check that clicking on and repainting a {@link MinefieldPanel}
+ * allocates nothing once warmed up.
+ *
+ * Runs headless. Each cycle cycles a tile through flag, question and
+ * covered with right clicks, left clicks an uncovered tile, asks for the
+ * panel's sizes and paints it into an offscreen image. The bytes allocated
+ * by the thread are read with the HotSpot thread allocation counter.
+ * Exits with status 1 if a measured cycle allocated.
+ *
+ * Usage: {@code AllocationCheck [cycles]}
+ */
+public final class AllocationCheck {
+
+    /** Number of cycles run before measuring (so the JIT has compiled). */
+    private static final int WARMUP_CYCLES = 20000;
+
+    /** Size of the board. */
+    private static final int SIZE = 16;
+
+    private AllocationCheck() {
+
+    }
+
+    /**
+     * Main-Methode.
+     *
+     * @param args optional number of measured cycles
+     */
+    public static void main(final String[] args) {
+        System.setProperty("java.awt.headless", "true");
+
+        int cycles = 10000;
+
+        if (args.length >= 1) {
+            cycles = Integer.parseInt(args[0]);
+        }
+
+        com.sun.management.ThreadMXBean threads =
+                (com.sun.management.ThreadMXBean)
+                ManagementFactory.getThreadMXBean();
+
+        Minefield minefield = new Minefield(SIZE, SIZE, SIZE * SIZE / 8);
+        minefield.uncover(SIZE / 2, SIZE / 2);
+
+        MinefieldPanel panel = new MinefieldPanel(minefield);
+        Dimension size = panel.getPreferredSize();
+        panel.setSize(size);
+
+        // A covered tile to mark and an uncovered one to click on
+        int coveredX = -1;
+        int coveredY = -1;
+        int uncoveredX = -1;
+        int uncoveredY = -1;
+
+        for (int y = 0; y < SIZE; y++) {
+            for (int x = 0; x < SIZE; x++) {
+                if (minefield.getTileState(x, y) == TileState.UNCOVERED) {
+                    uncoveredX = x;
+                    uncoveredY = y;
+                } else {
+                    coveredX = x;
+                    coveredY = y;
+                }
+            }
+        }
+
+        if (coveredX < 0 || uncoveredX < 0) {
+            System.out.println("first click opened the whole board, rerun");
+            return;
+        }
+
+        // The events and image are made once, outside the measurement
+        MouseListener[] listeners = panel.getMouseListeners();
+        MouseEvent rightPress = event(panel, MouseEvent.MOUSE_PRESSED,
+                InputEvent.BUTTON3_DOWN_MASK, MouseEvent.BUTTON3,
+                coveredX, coveredY);
+        MouseEvent rightRelease = event(panel, MouseEvent.MOUSE_RELEASED, 0,
+                MouseEvent.BUTTON3, coveredX, coveredY);
+        MouseEvent leftPress = event(panel, MouseEvent.MOUSE_PRESSED,
+                InputEvent.BUTTON1_DOWN_MASK, MouseEvent.BUTTON1,
+                uncoveredX, uncoveredY);
+        MouseEvent leftRelease = event(panel, MouseEvent.MOUSE_RELEASED, 0,
+                MouseEvent.BUTTON1, uncoveredX, uncoveredY);
+        BufferedImage image = new BufferedImage(size.width, size.height,
+                BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = image.createGraphics();
+        g.setClip(0, 0, size.width, size.height);
+
+        MouseEvent[] cycle = {
+            rightPress, rightRelease, rightPress, rightRelease,
+            rightPress, rightRelease, leftPress, leftRelease,
+        };
+
+        for (int n = 0; n < WARMUP_CYCLES; n++) {
+            runCycle(panel, listeners, cycle, g);
+        }
+
+        long worst = 0;
+        long total = 0;
+
+        for (int n = 0; n < cycles; n++) {
+            long before = threads.getCurrentThreadAllocatedBytes();
+            runCycle(panel, listeners, cycle, g);
+            long allocated = threads.getCurrentThreadAllocatedBytes() - before;
+            worst = Math.max(worst, allocated);
+            total += allocated;
+        }
+
+        g.dispose();
+
+        System.out.printf("%d cycles: %d bytes allocated in total, "
+                + "at most %d in one cycle%n", cycles, total, worst);
+
+        if (total > 0) {
+            System.out.println("FAILED: the click and paint path allocates");
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Runs one click and paint cycle.
+     *
+     * @param panel the panel
+     * @param listeners the panel's mouse listeners
+     * @param events events to send
+     * @param g graphics to paint with
+     */
+    private static void runCycle(final MinefieldPanel panel,
+            final MouseListener[] listeners, final MouseEvent[] events,
+            final Graphics2D g) {
+        for (MouseEvent e : events) {
+            for (MouseListener listener : listeners) {
+                if (e.getID() == MouseEvent.MOUSE_PRESSED) {
+                    listener.mousePressed(e);
+                } else {
+                    listener.mouseReleased(e);
+                }
+            }
+        }
+
+        panel.getPreferredSize();
+        panel.getMinimumSize();
+        panel.getMaximumSize();
+        panel.paintComponent(g);
+    }
+
+    /**
+     * Creates a mouse event on the middle of a tile.
+     *
+     * @param panel source of the event
+     * @param id event type
+     * @param modifiers extended modifiers
+     * @param button button which changed state
+     * @param x x position of tile
+     * @param y y position of tile
+     * @return the event
+     */
+    private static MouseEvent event(final MinefieldPanel panel, final int id,
+            final int modifiers, final int button, final int x, final int y) {
+        int half = MinefieldPanel.TILE_SIZE / 2;
+        return new MouseEvent(panel, id, 0, modifiers,
+                x * MinefieldPanel.TILE_SIZE + half,
+                y * MinefieldPanel.TILE_SIZE + half, 1, false, button);
+    }
+}
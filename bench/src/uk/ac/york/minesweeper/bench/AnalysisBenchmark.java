@@ -0,0 +1,87 @@
+package uk.ac.york.minesweeper.bench;
+
+import uk.ac.york.minesweeper.BoardAnalysis;
+import uk.ac.york.minesweeper.Minefield;
+
+/**
+ * Times {@link BoardAnalysis} on the preset board sizes.
+ *
+ * Usage: {@code AnalysisBenchmark [boards] [threads]}
+ */
+public final class AnalysisBenchmark {
+
+    /** Preset sizes as (width, height, mines) triples. */
+    private static final int[][] PRESETS = {
+        {9, 9, 10},
+        {16, 16, 40},
+        {30, 16, 99},
+    };
+
+    /** Names of the presets. */
+    private static final String[] PRESET_NAMES = {"Easy", "Medium", "Hard"};
+
+    /** Number of timed rounds (the first is treated as warm up). */
+    private static final int ROUNDS = 5;
+
+    private AnalysisBenchmark() {
+
+    }
+
+    /**
+     * Main-Methode.
+     *
+     * @param args optional number of boards per preset and number of threads
+     */
+    public static void main(final String[] args) {
+        int boards = 100000;
+        int threads = Runtime.getRuntime().availableProcessors();
+
+        if (args.length >= 1) {
+            boards = Integer.parseInt(args[0]);
+        }
+
+        if (args.length >= 2) {
+            threads = Integer.parseInt(args[1]);
+        }
+
+        for (int p = 0; p < PRESETS.length; p++) {
+            int width = PRESETS[p][0];
+            int height = PRESETS[p][1];
+            Minefield[] minefields = new Minefield[boards];
+
+            for (int i = 0; i < boards; i++) {
+                minefields[i] = new Minefield(width, height, PRESETS[p][2]);
+                minefields[i].generate(width / 2, height / 2, null);
+            }
+
+            double single = 0;
+            double parallel = 0;
+            long total3BV = 0;
+
+            for (int round = 0; round < ROUNDS; round++) {
+                long start = System.nanoTime();
+                BoardAnalysis[] results =
+                        BoardAnalysis.analyzeAll(minefields, 1);
+                long middle = System.nanoTime();
+                BoardAnalysis.analyzeAll(minefields, threads);
+                long end = System.nanoTime();
+
+                // Keep the fastest round
+                single = Math.max(single, boards * 1e9 / (middle - start));
+                parallel = Math.max(parallel, boards * 1e9 / (end - middle));
+
+                if (round == 0) {
+                    for (BoardAnalysis result : results) {
+                        total3BV += result.get3BV();
+                    }
+                }
+            }
+
+            System.out.printf("%-6s %3dx%-3d mean 3BV %6.2f  "
+                    + "1 thread %,12.0f boards/s  "
+                    + "%d threads %,12.0f boards/s%n",
+                    PRESET_NAMES[p], width, height,
+                    (double) total3BV / boards, single, threads, parallel);
+        }
+    }
+}
@@ -0,0 +1,220 @@
+package uk.ac.york.minesweeper.bench;
+
+import java.util.Random;
+
+import uk.ac.york.minesweeper.EndgameSolver;
+import uk.ac.york.minesweeper.Minefield;
+import uk.ac.york.minesweeper.TileState;
+
+/**
+ * Measures how fast {@link EndgameSolver} searches Expert endgames.
+ *
+ * Each Expert board (30x16, 99 mines) is placed from a fixed seed, and
+ * every safe tile outside a small window is opened, which leaves an
+ * endgame: the mines plus a handful of covered safe tiles in the window.
+ * Every board is solved twice and only the second pass is timed, so the
+ * first pass warms up the JIT. Nodes per second exclude transposition
+ * table hits. Each board is also solved without the table (untimed), so
+ * the nodes it saves and its hit rate (hits out of all positions reached)
+ * are printed. Both searches must find the same chance of winning, or a
+ * table key is broken and the exit status is 1.
+ *
+ * If the timed pass searches fewer nodes per second than the minimum
+ * (MIN_NODES_PER_SECOND unless given, 0 to disable), the exit status is 1.
+ *
+ * Usage: {@code EndgameBenchmark [boards [minNodesPerSecond]]}
+ */
+public final class EndgameBenchmark {
+
+    /** Width of an Expert board. */
+    private static final int WIDTH = 30;
+
+    /** Height of an Expert board. */
+    private static final int HEIGHT = 16;
+
+    /** Mines on an Expert board. */
+    private static final int MINES = 99;
+
+    /** Width of the window left covered. */
+    private static final int WINDOW_WIDTH = 7;
+
+    /** Height of the window left covered. */
+    private static final int WINDOW_HEIGHT = 7;
+
+    /** Nodes per second the timed pass must reach by default. */
+    private static final double MIN_NODES_PER_SECOND = 250000;
+
+    /** Largest difference allowed with and without the table. */
+    private static final double MAX_ERROR = 1e-9;
+
+    /** Most nodes searched for one board. */
+    private static final long MAX_NODES = 50000000;
+
+    /** Most time spent on one board (ms). */
+    private static final long BUDGET_MILLIS = 10000;
+
+    private EndgameBenchmark() {
+
+    }
+
+    /**
+     * Main-Methode.
+     *
+     * @param args optional number of boards and minimum nodes per second
+     */
+    public static void main(final String[] args) {
+        int boards = 40;
+        double minRate = MIN_NODES_PER_SECOND;
+
+        if (args.length >= 1) {
+            boards = Integer.parseInt(args[0]);
+        }
+
+        if (args.length >= 2) {
+            minRate = Double.parseDouble(args[1]);
+        }
+
+        Minefield[] endgames = new Minefield[boards];
+        long seed = 0;
+
+        // Skip boards where opening around the window won the game
+        for (int n = 0; n < boards; seed++) {
+            Minefield minefield = createEndgame(seed);
+
+            if (!minefield.isFinished()) {
+                endgames[n++] = minefield;
+            }
+        }
+
+        solveAll(endgames, false);
+        double rate = solveAll(endgames, true);
+
+        if (rate < minRate) {
+            System.out.printf("below the minimum of %,.0f nodes/s%n",
+                    minRate);
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Solves every endgame.
+     *
+     * @param endgames endgames to solve
+     * @param print true to print each result and the total
+     * @return nodes searched per second
+     */
+    private static double solveAll(final Minefield[] endgames,
+            final boolean print) {
+        long nodes = 0;
+        long hits = 0;
+        long plainNodes = 0;
+        long nanos = 0;
+        int solved = 0;
+        int exact = 0;
+        double wins = 0;
+
+        if (print) {
+            System.out.printf("%5s %7s %7s %9s %6s %6s %12s %10s %12s "
+                    + "%9s%n", "board", "unknown", "layouts", "move", "safe",
+                    "win", "nodes", "hits", "no table", "ms");
+        }
+
+        for (int n = 0; n < endgames.length; n++) {
+            EndgameSolver solver = new EndgameSolver(endgames[n]);
+
+            if (!solver.canSolve()) {
+                if (print) {
+                    System.out.printf("%5d too open%n", n);
+                }
+
+                continue;
+            }
+
+            EndgameSolver.Result result =
+                    solver.solve(MAX_NODES, BUDGET_MILLIS);
+            EndgameSolver.Result plain =
+                    solver.solve(MAX_NODES, BUDGET_MILLIS, false);
+            nodes += result.getNodes();
+            hits += result.getHits();
+            plainNodes += plain.getNodes();
+
+            if (result.isExact() && plain.isExact()
+                    && Math.abs(result.getWinProbability()
+                            - plain.getWinProbability()) > MAX_ERROR) {
+                System.out.printf("FAILED: board %d wins %.6f with the "
+                        + "table, %.6f without%n", n,
+                        result.getWinProbability(),
+                        plain.getWinProbability());
+                System.exit(1);
+            }
+            nanos += result.getNanos();
+            solved++;
+            exact += result.isExact() ? 1 : 0;
+            wins += result.getWinProbability();
+
+            if (print) {
+                System.out.printf("%5d %7d %7d %9s %6.3f %6.3f%s %11d "
+                        + "%10d %12d %9.2f%n", n, solver.getUnknownCount(),
+                        solver.getLayoutCount(),
+                        "(" + result.getX() + "," + result.getY() + ")",
+                        result.getSafeProbability(),
+                        result.getWinProbability(),
+                        result.isExact() ? " " : "*", result.getNodes(),
+                        result.getHits(), plain.getNodes(),
+                        result.getNanos() / 1e6);
+            }
+        }
+
+        double rate = (nanos > 0) ? nodes * 1e9 / nanos : 0;
+
+        if (print) {
+            System.out.printf("%d of %d solved (%d exact), mean win %.3f%n",
+                    solved, endgames.length, exact,
+                    (solved > 0) ? wins / solved : 0);
+            System.out.printf("%,d nodes, %,d table hits in %.0f ms: "
+                    + "%,.0f nodes/s%n", nodes, hits, nanos / 1e6, rate);
+            System.out.printf("hit rate %.2f%%; %,d nodes without the "
+                    + "table, which saves %.1f%% of them%n",
+                    (nodes + hits > 0) ? 100.0 * hits / (nodes + hits) : 0,
+                    plainNodes, (plainNodes > 0)
+                            ? 100.0 * (plainNodes - nodes) / plainNodes : 0);
+        }
+
+        return rate;
+    }
+
+    /**
+     * Creates an endgame by opening every safe tile outside a window.
+     *
+     * Zeros next to the window flood into it, so some of it may be open.
+     *
+     * @param seed seed of the board and the window
+     * @return the minefield (won if the window had no safe tiles left)
+     */
+    private static Minefield createEndgame(final long seed) {
+        Random rnd = new Random(seed);
+        int left = rnd.nextInt(WIDTH - WINDOW_WIDTH + 1);
+        int top = rnd.nextInt(HEIGHT - WINDOW_HEIGHT + 1);
+        int startX = (left + WINDOW_WIDTH + WIDTH / 2) % WIDTH;
+        int startY = (top + WINDOW_HEIGHT + HEIGHT / 2) % HEIGHT;
+
+        Minefield minefield = new Minefield(WIDTH, HEIGHT, MINES);
+        minefield.generate(startX, startY, seed);
+        minefield.uncover(startX, startY);
+
+        for (int y = 0; y < HEIGHT; y++) {
+            for (int x = 0; x < WIDTH; x++) {
+                boolean inWindow = x >= left && x < left + WINDOW_WIDTH
+                        && y >= top && y < top + WINDOW_HEIGHT;
+
+                if (!inWindow && !minefield.isFinished()
+                        && minefield.getTileState(x, y) == TileState.COVERED
+                        && minefield.getTileValue(x, y) >= 0) {
+                    minefield.uncover(x, y);
+                }
+            }
+        }
+
+        return minefield;
+    }
+}
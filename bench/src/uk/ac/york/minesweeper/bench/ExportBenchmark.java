@@ -0,0 +1,181 @@
+package uk.ac.york.minesweeper.bench;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.util.Random;
+
+import uk.ac.york.minesweeper.Minefield;
+import uk.ac.york.minesweeper.TileState;
+import uk.ac.york.minesweeper.ui.BoardImageExporter;
+
+/**
+ * Exports a finished board with {@link BoardImageExporter} and reports the
+ * time taken, the size of the files and the extra heap used.
+ *
+ * The board is played until about half the safe tiles are open and then
+ * lost, so it has open areas, flags and revealed mines.
+ *
+ * Usage: {@code ExportBenchmark [width height mines [directory]]}
+ */
+public final class ExportBenchmark {
+
+    /** Largest size of the thumbnail. */
+    private static final int THUMBNAIL_SIZE = 1024;
+
+    private ExportBenchmark() {
+
+    }
+
+    /**
+     * Main-Methode.
+     *
+     * @param args optional size, number of mines and output directory
+     * @throws IOException if the images cannot be written
+     */
+    public static void main(final String[] args) throws IOException {
+        System.setProperty("java.awt.headless", "true");
+
+        int width = 1000;
+        int height = 1000;
+        int mines = 150000;
+        File directory = new File(System.getProperty("java.io.tmpdir"));
+
+        if (args.length >= 3) {
+            width = Integer.parseInt(args[0]);
+            height = Integer.parseInt(args[1]);
+            mines = Integer.parseInt(args[2]);
+        }
+
+        if (args.length >= 4) {
+            directory = new File(args[3]);
+        }
+
+        Minefield minefield = play(width, height, mines);
+
+        File full = new File(directory, "minefield.png");
+        File thumbnail = new File(directory, "minefield-thumbnail.png");
+
+        // Draw the tiles before measuring
+        export(minefield, new File(directory, "warmup.png"), 1);
+        new File(directory, "warmup.png").delete();
+
+        System.out.printf("%dx%d, %d mines%n", width, height, mines);
+        export(minefield, full, 0);
+        export(minefield, thumbnail, THUMBNAIL_SIZE);
+    }
+
+    /**
+     * Plays a game until about half the safe tiles are open, then loses.
+     *
+     * @param width width of the board
+     * @param height height of the board
+     * @param mines number of mines
+     * @return the finished minefield
+     */
+    private static Minefield play(final int width, final int height,
+            final int mines) {
+        Minefield minefield = new Minefield(width, height, mines);
+        Random rnd = new Random(1);
+        minefield.uncover(width / 2, height / 2);
+
+        int safe = width * height - mines;
+        int mineX = -1;
+        int mineY = -1;
+
+        for (int n = 0; n < safe && !minefield.isFinished(); n++) {
+            int x = rnd.nextInt(width);
+            int y = rnd.nextInt(height);
+
+            if (minefield.getTileState(x, y) != TileState.COVERED) {
+                continue;
+            }
+
+            if (minefield.getTileValue(x, y) < 0) {
+                mineX = x;
+                mineY = y;
+
+                if (rnd.nextInt(4) == 0) {
+                    minefield.setTileState(x, y, TileState.FLAGGED);
+                }
+            } else if (n % 2 == 0) {
+                minefield.uncover(x, y);
+            }
+        }
+
+        if (!minefield.isFinished() && mineX >= 0) {
+            minefield.setTileState(mineX, mineY, TileState.COVERED);
+            minefield.uncover(mineX, mineY);
+        }
+
+        return minefield;
+    }
+
+    /**
+     * Exports the board and prints the results.
+     *
+     * @param minefield the board
+     * @param file file to write
+     * @param thumbnailSize largest size of a thumbnail (0 for full size)
+     * @throws IOException if the file cannot be written
+     */
+    private static void export(final Minefield minefield, final File file,
+            final int thumbnailSize) throws IOException {
+        System.gc();
+
+        long baseline = heapUsed();
+
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            pool.resetPeakUsage();
+        }
+
+        long start = System.nanoTime();
+        OutputStream out = new BufferedOutputStream(new FileOutputStream(file));
+
+        try {
+            if (thumbnailSize == 0) {
+                BoardImageExporter.writePng(minefield, out);
+            } else {
+                BoardImageExporter.writeThumbnail(minefield, thumbnailSize,
+                        out);
+            }
+        } finally {
+            out.close();
+        }
+
+        long nanos = System.nanoTime() - start;
+        long peak = 0;
+
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                peak += pool.getPeakUsage().getUsed();
+            }
+        }
+
+        System.out.printf("%-24s %8.1f ms, %8.2f MB, peak extra heap %.1f MB%n",
+                file.getName(), nanos / 1e6, file.length() / 1e6,
+                (peak - baseline) / 1e6);
+    }
+
+    /**
+     * Gets the heap currently in use.
+     *
+     * @return bytes used
+     */
+    private static long heapUsed() {
+        long used = 0;
+
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                used += pool.getUsage().getUsed();
+            }
+        }
+
+        return used;
+    }
+}
@@ -0,0 +1,154 @@
+package uk.ac.york.minesweeper.bench;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Random;
+
+import uk.ac.york.minesweeper.GameHistory;
+import uk.ac.york.minesweeper.GameResult;
+import uk.ac.york.minesweeper.GameState;
+
+/**
+ * Measures the write throughput, startup time and query latency of
+ * {@link GameHistory}.
+ *
+ * Random results for the three preset difficulties (and a few custom
+ * sizes) are recorded over a simulated month, then the history is opened
+ * again from its snapshot and once more from the log alone.
+ *
+ * Usage: {@code HistoryBenchmark [games [directory]]}
+ */
+public final class HistoryBenchmark {
+
+    /** Difficulties as (width, height, mines) triples. */
+    private static final int[][] DIFFICULTIES = {
+        {9, 9, 10},
+        {16, 16, 40},
+        {30, 16, 99},
+        {100, 100, 2000},
+        {50, 50, 500},
+    };
+
+    /** Length of the simulated period (ms). */
+    private static final long MONTH = 30L * 24 * 60 * 60 * 1000;
+
+    /** One day (ms). */
+    private static final long DAY = 24L * 60 * 60 * 1000;
+
+    /** Number of times each query is repeated. */
+    private static final int QUERIES = 100000;
+
+    private HistoryBenchmark() {
+
+    }
+
+    /**
+     * Main-Methode.
+     *
+     * @param args optional number of games and directory for the files
+     * @throws IOException if the files cannot be written
+     */
+    public static void main(final String[] args) throws IOException {
+        int games = 2000000;
+        File directory = new File(System.getProperty("java.io.tmpdir"));
+
+        if (args.length >= 1) {
+            games = Integer.parseInt(args[0]);
+        }
+
+        if (args.length >= 2) {
+            directory = new File(args[1]);
+        }
+
+        File log = File.createTempFile("history", ".log", directory);
+        File snapshot = new File(log.getPath() + ".index");
+        log.delete();
+        log.deleteOnExit();
+        snapshot.deleteOnExit();
+
+        long end = System.currentTimeMillis();
+        Random rnd = new Random(1);
+
+        // Write
+        long start = System.nanoTime();
+        GameHistory history = new GameHistory(log);
+
+        for (int n = 0; n < games; n++) {
+            int[] size = DIFFICULTIES[rnd.nextInt(DIFFICULTIES.length)];
+            history.record(new GameResult(end - MONTH + MONTH / games * n,
+                    size[0], size[1], size[2], 1000 + rnd.nextInt(600000),
+                    rnd.nextInt(3) == 0 ? GameState.WON : GameState.LOST));
+        }
+
+        history.flush();
+        long writeNanos = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        history.close();
+        long snapshotNanos = System.nanoTime() - start;
+
+        System.out.printf("%d games, log %.1f MB, snapshot %.1f MB%n",
+                games, log.length() / 1e6, snapshot.length() / 1e6);
+        System.out.printf("write: %.0f games/s (%.0f ns/game)%n",
+                games / (writeNanos / 1e9), (double) writeNanos / games);
+        System.out.printf("write snapshot: %.1f ms%n", snapshotNanos / 1e6);
+
+        // Open from the snapshot
+        start = System.nanoTime();
+        history = new GameHistory(log);
+        System.out.printf("open from snapshot: %.1f ms%n",
+                (System.nanoTime() - start) / 1e6);
+        query(history, end);
+        history.close();
+
+        // Open from the log alone
+        snapshot.delete();
+        start = System.nanoTime();
+        history = new GameHistory(log);
+        System.out.printf("open from log: %.1f ms%n",
+                (System.nanoTime() - start) / 1e6);
+        query(history, end);
+
+        // Queries straight after new results (which sit in the small runs)
+        for (int n = 0; n < 1000; n++) {
+            history.record(new GameResult(end, 16, 16, 40,
+                    500 + rnd.nextInt(1000), GameState.WON));
+        }
+
+        query(history, end);
+        history.close();
+    }
+
+    /**
+     * Times the queries and prints their results.
+     *
+     * @param history the history
+     * @param now current time (ms since the epoch)
+     */
+    private static void query(final GameHistory history, final long now) {
+        long checksum = 0;
+        long start = System.nanoTime();
+
+        for (int n = 0; n < QUERIES; n++) {
+            checksum += history.getTopTimes(16, 16, 40, 10)[0].getDuration();
+        }
+
+        long topNanos = System.nanoTime() - start;
+        start = System.nanoTime();
+
+        for (int n = 0; n < QUERIES; n++) {
+            checksum += (long) (history.getWinRate(now - DAY) * 1000);
+        }
+
+        long rateNanos = System.nanoTime() - start;
+        GameResult[] top = history.getTopTimes(16, 16, 40, 3);
+
+        System.out.printf("  top 10: %.0f ns, win rate (last day, all"
+                + " difficulties): %.0f ns [best %d ms, %d ms, %d ms;"
+                + " rate %.3f; %d]%n",
+                (double) topNanos / QUERIES, (double) rateNanos / QUERIES,
+                top[0].getDuration(), top[1].getDuration(),
+                top[2].getDuration(), history.getWinRate(now - DAY),
+                checksum);
+    }
+}
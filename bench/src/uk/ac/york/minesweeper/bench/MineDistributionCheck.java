@@ -0,0 +1,123 @@
+package uk.ac.york.minesweeper.bench;
+
+import java.util.Random;
+
+import uk.ac.york.minesweeper.BoardId;
+import uk.ac.york.minesweeper.Minefield;
+import uk.ac.york.minesweeper.Topology;
+
+/**
+ * Regression check that pooled boards place their mines like boards
+ * generated on the first click.
+ *
+ * Pooled boards (see {@link uk.ac.york.minesweeper.BoardFactory}) are
+ * placed before the first click is known, and a mine under it is moved
+ * afterwards. They are made here from board IDs without a first click,
+ * which takes the same path. Expert boards of both kinds get their first
+ * click at the centre, and the number of boards with a mine on each tile
+ * is compared with a two proportion z-test. Exits with status 1 if any
+ * tile differs by more than MAX_Z standard errors, which chance alone
+ * does on about 1 run in 300.
+ *
+ * Usage: {@code MineDistributionCheck [boards]}
+ */
+public final class MineDistributionCheck {
+
+    /** Width of an Expert board. */
+    private static final int WIDTH = 30;
+
+    /** Height of an Expert board. */
+    private static final int HEIGHT = 16;
+
+    /** Mines on an Expert board. */
+    private static final int MINES = 99;
+
+    /** Largest z score of any tile allowed. */
+    private static final double MAX_Z = 4.5;
+
+    private MineDistributionCheck() {
+
+    }
+
+    /**
+     * Main-Methode.
+     *
+     * @param args optional number of boards of each kind
+     */
+    public static void main(final String[] args) {
+        int boards = 20000;
+
+        if (args.length >= 1) {
+            boards = Integer.parseInt(args[0]);
+        }
+
+        int startX = WIDTH / 2;
+        int startY = HEIGHT / 2;
+        int[] fresh = new int[WIDTH * HEIGHT];
+        int[] pooled = new int[WIDTH * HEIGHT];
+        Random seeds = new Random(1);
+
+        for (int n = 0; n < boards; n++) {
+            Minefield minefield = new Minefield(WIDTH, HEIGHT, MINES);
+            minefield.generate(startX, startY, seeds.nextLong());
+            minefield.uncover(startX, startY);
+            countMines(minefield, fresh);
+
+            minefield = Minefield.fromBoardId(new BoardId(WIDTH, HEIGHT,
+                    MINES, Topology.RECTANGULAR, -1, -1,
+                    Minefield.GENERATOR_VERSION, seeds.nextLong()));
+            minefield.uncover(startX, startY);
+            countMines(minefield, pooled);
+        }
+
+        double worstZ = 0;
+        int worstTile = 0;
+
+        for (int tile = 0; tile < fresh.length; tile++) {
+            double mean = (fresh[tile] + pooled[tile]) / (2.0 * boards);
+            double error = Math.sqrt(mean * (1 - mean) * 2 / boards);
+
+            if (error == 0) {
+                continue;
+            }
+
+            double z = Math.abs(pooled[tile] - fresh[tile]) / (boards * error);
+
+            if (z > worstZ) {
+                worstZ = z;
+                worstTile = tile;
+            }
+        }
+
+        System.out.printf("%d boards of each kind: mine at (0,0) %.3f "
+                + "pooled, %.3f fresh%n", boards, (double) pooled[0] / boards,
+                (double) fresh[0] / boards);
+        System.out.printf("most different tile (%d,%d): %.3f pooled, "
+                + "%.3f fresh, z = %.2f%n", worstTile % WIDTH,
+                worstTile / WIDTH, (double) pooled[worstTile] / boards,
+                (double) fresh[worstTile] / boards, worstZ);
+
+        if (worstZ > MAX_Z) {
+            System.out.println("FAILED: pooled boards place mines "
+                    + "differently");
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Adds one to the count of every tile holding a mine.
+     *
+     * @param minefield minefield after the first click
+     * @param counts number of boards with a mine on each tile
+     */
+    private static void countMines(final Minefield minefield,
+            final int[] counts) {
+        for (int y = 0; y < HEIGHT; y++) {
+            for (int x = 0; x < WIDTH; x++) {
+                if (minefield.getTileValue(x, y) < 0) {
+                    counts[y * WIDTH + x]++;
+                }
+            }
+        }
+    }
+}
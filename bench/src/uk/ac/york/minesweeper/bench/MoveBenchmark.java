@@ -0,0 +1,108 @@
+package uk.ac.york.minesweeper.bench;
+
+import java.util.Random;
+
+import uk.ac.york.minesweeper.Minefield;
+import uk.ac.york.minesweeper.MoveBatch;
+import uk.ac.york.minesweeper.TileState;
+
+/**
+ * Compares {@link Minefield#applyMoves(int[])} with issuing the same moves
+ * one call at a time.
+ *
+ * The moves are random flag, question and cover marks after one uncover,
+ * so neither run can end the game early. Apart from the calls themselves,
+ * the only difference is that the batch also collects its change set.
+ *
+ * Usage: {@code MoveBenchmark [moves]}
+ */
+public final class MoveBenchmark {
+
+    /** Board sizes as (width, height, mines) triples. */
+    private static final int[][] SIZES = {
+        {30, 16, 99},
+        {1000, 1000, 150000},
+    };
+
+    /** Number of timed rounds (the first is treated as warm up). */
+    private static final int ROUNDS = 5;
+
+    /** Tile states for the mark operations. */
+    private static final TileState[] MARKS = {
+        TileState.FLAGGED, TileState.QUESTION, TileState.COVERED,
+    };
+
+    private MoveBenchmark() {
+
+    }
+
+    /**
+     * Main-Methode.
+     *
+     * @param args optional number of moves per round
+     */
+    public static void main(final String[] args) {
+        int count = 1000000;
+
+        if (args.length >= 1) {
+            count = Integer.parseInt(args[0]);
+        }
+
+        for (int[] size : SIZES) {
+            System.out.printf("%dx%d, %d mines%n", size[0], size[1], size[2]);
+            run(size[0], size[1], size[2], count);
+        }
+    }
+
+    /**
+     * Times one board size.
+     *
+     * @param width width of the board
+     * @param height height of the board
+     * @param mines number of mines
+     * @param count number of moves per round
+     */
+    private static void run(final int width, final int height,
+            final int mines, final int count) {
+        Random rnd = new Random(1);
+        int[] moves = new int[count * 3];
+
+        for (int m = 0; m < count; m++) {
+            moves[m * 3] = MoveBatch.FLAG + rnd.nextInt(MARKS.length);
+            moves[m * 3 + 1] = rnd.nextInt(width);
+            moves[m * 3 + 2] = rnd.nextInt(height);
+        }
+
+        for (int round = 0; round < ROUNDS; round++) {
+            Minefield single = new Minefield(width, height, mines);
+            single.uncover(width / 2, height / 2);
+
+            long start = System.nanoTime();
+
+            for (int m = 0; m < count; m++) {
+                int x = moves[m * 3 + 1];
+                int y = moves[m * 3 + 2];
+
+                if (single.getTileState(x, y) != TileState.UNCOVERED) {
+                    single.setTileState(x, y,
+                            MARKS[moves[m * 3] - MoveBatch.FLAG]);
+                }
+            }
+
+            long singleNanos = System.nanoTime() - start;
+
+            Minefield batch = new Minefield(width, height, mines);
+            batch.uncover(width / 2, height / 2);
+
+            start = System.nanoTime();
+            MoveBatch result = batch.applyMoves(moves);
+            long batchNanos = System.nanoTime() - start;
+
+            System.out.printf("  round %d: single %.1f ns/move, "
+                    + "batch %.1f ns/move (%d tiles changed)%n",
+                    round, (double) singleNanos / count,
+                    (double) batchNanos / count,
+                    result.getChangedTiles().length);
+        }
+    }
+}
@@ -0,0 +1,291 @@
+package uk.ac.york.minesweeper.bench;
+
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Properties;
+import java.util.Random;
+import java.util.zip.CRC32;
+
+import uk.ac.york.minesweeper.Minefield;
+import uk.ac.york.minesweeper.TileState;
+import uk.ac.york.minesweeper.ui.MinefieldPanel;
+
+/**
+ * Paints a {@link MinefieldPanel} into an offscreen image and reports the
+ * time per frame, the time per tile and a checksum of the pixels.
+ *
+ * Runs headless, so it also works on a build machine without a display.
+ * Each board size is painted fresh, mid-game (half the safe tiles open and
+ * some mines flagged) and lost with all mines revealed. The boards are
+ * placed from fixed seeds, so the checksums only change when the drawing
+ * does. The largest board is painted through a window sized viewport, the
+ * way a scroll pane paints it.
+ *
+ * Font rendering differs between platforms, so checksums should only be
+ * compared with a baseline written on the same machine. When a baseline
+ * file is given it is written if missing and compared with otherwise; any
+ * difference makes the exit status 1.
+ *
+ * Usage: {@code RenderBenchmark [frames [baseline]]}
+ */
+public final class RenderBenchmark {
+
+    /** Board sizes as (width, height, mines) triples. */
+    private static final int[][] SIZES = {
+        {9, 9, 10},
+        {16, 16, 40},
+        {30, 16, 99},
+        {100, 100, 2000},
+        {1000, 1000, 150000},
+    };
+
+    /** Largest size of the painted image (larger boards use a viewport). */
+    private static final int VIEWPORT_WIDTH = 1280;
+
+    /** Largest height of the painted image. */
+    private static final int VIEWPORT_HEIGHT = 960;
+
+    /** Names of the reveal states. */
+    private static final String[] STATES = {"fresh", "mid-game", "finished"};
+
+    /** Number of frames painted before timing. */
+    private static final int WARMUP_FRAMES = 200;
+
+    private RenderBenchmark() {
+
+    }
+
+    /**
+     * Main-Methode.
+     *
+     * @param args optional number of timed frames and baseline file
+     * @throws IOException if the baseline cannot be read or written
+     */
+    public static void main(final String[] args) throws IOException {
+        System.setProperty("java.awt.headless", "true");
+
+        int frames = 500;
+        File baselineFile = null;
+
+        if (args.length >= 1) {
+            frames = Integer.parseInt(args[0]);
+        }
+
+        if (args.length >= 2) {
+            baselineFile = new File(args[1]);
+        }
+
+        Properties checksums = new Properties();
+
+        System.out.printf("%-18s %-9s %10s %10s %10s%n", "board", "state",
+                "ms/frame", "ns/tile", "checksum");
+
+        for (int[] size : SIZES) {
+            for (int state = 0; state < STATES.length; state++) {
+                String name = size[0] + "x" + size[1] + "/" + size[2];
+                Minefield minefield = createBoard(size[0], size[1], size[2],
+                        state);
+                String checksum = run(name, STATES[state], minefield, frames);
+                checksums.setProperty(name + "." + STATES[state], checksum);
+            }
+        }
+
+        if (baselineFile != null && !checkBaseline(baselineFile, checksums)) {
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Creates a board in one of the reveal states.
+     *
+     * @param width width of the board
+     * @param height height of the board
+     * @param mines number of mines
+     * @param state index into STATES
+     * @return the minefield
+     */
+    private static Minefield createBoard(final int width, final int height,
+            final int mines, final int state) {
+        Minefield minefield = new Minefield(width, height, mines);
+
+        if (state == 0) {
+            return minefield;
+        }
+
+        long seed = width * 31L + height;
+        Random rnd = new Random(seed);
+        minefield.generate(width / 2, height / 2, seed);
+        minefield.uncover(width / 2, height / 2);
+
+        // Open about half the safe tiles and flag some mines
+        int safe = width * height - mines;
+        int mineX = -1;
+        int mineY = -1;
+
+        for (int n = 0; n < safe && !minefield.isFinished(); n++) {
+            int x = rnd.nextInt(width);
+            int y = rnd.nextInt(height);
+
+            if (minefield.getTileState(x, y) != TileState.COVERED) {
+                continue;
+            }
+
+            if (minefield.getTileValue(x, y) < 0) {
+                mineX = x;
+                mineY = y;
+
+                if (rnd.nextInt(4) == 0) {
+                    minefield.setTileState(x, y, TileState.FLAGGED);
+                } else if (rnd.nextInt(4) == 0) {
+                    minefield.setTileState(x, y, TileState.QUESTION);
+                }
+            } else if (n % 2 == 0) {
+                minefield.uncover(x, y);
+            }
+        }
+
+        if (state == 2 && !minefield.isFinished() && mineX >= 0) {
+            // Lose on the last mine seen (this reveals all the others)
+            minefield.setTileState(mineX, mineY, TileState.COVERED);
+            minefield.uncover(mineX, mineY);
+        }
+
+        return minefield;
+    }
+
+    /**
+     * Times painting one board and prints the results.
+     *
+     * @param name name of the board size
+     * @param state name of the reveal state
+     * @param minefield the board
+     * @param frames number of timed frames
+     * @return checksum of the painted pixels (as hex)
+     */
+    private static String run(final String name, final String state,
+            final Minefield minefield, final int frames) {
+        MinefieldPanel panel = new MinefieldPanel(minefield);
+        panel.setSize(panel.getPreferredSize());
+
+        // Paint the middle of boards larger than the viewport
+        int imageWidth = Math.min(panel.getWidth(), VIEWPORT_WIDTH);
+        int imageHeight = Math.min(panel.getHeight(), VIEWPORT_HEIGHT);
+        int viewX = (panel.getWidth() - imageWidth) / 2;
+        int viewY = (panel.getHeight() - imageHeight) / 2;
+
+        BufferedImage image = new BufferedImage(imageWidth, imageHeight,
+                BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = image.createGraphics();
+        g.translate(-viewX, -viewY);
+        g.setClip(viewX, viewY, imageWidth, imageHeight);
+
+        try {
+            for (int n = 0; n < WARMUP_FRAMES; n++) {
+                panel.paintComponent(g);
+            }
+
+            long start = System.nanoTime();
+
+            for (int n = 0; n < frames; n++) {
+                panel.paintComponent(g);
+            }
+
+            long nanos = System.nanoTime() - start;
+
+            // Tiles touched by the viewport
+            int tileSize = MinefieldPanel.TILE_SIZE;
+            long tiles = (long) ((viewX + imageWidth - 1) / tileSize
+                    - viewX / tileSize + 1)
+                    * ((viewY + imageHeight - 1) / tileSize
+                    - viewY / tileSize + 1);
+
+            String checksum = checksum(image);
+            System.out.printf("%-18s %-9s %10.3f %10.1f %10s%n", name, state,
+                    nanos / 1e6 / frames, (double) nanos / frames / tiles,
+                    checksum);
+            return checksum;
+        } finally {
+            g.dispose();
+        }
+    }
+
+    /**
+     * Calculates a checksum of an image's pixels.
+     *
+     * @param image image of type TYPE_INT_RGB
+     * @return CRC32 of the pixels as hex
+     */
+    private static String checksum(final BufferedImage image) {
+        int[] pixels = ((DataBufferInt) image.getRaster().getDataBuffer())
+                .getData();
+        byte[] bytes = new byte[pixels.length * 3];
+
+        for (int p = 0; p < pixels.length; p++) {
+            bytes[p * 3] = (byte) (pixels[p] >> 16);
+            bytes[p * 3 + 1] = (byte) (pixels[p] >> 8);
+            bytes[p * 3 + 2] = (byte) pixels[p];
+        }
+
+        CRC32 crc = new CRC32();
+        crc.update(bytes, 0, bytes.length);
+        return String.format("%08x", crc.getValue());
+    }
+
+    /**
+     * Compares checksums with a baseline file, writing it if missing.
+     *
+     * @param file baseline file
+     * @param checksums checksums of this run
+     * @return false if any checksum differs from the baseline
+     * @throws IOException if the file cannot be read or written
+     */
+    private static boolean checkBaseline(final File file,
+            final Properties checksums) throws IOException {
+        if (!file.exists()) {
+            OutputStream out = new FileOutputStream(file);
+
+            try {
+                checksums.store(out, "RenderBenchmark pixel checksums");
+            } finally {
+                out.close();
+            }
+
+            System.out.println("baseline written to " + file);
+            return true;
+        }
+
+        Properties baseline = new Properties();
+        InputStream in = new FileInputStream(file);
+
+        try {
+            baseline.load(in);
+        } finally {
+            in.close();
+        }
+
+        boolean same = true;
+
+        for (String key : checksums.stringPropertyNames()) {
+            String expected = baseline.getProperty(key);
+
+            if (!checksums.getProperty(key).equals(expected)) {
+                System.out.printf("CHANGED: %s is %s, baseline %s%n", key,
+                        checksums.getProperty(key), expected);
+                same = false;
+            }
+        }
+
+        if (same) {
+            System.out.println("all checksums match " + file);
+        }
+
+        return same;
+    }
+}
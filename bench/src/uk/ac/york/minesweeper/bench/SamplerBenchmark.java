@@ -0,0 +1,108 @@
+package uk.ac.york.minesweeper.bench;
+
+import java.util.Random;
+
+import uk.ac.york.minesweeper.Minefield;
+import uk.ac.york.minesweeper.ProbabilitySampler;
+import uk.ac.york.minesweeper.TileState;
+
+/**
+ * Measures how {@link ProbabilitySampler} scales with the number of
+ * threads.
+ *
+ * A large board is played from a fixed seed until about a third of the
+ * safe tiles have been opened at random, which leaves a huge, tangled
+ * frontier. The sampler then runs for the same time with 1, 2, 4, ...
+ * threads up to the number of processors. Steps per second show the raw
+ * scaling; the widest confidence bound shows how much that buys.
+ *
+ * Usage: {@code SamplerBenchmark [width height mines [millis]]}
+ */
+public final class SamplerBenchmark {
+
+    private SamplerBenchmark() {
+
+    }
+
+    /**
+     * Main-Methode.
+     *
+     * @param args optional size, number of mines and time per run
+     */
+    public static void main(final String[] args) {
+        int width = 1000;
+        int height = 1000;
+        int mines = 150000;
+        long millis = 10000;
+
+        if (args.length >= 3) {
+            width = Integer.parseInt(args[0]);
+            height = Integer.parseInt(args[1]);
+            mines = Integer.parseInt(args[2]);
+        }
+
+        if (args.length >= 4) {
+            millis = Long.parseLong(args[3]);
+        }
+
+        Minefield minefield = play(width, height, mines);
+        long start = System.nanoTime();
+        ProbabilitySampler sampler = new ProbabilitySampler(minefield);
+
+        System.out.printf("%dx%d, %d mines: frontier %d tiles (%d forced), "
+                + "read in %.0f ms%n", width, height, mines,
+                sampler.getFrontierSize(), sampler.getForcedCount(),
+                (System.nanoTime() - start) / 1e6);
+
+        int processors = Runtime.getRuntime().availableProcessors();
+        double single = 0;
+
+        for (int threads = 1; threads <= Math.max(2, processors);
+                threads *= 2) {
+            ProbabilitySampler.Result result =
+                    sampler.sample(threads, millis, 0, threads);
+            double stepsPerSecond = result.getSteps() * 1e9 / result.getNanos();
+
+            if (threads == 1) {
+                single = stepsPerSecond;
+            }
+
+            System.out.printf("%2d threads %,14.0f steps/s (x%.2f) "
+                    + "%,10d layouts, widest bound %.4f%n", threads,
+                    stepsPerSecond, stepsPerSecond / single,
+                    result.getSamples(), result.getMaxHalfWidth());
+        }
+
+        System.out.println(processors + " processors available");
+    }
+
+    /**
+     * Plays a game until about a third of the safe tiles are open.
+     *
+     * @param width width of the board
+     * @param height height of the board
+     * @param mines number of mines
+     * @return the minefield (still running)
+     */
+    private static Minefield play(final int width, final int height,
+            final int mines) {
+        Minefield minefield = new Minefield(width, height, mines);
+        Random rnd = new Random(1);
+        minefield.generate(width / 2, height / 2, 1L);
+        minefield.uncover(width / 2, height / 2);
+
+        int safe = width * height - mines;
+
+        for (int n = 0; n < safe / 3 && !minefield.isFinished(); n++) {
+            int x = rnd.nextInt(width);
+            int y = rnd.nextInt(height);
+
+            if (minefield.getTileState(x, y) == TileState.COVERED
+                    && minefield.getTileValue(x, y) >= 0) {
+                minefield.uncover(x, y);
+            }
+        }
+
+        return minefield;
+    }
+}
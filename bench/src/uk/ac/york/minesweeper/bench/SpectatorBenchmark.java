@@ -0,0 +1,393 @@
+package uk.ac.york.minesweeper.bench;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.Random;
+import java.util.concurrent.locks.LockSupport;
+
+import uk.ac.york.minesweeper.GameState;
+import uk.ac.york.minesweeper.Minefield;
+import uk.ac.york.minesweeper.SpectatorBroadcaster;
+import uk.ac.york.minesweeper.SpectatorServer;
+import uk.ac.york.minesweeper.SpectatorView;
+import uk.ac.york.minesweeper.TileState;
+
+/**
+ * Broadcasts a game to local socket spectators and measures the bandwidth
+ * and CPU time used per spectator.
+ *
+ * A bot plays the game, flagging every mine and uncovering every safe
+ * tile in a random order. It is timed as fast as it can play alone and
+ * with a broadcaster but no spectators, to show the cost of encoding.
+ * Watched, it pauses between moves so normal spectators keep up and the
+ * figures measure the delta stream rather than catching up from
+ * keyframes; the times skipped forward are printed next to them. One
+ * extra spectator takes messages straight from its subscription (the
+ * socket buffers would hide a slow reader) and slowly, to show that it is
+ * skipped forward instead of slowing the game. At the end every
+ * spectator's view is checked against the board.
+ *
+ * Usage: {@code SpectatorBenchmark [spectators [width height mines]]}
+ */
+public final class SpectatorBenchmark {
+
+    /** Least number of moves between keyframes. */
+    private static final int KEYFRAME_INTERVAL = 256;
+
+    /** Number of messages a spectator can fall behind. */
+    private static final int QUEUE_CAPACITY = 64;
+
+    /** Pause of the watched bot after each move (ns). */
+    private static final long MOVE_PAUSE = 100000;
+
+    /** Time the slow spectator sleeps after each message (ms). */
+    private static final long SLOW_DELAY = 2;
+
+    /** Time to wait for the spectators to finish (ms). */
+    private static final long TIMEOUT = 30000;
+
+    private SpectatorBenchmark() {
+
+    }
+
+    /**
+     * Main-Methode.
+     *
+     * @param args optional number of spectators, size and number of mines
+     * @throws Exception if the server cannot be started or the spectators
+     *         are interrupted
+     */
+    public static void main(final String[] args) throws Exception {
+        int spectators = 50;
+        int width = 100;
+        int height = 100;
+        int mines = 1500;
+
+        if (args.length >= 1) {
+            spectators = Integer.parseInt(args[0]);
+        }
+
+        if (args.length >= 4) {
+            width = Integer.parseInt(args[1]);
+            height = Integer.parseInt(args[2]);
+            mines = Integer.parseInt(args[3]);
+        }
+
+        int[] order = shuffledTiles(width * height);
+
+        // Play without spectators for comparison
+        long start = System.nanoTime();
+        int baseMoves = play(new Minefield(width, height, mines), order, 0);
+        long baseNanos = System.nanoTime() - start;
+
+        Minefield unwatched = new Minefield(width, height, mines);
+        new SpectatorBroadcaster(unwatched, KEYFRAME_INTERVAL, QUEUE_CAPACITY);
+        start = System.nanoTime();
+        int encodedMoves = play(unwatched, order, 0);
+        long encodedNanos = System.nanoTime() - start;
+
+        Minefield minefield = new Minefield(width, height, mines);
+        SpectatorBroadcaster broadcaster = new SpectatorBroadcaster(
+                minefield, KEYFRAME_INTERVAL, QUEUE_CAPACITY);
+        SpectatorServer server = new SpectatorServer(broadcaster,
+                new ServerSocket(0, spectators + 1,
+                        InetAddress.getLoopbackAddress()));
+
+        Spectator[] clients = new Spectator[spectators + 1];
+
+        for (int n = 0; n < spectators; n++) {
+            clients[n] = new Spectator(server.getPort());
+            clients[n].start();
+        }
+
+        while (broadcaster.getSubscriberCount() < spectators) {
+            Thread.sleep(10);
+        }
+
+        // Kept, since the server drops them once the spectators disconnect
+        SpectatorBroadcaster.Subscription[] subscriptions =
+                server.getSubscriptions();
+        SpectatorBroadcaster.Subscription slowSubscription =
+                broadcaster.subscribe();
+        clients[spectators] = new Spectator(slowSubscription, SLOW_DELAY);
+        clients[spectators].start();
+
+        broadcaster.publishKeyframe();
+
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        long gameCpu = threads.getCurrentThreadCpuTime();
+        start = System.nanoTime();
+        int moves = play(minefield, order, MOVE_PAUSE);
+        long gameWall = System.nanoTime() - start;
+        long gameNanos = threads.getCurrentThreadCpuTime() - gameCpu;
+
+        // Lets any spectator which skipped the end catch up
+        broadcaster.publishKeyframe();
+
+        for (Spectator client : clients) {
+            client.join(TIMEOUT);
+        }
+
+        long writerNanos = 0;
+
+        for (Thread writer : server.getWriterThreads()) {
+            writerNanos += threads.getThreadCpuTime(writer.getId());
+        }
+
+        long clientNanos = 0;
+        long clientBytes = 0;
+        long clientMessages = 0;
+        long skips = 0;
+        long maxSkips = 0;
+        int correct = 0;
+
+        for (int n = 0; n < spectators; n++) {
+            clientNanos += clients[n].cpuNanos;
+            clientBytes += clients[n].bytes;
+            clientMessages += clients[n].messages;
+            skips += subscriptions[n].getSkips();
+            maxSkips = Math.max(maxSkips, subscriptions[n].getSkips());
+
+            if (clients[n].matches(minefield)) {
+                correct++;
+            }
+        }
+
+        Spectator slow = clients[spectators];
+
+        System.out.printf("%dx%d, %d mines, %d spectators%n",
+                width, height, mines, spectators);
+        System.out.printf("game alone:              %d moves, %.0f ns/move%n",
+                baseMoves, (double) baseNanos / baseMoves);
+        System.out.printf("game with broadcaster:   %d moves, %.0f ns/move%n",
+                encodedMoves, (double) encodedNanos / encodedMoves);
+        System.out.printf("game with spectators:    %d moves, %.0f CPU "
+                + "ns/move, %.0f ns/move with pauses%n",
+                moves, (double) gameNanos / moves, (double) gameWall / moves);
+        System.out.printf("encoded: %d bytes (%.1f bytes/move)%n",
+                broadcaster.getBytesPublished(),
+                (double) broadcaster.getBytesPublished() / moves);
+        System.out.printf("per spectator: %.0f messages, %.0f bytes, "
+                + "%.2f skips (at most %d), %.1f ms writer CPU, "
+                + "%.1f ms reader CPU%n",
+                (double) clientMessages / spectators,
+                (double) clientBytes / spectators,
+                (double) skips / spectators, maxSkips,
+                writerNanos / 1e6 / clients.length,
+                clientNanos / 1e6 / spectators);
+        System.out.printf("views matching the board: %d / %d%n",
+                correct, spectators);
+        System.out.printf("slow spectator: %d messages for %d moves, "
+                + "%d skips, matches board: %b%n", slow.messages, moves,
+                slowSubscription.getSkips(),
+                slow.matches(minefield));
+
+        slowSubscription.close();
+        server.close();
+    }
+
+    /**
+     * Plays a game to the end.
+     *
+     * @param minefield the minefield
+     * @param order order to visit the tiles in
+     * @param pause time to pause after each move (ns, 0 for none)
+     * @return number of moves made
+     */
+    private static int play(final Minefield minefield, final int[] order,
+            final long pause) {
+        int width = minefield.getWidth();
+        int moves = 1;
+
+        minefield.uncover(order[0] % width, order[0] / width);
+
+        for (int tile : order) {
+            if (minefield.isFinished()) {
+                break;
+            }
+
+            int x = tile % width;
+            int y = tile / width;
+
+            if (minefield.getTileState(x, y) == TileState.UNCOVERED) {
+                continue;
+            }
+
+            if (minefield.getTileValue(x, y) < 0) {
+                minefield.setTileState(x, y, TileState.FLAGGED);
+            } else {
+                minefield.uncover(x, y);
+            }
+
+            moves++;
+
+            if (pause > 0) {
+                LockSupport.parkNanos(pause);
+            }
+        }
+
+        return moves;
+    }
+
+    /**
+     * Creates a random order of every tile.
+     *
+     * @param count number of tiles
+     * @return shuffled tile numbers
+     */
+    private static int[] shuffledTiles(final int count) {
+        Random rnd = new Random(1);
+        int[] tiles = new int[count];
+
+        for (int n = 0; n < count; n++) {
+            tiles[n] = n;
+        }
+
+        for (int n = count - 1; n > 0; n--) {
+            int other = rnd.nextInt(n + 1);
+            int swap = tiles[n];
+            tiles[n] = tiles[other];
+            tiles[other] = swap;
+        }
+
+        return tiles;
+    }
+
+    /**
+     * A spectator reading from a socket until the game finishes.
+     */
+    private static final class Spectator extends Thread {
+
+        /** The spectator's copy of the board. */
+        private final SpectatorView view = new SpectatorView();
+
+        /** Port of the server (unused with a subscription). */
+        private final int port;
+
+        /** Subscription to take messages from (null to use the server). */
+        private final SpectatorBroadcaster.Subscription subscription;
+
+        /** Time to sleep after each message (ms). */
+        private final long delay;
+
+        /** Bytes received (including the length prefixes). */
+        private volatile long bytes;
+
+        /** Messages received. */
+        private volatile int messages;
+
+        /** CPU time used by the thread (ns). */
+        private volatile long cpuNanos;
+
+        /**
+         * Initializes a new Spectator reading from the server as fast as
+         * it can.
+         *
+         * @param serverPort port of the server
+         */
+        Spectator(final int serverPort) {
+            super("spectator-client");
+            this.port = serverPort;
+            this.subscription = null;
+            this.delay = 0;
+            setDaemon(true);
+        }
+
+        /**
+         * Initializes a new Spectator taking messages from a subscription.
+         *
+         * @param source subscription to take messages from
+         * @param sleep time to sleep after each message (ms)
+         */
+        Spectator(final SpectatorBroadcaster.Subscription source,
+                final long sleep) {
+            super("spectator-slow");
+            this.port = -1;
+            this.subscription = source;
+            this.delay = sleep;
+            setDaemon(true);
+        }
+
+        @Override
+        public void run() {
+            try {
+                if (subscription != null) {
+                    while (!receive(subscription.take(), 0)) {
+                        Thread.sleep(delay);
+                    }
+
+                    return;
+                }
+
+                Socket socket = new Socket(
+                        InetAddress.getLoopbackAddress(), port);
+
+                try {
+                    DataInputStream in = new DataInputStream(
+                            new BufferedInputStream(socket.getInputStream()));
+                    byte[] message;
+
+                    do {
+                        message = SpectatorServer.readMessage(in);
+                    } while (message != null && !receive(message, 4));
+                } finally {
+                    cpuNanos = ManagementFactory.getThreadMXBean()
+                            .getCurrentThreadCpuTime();
+                    socket.close();
+                }
+            } catch (IOException e) {
+                e.printStackTrace();
+            } catch (InterruptedException e) {
+                return;
+            }
+        }
+
+        /**
+         * Applies a message to the view.
+         *
+         * @param message the message
+         * @param prefix bytes sent ahead of the message
+         * @return true once the view shows the finished game
+         */
+        private boolean receive(final byte[] message, final int prefix) {
+            bytes += prefix + message.length;
+            messages++;
+
+            view.apply(message);
+
+            return view.isSynced() && (view.getGameState() == GameState.WON
+                    || view.getGameState() == GameState.LOST);
+        }
+
+        /**
+         * Returns true if the view matches the visible board.
+         *
+         * @param minefield the board
+         * @return true if every tile and the game state match
+         */
+        boolean matches(final Minefield minefield) {
+            if (view.getGameState() != minefield.getGameState()
+                    || view.getWidth() != minefield.getWidth()
+                    || view.getHeight() != minefield.getHeight()) {
+                return false;
+            }
+
+            for (int y = 0; y < view.getHeight(); y++) {
+                for (int x = 0; x < view.getWidth(); x++) {
+                    if (view.getVisibleTile(x, y)
+                            != minefield.getVisibleTile(x, y)) {
+                        return false;
+                    }
+                }
+            }
+
+            return true;
+        }
+    }
+}
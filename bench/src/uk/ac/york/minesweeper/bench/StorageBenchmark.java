@@ -0,0 +1,124 @@
+package uk.ac.york.minesweeper.bench;
+
+import java.io.File;
+import java.io.IOException;
+
+import uk.ac.york.minesweeper.MappedMinefield;
+import uk.ac.york.minesweeper.Minefield;
+import uk.ac.york.minesweeper.TileState;
+
+/**
+ * Compares {@link Minefield} on the heap with {@link MappedMinefield} in
+ * direct memory and mapped to a file.
+ *
+ * Each round generates a board, makes the first click and then uncovers
+ * every remaining safe tile in row order (the same moves for each backend).
+ *
+ * Usage: {@code StorageBenchmark [width height mines [directory]]}
+ */
+public final class StorageBenchmark {
+
+    /** Number of timed rounds (the first is treated as warm up). */
+    private static final int ROUNDS = 4;
+
+    private StorageBenchmark() {
+
+    }
+
+    /**
+     * Main-Methode.
+     *
+     * @param args optional size, number of mines and directory for the
+     *        mapped file
+     * @throws IOException if the mapped file cannot be created
+     */
+    public static void main(final String[] args) throws IOException {
+        int width = 2000;
+        int height = 2000;
+        int mines = 400000;
+        File directory = new File(System.getProperty("java.io.tmpdir"));
+
+        if (args.length >= 3) {
+            width = Integer.parseInt(args[0]);
+            height = Integer.parseInt(args[1]);
+            mines = Integer.parseInt(args[2]);
+        }
+
+        if (args.length >= 4) {
+            directory = new File(args[3]);
+        }
+
+        File file = File.createTempFile("minefield", ".tiles", directory);
+        file.deleteOnExit();
+
+        for (int round = 0; round < ROUNDS; round++) {
+            long heapFirst;
+            long heapRest;
+            long start = System.nanoTime();
+
+            Minefield heap = new Minefield(width, height, mines);
+            heap.uncover(width / 2, height / 2);
+            heapFirst = System.nanoTime() - start;
+
+            for (int y = 0; y < height && !heap.isFinished(); y++) {
+                for (int x = 0; x < width; x++) {
+                    if (heap.getTileValue(x, y) >= 0
+                            && heap.getTileState(x, y) != TileState.UNCOVERED) {
+                        heap.uncover(x, y);
+                    }
+                }
+            }
+
+            heapRest = System.nanoTime() - start - heapFirst;
+
+            for (int mapped = 0; mapped < 2; mapped++) {
+                start = System.nanoTime();
+
+                MappedMinefield offHeap = mapped == 0
+                        ? MappedMinefield.allocate(width, height, mines)
+                        : MappedMinefield.map(file, width, height, mines);
+
+                try {
+                    offHeap.uncover(width / 2, height / 2);
+                    long first = System.nanoTime() - start;
+
+                    for (int y = 0; y < height && !offHeap.isFinished(); y++) {
+                        for (int x = 0; x < width; x++) {
+                            if (offHeap.getTileValue(x, y) >= 0
+                                    && offHeap.getTileState(x, y)
+                                        != TileState.UNCOVERED) {
+                                offHeap.uncover(x, y);
+                            }
+                        }
+                    }
+
+                    long rest = System.nanoTime() - start - first;
+
+                    if (mapped == 0) {
+                        print(round, "heap", heapFirst, heapRest);
+                        print(round, "direct", first, rest);
+                    } else {
+                        print(round, "mapped", first, rest);
+                    }
+                } finally {
+                    offHeap.close();
+                }
+            }
+        }
+    }
+
+    /**
+     * Prints the timings of one backend.
+     *
+     * @param round round number (0 is warm up)
+     * @param name name of the backend
+     * @param first time taken to generate and make the first click (ns)
+     * @param rest time taken to uncover everything else (ns)
+     */
+    private static void print(final int round, final String name,
+            final long first, final long rest) {
+        System.out.printf("round %d %-6s first click %8.1f ms, "
+                + "clear board %8.1f ms%n",
+                round, name, first / 1e6, rest / 1e6);
+    }
+}
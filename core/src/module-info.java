@@ -0,0 +1,13 @@
+/**
+ * The minesweeper engine: boards, game state, history, analysis and the
+ * headless front-ends (console and spectator server).
+ *
+ * Nothing here needs java.desktop, so servers and simulations can run the
+ * engine without shipping Swing or starting AWT.
+ */
+module uk.ac.york.minesweeper {
+    requires transitive java.logging;
+    requires java.management;
+
+    exports uk.ac.york.minesweeper;
+}
@@ -0,0 +1,166 @@
+package uk.ac.york.minesweeper;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * A topology compiled for one minefield size.
+ *
+ * Tiles are identified by their index in the minefield's padded arrays
+ * ({@code (y + 1) * (width + 2) + x + 1}). The surrounding tiles of tile i
+ * are {@code targets[start[i]]} to {@code targets[start[i + 1] - 1]}
+ * (compressed sparse rows). The rectangular topology has the same relative
+ * offsets for every tile, so it is stored as {@link #getOffsets()} instead
+ * and relies on the sentinel border for the edges.
+ */
+final class Adjacency {
+
+    /** Most recently compiled adjacency of each topology. */
+    private static final AtomicReferenceArray<Adjacency> CACHE =
+            new AtomicReferenceArray<Adjacency>(Topology.values().length);
+
+    /** Topology which was compiled. */
+    private final Topology topology;
+
+    /** Width of the minefield. */
+    private final int width;
+
+    /** Height of the minefield. */
+    private final int height;
+
+    /** Relative offsets of the surrounding tiles (null if not uniform). */
+    private final int[] offsets;
+
+    /** Start of each tile's row in targets (null if uniform). */
+    private final int[] start;
+
+    /** Surrounding tiles of every tile (null if uniform). */
+    private final int[] targets;
+
+    /**
+     * Initializes a new Adjacency.
+     *
+     * @param topology topology to compile
+     * @param width width of the minefield
+     * @param height height of the minefield
+     */
+    private Adjacency(final Topology topology,
+            final int width, final int height) {
+        int stride = width + 2;
+
+        this.topology = topology;
+        this.width = width;
+        this.height = height;
+
+        if (topology == Topology.RECTANGULAR) {
+            this.offsets = new int[] {
+                -stride - 1, -stride, -stride + 1,
+                -1,                   1,
+                stride - 1,  stride,  stride + 1,
+            };
+            this.start = null;
+            this.targets = null;
+            return;
+        }
+
+        int[] rowStart = new int[stride * (height + 2) + 1];
+        int[] neighbours = new int[Topology.MAX_NEIGHBOURS];
+        int count = 0;
+
+        // First pass counts the surrounding tiles (sentinels get empty rows)
+        for (int i = 0; i < rowStart.length - 1; i++) {
+            rowStart[i] = count;
+
+            int x = i % stride - 1;
+            int y = i / stride - 1;
+
+            if (x >= 0 && y >= 0 && x < width && y < height) {
+                count += topology.getNeighbours(x, y, width, height,
+                        neighbours);
+            }
+        }
+
+        rowStart[rowStart.length - 1] = count;
+
+        // Second pass stores them
+        int[] rows = new int[count];
+
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                int next = rowStart[(y + 1) * stride + x + 1];
+                int found = topology.getNeighbours(x, y, width, height,
+                        neighbours);
+
+                for (int i = 0; i < found; i++) {
+                    int tile = neighbours[i];
+                    rows[next++] = (tile / width + 1) * stride
+                            + tile % width + 1;
+                }
+            }
+        }
+
+        this.offsets = null;
+        this.start = rowStart;
+        this.targets = rows;
+    }
+
+    /**
+     * Gets the adjacency of a topology for the given minefield size.
+     *
+     * The last table compiled for each topology is reused, so creating lots
+     * of minefields of the same size only compiles it once.
+     *
+     * @param topology minefield topology
+     * @param width width of the minefield
+     * @param height height of the minefield
+     * @return the compiled adjacency
+     */
+    static Adjacency get(final Topology topology,
+            final int width, final int height) {
+        Adjacency adjacency = CACHE.get(topology.ordinal());
+
+        if (adjacency == null || adjacency.width != width
+                || adjacency.height != height) {
+            adjacency = new Adjacency(topology, width, height);
+            CACHE.set(topology.ordinal(), adjacency);
+        }
+
+        return adjacency;
+    }
+
+    /**
+     * Gets the topology which was compiled.
+     *
+     * @return topology
+     */
+    Topology getTopology() {
+        return topology;
+    }
+
+    /**
+     * Gets the relative offsets of the surrounding tiles.
+     *
+     * @return offsets shared by every tile or null if not uniform
+     */
+    int[] getOffsets() {
+        return offsets;
+    }
+
+    /**
+     * Gets the start of each tile's surrounding tiles in {@link #getTargets}.
+     *
+     * @return row starts (one more than the number of array indexes) or null
+     *         if uniform
+     */
+    int[] getStart() {
+        return start;
+    }
+
+    /**
+     * Gets the surrounding tiles of every tile.
+     *
+     * @return array indexes of surrounding tiles or null if uniform
+     */
+    int[] getTargets() {
+        return targets;
+    }
+}
@@ -0,0 +1,428 @@
+package uk.ac.york.minesweeper;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Difficulty measures of a generated minefield.
+ *
+ * <ul>
+ * <li>An opening is a connected region of tiles with no surrounding mines.
+ *     Clicking any tile of an opening uncovers the whole region and the
+ *     numbers around it.</li>
+ * <li>3BV is the minimum number of clicks needed to uncover every safe
+ *     tile: one per opening plus one per numbered tile which is not next to
+ *     an opening.</li>
+ * <li>An island is a connected group of numbered tiles which are not next
+ *     to an opening (so must all be clicked one at a time).</li>
+ * </ul>
+ *
+ * Everything is found in three linear scans of the minefield's tile arrays
+ * using union-find (no recursive fills), following the minefield's
+ * {@link Topology}.
+ */
+public final class BoardAnalysis {
+
+    /** Number of boards taken by a thread at once in analyzeAll. */
+    private static final int BATCH_SIZE = 64;
+
+    /** Number of openings. */
+    private final int openings;
+
+    /** Number of islands. */
+    private final int islands;
+
+    /** The 3BV of the board. */
+    private final int threeBV;
+
+    /** Tiles uncovered by clicking the largest opening. */
+    private final int largestOpening;
+
+    /** Safe tiles which are not in or around an opening. */
+    private final int isolatedTiles;
+
+    /**
+     * Initializes a new BoardAnalysis.
+     *
+     * @param openingCount number of openings
+     * @param islandCount number of islands
+     * @param clicks 3BV
+     * @param largest tiles uncovered by the largest opening
+     * @param isolated numbered tiles not next to an opening
+     */
+    private BoardAnalysis(final int openingCount, final int islandCount,
+            final int clicks, final int largest, final int isolated) {
+        this.openings = openingCount;
+        this.islands = islandCount;
+        this.threeBV = clicks;
+        this.largestOpening = largest;
+        this.isolatedTiles = isolated;
+    }
+
+    /**
+     * Analyses a minefield.
+     *
+     * @param minefield minefield to analyse (the mines must be placed)
+     * @return the analysis
+     * @throws IllegalStateException if the mines have not been placed
+     */
+    public static BoardAnalysis analyze(final Minefield minefield) {
+        return new Workspace().analyze(minefield);
+    }
+
+    /**
+     * Analyses lots of minefields in parallel.
+     *
+     * Each thread reuses its own work arrays, so this does not allocate
+     * per board once the threads are running.
+     *
+     * @param minefields minefields to analyse (the mines must be placed)
+     * @param threads number of threads to use
+     * @return analyses in the same order as minefields
+     * @throws IllegalStateException if the mines of any minefield have not
+     *         been placed
+     */
+    public static BoardAnalysis[] analyzeAll(final Minefield[] minefields,
+            final int threads) {
+        final BoardAnalysis[] results = new BoardAnalysis[minefields.length];
+        final AtomicInteger next = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(
+                Math.max(1, threads));
+        List<Future<?>> futures = new ArrayList<Future<?>>();
+
+        try {
+            for (int i = 0; i < Math.max(1, threads); i++) {
+                futures.add(executor.submit(new Runnable() {
+                    @Override
+                    public void run() {
+                        Workspace workspace = new Workspace();
+
+                        // Boards are handed out in small batches
+                        for (;;) {
+                            int start = next.getAndAdd(BATCH_SIZE);
+                            if (start >= minefields.length) {
+                                break;
+                            }
+
+                            int end = Math.min(minefields.length,
+                                    start + BATCH_SIZE);
+                            for (int j = start; j < end; j++) {
+                                results[j] = workspace.analyze(minefields[j]);
+                            }
+                        }
+                    }
+                }));
+            }
+
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("interrupted", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+
+            throw new IllegalStateException(e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+
+        return results;
+    }
+
+    /**
+     * Gets the number of openings.
+     *
+     * @return connected regions of tiles with no surrounding mines
+     */
+    public int getOpenings() {
+        return openings;
+    }
+
+    /**
+     * Gets the number of islands.
+     *
+     * @return connected groups of numbered tiles not next to an opening
+     */
+    public int getIslands() {
+        return islands;
+    }
+
+    /**
+     * Gets the 3BV of the board.
+     *
+     * @return minimum number of clicks needed to win
+     */
+    public int get3BV() {
+        return threeBV;
+    }
+
+    /**
+     * Gets the size of the largest opening.
+     *
+     * @return tiles uncovered by clicking the largest opening (including the
+     *         numbers around it), or 0 if there are no openings
+     */
+    public int getLargestOpening() {
+        return largestOpening;
+    }
+
+    /**
+     * Gets the number of numbered tiles which are not next to an opening.
+     *
+     * @return tiles which must each be clicked
+     */
+    public int getIsolatedTiles() {
+        return isolatedTiles;
+    }
+
+    @Override
+    public String toString() {
+        return "3BV " + threeBV + ", " + openings + " openings (largest "
+                + largestOpening + "), " + islands + " islands";
+    }
+
+    /**
+     * Work arrays for analysing boards of one size.
+     */
+    private static final class Workspace {
+
+        /** Tile is a mine or sentinel. */
+        private static final byte CLASS_NONE = 0;
+
+        /** Tile has no surrounding mines. */
+        private static final byte CLASS_ZERO = 1;
+
+        /** Numbered tile next to an opening. */
+        private static final byte CLASS_EDGE = 2;
+
+        /** Numbered tile not next to an opening. */
+        private static final byte CLASS_ISOLATED = 3;
+
+        /** Union-find parent of each array index. */
+        private int[] parent = new int[0];
+
+        /** Tiles in each opening (indexed by root, zeros only). */
+        private int[] size = new int[0];
+
+        /** Class of each array index. */
+        private byte[] tileClass = new byte[0];
+
+        /**
+         * Analyses a minefield using these arrays.
+         *
+         * @param minefield minefield to analyse
+         * @return the analysis
+         */
+        BoardAnalysis analyze(final Minefield minefield) {
+            if (!minefield.isGenerated()) {
+                throw new IllegalStateException(
+                        "the mines have not been placed");
+            }
+
+            int width = minefield.getWidth();
+            int height = minefield.getHeight();
+            int stride = minefield.getStride();
+            int length = stride * (height + 2);
+
+            if (parent.length < length) {
+                parent = new int[length];
+                size = new int[length];
+                tileClass = new byte[length];
+            }
+
+            int[] list = minefield.neighbourList();
+
+            // Mines and sentinels are never joined to anything
+            Arrays.fill(tileClass, 0, length, CLASS_NONE);
+
+            // Classify every tile, joining up neighbouring zeros
+            for (int y = 0; y < height; y++) {
+                int rowEnd = (y + 1) * stride + width + 1;
+
+                for (int i = rowEnd - width; i < rowEnd; i++) {
+                    parent[i] = i;
+                    size[i] = 0;
+
+                    int value = minefield.valueAt(i);
+
+                    if (value == 0) {
+                        tileClass[i] = CLASS_ZERO;
+                    } else if (value > 0) {
+                        tileClass[i] = CLASS_ISOLATED;
+                    }
+                }
+            }
+
+            for (int y = 0; y < height; y++) {
+                int rowEnd = (y + 1) * stride + width + 1;
+
+                for (int i = rowEnd - width; i < rowEnd; i++) {
+                    if (tileClass[i] != CLASS_ZERO) {
+                        continue;
+                    }
+
+                    int base = minefield.neighbourBase(i);
+                    int last = minefield.neighbourLast(i);
+
+                    for (int k = minefield.neighbourFirst(i); k < last; k++) {
+                        int next = base + list[k];
+
+                        if (tileClass[next] == CLASS_ZERO) {
+                            union(i, next);
+                        } else if (tileClass[next] == CLASS_ISOLATED) {
+                            tileClass[next] = CLASS_EDGE;
+                        }
+                    }
+                }
+            }
+
+            // Join up isolated numbers and count the openings
+            int openings = 0;
+            int isolated = 0;
+            int largest = 0;
+
+            for (int y = 0; y < height; y++) {
+                int rowEnd = (y + 1) * stride + width + 1;
+
+                for (int i = rowEnd - width; i < rowEnd; i++) {
+                    byte c = tileClass[i];
+
+                    if (c == CLASS_ZERO) {
+                        int root = find(i);
+                        if (root == i) {
+                            openings++;
+                        }
+
+                        size[root]++;
+                    } else if (c == CLASS_ISOLATED) {
+                        isolated++;
+
+                        int base = minefield.neighbourBase(i);
+                        int last = minefield.neighbourLast(i);
+
+                        for (int k = minefield.neighbourFirst(i);
+                                k < last; k++) {
+                            int next = base + list[k];
+
+                            if (tileClass[next] == CLASS_ISOLATED) {
+                                union(i, next);
+                            }
+                        }
+                    } else if (c == CLASS_EDGE) {
+                        // Each opening this number borders also uncovers it
+                        int base = minefield.neighbourBase(i);
+                        int last = minefield.neighbourLast(i);
+
+                        for (int k = minefield.neighbourFirst(i);
+                                k < last; k++) {
+                            int next = base + list[k];
+
+                            if (tileClass[next] == CLASS_ZERO) {
+                                int root = find(next);
+
+                                if (!countedBefore(minefield, list,
+                                        i, k, root)) {
+                                    size[root]++;
+                                }
+                            }
+                        }
+                    }
+                }
+            }
+
+            // Count islands and find the largest opening
+            int islands = 0;
+
+            for (int y = 0; y < height; y++) {
+                int rowEnd = (y + 1) * stride + width + 1;
+
+                for (int i = rowEnd - width; i < rowEnd; i++) {
+                    byte c = tileClass[i];
+
+                    if (parent[i] == i) {
+                        if (c == CLASS_ISOLATED) {
+                            islands++;
+                        } else if (c == CLASS_ZERO) {
+                            largest = Math.max(largest, size[i]);
+                        }
+                    }
+                }
+            }
+
+            return new BoardAnalysis(openings, islands, openings + isolated,
+                    largest, isolated);
+        }
+
+        /**
+         * Returns true if an earlier neighbour of an edge tile is in the
+         * given opening (so the opening has already counted the tile).
+         *
+         * @param minefield minefield being analysed
+         * @param list neighbour list of the minefield
+         * @param index array index of the edge tile
+         * @param entry current entry in the neighbour list
+         * @param root root of the opening
+         * @return true if the tile was already counted for root
+         */
+        private boolean countedBefore(final Minefield minefield,
+                final int[] list, final int index, final int entry,
+                final int root) {
+            int base = minefield.neighbourBase(index);
+
+            for (int k = minefield.neighbourFirst(index); k < entry; k++) {
+                int next = base + list[k];
+
+                if (tileClass[next] == CLASS_ZERO && find(next) == root) {
+                    return true;
+                }
+            }
+
+            return false;
+        }
+
+        /**
+         * Finds the root of a set (halving the path on the way).
+         *
+         * @param index array index of tile
+         * @return root of its set
+         */
+        private int find(final int index) {
+            int i = index;
+
+            while (parent[i] != i) {
+                parent[i] = parent[parent[i]];
+                i = parent[i];
+            }
+
+            return i;
+        }
+
+        /**
+         * Joins the sets containing two tiles.
+         *
+         * @param a array index of first tile
+         * @param b array index of second tile
+         */
+        private void union(final int a, final int b) {
+            int rootA = find(a);
+            int rootB = find(b);
+
+            // Keep the lowest index as the root so roots are found in order
+            if (rootA < rootB) {
+                parent[rootB] = rootA;
+            } else if (rootB < rootA) {
+                parent[rootA] = rootB;
+            }
+        }
+    }
+}
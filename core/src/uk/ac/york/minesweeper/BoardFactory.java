@@ -0,0 +1,274 @@
+package uk.ac.york.minesweeper;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Keeps a few minefields of each configured size ready to play.
+ *
+ * A low priority background thread places the mines ahead of time, so
+ * taking a board and making the first click do not have to wait for
+ * generation. The first click is still always safe: if it lands on a mine,
+ * the mine is moved (see {@link Minefield#uncover}).
+ */
+public final class BoardFactory {
+
+    /** Number of boards kept ready for each size. */
+    private final int capacity;
+
+    /** Lock protecting pools and stopped. */
+    private final Object lock = new Object();
+
+    /** Queue of ready boards for each size (in configuration order). */
+    private final Map<Size, ArrayBlockingQueue<Minefield>> pools =
+            new LinkedHashMap<Size, ArrayBlockingQueue<Minefield>>();
+
+    /** The refill thread. */
+    private final Thread thread;
+
+    /** Number of takes which got a ready board. */
+    private final AtomicLong hits = new AtomicLong();
+
+    /** Number of takes which had to create a new board. */
+    private final AtomicLong misses = new AtomicLong();
+
+    /** True once stop has been called. */
+    private boolean stopped;
+
+    /**
+     * Initializes a new BoardFactory and starts its refill thread.
+     *
+     * @param poolSize number of boards to keep ready for each size
+     */
+    public BoardFactory(final int poolSize) {
+        if (poolSize < 1) {
+            throw new IllegalArgumentException("pool size must be positive");
+        }
+
+        this.capacity = poolSize;
+        this.thread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                refillLoop();
+            }
+        }, "board-factory");
+        this.thread.setDaemon(true);
+        this.thread.setPriority(Thread.MIN_PRIORITY);
+        this.thread.start();
+    }
+
+    /**
+     * Starts keeping boards of the given size ready.
+     *
+     * Does nothing if the size is already configured.
+     *
+     * @param width width of the minefield in tiles
+     * @param height height of the minefield in tiles
+     * @param mines number of mines
+     */
+    public void configure(final int width, final int height,
+            final int mines) {
+        pool(new Size(width, height, mines));
+    }
+
+    /**
+     * Takes a board of the given size.
+     *
+     * Returns a board with its mines already placed if one is ready,
+     * otherwise a new board which places them on the first click. Sizes
+     * which have not been configured are configured by the first take.
+     *
+     * @param width width of the minefield in tiles
+     * @param height height of the minefield in tiles
+     * @param mines number of mines
+     * @return a new game
+     */
+    public Minefield take(final int width, final int height,
+            final int mines) {
+        ArrayBlockingQueue<Minefield> pool =
+                pool(new Size(width, height, mines));
+        Minefield minefield = pool.poll();
+
+        // Wake the refill thread up to replace it
+        synchronized (lock) {
+            lock.notifyAll();
+        }
+
+        if (minefield != null) {
+            hits.incrementAndGet();
+            return minefield;
+        }
+
+        misses.incrementAndGet();
+        return new Minefield(width, height, mines);
+    }
+
+    /**
+     * Gets the number of boards ready for the given size.
+     *
+     * @param width width of the minefield in tiles
+     * @param height height of the minefield in tiles
+     * @param mines number of mines
+     * @return number of ready boards (0 if the size is not configured)
+     */
+    public int getReady(final int width, final int height, final int mines) {
+        ArrayBlockingQueue<Minefield> pool;
+
+        synchronized (lock) {
+            pool = pools.get(new Size(width, height, mines));
+        }
+
+        return pool == null ? 0 : pool.size();
+    }
+
+    /**
+     * Gets the number of takes which got a ready board.
+     *
+     * @return number of hits
+     */
+    public long getHits() {
+        return hits.get();
+    }
+
+    /**
+     * Gets the number of takes which had to create a new board.
+     *
+     * @return number of misses
+     */
+    public long getMisses() {
+        return misses.get();
+    }
+
+    /**
+     * Stops the refill thread.
+     *
+     * Boards can still be taken afterwards, but are no longer prepared.
+     */
+    public void stop() {
+        synchronized (lock) {
+            stopped = true;
+            lock.notifyAll();
+        }
+    }
+
+    /**
+     * Gets (or creates) the pool for a size.
+     *
+     * @param size board size
+     * @return queue of ready boards
+     */
+    private ArrayBlockingQueue<Minefield> pool(final Size size) {
+        synchronized (lock) {
+            ArrayBlockingQueue<Minefield> pool = pools.get(size);
+
+            if (pool == null) {
+                // Check the size is valid before accepting it
+                if (size.width < 1 || size.height < 1 || size.mines < 0
+                        || (long) size.width * size.height <= size.mines) {
+                    throw new IllegalArgumentException(
+                            "invalid minefield dimensions");
+                }
+
+                pool = new ArrayBlockingQueue<Minefield>(capacity);
+                pools.put(size, pool);
+                lock.notifyAll();
+            }
+
+            return pool;
+        }
+    }
+
+    /**
+     * Main loop of the refill thread.
+     */
+    private void refillLoop() {
+        for (;;) {
+            Size size = null;
+            ArrayBlockingQueue<Minefield> pool = null;
+
+            // Wait for a pool which is not full
+            synchronized (lock) {
+                while (!stopped) {
+                    // Refill the emptiest pool first
+                    for (Map.Entry<Size, ArrayBlockingQueue<Minefield>> entry
+                            : pools.entrySet()) {
+                        ArrayBlockingQueue<Minefield> queue = entry.getValue();
+
+                        if (queue.remainingCapacity() > 0
+                                && (pool == null
+                                        || queue.size() < pool.size())) {
+                            size = entry.getKey();
+                            pool = queue;
+                        }
+                    }
+
+                    if (pool != null) {
+                        break;
+                    }
+
+                    try {
+                        lock.wait();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                }
+
+                if (stopped) {
+                    return;
+                }
+            }
+
+            // Generate outside the lock so takes never wait for it
+            Minefield minefield =
+                    new Minefield(size.width, size.height, size.mines);
+            minefield.generateAnywhere();
+            pool.offer(minefield);
+        }
+    }
+
+    /**
+     * Size and mine count of a board.
+     */
+    private static final class Size {
+
+        /** Width in tiles. */
+        private final int width;
+
+        /** Height in tiles. */
+        private final int height;
+
+        /** Number of mines. */
+        private final int mines;
+
+        /**
+         * Initializes a new Size.
+         *
+         * @param w width in tiles
+         * @param h height in tiles
+         * @param m number of mines
+         */
+        Size(final int w, final int h, final int m) {
+            this.width = w;
+            this.height = h;
+            this.mines = m;
+        }
+
+        @Override
+        public boolean equals(final Object obj) {
+            if (!(obj instanceof Size)) {
+                return false;
+            }
+
+            Size other = (Size) obj;
+            return width == other.width && height == other.height
+                    && mines == other.mines;
+        }
+
+        @Override
+        public int hashCode() {
+            return (width * 31 + height) * 31 + mines;
+        }
+    }
+}
@@ -0,0 +1,356 @@
+package uk.ac.york.minesweeper;
+
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.zip.CRC32;
+
+/**
+ * Compact, shareable reference to a board layout.
+ *
+ * Instead of the mines, an ID holds what is needed to place them again:
+ * the size, the number of mines, the topology, the first click kept free
+ * of mines, the version of the mine placement and the seed. A 16x16 board
+ * takes 15 bytes, or 20 characters as a string.
+ *
+ * The binary form is a sequence of unsigned varints (generator version,
+ * topology, width, height, mines, first click as {@code y * width + x + 1}
+ * or 0 for none), the seed as 8 big endian bytes and a check byte (the low
+ * byte of the CRC32 of everything before it). The string form is the
+ * binary form in URL safe Base64 without padding.
+ *
+ * IDs are immutable. Use {@link Minefield#getBoardId()} to get one and
+ * {@link Minefield#fromBoardId(BoardId)} to recreate the board.
+ */
+public final class BoardId {
+
+    /** Length of the seed in bytes. */
+    private static final int SEED_SIZE = 8;
+
+    /** Largest encoded size (six 5 byte varints, seed and check byte). */
+    private static final int MAX_SIZE = 6 * 5 + SEED_SIZE + 1;
+
+    /** All topologies in ordinal order. */
+    private static final Topology[] TOPOLOGIES = Topology.values();
+
+    /** Width of the board in tiles. */
+    private final int width;
+
+    /** Height of the board in tiles. */
+    private final int height;
+
+    /** Number of mines. */
+    private final int mines;
+
+    /** Shape of the board. */
+    private final Topology topology;
+
+    /** x position of the first click (-1 for none). */
+    private final int startX;
+
+    /** y position of the first click (-1 for none). */
+    private final int startY;
+
+    /** Version of the mine placement which made the board. */
+    private final int generatorVersion;
+
+    /** Seed the mines were placed from. */
+    private final long seed;
+
+    /**
+     * Initializes a new BoardId.
+     *
+     * @param width width of the board in tiles
+     * @param height height of the board in tiles
+     * @param mines number of mines
+     * @param topology shape of the board
+     * @param startX x position of the first click (-1 for none)
+     * @param startY y position of the first click (-1 for none)
+     * @param generatorVersion version of the mine placement
+     * @param seed seed the mines were placed from
+     */
+    public BoardId(final int width, final int height, final int mines,
+            final Topology topology, final int startX, final int startY,
+            final int generatorVersion, final long seed) {
+        if (width < 1 || height < 1 || mines < 0
+                || (long) width * height > Integer.MAX_VALUE
+                || mines >= width * height) {
+            throw new IllegalArgumentException("invalid minefield dimensions");
+        }
+
+        if (topology == null) {
+            throw new IllegalArgumentException("topology cannot be null");
+        }
+
+        boolean noStart = startX == -1 && startY == -1;
+
+        if (!noStart && (startX < 0 || startY < 0
+                || startX >= width || startY >= height)) {
+            throw new IllegalArgumentException("start is outside the board");
+        }
+
+        if (generatorVersion < 0) {
+            throw new IllegalArgumentException("invalid generator version");
+        }
+
+        this.width = width;
+        this.height = height;
+        this.mines = mines;
+        this.topology = topology;
+        this.startX = startX;
+        this.startY = startY;
+        this.generatorVersion = generatorVersion;
+        this.seed = seed;
+    }
+
+    /**
+     * Gets the width of the board.
+     *
+     * @return width in tiles
+     */
+    public int getWidth() {
+        return width;
+    }
+
+    /**
+     * Gets the height of the board.
+     *
+     * @return height in tiles
+     */
+    public int getHeight() {
+        return height;
+    }
+
+    /**
+     * Gets the number of mines.
+     *
+     * @return number of mines
+     */
+    public int getMines() {
+        return mines;
+    }
+
+    /**
+     * Gets the shape of the board.
+     *
+     * @return topology
+     */
+    public Topology getTopology() {
+        return topology;
+    }
+
+    /**
+     * Returns true if the mines were placed around a first click.
+     *
+     * @return true if there is a start position
+     */
+    public boolean hasStart() {
+        return startX >= 0;
+    }
+
+    /**
+     * Gets the x position of the first click.
+     *
+     * @return x position or -1 if there is none
+     */
+    public int getStartX() {
+        return startX;
+    }
+
+    /**
+     * Gets the y position of the first click.
+     *
+     * @return y position or -1 if there is none
+     */
+    public int getStartY() {
+        return startY;
+    }
+
+    /**
+     * Gets the version of the mine placement which made the board.
+     *
+     * @return generator version (see {@link Minefield#GENERATOR_VERSION})
+     */
+    public int getGeneratorVersion() {
+        return generatorVersion;
+    }
+
+    /**
+     * Gets the seed the mines were placed from.
+     *
+     * @return seed
+     */
+    public long getSeed() {
+        return seed;
+    }
+
+    /**
+     * Encodes the ID in its binary form.
+     *
+     * @return encoded bytes
+     */
+    public byte[] toBytes() {
+        byte[] out = new byte[MAX_SIZE];
+        int pos = 0;
+        int start = 0;
+
+        if (hasStart()) {
+            start = startY * width + startX + 1;
+        }
+
+        pos = putVarint(out, pos, generatorVersion);
+        pos = putVarint(out, pos, topology.ordinal());
+        pos = putVarint(out, pos, width);
+        pos = putVarint(out, pos, height);
+        pos = putVarint(out, pos, mines);
+        pos = putVarint(out, pos, start);
+
+        for (int shift = 56; shift >= 0; shift -= 8) {
+            out[pos++] = (byte) (seed >>> shift);
+        }
+
+        out[pos] = check(out, pos);
+        return Arrays.copyOf(out, pos + 1);
+    }
+
+    /**
+     * Decodes an ID from its binary form.
+     *
+     * @param data encoded bytes
+     * @return the ID
+     * @throws IllegalArgumentException if the data is not a valid ID
+     */
+    public static BoardId fromBytes(final byte[] data) {
+        int length = data.length - 1;
+
+        if (length < SEED_SIZE || data[length] != check(data, length)) {
+            throw new IllegalArgumentException("invalid board id");
+        }
+
+        int[] values = new int[6];
+        int pos = 0;
+
+        for (int n = 0; n < values.length; n++) {
+            int value = 0;
+            int shift = 0;
+            int b;
+
+            do {
+                if (pos >= length - SEED_SIZE || shift > 28) {
+                    throw new IllegalArgumentException("invalid board id");
+                }
+
+                b = data[pos++];
+                value |= (b & 0x7F) << shift;
+                shift += 7;
+            } while (b < 0);
+
+            values[n] = value;
+        }
+
+        if (pos != length - SEED_SIZE || values[1] < 0
+                || values[1] >= TOPOLOGIES.length) {
+            throw new IllegalArgumentException("invalid board id");
+        }
+
+        long seed = 0;
+
+        for (int n = 0; n < SEED_SIZE; n++) {
+            seed = seed << 8 | (data[pos++] & 0xFF);
+        }
+
+        int width = values[2];
+        int start = values[5];
+        int startX = -1;
+        int startY = -1;
+
+        if (start != 0 && width > 0) {
+            startX = (start - 1) % width;
+            startY = (start - 1) / width;
+        }
+
+        return new BoardId(width, values[3], values[4], TOPOLOGIES[values[1]],
+                startX, startY, values[0], seed);
+    }
+
+    /**
+     * Decodes an ID from its string form.
+     *
+     * @param id string returned by {@link #toString()}
+     * @return the ID
+     * @throws IllegalArgumentException if the string is not a valid ID
+     */
+    public static BoardId parse(final String id) {
+        return fromBytes(Base64.getUrlDecoder().decode(id.trim()));
+    }
+
+    /**
+     * Gets the string form of the ID.
+     *
+     * @return URL safe Base64 string
+     */
+    @Override
+    public String toString() {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(toBytes());
+    }
+
+    @Override
+    public boolean equals(final Object other) {
+        if (!(other instanceof BoardId)) {
+            return false;
+        }
+
+        BoardId id = (BoardId) other;
+        return width == id.width && height == id.height && mines == id.mines
+                && topology == id.topology && startX == id.startX
+                && startY == id.startY
+                && generatorVersion == id.generatorVersion && seed == id.seed;
+    }
+
+    @Override
+    public int hashCode() {
+        int hash = width;
+        hash = hash * 31 + height;
+        hash = hash * 31 + mines;
+        hash = hash * 31 + topology.ordinal();
+        hash = hash * 31 + startX;
+        hash = hash * 31 + startY;
+        hash = hash * 31 + generatorVersion;
+        return hash * 31 + Long.hashCode(seed);
+    }
+
+    /**
+     * Stores an unsigned varint.
+     *
+     * @param out array to store in
+     * @param pos position to store at
+     * @param value value to store (not negative)
+     * @return position after the varint
+     */
+    private static int putVarint(final byte[] out, final int pos,
+            final int value) {
+        int p = pos;
+        int v = value;
+
+        while ((v & ~0x7F) != 0) {
+            out[p++] = (byte) (v & 0x7F | 0x80);
+            v >>>= 7;
+        }
+
+        out[p++] = (byte) v;
+        return p;
+    }
+
+    /**
+     * Calculates the check byte of some encoded data.
+     *
+     * @param data encoded data
+     * @param length number of bytes to check
+     * @return check byte
+     */
+    private static byte check(final byte[] data, final int length) {
+        CRC32 crc = new CRC32();
+        crc.update(data, 0, length);
+        return (byte) crc.getValue();
+    }
+}
@@ -0,0 +1,165 @@
+package uk.ac.york.minesweeper;
+
+/**
+ * Immutable copy of the visible state of (part of) a minefield.
+ *
+ * Snapshots are created by {@link Minefield#snapshot} on the thread which
+ * owns the minefield, and can then be read safely from any thread.
+ */
+public final class BoardSnapshot {
+
+    /** Minefield version the snapshot was taken at. */
+    private final long version;
+
+    /** State of the game when the snapshot was taken. */
+    private final GameState gameState;
+
+    /** Width of the whole minefield. */
+    private final int boardWidth;
+
+    /** Height of the whole minefield. */
+    private final int boardHeight;
+
+    /** Left of the region covered by the snapshot. */
+    private final int x;
+
+    /** Top of the region covered by the snapshot. */
+    private final int y;
+
+    /** Width of the region covered by the snapshot. */
+    private final int width;
+
+    /** Height of the region covered by the snapshot. */
+    private final int height;
+
+    /** Visible tile codes of the region (row major). */
+    private final byte[] tiles;
+
+    /**
+     * Initializes a new BoardSnapshot.
+     *
+     * @param snapshotVersion minefield version
+     * @param state game state
+     * @param fieldWidth width of the whole minefield
+     * @param fieldHeight height of the whole minefield
+     * @param regionX left of the region
+     * @param regionY top of the region
+     * @param regionWidth width of the region
+     * @param regionHeight height of the region
+     * @param regionTiles visible tile codes of the region (not copied)
+     */
+    BoardSnapshot(final long snapshotVersion, final GameState state,
+            final int fieldWidth, final int fieldHeight,
+            final int regionX, final int regionY,
+            final int regionWidth, final int regionHeight,
+            final byte[] regionTiles) {
+        this.version = snapshotVersion;
+        this.gameState = state;
+        this.boardWidth = fieldWidth;
+        this.boardHeight = fieldHeight;
+        this.x = regionX;
+        this.y = regionY;
+        this.width = regionWidth;
+        this.height = regionHeight;
+        this.tiles = regionTiles;
+    }
+
+    /**
+     * Gets the minefield version the snapshot was taken at.
+     *
+     * @return version (see {@link Minefield#getVersion()})
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * Gets the state of the game when the snapshot was taken.
+     *
+     * @return game state
+     */
+    public GameState getGameState() {
+        return gameState;
+    }
+
+    /**
+     * Gets the width of the whole minefield.
+     *
+     * @return width in tiles
+     */
+    public int getBoardWidth() {
+        return boardWidth;
+    }
+
+    /**
+     * Gets the height of the whole minefield.
+     *
+     * @return height in tiles
+     */
+    public int getBoardHeight() {
+        return boardHeight;
+    }
+
+    /**
+     * Gets the left of the region covered by the snapshot.
+     *
+     * @return x position of the first column
+     */
+    public int getX() {
+        return x;
+    }
+
+    /**
+     * Gets the top of the region covered by the snapshot.
+     *
+     * @return y position of the first row
+     */
+    public int getY() {
+        return y;
+    }
+
+    /**
+     * Gets the width of the region covered by the snapshot.
+     *
+     * @return width in tiles
+     */
+    public int getWidth() {
+        return width;
+    }
+
+    /**
+     * Gets the height of the region covered by the snapshot.
+     *
+     * @return height in tiles
+     */
+    public int getHeight() {
+        return height;
+    }
+
+    /**
+     * Returns true if the snapshot covers the given region.
+     *
+     * @param regionX left of the region
+     * @param regionY top of the region
+     * @param regionWidth width of the region
+     * @param regionHeight height of the region
+     * @return true if every tile of the region is in the snapshot
+     */
+    public boolean covers(final int regionX, final int regionY,
+            final int regionWidth, final int regionHeight) {
+        return regionX >= x && regionY >= y
+                && regionX + regionWidth <= x + width
+                && regionY + regionHeight <= y + height;
+    }
+
+    /**
+     * Gets the visible code of a tile in the snapshot.
+     *
+     * @param tileX x position of tile (in minefield coordinates)
+     * @param tileY y position of tile (in minefield coordinates)
+     * @return visible tile code (see {@link VisibleTile})
+     */
+    public int getTile(final int tileX, final int tileY) {
+        return tiles[(tileY - y) * width + (tileX - x)];
+    }
+}
@@ -0,0 +1,157 @@
+package uk.ac.york.minesweeper;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.Locale;
+
+/**
+ * Headless terminal front-end for the minesweeper game.
+ *
+ * Usage: {@code ConsoleMinesweeper [width height mines [topology]]} or
+ * {@code ConsoleMinesweeper boardId} to replay a board, then enter one
+ * command per line:
+ * <ul>
+ * <li>{@code u x y} uncovers a tile</li>
+ * <li>{@code c x y} chords on a tile</li>
+ * <li>{@code f x y} cycles a tile between flag, question and covered</li>
+ * <li>{@code v x y} moves the viewport to start at the given tile</li>
+ * <li>{@code q} quits</li>
+ * </ul>
+ *
+ * Only the tiles which change are redrawn, using ANSI escape sequences.
+ * The board's ID is shown when the game finishes.
+ */
+public final class ConsoleMinesweeper {
+
+    /** Largest viewport width (in tiles). */
+    private static final int MAX_VIEW_WIDTH = 78;
+
+    /** Largest viewport height (in tiles). */
+    private static final int MAX_VIEW_HEIGHT = 20;
+
+    /** Terminal row of the prompt / status line. */
+    private static final int STATUS_ROW = MAX_VIEW_HEIGHT + 3;
+
+    private ConsoleMinesweeper() {
+
+    }
+
+    /**
+     * Main-Methode.
+     *
+     * @param args optional width, height, number of mines and topology, or
+     *             a board ID
+     * @throws IOException if the terminal cannot be read or written
+     */
+    public static void main(final String[] args) throws IOException {
+        int width = 16;
+        int height = 16;
+        int mines = 40;
+        Topology topology = Topology.RECTANGULAR;
+
+        if (args.length >= 3) {
+            width = Integer.parseInt(args[0]);
+            height = Integer.parseInt(args[1]);
+            mines = Integer.parseInt(args[2]);
+        }
+
+        if (args.length >= 4) {
+            topology = Topology.valueOf(args[3].toUpperCase(Locale.ROOT));
+        }
+
+        Minefield minefield;
+
+        if (args.length == 1) {
+            minefield = Minefield.fromBoardId(BoardId.parse(args[0]));
+        } else {
+            minefield = new Minefield(width, height, mines, topology);
+        }
+
+        BufferedReader in =
+                new BufferedReader(new InputStreamReader(System.in));
+        Writer out = new BufferedWriter(new OutputStreamWriter(System.out));
+        TextRenderer renderer = newRenderer(minefield, 0, 0);
+        String status = "";
+
+        for (;;) {
+            renderer.renderFrame(minefield, out);
+            out.write("\u001B[" + STATUS_ROW + ";1H\u001B[2K" + status);
+            out.write("\u001B[" + (STATUS_ROW + 1) + ";1H\u001B[2K> ");
+            out.flush();
+
+            String line = in.readLine();
+            if (line == null) {
+                break;
+            }
+
+            String[] parts = line.trim().split("\\s+");
+            if (parts[0].equals("q")) {
+                break;
+            }
+
+            try {
+                int x = Integer.parseInt(parts[1]);
+                int y = Integer.parseInt(parts[2]);
+
+                if (parts[0].equals("v")) {
+                    renderer = newRenderer(minefield, x, y);
+                } else if (minefield.isFinished()) {
+                    status = "The game has finished";
+                    continue;
+                } else if (parts[0].equals("u")) {
+                    minefield.uncover(x, y);
+                } else if (parts[0].equals("c")) {
+                    minefield.chord(x, y);
+                } else if (parts[0].equals("f")) {
+                    minefield.setTileState(x, y,
+                            nextFlagState(minefield.getTileState(x, y)));
+                }
+
+                status = "Game " + minefield.getGameState();
+
+                if (minefield.isFinished()) {
+                    status += ", board " + minefield.getBoardId();
+                }
+            } catch (RuntimeException e) {
+                status = "Invalid command: " + line;
+            }
+        }
+
+        out.write("\n");
+        out.flush();
+    }
+
+    /**
+     * Creates a renderer for a viewport starting at the given tile.
+     *
+     * @param minefield minefield being displayed
+     * @param x left of the viewport
+     * @param y top of the viewport
+     * @return the new renderer
+     */
+    private static TextRenderer newRenderer(final Minefield minefield,
+            final int x, final int y) {
+        return new TextRenderer(x, y,
+                Math.min(minefield.getWidth(), MAX_VIEW_WIDTH),
+                Math.min(minefield.getHeight(), MAX_VIEW_HEIGHT));
+    }
+
+    /**
+     * Gets the state a right click changes a tile to.
+     *
+     * @param state current tile state
+     * @return the new tile state
+     */
+    private static TileState nextFlagState(final TileState state) {
+        switch (state) {
+            case COVERED:   return TileState.FLAGGED;
+            case FLAGGED:   return TileState.QUESTION;
+            case UNCOVERED: return TileState.UNCOVERED;
+            default:        return TileState.COVERED;
+        }
+    }
+}
@@ -0,0 +1,1131 @@
+package uk.ac.york.minesweeper;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * Finds the move most likely to win an endgame by searching every way the
+ * rest of the game can play out.
+ *
+ * Like {@link ProbabilitySampler}, only what the player can see is used:
+ * the numbers on uncovered tiles and the total number of mines
+ * ({@link Minefield#getMines()}). Flags and question marks are treated as
+ * covered tiles, as they may be wrong.
+ *
+ * Every layout of mines matching the numbers is listed first, and all of
+ * them are equally likely. Covered tiles which are mines in every layout
+ * are left out; the others (at most MAX_SLOTS) become the bits of a mask.
+ * Opening a tile splits the layouts in which it is safe by what is shown:
+ * its number and, for a zero, the numbers flood filled around it. The
+ * chance of winning a position is that of its best move: the sum, over
+ * everything the move may show, of the chance of showing it times the
+ * chance of winning afterwards. A tile which is safe in every layout is
+ * always opened first, since it costs nothing and can only tell more, and
+ * a position with a single layout left is won.
+ *
+ * A position is fixed by the tiles opened during the search and their
+ * numbers, so it is hashed by XORing a random key for each (tile, number)
+ * pair (Zobrist hashing). Searched positions go into a transposition table
+ * of bounded size (growing with the number of layouts) whose buckets hold
+ * two entries; a new entry replaces the one covering fewer layouts, as
+ * that is cheaper to search again. Moves
+ * are tried safest first, and a move is dropped as soon as it can no
+ * longer beat the best one so far.
+ *
+ * Few positions repeat in practice: a safe tile is the only move tried,
+ * and pruning drops most orders of the remaining guesses, so a position
+ * is rarely reached twice. The table only pays off on endgames with
+ * several independent guesses (EndgameBenchmark prints its hit rate).
+ *
+ * The search stops when its node or time budget runs out; the result then
+ * holds the best move fully searched (or the safest move if there is
+ * none) and is marked as not exact.
+ */
+public final class EndgameSolver {
+
+    /** Most layouts listed before the position counts as too open. */
+    private static final int MAX_LAYOUTS = 1 << 16;
+
+    /** Most tiles which are not certain mines (one bit each). */
+    private static final int MAX_SLOTS = Long.SIZE;
+
+    /** Most covered tiles (listing recurses once for each). */
+    private static final int MAX_COVERED = 1024;
+
+    /** Most covered tiles tried while listing layouts. */
+    private static final long MAX_LIST_STEPS = 1L << 24;
+
+    /** Number of different numbers a tile can show. */
+    private static final int VALUES = Topology.MAX_NEIGHBOURS + 1;
+
+    /** Log2 of the most transposition table entries. */
+    private static final int MAX_TABLE_BITS = 18;
+
+    /** Log2 of the fewest transposition table entries. */
+    private static final int MIN_TABLE_BITS = 8;
+
+    /** Log2 of the table entries for each layout. */
+    private static final int TABLE_BITS_PER_LAYOUT = 4;
+
+    /** Nodes between checks of the clock (minus 1). */
+    private static final long CLOCK_MASK = 1023;
+
+    /** Seed of the Zobrist keys. */
+    private static final long ZOBRIST_SEED = 0x5DEECE66DL;
+
+    /** Width of the board. */
+    private final int width;
+
+    /** Number of layouts matching the numbers (-1 if too many). */
+    private final int layoutCount;
+
+    /** Mines on the slot tiles in each layout (one bit per slot). */
+    private final long[] layouts;
+
+    /** Board tile of each slot. */
+    private final int[] slotTile;
+
+    /** Slots next to each slot. */
+    private final long[] neighbourMask;
+
+    /** Certain mines next to each slot. */
+    private final int[] mineNeighbours;
+
+    /** Mask with a bit for every slot. */
+    private final long allSlots;
+
+    /** Key of showing each number on each slot (slot * VALUES + number). */
+    private final long[] zobrist;
+
+    /**
+     * Reads the visible state of a minefield and lists the layouts matching
+     * it.
+     *
+     * Must be called on the thread which owns the minefield. Solving
+     * afterwards does not touch it.
+     *
+     * @param minefield minefield to solve
+     * @throws IllegalStateException if the game has finished
+     */
+    public EndgameSolver(final Minefield minefield) {
+        if (minefield.isFinished()) {
+            throw new IllegalStateException("the game has finished");
+        }
+
+        width = minefield.getWidth();
+
+        LayoutList list = new LayoutList(minefield);
+
+        if (list.order.length <= MAX_COVERED) {
+            list.list(0);
+        } else {
+            list.overflow = true;
+        }
+
+        int count = list.overflow ? 0 : list.count;
+        int[] slotOf = new int[list.order.length];
+        int slots = 0;
+
+        // Tiles which are mines in every layout get no slot
+        for (int n = 0; n < list.order.length && count > 0; n++) {
+            int mines = 0;
+
+            for (int layout = 0; layout < count; layout++) {
+                mines += list.isMine(layout, n) ? 1 : 0;
+            }
+
+            slotOf[n] = (mines < count) ? slots++ : -1;
+        }
+
+        if (count == 0 || slots > MAX_SLOTS) {
+            layoutCount = -1;
+            layouts = null;
+            slotTile = null;
+            neighbourMask = null;
+            mineNeighbours = null;
+            allSlots = 0;
+            zobrist = null;
+            return;
+        }
+
+        layoutCount = count;
+        layouts = new long[count];
+        slotTile = new int[slots];
+        neighbourMask = new long[slots];
+        mineNeighbours = new int[slots];
+        allSlots = (slots == MAX_SLOTS) ? -1L : (1L << slots) - 1;
+
+        for (int n = 0; n < list.order.length; n++) {
+            if (slotOf[n] < 0) {
+                continue;
+            }
+
+            slotTile[slotOf[n]] = list.order[n];
+
+            for (int layout = 0; layout < count; layout++) {
+                if (list.isMine(layout, n)) {
+                    layouts[layout] |= 1L << slotOf[n];
+                }
+            }
+        }
+
+        // Link each slot to its neighbours
+        int[] positionOf = new int[minefield.getWidth()
+                * minefield.getHeight()];
+        int[] neighbours = new int[Topology.MAX_NEIGHBOURS];
+        Arrays.fill(positionOf, -1);
+
+        for (int n = 0; n < list.order.length; n++) {
+            positionOf[list.order[n]] = n;
+        }
+
+        for (int slot = 0; slot < slots; slot++) {
+            int tile = slotTile[slot];
+            int neighbourCount = minefield.getNeighbours(tile % width,
+                    tile / width, neighbours);
+
+            for (int i = 0; i < neighbourCount; i++) {
+                int position = positionOf[neighbours[i]];
+
+                if (position < 0) {
+                    continue;
+                } else if (slotOf[position] < 0) {
+                    mineNeighbours[slot]++;
+                } else {
+                    neighbourMask[slot] |= 1L << slotOf[position];
+                }
+            }
+        }
+
+        zobrist = new long[slots * VALUES];
+        SplittableRandom rnd = new SplittableRandom(ZOBRIST_SEED);
+
+        for (int i = 0; i < zobrist.length; i++) {
+            zobrist[i] = rnd.nextLong();
+        }
+    }
+
+    /**
+     * Returns true if the position is small enough to solve.
+     *
+     * @return true if {@link #solve(long, long)} may be called
+     */
+    public boolean canSolve() {
+        return layoutCount > 0;
+    }
+
+    /**
+     * Gets the number of layouts of mines matching the numbers.
+     *
+     * @return number of layouts, or -1 if there are too many to search
+     */
+    public int getLayoutCount() {
+        return layoutCount;
+    }
+
+    /**
+     * Gets the number of covered tiles which are not certain mines.
+     *
+     * @return number of tiles, or -1 if there are too many layouts
+     */
+    public int getUnknownCount() {
+        return (layoutCount > 0) ? slotTile.length : -1;
+    }
+
+    /**
+     * Searches for the move with the best chance of winning.
+     *
+     * @param maxNodes most positions to search (not counting table hits)
+     * @param budgetMillis most time to search (ms)
+     * @return the best move and its chance of winning
+     * @throws IllegalStateException if the position is too open to solve
+     */
+    public Result solve(final long maxNodes, final long budgetMillis) {
+        return solve(maxNodes, budgetMillis, true);
+    }
+
+    /**
+     * Searches for the move with the best chance of winning, with or
+     * without the transposition table.
+     *
+     * The result is the same either way; searching without the table only
+     * shows how many nodes it saves.
+     *
+     * @param maxNodes most positions to search (not counting table hits)
+     * @param budgetMillis most time to search (ms)
+     * @param useTable false to search every position again
+     * @return the best move and its chance of winning
+     * @throws IllegalStateException if the position is too open to solve
+     */
+    public Result solve(final long maxNodes, final long budgetMillis,
+            final boolean useTable) {
+        if (!canSolve()) {
+            throw new IllegalStateException("too many layouts to solve");
+        }
+
+        long start = System.nanoTime();
+        Search search = new Search(maxNodes, start + budgetMillis * 1000000,
+                useTable);
+        search.search(0, layoutCount, layoutCount, 0, 0, 0);
+
+        int slot = search.bestSlot;
+        double win = search.bestValue;
+        int safe = search.bestSafe;
+
+        if (slot < 0) {
+            // Nothing finished in time: fall back on the safest move
+            slot = search.moves[0][0];
+            safe = search.safeCounts[0][0];
+            win = 0;
+        }
+
+        return new Result(width, slotTile[slot], win,
+                (double) safe / layoutCount, !search.aborted, search.nodes,
+                search.hits, System.nanoTime() - start);
+    }
+
+    /**
+     * Lists the layouts of mines on the covered tiles which match the
+     * numbers, by trying each tile as safe and as a mine.
+     *
+     * Tiles are tried in breadth first order through the numbers they
+     * share, so a number is complete soon after its first tile is tried,
+     * and covered tiles away from every number come last.
+     */
+    private static final class LayoutList {
+
+        /** Covered tiles in the order they are tried. */
+        private final int[] order;
+
+        /** Start of each covered tile's numbers in tileNumbers. */
+        private final int[] tileNumberStart;
+
+        /** Numbers next to each covered tile. */
+        private final int[] tileNumbers;
+
+        /** Mines still missing around each number. */
+        private final int[] need;
+
+        /** Covered tiles not yet tried around each number. */
+        private final int[] open;
+
+        /** Words in each listed layout. */
+        private final int words;
+
+        /** Mine bits of the tiles tried so far (in order). */
+        private final long[] current;
+
+        /** Mines not yet placed. */
+        private int minesLeft;
+
+        /** Mine bits of the layouts found (words per layout). */
+        private long[] found;
+
+        /** Number of layouts found. */
+        private int count;
+
+        /** Number of tiles tried. */
+        private long steps;
+
+        /** True if the listing stopped early. */
+        private boolean overflow;
+
+        /**
+         * Reads the covered tiles and numbers of a minefield.
+         *
+         * @param minefield minefield to read
+         */
+        LayoutList(final Minefield minefield) {
+            int boardWidth = minefield.getWidth();
+            int tiles = boardWidth * minefield.getHeight();
+            int[] neighbours = new int[Topology.MAX_NEIGHBOURS];
+
+            // Number the covered tiles and the numbers next to them
+            int[] coveredAt = new int[tiles];
+            int[] numberAt = new int[tiles];
+            int covered = 0;
+            int numbers = 0;
+            int links = 0;
+
+            for (int tile = 0; tile < tiles; tile++) {
+                int code = minefield.getVisibleTile(tile % boardWidth,
+                        tile / boardWidth);
+                coveredAt[tile] = (code >= VisibleTile.COVERED)
+                        ? covered++ : -1;
+            }
+
+            for (int tile = 0; tile < tiles; tile++) {
+                int x = tile % boardWidth;
+                int y = tile / boardWidth;
+                numberAt[tile] = -1;
+
+                if (coveredAt[tile] >= 0) {
+                    continue;
+                }
+
+                int neighbourCount = minefield.getNeighbours(x, y,
+                        neighbours);
+                int next = 0;
+
+                for (int n = 0; n < neighbourCount; n++) {
+                    next += (coveredAt[neighbours[n]] >= 0) ? 1 : 0;
+                }
+
+                if (next > 0) {
+                    numberAt[tile] = numbers++;
+                    links += next;
+                }
+            }
+
+            // Link numbers and covered tiles both ways
+            int[] numberTileStart = new int[numbers + 1];
+            int[] numberTiles = new int[links];
+            int[] tileCounts = new int[covered + 1];
+            need = new int[numbers];
+            open = new int[numbers];
+
+            for (int tile = 0; tile < tiles; tile++) {
+                int number = numberAt[tile];
+
+                if (number < 0) {
+                    continue;
+                }
+
+                int start = numberTileStart[number];
+                int neighbourCount = minefield.getNeighbours(
+                        tile % boardWidth, tile / boardWidth, neighbours);
+                int link = start;
+
+                for (int n = 0; n < neighbourCount; n++) {
+                    int position = coveredAt[neighbours[n]];
+
+                    if (position >= 0) {
+                        numberTiles[link++] = position;
+                        tileCounts[position + 1]++;
+                    }
+                }
+
+                numberTileStart[number + 1] = link;
+                need[number] = minefield.getVisibleTile(tile % boardWidth,
+                        tile / boardWidth);
+                open[number] = link - start;
+            }
+
+            int[] byPosition = new int[covered + 1];
+
+            for (int n = 0; n < covered; n++) {
+                byPosition[n + 1] = byPosition[n] + tileCounts[n + 1];
+            }
+
+            int[] positionNumbers = new int[links];
+            int[] fill = Arrays.copyOf(byPosition, covered);
+
+            for (int number = 0; number < numbers; number++) {
+                for (int link = numberTileStart[number];
+                        link < numberTileStart[number + 1]; link++) {
+                    positionNumbers[fill[numberTiles[link]]++] = number;
+                }
+            }
+
+            // Order the covered tiles breadth first through their numbers
+            int[] tileOf = new int[covered];
+            int[] orderOf = new int[covered];
+            boolean[] queued = new boolean[covered];
+            int[] queue = new int[covered];
+            int head = 0;
+            int tail = 0;
+
+            for (int tile = 0; tile < tiles; tile++) {
+                if (coveredAt[tile] >= 0) {
+                    tileOf[coveredAt[tile]] = tile;
+                }
+            }
+
+            for (int first = 0; first <= covered; first++) {
+                while (head < tail) {
+                    int position = queue[head++];
+
+                    for (int link = byPosition[position];
+                            link < byPosition[position + 1]; link++) {
+                        int number = positionNumbers[link];
+
+                        for (int i = numberTileStart[number];
+                                i < numberTileStart[number + 1]; i++) {
+                            int next = numberTiles[i];
+
+                            if (!queued[next]) {
+                                queued[next] = true;
+                                queue[tail++] = next;
+                            }
+                        }
+                    }
+                }
+
+                if (first < covered && !queued[first]
+                        && byPosition[first + 1] > byPosition[first]) {
+                    queued[first] = true;
+                    queue[tail++] = first;
+                }
+            }
+
+            for (int position = 0; position < covered; position++) {
+                if (!queued[position]) {
+                    queue[tail++] = position;
+                }
+            }
+
+            order = new int[covered];
+
+            for (int n = 0; n < covered; n++) {
+                order[n] = tileOf[queue[n]];
+                orderOf[queue[n]] = n;
+            }
+
+            tileNumberStart = new int[covered + 1];
+            tileNumbers = new int[links];
+
+            for (int n = 0; n < covered; n++) {
+                int position = queue[n];
+                int length = byPosition[position + 1] - byPosition[position];
+                System.arraycopy(positionNumbers, byPosition[position],
+                        tileNumbers, tileNumberStart[n], length);
+                tileNumberStart[n + 1] = tileNumberStart[n] + length;
+            }
+
+            words = (covered + Long.SIZE - 1) / Long.SIZE;
+            current = new long[words];
+            found = new long[words * 16];
+            minesLeft = minefield.getMines();
+        }
+
+        /**
+         * Returns true if a covered tile is a mine in a listed layout.
+         *
+         * @param layout index of the layout
+         * @param position position of the tile in order
+         * @return true if the tile is a mine
+         */
+        boolean isMine(final int layout, final int position) {
+            long word = found[layout * words + position / Long.SIZE];
+            return (word & (1L << position)) != 0;
+        }
+
+        /**
+         * Tries the tiles from a position on both ways, listing the layouts
+         * which match.
+         *
+         * @param position position in order of the next tile to try
+         */
+        void list(final int position) {
+            if (overflow) {
+                return;
+            }
+
+            if (++steps > MAX_LIST_STEPS) {
+                overflow = true;
+                return;
+            }
+
+            if (position == order.length) {
+                if (minesLeft == 0) {
+                    record();
+                }
+
+                return;
+            }
+
+            int tilesLeft = order.length - position;
+
+            if (minesLeft < tilesLeft) {
+                if (place(position, 0)) {
+                    list(position + 1);
+                }
+
+                unplace(position, 0);
+            }
+
+            if (minesLeft > 0) {
+                if (place(position, 1)) {
+                    current[position / Long.SIZE] |= 1L << position;
+                    list(position + 1);
+                    current[position / Long.SIZE] &= ~(1L << position);
+                }
+
+                unplace(position, 1);
+            }
+        }
+
+        /**
+         * Places a mine or a safe tile, updating the numbers around it.
+         *
+         * Always followed by {@link #unplace(int, int)}, even if it fails.
+         *
+         * @param position position in order of the tile
+         * @param mine 1 for a mine, 0 for a safe tile
+         * @return true if every number around it can still match
+         */
+        private boolean place(final int position, final int mine) {
+            boolean possible = true;
+            minesLeft -= mine;
+
+            for (int link = tileNumberStart[position];
+                    link < tileNumberStart[position + 1]; link++) {
+                int number = tileNumbers[link];
+                need[number] -= mine;
+                open[number]--;
+
+                if (need[number] < 0 || need[number] > open[number]) {
+                    possible = false;
+                }
+            }
+
+            return possible;
+        }
+
+        /**
+         * Undoes {@link #place(int, int)}.
+         *
+         * @param position position in order of the tile
+         * @param mine 1 for a mine, 0 for a safe tile
+         */
+        private void unplace(final int position, final int mine) {
+            minesLeft += mine;
+
+            for (int link = tileNumberStart[position];
+                    link < tileNumberStart[position + 1]; link++) {
+                int number = tileNumbers[link];
+                need[number] += mine;
+                open[number]++;
+            }
+        }
+
+        /**
+         * Adds the current layout to the list.
+         */
+        private void record() {
+            if (count == MAX_LAYOUTS) {
+                overflow = true;
+                return;
+            }
+
+            if ((count + 1) * words > found.length) {
+                found = Arrays.copyOf(found, found.length * 2);
+            }
+
+            System.arraycopy(current, 0, found, count * words, words);
+            count++;
+        }
+    }
+
+    /**
+     * State of one search: the budget, the transposition table and the
+     * scratch space of each depth.
+     */
+    private final class Search {
+
+        /** Most nodes to search. */
+        private final long maxNodes;
+
+        /** Value of System.nanoTime() at which the search stops. */
+        private final long deadline;
+
+        /** True to look up and store positions in the table. */
+        private final boolean useTable;
+
+        /** Mask selecting a bucket (two entries) of the table. */
+        private final int bucketMask;
+
+        /** Key of each table entry (0 if empty). */
+        private final long[] tableKeys;
+
+        /** Chance of winning of each table entry. */
+        private final double[] tableValues;
+
+        /** Number of layouts of each table entry. */
+        private final int[] tableSizes;
+
+        /** Moves to try at each depth, safest first. */
+        private final int[][] moves = new int[MAX_SLOTS + 1][MAX_SLOTS];
+
+        /** Layouts in which each move at each depth is safe. */
+        private final int[][] safeCounts = new int[MAX_SLOTS + 1][MAX_SLOTS];
+
+        /** Mines on each slot among the layouts of a position. */
+        private final int[] mineCounts = new int[MAX_SLOTS];
+
+        /** Layouts of the positions on the search path (a stack). */
+        private int[] pool;
+
+        /** What opening the tile shows in each layout of pool. */
+        private long[] shown;
+
+        /** Tiles opened by the last call of show. */
+        private long opened;
+
+        /** Nodes searched. */
+        private long nodes;
+
+        /** Positions found in the table. */
+        private long hits;
+
+        /** True if the budget ran out. */
+        private boolean aborted;
+
+        /** Best move fully searched at the root (-1 if none). */
+        private int bestSlot = -1;
+
+        /** Chance of winning with bestSlot. */
+        private double bestValue;
+
+        /** Layouts in which bestSlot is safe. */
+        private int bestSafe;
+
+        /**
+         * Initializes a new Search.
+         *
+         * @param nodeBudget most nodes to search
+         * @param stopTime value of System.nanoTime() at which to stop
+         * @param tableEnabled false to search without the table
+         */
+        Search(final long nodeBudget, final long stopTime,
+                final boolean tableEnabled) {
+            this.maxNodes = nodeBudget;
+            this.deadline = stopTime;
+            this.useTable = tableEnabled;
+
+            // Positions to remember grow with the layouts to split
+            int bits = Integer.SIZE - Integer.numberOfLeadingZeros(layoutCount)
+                    + TABLE_BITS_PER_LAYOUT;
+            int entries = tableEnabled ? 1 << Math.max(MIN_TABLE_BITS,
+                    Math.min(MAX_TABLE_BITS, bits)) : 0;
+            this.bucketMask = (entries - 1) & ~1;
+            this.tableKeys = new long[entries];
+            this.tableValues = new double[entries];
+            this.tableSizes = new int[entries];
+            this.pool = new int[layoutCount * 4];
+            this.shown = new long[pool.length];
+
+            for (int layout = 0; layout < layoutCount; layout++) {
+                pool[layout] = layout;
+            }
+        }
+
+        /**
+         * Finds the chance of winning a position.
+         *
+         * @param from start of the position's layouts in pool
+         * @param to end of the position's layouts in pool
+         * @param top start of the free part of pool
+         * @param revealed slots opened during the search
+         * @param key Zobrist key of the position
+         * @param depth number of moves made during the search
+         * @return chance of winning (meaningless if aborted)
+         */
+        double search(final int from, final int to, final int top,
+                final long revealed, final long key, final int depth) {
+            int size = to - from;
+
+            if (depth > 0) {
+                if (size == 1) {
+                    return 1;
+                }
+
+                double stored = useTable ? probe(key) : -1;
+
+                if (stored >= 0) {
+                    hits++;
+                    return stored;
+                }
+            }
+
+            if (++nodes > maxNodes || ((nodes & CLOCK_MASK) == 0
+                    && System.nanoTime() - deadline >= 0)) {
+                aborted = true;
+                return 0;
+            }
+
+            int count = findMoves(from, to, revealed, depth);
+            int[] order = moves[depth];
+            int[] safe = safeCounts[depth];
+            double best = 0;
+
+            for (int m = 0; m < count; m++) {
+                if ((double) safe[m] / size <= best) {
+                    break;
+                }
+
+                double value = open(order[m], from, to, top, revealed, key,
+                        depth, best);
+
+                if (aborted) {
+                    return 0;
+                }
+
+                if (value > best) {
+                    best = value;
+
+                    if (depth == 0) {
+                        bestSlot = order[m];
+                        bestValue = value;
+                        bestSafe = safe[m];
+                    }
+                }
+            }
+
+            if (useTable) {
+                store(key, best, size);
+            }
+
+            return best;
+        }
+
+        /**
+         * Fills in the moves worth trying in a position, safest first.
+         *
+         * If a tile is safe in every layout, it is the only move.
+         *
+         * @param from start of the position's layouts in pool
+         * @param to end of the position's layouts in pool
+         * @param revealed slots opened during the search
+         * @param depth depth of the position
+         * @return number of moves
+         */
+        private int findMoves(final int from, final int to,
+                final long revealed, final int depth) {
+            int size = to - from;
+            int[] order = moves[depth];
+            int[] safe = safeCounts[depth];
+            long closed = allSlots & ~revealed;
+            long possible = 0;
+
+            for (int i = from; i < to; i++) {
+                long mines = layouts[pool[i]] & closed;
+                possible |= mines;
+
+                for (long bits = mines; bits != 0; bits &= bits - 1) {
+                    mineCounts[Long.numberOfTrailingZeros(bits)]++;
+                }
+            }
+
+            long certain = closed & ~possible;
+
+            if (certain != 0) {
+                for (long bits = possible; bits != 0; bits &= bits - 1) {
+                    mineCounts[Long.numberOfTrailingZeros(bits)] = 0;
+                }
+
+                order[0] = Long.numberOfTrailingZeros(certain);
+                safe[0] = size;
+                return 1;
+            }
+
+            int count = 0;
+
+            for (long bits = possible; bits != 0; bits &= bits - 1) {
+                int slot = Long.numberOfTrailingZeros(bits);
+                int safeLayouts = size - mineCounts[slot];
+                mineCounts[slot] = 0;
+
+                if (safeLayouts == 0) {
+                    continue;
+                }
+
+                int m = count++;
+
+                while (m > 0 && safe[m - 1] < safeLayouts) {
+                    order[m] = order[m - 1];
+                    safe[m] = safe[m - 1];
+                    m--;
+                }
+
+                order[m] = slot;
+                safe[m] = safeLayouts;
+            }
+
+            return count;
+        }
+
+        /**
+         * Finds the chance of winning after opening a tile.
+         *
+         * @param slot slot to open
+         * @param from start of the position's layouts in pool
+         * @param to end of the position's layouts in pool
+         * @param top start of the free part of pool
+         * @param revealed slots opened during the search
+         * @param key Zobrist key of the position
+         * @param depth depth of the position
+         * @param best chance to beat (the result is only exact above it)
+         * @return chance of winning (meaningless if aborted)
+         */
+        private double open(final int slot, final int from, final int to,
+                final int top, final long revealed, final long key,
+                final int depth, final double best) {
+            int size = to - from;
+            long bit = 1L << slot;
+
+            if (top + size > pool.length) {
+                pool = Arrays.copyOf(pool, Math.max(pool.length * 2,
+                        top + size));
+                shown = Arrays.copyOf(shown, pool.length);
+            }
+
+            // Copy the layouts in which the tile is safe, with what it shows
+            int end = top;
+
+            for (int i = from; i < to; i++) {
+                int layout = pool[i];
+
+                if ((layouts[layout] & bit) == 0) {
+                    pool[end] = layout;
+                    shown[end] = show(layouts[layout], slot, revealed);
+                    end++;
+                }
+            }
+
+            // Search each group of layouts showing the same thing
+            double sum = 0;
+            int left = end - top;
+            int start = top;
+
+            while (start < end) {
+                long outcome = shown[start];
+                int split = start + 1;
+
+                for (int i = split; i < end; i++) {
+                    if (shown[i] == outcome) {
+                        int layout = pool[i];
+                        pool[i] = pool[split];
+                        shown[i] = shown[split];
+                        pool[split] = layout;
+                        shown[split] = outcome;
+                        split++;
+                    }
+                }
+
+                show(layouts[pool[start]], slot, revealed);
+                double value = search(start, split, end, revealed | opened,
+                        key ^ outcome, depth + 1);
+
+                if (aborted) {
+                    return 0;
+                }
+
+                sum += value * (split - start) / size;
+                left -= split - start;
+
+                if (sum + (double) left / size <= best) {
+                    break;
+                }
+
+                start = split;
+            }
+
+            return sum;
+        }
+
+        /**
+         * Opens a tile in a layout, flood filling around zeros.
+         *
+         * Sets opened to the tiles opened.
+         *
+         * @param mines mines of the layout
+         * @param slot slot to open (safe in the layout)
+         * @param revealed slots already open
+         * @return XOR of the keys of the numbers shown
+         */
+        private long show(final long mines, final int slot,
+                final long revealed) {
+            long open = 1L << slot;
+            long pending = open;
+            long hash = 0;
+
+            while (pending != 0) {
+                int next = Long.numberOfTrailingZeros(pending);
+                pending &= pending - 1;
+
+                int value = mineNeighbours[next]
+                        + Long.bitCount(mines & neighbourMask[next]);
+                hash ^= zobrist[next * VALUES + value];
+
+                if (value == 0) {
+                    long more = neighbourMask[next] & ~revealed & ~open;
+                    open |= more;
+                    pending |= more;
+                }
+            }
+
+            opened = open;
+            return hash;
+        }
+
+        /**
+         * Looks up a position in the table.
+         *
+         * @param key Zobrist key of the position
+         * @return chance of winning, or -1 if not found
+         */
+        private double probe(final long key) {
+            int bucket = (int) key & bucketMask;
+
+            if (tableKeys[bucket] == key) {
+                return tableValues[bucket];
+            } else if (tableKeys[bucket + 1] == key) {
+                return tableValues[bucket + 1];
+            }
+
+            return -1;
+        }
+
+        /**
+         * Stores a position in the table, replacing the entry of its bucket
+         * with fewer layouts.
+         *
+         * @param key Zobrist key of the position
+         * @param value chance of winning
+         * @param size number of layouts of the position
+         */
+        private void store(final long key, final double value,
+                final int size) {
+            int entry = (int) key & bucketMask;
+
+            if (tableSizes[entry + 1] < tableSizes[entry]) {
+                entry++;
+            }
+
+            tableKeys[entry] = key;
+            tableValues[entry] = value;
+            tableSizes[entry] = size;
+        }
+    }
+
+    /**
+     * The move chosen by {@link EndgameSolver#solve(long, long)}.
+     */
+    public static final class Result {
+
+        /** Width of the board. */
+        private final int width;
+
+        /** Tile to open. */
+        private final int tile;
+
+        /** Chance of winning after opening it. */
+        private final double win;
+
+        /** Chance of the tile being safe. */
+        private final double safe;
+
+        /** True if the whole game tree was searched. */
+        private final boolean exact;
+
+        /** Nodes searched. */
+        private final long nodes;
+
+        /** Positions found in the transposition table. */
+        private final long hits;
+
+        /** Time spent solving (ns). */
+        private final long nanos;
+
+        /**
+         * Initializes a new Result.
+         *
+         * @param boardWidth width of the board
+         * @param bestTile tile to open
+         * @param winChance chance of winning after opening it
+         * @param safeChance chance of the tile being safe
+         * @param complete true if the search finished
+         * @param nodeCount nodes searched
+         * @param hitCount positions found in the table
+         * @param time time spent solving (ns)
+         */
+        Result(final int boardWidth, final int bestTile,
+                final double winChance, final double safeChance,
+                final boolean complete, final long nodeCount,
+                final long hitCount, final long time) {
+            this.width = boardWidth;
+            this.tile = bestTile;
+            this.win = winChance;
+            this.safe = safeChance;
+            this.exact = complete;
+            this.nodes = nodeCount;
+            this.hits = hitCount;
+            this.nanos = time;
+        }
+
+        /**
+         * Gets the x position of the tile to open.
+         *
+         * @return x position
+         */
+        public int getX() {
+            return tile % width;
+        }
+
+        /**
+         * Gets the y position of the tile to open.
+         *
+         * @return y position
+         */
+        public int getY() {
+            return tile / width;
+        }
+
+        /**
+         * Gets the chance of winning after opening the tile, playing
+         * perfectly afterwards.
+         *
+         * @return probability (a lower bound if not exact, 0 if no move
+         *         was fully searched)
+         */
+        public double getWinProbability() {
+            return win;
+        }
+
+        /**
+         * Gets the chance of the tile being safe.
+         *
+         * @return probability
+         */
+        public double getSafeProbability() {
+            return safe;
+        }
+
+        /**
+         * Returns true if the search finished within its budget.
+         *
+         * @return true if the move is the best one
+         */
+        public boolean isExact() {
+            return exact;
+        }
+
+        /**
+         * Gets the number of positions searched.
+         *
+         * @return nodes searched (not counting table hits)
+         */
+        public long getNodes() {
+            return nodes;
+        }
+
+        /**
+         * Gets the number of positions found in the transposition table.
+         *
+         * @return table hits
+         */
+        public long getHits() {
+            return hits;
+        }
+
+        /**
+         * Gets the time spent solving.
+         *
+         * @return time (ns)
+         */
+        public long getNanos() {
+            return nanos;
+        }
+    }
+}
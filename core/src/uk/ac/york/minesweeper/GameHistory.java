@@ -0,0 +1,858 @@
+package uk.ac.york.minesweeper;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.logging.Logger;
+import java.util.zip.CRC32;
+
+/**
+ * Stores the results of finished games and answers leaderboard queries.
+ *
+ * Results are appended to a log file of fixed size, checksummed records,
+ * so a crash can at worst lose the record being written (a damaged tail is
+ * cut off the next time the log is opened). Everything needed for queries
+ * is also kept in memory, per difficulty (width, height and number of
+ * mines):
+ *
+ * <ul>
+ * <li>the finish time of every game and a running count of wins, so the
+ *     win rate since any time takes one binary search, and</li>
+ * <li>the times of the won games, sorted, so the top N times are read off
+ *     the front without looking at the rest.</li>
+ * </ul>
+ *
+ * The won times are kept as one large sorted array plus a few smaller
+ * sorted runs, which are merged in pairs as they fill (like a binary
+ * counter), so adding a result costs O(log n) amortized and the top N is
+ * a merge of the run heads.
+ *
+ * On closing, the index is written to a snapshot file next to the log.
+ * Opening loads the snapshot and replays only the records added after it;
+ * without a usable snapshot the index is rebuilt from the whole log.
+ *
+ * Finish times are treated as never going backwards: a result which
+ * finished before the previous one (for example after a clock change) is
+ * counted as finishing at the same time as it.
+ */
+public final class GameHistory implements Closeable {
+
+    /**
+     * Logger.
+     */
+    private static final Logger
+    LOGGER = Logger.getLogger(GameHistory.class.getName());
+
+    /** First int of the log ("MSHL"). */
+    private static final int LOG_MAGIC = 0x4D53484C;
+
+    /** First int of a snapshot ("MSHI"). */
+    private static final int SNAPSHOT_MAGIC = 0x4D534849;
+
+    /** File format version. */
+    private static final int VERSION = 1;
+
+    /** Size of the log header (magic and version). */
+    private static final int HEADER_SIZE = 8;
+
+    /** Size of each log record. */
+    private static final int RECORD_SIZE = 32;
+
+    /** Bytes of a record covered by its checksum (all but the checksum). */
+    private static final int CHECKED_SIZE = 28;
+
+    /** Size of the buffers used to read and write the log. */
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    /** Number of won times collected before they are sorted into a run. */
+    private static final int HEAD_SIZE = 64;
+
+    /** Every game state, indexed by ordinal. */
+    private static final GameState[] GAME_STATES = GameState.values();
+
+    /** The snapshot file. */
+    private final File snapshotFile;
+
+    /** The log file. */
+    private final RandomAccessFile file;
+
+    /** Channel of the log file (positioned at the end). */
+    private final FileChannel channel;
+
+    /** Records waiting to be written to the log. */
+    private final ByteBuffer writeBuffer = ByteBuffer.allocate(BUFFER_SIZE);
+
+    /** Checksum of records. */
+    private final CRC32 crc = new CRC32();
+
+    /** Index of each difficulty (in order of first game). */
+    private final Map<Size, Leaderboard> boards =
+            new LinkedHashMap<Size, Leaderboard>();
+
+    /** Number of records in the log (including buffered ones). */
+    private long recordCount;
+
+    /** Number of records covered by the snapshot on disk. */
+    private long snapshotCount = -1;
+
+    /**
+     * Opens (or creates) a history.
+     *
+     * The snapshot is stored next to the log, with ".index" added to its
+     * name.
+     *
+     * @param log the log file
+     * @throws IOException if the log cannot be opened or is not a history
+     */
+    public GameHistory(final File log) throws IOException {
+        this.snapshotFile = new File(log.getPath() + ".index");
+        this.file = new RandomAccessFile(log, "rw");
+        this.channel = file.getChannel();
+
+        try {
+            open();
+        } catch (IOException e) {
+            file.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Adds the result of a game.
+     *
+     * The result is buffered; it is written to the log by {@link #flush()},
+     * {@link #close()} or when the buffer fills.
+     *
+     * @param result the result
+     * @throws IOException if the buffer had to be written and could not be
+     */
+    public synchronized void record(final GameResult result)
+            throws IOException {
+        if (!channel.isOpen()) {
+            throw new IllegalStateException("the history is closed");
+        }
+
+        if (writeBuffer.remaining() < RECORD_SIZE) {
+            flush();
+        }
+
+        int start = writeBuffer.position();
+        writeBuffer.putLong(result.getFinishedAt());
+        writeBuffer.putInt(result.getDuration());
+        writeBuffer.putInt(result.getWidth());
+        writeBuffer.putInt(result.getHeight());
+        writeBuffer.putInt(result.getMines());
+        writeBuffer.put((byte) result.getGameState().ordinal());
+        writeBuffer.put((byte) 0).put((byte) 0).put((byte) 0);
+
+        crc.reset();
+        crc.update(writeBuffer.array(), start, CHECKED_SIZE);
+        writeBuffer.putInt((int) crc.getValue());
+
+        leaderboard(result.getWidth(), result.getHeight(), result.getMines())
+                .add(result.getFinishedAt(), result.getDuration(),
+                        result.getGameState() == GameState.WON, true);
+        recordCount++;
+    }
+
+    /**
+     * Writes any buffered results to the log.
+     *
+     * @throws IOException if the log cannot be written
+     */
+    public synchronized void flush() throws IOException {
+        writeBuffer.flip();
+
+        while (writeBuffer.hasRemaining()) {
+            channel.write(writeBuffer);
+        }
+
+        writeBuffer.clear();
+    }
+
+    /**
+     * Gets the number of games recorded.
+     *
+     * @return number of games
+     */
+    public synchronized long getGameCount() {
+        return recordCount;
+    }
+
+    /**
+     * Gets the fastest won games of a difficulty.
+     *
+     * Equal times are ordered by when the games finished.
+     *
+     * @param width width of the minefield
+     * @param height height of the minefield
+     * @param mines number of mines
+     * @param count largest number of results to return
+     * @return up to count results, fastest first
+     */
+    public synchronized GameResult[] getTopTimes(final int width,
+            final int height, final int mines, final int count) {
+        Leaderboard board = boards.get(new Size(width, height, mines));
+
+        if (board == null) {
+            return new GameResult[0];
+        }
+
+        return board.top(count);
+    }
+
+    /**
+     * Gets the win rate of a difficulty since the given time.
+     *
+     * @param width width of the minefield
+     * @param height height of the minefield
+     * @param mines number of mines
+     * @param since earliest finish time to count (ms since the epoch)
+     * @return wins / games, or NaN if no games finished since then
+     */
+    public synchronized double getWinRate(final int width, final int height,
+            final int mines, final long since) {
+        Leaderboard board = boards.get(new Size(width, height, mines));
+
+        if (board == null) {
+            return Double.NaN;
+        }
+
+        int first = board.firstSince(since);
+        return (double) board.winsFrom(first) / (board.count - first);
+    }
+
+    /**
+     * Gets the win rate of every difficulty together since the given time.
+     *
+     * @param since earliest finish time to count (ms since the epoch)
+     * @return wins / games, or NaN if no games finished since then
+     */
+    public synchronized double getWinRate(final long since) {
+        long games = 0;
+        long wins = 0;
+
+        for (Leaderboard board : boards.values()) {
+            int first = board.firstSince(since);
+            games += board.count - first;
+            wins += board.winsFrom(first);
+        }
+
+        return (double) wins / games;
+    }
+
+    /**
+     * Writes the index to the snapshot file.
+     *
+     * The snapshot is written to a temporary file and then moved over the
+     * old one, so a crash part way through leaves the old snapshot.
+     *
+     * @throws IOException if the snapshot cannot be written
+     */
+    public synchronized void writeSnapshot() throws IOException {
+        flush();
+
+        File temp = new File(snapshotFile.getPath() + ".tmp");
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                new FileOutputStream(temp), BUFFER_SIZE));
+
+        try {
+            out.writeInt(SNAPSHOT_MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(recordCount);
+            out.writeInt(recordCount == 0 ? 0 : readChecksum(recordCount - 1));
+            out.writeInt(boards.size());
+
+            for (Leaderboard board : boards.values()) {
+                board.compact();
+                out.writeInt(board.size.width);
+                out.writeInt(board.size.height);
+                out.writeInt(board.size.mines);
+                out.writeInt(board.count);
+
+                for (int n = 0; n < board.count; n++) {
+                    out.writeLong(board.finishedAt[n]);
+                }
+
+                for (int n = 0; n < board.count; n++) {
+                    out.writeInt(board.wins[n]);
+                }
+
+                out.writeInt(board.baseSize);
+
+                for (int n = 0; n < board.baseSize; n++) {
+                    out.writeLong(board.base[n]);
+                }
+            }
+        } finally {
+            out.close();
+        }
+
+        Files.move(temp.toPath(), snapshotFile.toPath(),
+                StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+        snapshotCount = recordCount;
+    }
+
+    /**
+     * Writes any buffered results, updates the snapshot if anything was
+     * added and closes the log.
+     *
+     * @throws IOException if the log or snapshot cannot be written
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        if (!channel.isOpen()) {
+            return;
+        }
+
+        try {
+            if (snapshotCount != recordCount) {
+                writeSnapshot();
+            } else {
+                flush();
+            }
+        } finally {
+            file.close();
+        }
+    }
+
+    /**
+     * Checks the log and builds the index.
+     *
+     * @throws IOException if the log cannot be read or is not a history
+     */
+    private void open() throws IOException {
+        long size = channel.size();
+
+        if (size < HEADER_SIZE) {
+            // New (or torn before the first record)
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            header.putInt(LOG_MAGIC).putInt(VERSION).flip();
+            channel.truncate(0);
+            channel.write(header, 0);
+            channel.position(HEADER_SIZE);
+            return;
+        }
+
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        channel.read(header, 0);
+
+        if (header.getInt(0) != LOG_MAGIC || header.getInt(4) != VERSION) {
+            throw new IOException("not a game history log");
+        }
+
+        long logRecords = (size - HEADER_SIZE) / RECORD_SIZE;
+        long start = 0;
+
+        if (snapshotFile.exists()) {
+            try {
+                start = loadSnapshot(logRecords);
+            } catch (IOException | RuntimeException e) {
+                LOGGER.warning("Rebuilding game history index: " + e);
+                boards.clear();
+                start = 0;
+            }
+        }
+
+        long valid = replay(start, logRecords);
+
+        if (valid < logRecords
+                || HEADER_SIZE + valid * RECORD_SIZE != size) {
+            LOGGER.warning("Cutting damaged game history log after "
+                    + valid + " records");
+            channel.truncate(HEADER_SIZE + valid * RECORD_SIZE);
+        }
+
+        recordCount = valid;
+        channel.position(HEADER_SIZE + valid * RECORD_SIZE);
+    }
+
+    /**
+     * Loads the index from the snapshot.
+     *
+     * @param logRecords number of whole records in the log
+     * @return number of records covered by the snapshot
+     * @throws IOException if the snapshot cannot be used
+     */
+    private long loadSnapshot(final long logRecords) throws IOException {
+        // Read it whole (mapping it would stop it being replaced on Windows)
+        ByteBuffer in;
+        RandomAccessFile snapshot = new RandomAccessFile(snapshotFile, "r");
+
+        try {
+            FileChannel snapshotChannel = snapshot.getChannel();
+            in = ByteBuffer.allocate((int) snapshotChannel.size());
+
+            while (in.hasRemaining() && snapshotChannel.read(in) >= 0) {
+                continue;
+            }
+
+            in.flip();
+        } finally {
+            snapshot.close();
+        }
+
+        if (in.getInt() != SNAPSHOT_MAGIC || in.getInt() != VERSION) {
+            throw new IOException("not a game history snapshot");
+        }
+
+        long covered = in.getLong();
+        int checksum = in.getInt();
+
+        // The snapshot must belong to (a prefix of) this log
+        if (covered > logRecords || covered > 0
+                && readChecksum(covered - 1) != checksum) {
+            throw new IOException("snapshot does not match the log");
+        }
+
+        int boardCount = in.getInt();
+
+        for (int b = 0; b < boardCount; b++) {
+            Leaderboard board = leaderboard(in.getInt(), in.getInt(),
+                    in.getInt());
+            int count = in.getInt();
+            board.finishedAt = new long[Math.max(count, 16)];
+            board.wins = new int[Math.max(count, 16)];
+            in.asLongBuffer().get(board.finishedAt, 0, count);
+            in.position(in.position() + count * 8);
+            in.asIntBuffer().get(board.wins, 0, count);
+            in.position(in.position() + count * 4);
+            board.count = count;
+
+            int keys = in.getInt();
+            board.base = new long[keys];
+            in.asLongBuffer().get(board.base);
+            in.position(in.position() + keys * 8);
+            board.baseSize = keys;
+        }
+
+        snapshotCount = covered;
+        return covered;
+    }
+
+    /**
+     * Adds records from the log to the index.
+     *
+     * Stops at the first damaged record.
+     *
+     * @param start first record to read
+     * @param end number of whole records in the log
+     * @return number of valid records in the log
+     * @throws IOException if the log cannot be read
+     */
+    private long replay(final long start, final long end) throws IOException {
+        // A full rebuild collects the won times unsorted and sorts once
+        boolean rebuild = start == 0;
+        ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+        byte[] array = buffer.array();
+        long record = start;
+
+        while (record < end) {
+            buffer.clear();
+            buffer.limit((int) Math.min(BUFFER_SIZE,
+                    (end - record) * RECORD_SIZE));
+            long position = HEADER_SIZE + record * RECORD_SIZE;
+
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer, position + buffer.position()) < 0) {
+                    break;
+                }
+            }
+
+            int limit = buffer.position();
+
+            for (int offset = 0; offset + RECORD_SIZE <= limit;
+                    offset += RECORD_SIZE) {
+                crc.reset();
+                crc.update(array, offset, CHECKED_SIZE);
+
+                int state = buffer.get(offset + 24);
+
+                if ((int) crc.getValue() != buffer.getInt(offset + 28)
+                        || state < 0 || state >= GAME_STATES.length) {
+                    finishRebuild(rebuild);
+                    return record;
+                }
+
+                leaderboard(buffer.getInt(offset + 12),
+                        buffer.getInt(offset + 16),
+                        buffer.getInt(offset + 20))
+                        .add(buffer.getLong(offset), buffer.getInt(offset + 8),
+                                GAME_STATES[state] == GameState.WON, !rebuild);
+                record++;
+            }
+
+            if (limit < buffer.limit()) {
+                break;
+            }
+        }
+
+        finishRebuild(rebuild);
+        return record;
+    }
+
+    /**
+     * Sorts the won times collected by a full rebuild.
+     *
+     * @param rebuild true if the index was rebuilt from the whole log
+     */
+    private void finishRebuild(final boolean rebuild) {
+        if (rebuild) {
+            for (Leaderboard board : boards.values()) {
+                Arrays.sort(board.base, 0, board.baseSize);
+            }
+        }
+    }
+
+    /**
+     * Reads the checksum of a record in the log.
+     *
+     * @param record record number
+     * @return the stored checksum
+     * @throws IOException if the log cannot be read
+     */
+    private int readChecksum(final long record) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(4);
+        long position = HEADER_SIZE + record * RECORD_SIZE + CHECKED_SIZE;
+
+        // The record may still be in the write buffer
+        long written = channel.size();
+
+        if (position >= written) {
+            return writeBuffer.getInt((int) (position - written));
+        }
+
+        channel.read(buffer, position);
+        return buffer.getInt(0);
+    }
+
+    /**
+     * Gets (or creates) the index of a difficulty.
+     *
+     * @param width width of the minefield
+     * @param height height of the minefield
+     * @param mines number of mines
+     * @return the index
+     */
+    private Leaderboard leaderboard(final int width, final int height,
+            final int mines) {
+        Size size = new Size(width, height, mines);
+        Leaderboard board = boards.get(size);
+
+        if (board == null) {
+            board = new Leaderboard(size);
+            boards.put(size, board);
+        }
+
+        return board;
+    }
+
+    /**
+     * The index of one difficulty.
+     *
+     * Won times are stored as {@code duration << 32 | game}, where game is
+     * the position of the game in finishedAt, so they sort by time and then
+     * by finish order.
+     */
+    private static final class Leaderboard {
+
+        /** The difficulty. */
+        private final Size size;
+
+        /** Finish time of each game (never decreasing). */
+        private long[] finishedAt = new long[16];
+
+        /** Number of wins up to and including each game. */
+        private int[] wins = new int[16];
+
+        /** Number of games. */
+        private int count;
+
+        /** The largest sorted run of won times. */
+        private long[] base = new long[16];
+
+        /** Number of won times in base. */
+        private int baseSize;
+
+        /** Sorted runs; runs[level] holds HEAD_SIZE &lt;&lt; level times. */
+        private long[][] runs = new long[0][];
+
+        /** Most recent won times (sorted). */
+        private final long[] head = new long[HEAD_SIZE];
+
+        /** Number of won times in head. */
+        private int headSize;
+
+        /**
+         * Initializes a new Leaderboard.
+         *
+         * @param difficulty the difficulty
+         */
+        Leaderboard(final Size difficulty) {
+            this.size = difficulty;
+        }
+
+        /**
+         * Adds a game.
+         *
+         * @param finished finish time of the game
+         * @param duration time taken (ms)
+         * @param won true if the game was won
+         * @param sorted false to append won times to base unsorted (which
+         *        must then be sorted before any query)
+         */
+        void add(final long finished, final int duration, final boolean won,
+                final boolean sorted) {
+            if (count == finishedAt.length) {
+                finishedAt = Arrays.copyOf(finishedAt, count * 2);
+                wins = Arrays.copyOf(wins, count * 2);
+            }
+
+            int previousWins = count == 0 ? 0 : wins[count - 1];
+            finishedAt[count] = count == 0 ? finished
+                    : Math.max(finished, finishedAt[count - 1]);
+            wins[count] = previousWins + (won ? 1 : 0);
+
+            if (won) {
+                long key = (long) duration << 32 | count;
+
+                if (sorted) {
+                    addSorted(key);
+                } else {
+                    if (baseSize == base.length) {
+                        base = Arrays.copyOf(base, baseSize * 2);
+                    }
+
+                    base[baseSize++] = key;
+                }
+            }
+
+            count++;
+        }
+
+        /**
+         * Adds a won time to the head, carrying full runs upwards.
+         *
+         * @param key the won time
+         */
+        private void addSorted(final long key) {
+            int n = headSize;
+
+            while (n > 0 && head[n - 1] > key) {
+                head[n] = head[n - 1];
+                n--;
+            }
+
+            head[n] = key;
+
+            if (++headSize < HEAD_SIZE) {
+                return;
+            }
+
+            long[] carry = head.clone();
+            headSize = 0;
+            int level = 0;
+
+            while (level < runs.length && runs[level] != null) {
+                carry = merge(runs[level], runs[level].length,
+                        carry, carry.length);
+                runs[level] = null;
+                level++;
+            }
+
+            if (level == runs.length) {
+                runs = Arrays.copyOf(runs, level + 1);
+            }
+
+            runs[level] = carry;
+        }
+
+        /**
+         * Merges every run and the head into base.
+         */
+        void compact() {
+            long[] merged = merge(base, baseSize, head, headSize);
+
+            for (long[] run : runs) {
+                if (run != null) {
+                    merged = merge(merged, merged.length, run, run.length);
+                }
+            }
+
+            base = merged;
+            baseSize = merged.length;
+            runs = new long[0][];
+            headSize = 0;
+        }
+
+        /**
+         * Gets the fastest won games.
+         *
+         * @param limit largest number of results
+         * @return up to limit results, fastest first
+         */
+        GameResult[] top(final int limit) {
+            // Every sorted source with a cursor into it
+            long[][] sources = new long[runs.length + 2][];
+            int[] sizes = new int[sources.length];
+            int[] cursors = new int[sources.length];
+            sources[0] = base;
+            sizes[0] = baseSize;
+            sources[1] = head;
+            sizes[1] = headSize;
+
+            for (int level = 0; level < runs.length; level++) {
+                if (runs[level] != null) {
+                    sources[level + 2] = runs[level];
+                    sizes[level + 2] = runs[level].length;
+                }
+            }
+
+            GameResult[] results = new GameResult[Math.min(limit,
+                    wins[Math.max(count - 1, 0)])];
+            int found = 0;
+
+            while (found < results.length) {
+                int best = -1;
+                long bestKey = Long.MAX_VALUE;
+
+                for (int s = 0; s < sources.length; s++) {
+                    if (cursors[s] < sizes[s]
+                            && sources[s][cursors[s]] < bestKey) {
+                        best = s;
+                        bestKey = sources[s][cursors[s]];
+                    }
+                }
+
+                if (best < 0) {
+                    break;
+                }
+
+                cursors[best]++;
+                results[found++] = new GameResult(finishedAt[(int) bestKey],
+                        size.width, size.height, size.mines,
+                        (int) (bestKey >>> 32), GameState.WON);
+            }
+
+            return results;
+        }
+
+        /**
+         * Finds the first game which finished at or after a time.
+         *
+         * @param since the time
+         * @return position of the game (count if there is none)
+         */
+        int firstSince(final long since) {
+            int low = 0;
+            int high = count;
+
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+
+                if (finishedAt[mid] < since) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+
+            return low;
+        }
+
+        /**
+         * Counts the wins from a game onwards.
+         *
+         * @param first position of the first game to count
+         * @return number of wins
+         */
+        int winsFrom(final int first) {
+            if (first >= count) {
+                return 0;
+            }
+
+            return wins[count - 1] - (first == 0 ? 0 : wins[first - 1]);
+        }
+
+        /**
+         * Merges two sorted arrays.
+         *
+         * @param a first array
+         * @param aSize number of values used in a
+         * @param b second array
+         * @param bSize number of values used in b
+         * @return new array holding both
+         */
+        private static long[] merge(final long[] a, final int aSize,
+                final long[] b, final int bSize) {
+            long[] out = new long[aSize + bSize];
+            int i = 0;
+            int j = 0;
+            int k = 0;
+
+            while (i < aSize && j < bSize) {
+                out[k++] = a[i] <= b[j] ? a[i++] : b[j++];
+            }
+
+            System.arraycopy(a, i, out, k, aSize - i);
+            System.arraycopy(b, j, out, k + aSize - i, bSize - j);
+            return out;
+        }
+    }
+
+    /**
+     * Dimensions of a minefield (used as the difficulty).
+     */
+    private static final class Size {
+
+        /** Width in tiles. */
+        private final int width;
+
+        /** Height in tiles. */
+        private final int height;
+
+        /** Number of mines. */
+        private final int mines;
+
+        /**
+         * Initializes a new Size.
+         *
+         * @param w width in tiles
+         * @param h height in tiles
+         * @param m number of mines
+         */
+        Size(final int w, final int h, final int m) {
+            this.width = w;
+            this.height = h;
+            this.mines = m;
+        }
+
+        @Override
+        public boolean equals(final Object obj) {
+            if (!(obj instanceof Size)) {
+                return false;
+            }
+
+            Size other = (Size) obj;
+            return width == other.width && height == other.height
+                    && mines == other.mines;
+        }
+
+        @Override
+        public int hashCode() {
+            return (width * 31 + height) * 31 + mines;
+        }
+    }
+}
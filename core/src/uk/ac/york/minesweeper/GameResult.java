@@ -0,0 +1,107 @@
+package uk.ac.york.minesweeper;
+
+/**
+ * The result of one finished game, as stored by {@link GameHistory}.
+ */
+public final class GameResult {
+
+    /** Time the game finished (ms since the epoch). */
+    private final long finishedAt;
+
+    /** Width of the minefield. */
+    private final int width;
+
+    /** Height of the minefield. */
+    private final int height;
+
+    /** Number of mines. */
+    private final int mines;
+
+    /** Time taken to play the game (ms). */
+    private final int duration;
+
+    /** Final state of the game (WON or LOST). */
+    private final GameState gameState;
+
+    /**
+     * Initializes a new GameResult.
+     *
+     * @param finished time the game finished (ms since the epoch)
+     * @param w width of the minefield
+     * @param h height of the minefield
+     * @param m number of mines
+     * @param millis time taken to play the game (ms)
+     * @param state final state of the game (WON or LOST)
+     */
+    public GameResult(final long finished, final int w, final int h,
+            final int m, final int millis, final GameState state) {
+        if (state != GameState.WON && state != GameState.LOST) {
+            throw new IllegalArgumentException("the game has not finished");
+        }
+
+        if (millis < 0) {
+            throw new IllegalArgumentException("duration cannot be negative");
+        }
+
+        this.finishedAt = finished;
+        this.width = w;
+        this.height = h;
+        this.mines = m;
+        this.duration = millis;
+        this.gameState = state;
+    }
+
+    /**
+     * Gets the time the game finished.
+     *
+     * @return ms since the epoch
+     */
+    public long getFinishedAt() {
+        return finishedAt;
+    }
+
+    /**
+     * Gets the width of the minefield.
+     *
+     * @return width in tiles
+     */
+    public int getWidth() {
+        return width;
+    }
+
+    /**
+     * Gets the height of the minefield.
+     *
+     * @return height in tiles
+     */
+    public int getHeight() {
+        return height;
+    }
+
+    /**
+     * Gets the number of mines.
+     *
+     * @return number of mines
+     */
+    public int getMines() {
+        return mines;
+    }
+
+    /**
+     * Gets the time taken to play the game.
+     *
+     * @return duration in ms
+     */
+    public int getDuration() {
+        return duration;
+    }
+
+    /**
+     * Gets the final state of the game.
+     *
+     * @return WON or LOST
+     */
+    public GameState getGameState() {
+        return gameState;
+    }
+}
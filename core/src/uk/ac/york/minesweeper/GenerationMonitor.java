@@ -0,0 +1,22 @@
+package uk.ac.york.minesweeper;
+
+/**
+ * Receives progress from (and can cancel) minefield generation
+ */
+public interface GenerationMonitor
+{
+    /**
+     * Called periodically while the mines are being placed
+     *
+     * @param done number of mines placed so far
+     * @param total total number of mines
+     */
+    public void progress(int done, int total);
+
+    /**
+     * Returns true if generation should be abandoned
+     *
+     * @return true to cancel generation
+     */
+    public boolean isCancelled();
+}
@@ -13,6 +13,13 @@ public class HTMLFormatter extends Formatter {
 
     private final DateFormat dateformatter = DateFormat.getDateTimeInstance(DateFormat.SHORT, DateFormat.MEDIUM);
 
+    /**
+     * Initializes a new HTMLFormatter.
+     */
+    public HTMLFormatter() {
+
+    }
+
     @Override
     public final String format(LogRecord record) {
 
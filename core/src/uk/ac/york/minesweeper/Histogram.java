@@ -0,0 +1,233 @@
+package uk.ac.york.minesweeper;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A lock-free histogram of non-negative long values.
+ *
+ * Values are counted in power-of-two buckets, so recording is a couple of
+ * atomic adds and percentiles are accurate to within a factor of two.
+ */
+public final class Histogram {
+
+    /** Number of buckets (one for zero plus one per bit of a long). */
+    private static final int BUCKETS = 65;
+
+    /** Name of the histogram. */
+    private final String name;
+
+    /** Bucket counts (bucket n holds values in [2^(n-1), 2^n)). */
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+
+    /** Number of recorded values. */
+    private final AtomicLong count = new AtomicLong();
+
+    /** Sum of all recorded values. */
+    private final AtomicLong sum = new AtomicLong();
+
+    /** Largest recorded value. */
+    private final AtomicLong max = new AtomicLong();
+
+    /**
+     * Initializes a new empty histogram.
+     *
+     * @param histogramName name of the histogram
+     */
+    public Histogram(final String histogramName) {
+        this.name = histogramName;
+    }
+
+    /**
+     * Gets the name of the histogram.
+     *
+     * @return name of the histogram
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Records a value (negative values are recorded as zero).
+     *
+     * @param value value to record
+     */
+    public void record(final long value) {
+        long v = Math.max(value, 0);
+
+        buckets.incrementAndGet(bucketOf(v));
+        count.incrementAndGet();
+        sum.addAndGet(v);
+
+        // Update the maximum
+        long oldMax = max.get();
+        while (v > oldMax && !max.compareAndSet(oldMax, v)) {
+            oldMax = max.get();
+        }
+    }
+
+    /**
+     * Clears all recorded values.
+     */
+    public void reset() {
+        for (int i = 0; i < BUCKETS; i++) {
+            buckets.set(i, 0);
+        }
+
+        count.set(0);
+        sum.set(0);
+        max.set(0);
+    }
+
+    /**
+     * Takes a snapshot of the current histogram values.
+     *
+     * The snapshot is not atomic with respect to concurrent recording, but
+     * each individual value in it is consistent.
+     *
+     * @return snapshot of the histogram
+     */
+    public Snapshot snapshot() {
+        long[] counts = new long[BUCKETS];
+        long total = 0;
+
+        for (int i = 0; i < BUCKETS; i++) {
+            counts[i] = buckets.get(i);
+            total += counts[i];
+        }
+
+        return new Snapshot(name, total, sum.get(), max.get(), counts);
+    }
+
+    /**
+     * Gets the bucket a value is counted in.
+     *
+     * @param value non-negative value
+     * @return bucket index
+     */
+    private static int bucketOf(final long value) {
+        return 64 - Long.numberOfLeadingZeros(value);
+    }
+
+    /**
+     * Immutable view of a histogram at a point in time.
+     */
+    public static final class Snapshot {
+
+        /** Name of the histogram. */
+        private final String name;
+
+        /** Number of recorded values. */
+        private final long count;
+
+        /** Sum of all recorded values. */
+        private final long sum;
+
+        /** Largest recorded value. */
+        private final long max;
+
+        /** Bucket counts. */
+        private final long[] counts;
+
+        /**
+         * Initializes a new snapshot.
+         *
+         * @param snapshotName name of the histogram
+         * @param snapshotCount number of values
+         * @param snapshotSum sum of values
+         * @param snapshotMax largest value
+         * @param bucketCounts bucket counts (not copied)
+         */
+        private Snapshot(final String snapshotName, final long snapshotCount,
+                final long snapshotSum, final long snapshotMax,
+                final long[] bucketCounts) {
+            this.name = snapshotName;
+            this.count = snapshotCount;
+            this.sum = snapshotSum;
+            this.max = snapshotMax;
+            this.counts = bucketCounts;
+        }
+
+        /**
+         * Gets the name of the histogram.
+         *
+         * @return name of the histogram
+         */
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * Gets the number of recorded values.
+         *
+         * @return number of values
+         */
+        public long getCount() {
+            return count;
+        }
+
+        /**
+         * Gets the sum of all recorded values.
+         *
+         * @return sum of values
+         */
+        public long getSum() {
+            return sum;
+        }
+
+        /**
+         * Gets the largest recorded value.
+         *
+         * @return largest value
+         */
+        public long getMax() {
+            return max;
+        }
+
+        /**
+         * Gets the mean of all recorded values.
+         *
+         * @return mean value (0 if empty)
+         */
+        public double getMean() {
+            return count == 0 ? 0 : (double) sum / count;
+        }
+
+        /**
+         * Gets an upper bound for the given percentile.
+         *
+         * @param percentile percentile between 0 and 100
+         * @return upper bound of the bucket containing the percentile
+         */
+        public long getPercentile(final double percentile) {
+            if (count == 0) {
+                return 0;
+            }
+
+            long target = (long) Math.ceil(count * percentile / 100.0);
+            long seen = 0;
+
+            for (int i = 0; i < counts.length; i++) {
+                seen += counts[i];
+
+                if (seen >= Math.max(target, 1)) {
+                    // Upper bound of bucket, clamped to the real maximum
+                    long upper = (i == 0) ? 0 : (i >= 63)
+                            ? Long.MAX_VALUE : (1L << i) - 1;
+                    return Math.min(upper, max);
+                }
+            }
+
+            return max;
+        }
+
+        @Override
+        public String toString() {
+            return name + ": count=" + count
+                    + " mean=" + (long) getMean()
+                    + " p50=" + getPercentile(50)
+                    + " p99=" + getPercentile(99)
+                    + " max=" + max;
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package uk.ac.york.minesweeper;
+
+import java.util.Arrays;
+
+/**
+ * A set of array indexes with constant time add, remove and lookup.
+ *
+ * The members are kept in a dense list (so they can be iterated without
+ * scanning the whole board) and each index remembers its position in it.
+ * Removing swaps the last member into the hole, so the order of the
+ * members is not stable.
+ */
+final class IndexSet {
+
+    /** Position + 1 of each index in items (0 if not a member). */
+    private final int[] positions;
+
+    /** The members. */
+    private int[] items = new int[16];
+
+    /** Number of members. */
+    private int size;
+
+    /**
+     * Initializes a new empty IndexSet.
+     *
+     * @param capacity one more than the largest index which can be stored
+     */
+    IndexSet(final int capacity) {
+        this.positions = new int[capacity];
+    }
+
+    /**
+     * Adds an index.
+     *
+     * @param index index to add
+     * @return true if the index was not already a member
+     */
+    boolean add(final int index) {
+        if (positions[index] != 0) {
+            return false;
+        }
+
+        if (size == items.length) {
+            items = Arrays.copyOf(items, size * 2);
+        }
+
+        items[size++] = index;
+        positions[index] = size;
+        return true;
+    }
+
+    /**
+     * Removes an index.
+     *
+     * @param index index to remove
+     * @return true if the index was a member
+     */
+    boolean remove(final int index) {
+        int position = positions[index] - 1;
+
+        if (position < 0) {
+            return false;
+        }
+
+        // Move the last member into the hole
+        int moved = items[--size];
+        items[position] = moved;
+        positions[moved] = position + 1;
+        positions[index] = 0;
+        return true;
+    }
+
+    /**
+     * Returns true if an index is a member.
+     *
+     * @param index index to look up
+     * @return true if the index is in the set
+     */
+    boolean contains(final int index) {
+        return positions[index] != 0;
+    }
+
+    /**
+     * Gets the number of members.
+     *
+     * @return size of the set
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * Gets a member.
+     *
+     * @param n position of the member (0 to size() - 1)
+     * @return the index stored at that position
+     */
+    int get(final int n) {
+        return items[n];
+    }
+}
@@ -0,0 +1,700 @@
+package uk.ac.york.minesweeper;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * A minefield stored outside the Java heap.
+ *
+ * Used for research boards with billions of tiles. Each tile is one byte in
+ * a list of direct (or memory mapped) buffers, indexed by
+ * {@code (long) y * width + x}. When the minefield is mapped to a file the
+ * operating system pages tiles in and out, so the board may be larger than
+ * both the heap and physical memory; a new file is sparse, so untouched
+ * tiles take no disk space.
+ *
+ * The game rules are the same as {@link Minefield} on the rectangular
+ * topology. The flood fill works on spans of rows and only keeps a stack of
+ * seed tiles, so it streams over the buffers without creating an object
+ * per tile.
+ */
+public final class MappedMinefield implements Closeable {
+
+    /** Each buffer holds 2^CHUNK_BITS tiles. */
+    private static final int CHUNK_BITS = 30;
+
+    /** Mask for the index of a tile within its buffer. */
+    private static final long CHUNK_MASK = (1L << CHUNK_BITS) - 1;
+
+    /** Bits of a tile byte holding the value. */
+    private static final int VALUE_MASK = 0x0F;
+
+    /** Value stored for mines. */
+    private static final int MINE = 0x0F;
+
+    /** Shift of the tile state (TileState ordinal) within a tile byte. */
+    private static final int STATE_SHIFT = 4;
+
+    /** Stored state of flagged tiles. */
+    private static final int FLAGGED = TileState.FLAGGED.ordinal();
+
+    /** Stored state of uncovered tiles. */
+    private static final int UNCOVERED = TileState.UNCOVERED.ordinal();
+
+    /** Tile states indexed by their stored value. */
+    private static final TileState[] TILE_STATES = TileState.values();
+
+    /** Width of the minefield in tiles. */
+    private final int width;
+
+    /** Height of the minefield in tiles. */
+    private final int height;
+
+    /** Number of mines. */
+    private final long mines;
+
+    /** Tile bytes (value in the low bits, state above). */
+    private final ByteBuffer[] chunks;
+
+    /** File the tiles are mapped to (null if not mapped). */
+    private final RandomAccessFile file;
+
+    /** Number of extra tiles which need to uncovered to win. */
+    private long tilesLeft;
+
+    /** If true, uncovers mines when the game finishes. */
+    private boolean uncoverMinesAtEnd = true;
+
+    /** State of the game. */
+    private GameState gameState = GameState.NOT_STARTED;
+
+    /** Seed tiles waiting to be expanded by the flood fill. */
+    private long[] seeds = new long[16];
+
+    /**
+     * Initializes a new MappedMinefield.
+     *
+     * @param w width in tiles
+     * @param h height in tiles
+     * @param m number of mines
+     * @param buffers tile buffers (all zero)
+     * @param mapped file the buffers are mapped from (may be null)
+     */
+    private MappedMinefield(final int w, final int h, final long m,
+            final ByteBuffer[] buffers, final RandomAccessFile mapped) {
+        this.width = w;
+        this.height = h;
+        this.mines = m;
+        this.chunks = buffers;
+        this.file = mapped;
+        this.tilesLeft = (long) w * h - m;
+    }
+
+    /**
+     * Creates a minefield in direct (off-heap) memory.
+     *
+     * @param width width of the minefield in tiles
+     * @param height height of the minefield in tiles
+     * @param mines number of mines
+     * @return the new minefield
+     */
+    public static MappedMinefield allocate(final int width, final int height,
+            final long mines) {
+        long tiles = checkSize(width, height, mines);
+        ByteBuffer[] buffers = new ByteBuffer[chunkCount(tiles)];
+
+        for (int i = 0; i < buffers.length; i++) {
+            buffers[i] = ByteBuffer.allocateDirect(chunkSize(tiles, i));
+        }
+
+        return new MappedMinefield(width, height, mines, buffers, null);
+    }
+
+    /**
+     * Creates a minefield mapped to a file.
+     *
+     * Any existing file is replaced. The file is not deleted by
+     * {@link #close()}.
+     *
+     * @param path file to store the tiles in
+     * @param width width of the minefield in tiles
+     * @param height height of the minefield in tiles
+     * @param mines number of mines
+     * @return the new minefield
+     * @throws IOException if the file cannot be created or mapped
+     */
+    public static MappedMinefield map(final File path, final int width,
+            final int height, final long mines) throws IOException {
+        long tiles = checkSize(width, height, mines);
+        RandomAccessFile raf = new RandomAccessFile(path, "rw");
+
+        try {
+            // Truncating and extending leaves a sparse file of zeros
+            raf.setLength(0);
+            raf.setLength(tiles);
+
+            FileChannel channel = raf.getChannel();
+            ByteBuffer[] buffers = new ByteBuffer[chunkCount(tiles)];
+
+            for (int i = 0; i < buffers.length; i++) {
+                buffers[i] = channel.map(FileChannel.MapMode.READ_WRITE,
+                        (long) i << CHUNK_BITS, chunkSize(tiles, i));
+            }
+
+            return new MappedMinefield(width, height, mines, buffers, raf);
+        } catch (IOException | RuntimeException e) {
+            raf.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Validates the size of a new minefield.
+     *
+     * @param width width in tiles
+     * @param height height in tiles
+     * @param mines number of mines
+     * @return number of tiles
+     */
+    private static long checkSize(final int width, final int height,
+            final long mines) {
+        if (width < 1 || height < 1 || mines < 0) {
+            throw new IllegalArgumentException("invalid minefield dimensions");
+        }
+
+        long tiles = (long) width * height;
+
+        if (tiles - mines <= 0) {
+            throw new IllegalArgumentException("too many mines");
+        }
+
+        return tiles;
+    }
+
+    /**
+     * Gets the number of buffers needed for some tiles.
+     *
+     * @param tiles number of tiles
+     * @return number of buffers
+     */
+    private static int chunkCount(final long tiles) {
+        return (int) ((tiles + CHUNK_MASK) >>> CHUNK_BITS);
+    }
+
+    /**
+     * Gets the size of one of the buffers.
+     *
+     * @param tiles number of tiles
+     * @param chunk buffer number
+     * @return number of tiles in that buffer
+     */
+    private static int chunkSize(final long tiles, final int chunk) {
+        return (int) Math.min(1L << CHUNK_BITS,
+                tiles - ((long) chunk << CHUNK_BITS));
+    }
+
+    /**
+     * Gets the width of the minefield in tiles.
+     *
+     * @return width of the minefield
+     */
+    public int getWidth() {
+        return width;
+    }
+
+    /**
+     * Gets the height of the minefield in tiles.
+     *
+     * @return height of the minefield
+     */
+    public int getHeight() {
+        return height;
+    }
+
+    /**
+     * Gets the total number of mines in the minefield.
+     *
+     * @return total number of mines
+     */
+    public long getMines() {
+        return mines;
+    }
+
+    /**
+     * Gets a value which is true if
+     * all mines are uncovered at the end of the game.
+     *
+     * @return true if mines are uncovered at the end
+     */
+    public boolean isUncoveringMinesAtEnd() {
+        return uncoverMinesAtEnd;
+    }
+
+    /**
+     * Sets a value determining whether
+     * mines are uncovered at the end of the game.
+     *
+     * @param uncover true if mines are uncovered at the end
+     */
+    public void setUncoverMinesAtEnd(final boolean uncover) {
+        this.uncoverMinesAtEnd = uncover;
+    }
+
+    /**
+     * Gets the current state of the game.
+     *
+     * @return the game state
+     */
+    public GameState getGameState() {
+        return gameState;
+    }
+
+    /**
+     * Gets a value which is true if the game has finished.
+     *
+     * @return true if the game has finished
+     */
+    public boolean isFinished() {
+        return gameState == GameState.WON || gameState == GameState.LOST;
+    }
+
+    /**
+     * Gets the value of the given tile (mine / surrounding mines).
+     *
+     * @param x x position of tile
+     * @param y y position of tile
+     * @return value of that tile (-1 = mine)
+     */
+    public int getTileValue(final int x, final int y) {
+        if (gameState == GameState.NOT_STARTED) {
+            throw new IllegalStateException("you must call "
+                    + "uncover at least once before using getTileValue");
+        }
+
+        int value = get(index(x, y)) & VALUE_MASK;
+        return value == MINE ? -1 : value;
+    }
+
+    /**
+     * Gets the state of the given tile.
+     *
+     * @param x x position of tile
+     * @param y y position of tile
+     * @return the tile state
+     */
+    public TileState getTileState(final int x, final int y) {
+        return TILE_STATES[(get(index(x, y)) & 0xFF) >>> STATE_SHIFT];
+    }
+
+    /**
+     * Gets the visible state of a tile as a single code.
+     *
+     * @param x x position of tile
+     * @param y y position of tile
+     * @return visible tile code (see {@link VisibleTile})
+     */
+    public int getVisibleTile(final int x, final int y) {
+        int tile = get(index(x, y)) & 0xFF;
+        int state = tile >>> STATE_SHIFT;
+
+        if (state != UNCOVERED) {
+            return VisibleTile.COVERED + state;
+        }
+
+        int value = tile & VALUE_MASK;
+        return value == MINE ? VisibleTile.MINE : value;
+    }
+
+    /**
+     * Updates the state of the given tile.
+     *
+     * Can be used to add flags and uncover tiles.
+     * You cannot cover a tile that has already been uncovered.
+     *
+     * @param x x position of tile
+     * @param y y position of tile
+     * @param newState the tile's new state
+     */
+    public void setTileState(final int x, final int y,
+            final TileState newState) {
+        if (isFinished()) {
+            throw new IllegalStateException("the game has finished");
+        }
+
+        if (newState == TileState.UNCOVERED) {
+            uncover(x, y);
+            return;
+        }
+
+        long i = index(x, y);
+        int tile = get(i) & 0xFF;
+
+        if (tile >>> STATE_SHIFT == UNCOVERED) {
+            throw new UnsupportedOperationException("you cannot"
+                    + " cover a tile once uncovered");
+        }
+
+        put(i, (tile & VALUE_MASK) | newState.ordinal() << STATE_SHIFT);
+    }
+
+    /**
+     * Uncovers the given tile.
+     *
+     * If the tile has no surrounding mines, all the connected tiles with no
+     * surrounding mines (and the numbers around them) are uncovered as well.
+     * The mines are placed by the first call.
+     *
+     * @param x x position of tile
+     * @param y y position of tile
+     */
+    public void uncover(final int x, final int y) {
+        if (isFinished()) {
+            throw new IllegalStateException("the game has finished");
+        }
+
+        long i = index(x, y);
+
+        // New game?
+        if (gameState == GameState.NOT_STARTED) {
+            initValues(i);
+            gameState = GameState.RUNNING;
+        }
+
+        uncoverNoChecks(i);
+    }
+
+    /**
+     * Uncovers the tiles surrounding a tile if it has the right number of
+     * surrounding flags.
+     *
+     * @param x x position of tile
+     * @param y y position of tile
+     */
+    public void chord(final int x, final int y) {
+        if (isFinished()) {
+            throw new IllegalStateException("the game has finished");
+        }
+
+        long i = index(x, y);
+        int tile = get(i) & 0xFF;
+
+        if (tile >>> STATE_SHIFT != UNCOVERED) {
+            return;
+        }
+
+        // Count surrounding flags
+        int flags = 0;
+
+        for (int dy = -1; dy <= 1; dy++) {
+            for (int dx = -1; dx <= 1; dx++) {
+                if (inside(x + dx, y + dy) && (get(i + (long) dy * width + dx)
+                        & 0xFF) >>> STATE_SHIFT == FLAGGED) {
+                    flags++;
+                }
+            }
+        }
+
+        if ((tile & VALUE_MASK) != flags) {
+            return;
+        }
+
+        // Uncover all surrounding tiles which are not flagged
+        for (int dy = -1; dy <= 1; dy++) {
+            for (int dx = -1; dx <= 1; dx++) {
+                long next = i + (long) dy * width + dx;
+
+                if (inside(x + dx, y + dy)
+                        && (get(next) & 0xFF) >>> STATE_SHIFT != FLAGGED) {
+                    uncoverNoChecks(next);
+                }
+            }
+        }
+    }
+
+    /**
+     * Flushes a mapped minefield to its file and releases the buffers.
+     *
+     * The minefield cannot be used afterwards.
+     *
+     * @throws IOException if the file cannot be written
+     */
+    @Override
+    public void close() throws IOException {
+        if (file != null) {
+            for (ByteBuffer chunk : chunks) {
+                ((MappedByteBuffer) chunk).force();
+            }
+
+            file.close();
+        }
+
+        Arrays.fill(chunks, null);
+    }
+
+    /**
+     * Gets the index of a tile.
+     *
+     * @param x x position of tile
+     * @param y y position of tile
+     * @return index of the tile in the buffers
+     */
+    private long index(final int x, final int y) {
+        if (!inside(x, y)) {
+            throw new IndexOutOfBoundsException("tile (" + x + ", " + y
+                    + ") is outside the minefield");
+        }
+
+        return (long) y * width + x;
+    }
+
+    /**
+     * Returns true if a tile exists.
+     *
+     * @param x x position of tile
+     * @param y y position of tile
+     * @return true if the tile is inside the minefield
+     */
+    private boolean inside(final int x, final int y) {
+        return x >= 0 && y >= 0 && x < width && y < height;
+    }
+
+    /**
+     * Reads a tile byte.
+     *
+     * @param i index of tile
+     * @return tile byte
+     */
+    private byte get(final long i) {
+        return chunks[(int) (i >>> CHUNK_BITS)].get((int) (i & CHUNK_MASK));
+    }
+
+    /**
+     * Writes a tile byte.
+     *
+     * @param i index of tile
+     * @param tile new tile byte
+     */
+    private void put(final long i, final int tile) {
+        chunks[(int) (i >>> CHUNK_BITS)].put((int) (i & CHUNK_MASK),
+                (byte) tile);
+    }
+
+    /**
+     * Places the mines and calculates the values.
+     *
+     * The mines are placed at random first, then the values are counted in
+     * one sequential pass over the rows (so a mapped file is read and
+     * written in order).
+     *
+     * @param startIndex tile which must not be a mine
+     */
+    private void initValues(final long startIndex) {
+        Random rnd = new Random();
+
+        for (long placed = 0; placed < mines; placed++) {
+            long i;
+
+            do {
+                i = (long) rnd.nextInt(height) * width + rnd.nextInt(width);
+            }
+            while ((get(i) & VALUE_MASK) == MINE || i == startIndex);
+
+            put(i, MINE);
+        }
+
+        // Mines in each column of the three rows around the current row
+        int[] columns = new int[width + 2];
+
+        for (int y = 0; y < height; y++) {
+            long row = (long) y * width;
+
+            for (int x = 0; x < width; x++) {
+                int count = 0;
+
+                for (int dy = Math.max(0, y - 1);
+                        dy <= Math.min(height - 1, y + 1); dy++) {
+                    if ((get((long) dy * width + x) & VALUE_MASK) == MINE) {
+                        count++;
+                    }
+                }
+
+                columns[x + 1] = count;
+            }
+
+            for (int x = 0; x < width; x++) {
+                if ((get(row + x) & VALUE_MASK) != MINE) {
+                    put(row + x, columns[x] + columns[x + 1] + columns[x + 2]);
+                }
+            }
+        }
+    }
+
+    /**
+     * Uncovers a tile and floods outwards from it without state checks.
+     *
+     * Covered tiles with no surrounding mines are filled a row span at a
+     * time: each seed is extended left and right, then the rows above and
+     * below the span are scanned for numbers to uncover and new seeds (one
+     * per run of covered zeros).
+     *
+     * @param index index of the tile
+     */
+    private void uncoverNoChecks(final long index) {
+        int tile = get(index) & 0xFF;
+
+        if (tile >>> STATE_SHIFT == UNCOVERED) {
+            return;
+        }
+
+        if ((tile & VALUE_MASK) != 0) {
+            uncoverTile(index, tile);
+            return;
+        }
+
+        int size = 0;
+        seeds[size++] = index;
+
+        while (size > 0) {
+            long seed = seeds[--size];
+
+            // Another span may already have reached this seed
+            if ((get(seed) & 0xFF) >>> STATE_SHIFT == UNCOVERED) {
+                continue;
+            }
+
+            int y = (int) (seed / width);
+            long row = (long) y * width;
+            int left = (int) (seed - row);
+            int right = left;
+
+            while (left > 0 && isCoveredZero(row + left - 1)) {
+                left--;
+            }
+
+            while (right < width - 1 && isCoveredZero(row + right + 1)) {
+                right++;
+            }
+
+            // Uncover the span and the numbers at each end
+            int first = Math.max(0, left - 1);
+            int last = Math.min(width - 1, right + 1);
+
+            for (int x = first; x <= last; x++) {
+                uncoverIfCovered(row + x);
+            }
+
+            // Scan the rows above and below
+            for (int dy = -1; dy <= 1; dy += 2) {
+                if (y + dy < 0 || y + dy >= height) {
+                    continue;
+                }
+
+                long scanRow = row + (long) dy * width;
+                boolean inRun = false;
+
+                for (int x = first; x <= last; x++) {
+                    long next = scanRow + x;
+
+                    if (isCoveredZero(next)) {
+                        // One seed per run; its span covers the rest
+                        if (!inRun) {
+                            if (size == seeds.length) {
+                                seeds = Arrays.copyOf(seeds, size * 2);
+                            }
+
+                            seeds[size++] = next;
+                            inRun = true;
+                        }
+                    } else {
+                        uncoverIfCovered(next);
+                        inRun = false;
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns true if a tile is covered (or marked) and has no surrounding
+     * mines.
+     *
+     * @param i index of tile
+     * @return true if the flood fill should extend over the tile
+     */
+    private boolean isCoveredZero(final long i) {
+        int tile = get(i) & 0xFF;
+        return tile >>> STATE_SHIFT != UNCOVERED && (tile & VALUE_MASK) == 0;
+    }
+
+    /**
+     * Uncovers a tile if it is not already uncovered.
+     *
+     * @param i index of tile
+     */
+    private void uncoverIfCovered(final long i) {
+        int tile = get(i) & 0xFF;
+
+        if (tile >>> STATE_SHIFT != UNCOVERED) {
+            uncoverTile(i, tile);
+        }
+    }
+
+    /**
+     * Uncovers a single covered tile and updates the game state.
+     *
+     * @param i index of tile
+     * @param tile current tile byte
+     */
+    private void uncoverTile(final long i, final int tile) {
+        int value = tile & VALUE_MASK;
+
+        put(i, value | UNCOVERED << STATE_SHIFT);
+        tilesLeft--;
+
+        if (value == MINE) {
+            // Hit a mine
+            gameState = GameState.LOST;
+            uncoverAllMines();
+        } else if (tilesLeft <= 0 && gameState == GameState.RUNNING) {
+            // Uncovered all the non-mines!
+            gameState = GameState.WON;
+            uncoverAllMines();
+        }
+    }
+
+    /**
+     * Uncovers all mines if uncoverMinesAtEnd is set (in one sequential
+     * pass).
+     *
+     * This does not uncover correctly flagged mines, but sets incorrectly
+     * flagged mines to questions.
+     */
+    private void uncoverAllMines() {
+        if (!uncoverMinesAtEnd) {
+            return;
+        }
+
+        long tiles = (long) width * height;
+
+        for (long i = 0; i < tiles; i++) {
+            int tile = get(i) & 0xFF;
+            int state = tile >>> STATE_SHIFT;
+            int value = tile & VALUE_MASK;
+
+            if (value == MINE) {
+                if (state != FLAGGED && state != UNCOVERED) {
+                    put(i, value | UNCOVERED << STATE_SHIFT);
+                }
+            } else if (state == FLAGGED) {
+                put(i, value | TileState.QUESTION.ordinal() << STATE_SHIFT);
+            }
+        }
+    }
+}
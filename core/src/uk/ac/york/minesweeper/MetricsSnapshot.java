@@ -0,0 +1,107 @@
+package uk.ac.york.minesweeper;
+
+/**
+ * Immutable copy of the game engine metrics at a point in time.
+ */
+public final class MetricsSnapshot {
+
+    /** Time the snapshot was taken (ms since the epoch). */
+    private final long timestamp;
+
+    /** Number of games started. */
+    private final long gamesStarted;
+
+    /** Number of games won. */
+    private final long gamesWon;
+
+    /** Number of games lost. */
+    private final long gamesLost;
+
+    /** Histogram snapshots. */
+    private final Histogram.Snapshot[] histograms;
+
+    /**
+     * Initializes a new MetricsSnapshot.
+     *
+     * @param time time the snapshot was taken
+     * @param started number of games started
+     * @param won number of games won
+     * @param lost number of games lost
+     * @param histogramSnapshots histogram snapshots (not copied)
+     */
+    MetricsSnapshot(final long time, final long started, final long won,
+            final long lost, final Histogram.Snapshot[] histogramSnapshots) {
+        this.timestamp = time;
+        this.gamesStarted = started;
+        this.gamesWon = won;
+        this.gamesLost = lost;
+        this.histograms = histogramSnapshots;
+    }
+
+    /**
+     * Gets the time the snapshot was taken.
+     *
+     * @return milliseconds since the epoch
+     */
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    /**
+     * Gets the number of games started.
+     *
+     * @return number of games started
+     */
+    public long getGamesStarted() {
+        return gamesStarted;
+    }
+
+    /**
+     * Gets the number of games won.
+     *
+     * @return number of games won
+     */
+    public long getGamesWon() {
+        return gamesWon;
+    }
+
+    /**
+     * Gets the number of games lost.
+     *
+     * @return number of games lost
+     */
+    public long getGamesLost() {
+        return gamesLost;
+    }
+
+    /**
+     * Gets a histogram snapshot by name.
+     *
+     * @param name name of the histogram (for example "uncoverNanos")
+     * @return the histogram snapshot or null if there is none with that name
+     */
+    public Histogram.Snapshot getHistogram(final String name) {
+        for (Histogram.Snapshot histogram : histograms) {
+            if (histogram.getName().equals(name)) {
+                return histogram;
+            }
+        }
+
+        return null;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder();
+
+        builder.append("games started=").append(gamesStarted)
+               .append(" won=").append(gamesWon)
+               .append(" lost=").append(gamesLost);
+
+        for (Histogram.Snapshot histogram : histograms) {
+            builder.append('\n').append(histogram);
+        }
+
+        return builder.toString();
+    }
+}
@@ -0,0 +1,14 @@
+package uk.ac.york.minesweeper;
+
+/**
+ * Receives periodic snapshots of the game engine metrics
+ */
+public interface MetricsSnapshotListener
+{
+    /**
+     * Called each time a periodic snapshot is taken
+     *
+     * @param snapshot the metrics snapshot
+     */
+    public void snapshotTaken(MetricsSnapshot snapshot);
+}
@@ -0,0 +1,1872 @@
+package uk.ac.york.minesweeper;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.CancellationException;
+import java.util.logging.ConsoleHandler;
+import java.util.logging.Logger;
+
+    /**
+     * Class containing the game data for the minesweeper game.
+     */
+public class Minefield {
+
+    /**
+     * Logger.
+     */
+    private static final Logger
+    LOGGER = Logger.getLogger(Minefield.class.getName());
+
+    /**
+     * Handler.
+         */
+    private static final ConsoleHandler HANDLER = new ConsoleHandler();
+
+    /** Value of the sentinel tiles around the edge of the arrays. */
+    private static final byte SENTINEL = -2;
+
+    /** Value of tiles which have not been counted yet (lazy values). */
+    private static final byte UNKNOWN = -3;
+
+    /** Tile state stored for covered tiles. */
+    private static final byte COVERED = (byte) TileState.COVERED.ordinal();
+
+    /** Tile state stored for flagged tiles. */
+    private static final byte FLAGGED = (byte) TileState.FLAGGED.ordinal();
+
+    /** Tile state stored for uncovered tiles (and the sentinels). */
+    private static final byte UNCOVERED =
+            (byte) TileState.UNCOVERED.ordinal();
+
+    /** Tile states indexed by their stored value. */
+    private static final TileState[] TILE_STATES = TileState.values();
+
+    /**
+     * Breite.
+     */
+    // Width of the minefield in tiles
+    private final int width;
+
+    /**
+     * Höhe.
+     */
+    // Height of the minefield in tiles
+    private final int height;
+
+    /**
+     * Zeilenlänge.
+     */
+    // Length of each row in the arrays (width plus a sentinel on each side)
+    private final int stride;
+
+    /**
+     * Form des Spielfelds.
+     */
+    // Topology the neighbour tables were compiled from
+    private final Topology topology;
+
+    /**
+     * Offsets of the surrounding tiles (rectangular topology only).
+     */
+    // The arrays have a one tile border of sentinels so these offsets can
+    // be applied to any tile in the minefield without bounds checks
+    private final int[] neighbourOffsets;
+
+    /**
+     * Start of each tile's surrounding tiles in neighbourTargets.
+     */
+    // Used instead of neighbourOffsets by the other topologies
+    private final int[] neighbourStart;
+
+    /**
+     * Array indexes of the surrounding tiles of every tile.
+     */
+    private final int[] neighbourTargets;
+
+    /**
+     * Array für die Werte.
+     */
+    // Array containing tile values (-1 = mine, row major with sentinels)
+    private final byte[] valuesArray;
+
+
+    /**
+     * Array für die Zustände.
+     */
+    // Array containing tile states (TileState ordinals)
+    private final byte[] stateArray;
+
+    /**
+     * Number of flags surrounding each tile.
+     */
+    private final byte[] flagCounts;
+
+    /**
+     * If true, tiles are chorded automatically when enough flags are placed.
+     */
+    private boolean autoChord;
+
+    /**
+     * If true, only the mines are placed at generation time and each tile's
+     * value is counted the first time it is needed.
+     */
+    private boolean lazyValues;
+
+    /**
+     * If true, tiles which are proven to be mines are flagged automatically.
+     */
+    private boolean autoFlag;
+
+    /**
+     * Tiles changed since the assist last ran (array indexes).
+     */
+    private int[] journal = new int[16];
+
+    /**
+     * Number of tiles in journal.
+     */
+    private int journalCount;
+
+    /**
+     * Covered tiles next to an uncovered number (null until first needed).
+     */
+    private IndexSet frontier;
+
+    /**
+     * One bit per array index set for tiles changed by the current batch of
+     * moves (null when changes are not being recorded).
+     */
+    private long[] changes;
+
+    /**
+     * Bits reused for changes by each batch (null until first needed).
+     */
+    private long[] changeBits;
+
+    /**
+     * Tiles changed by the current batch (array indexes).
+     */
+    private int[] changeList = new int[16];
+
+    /**
+     * Changed tiles passed to the move listeners (y * width + x).
+     */
+    private int[] changedTiles = new int[16];
+
+    /**
+     * Listeners told about the tiles changed by each move.
+     */
+    private MoveListener[] moveListeners = new MoveListener[0];
+
+    /**
+     * Number of tiles in changeList.
+     */
+    private int changeCount;
+
+    /**
+     * Tiles waiting to be checked by auto-chord (array indexes).
+     */
+    private int[] autoChordWorklist = new int[16];
+
+    /**
+     * Number of tiles in autoChordWorklist.
+     */
+    private int autoChordCount;
+
+    /**
+     * Stack of opened tiles used by the flood fill (array indexes).
+     */
+    private int[] floodStack = new int[16];
+
+    /**
+     * Anzahl der Minen.
+     *
+     */
+    // Number of mines
+    private final int mines;
+
+    /**
+     *
+     * Felder die übrig sind.
+     */
+    // Number of extra tiles which need to uncovered to win
+    private int tilesLeft;
+
+    /**
+     * Entdeckt die Minen, falls das Spiel endet.
+     */
+    // If true, uncovers mines when the game finishes
+    private boolean uncoverMinesAtEnd = true;
+
+    /**
+     *
+     * Spielzustand.
+     *
+     */
+    // State of the game
+    private GameState gameState = GameState.NOT_STARTED;
+
+    /** Number of mines placed between calls to a GenerationMonitor. */
+    private static final int MONITOR_INTERVAL = 4096;
+
+    /**
+     * Version of the mine placement recorded in board IDs.
+     *
+     * Must be incremented whenever the same seed would place the mines
+     * differently, so old IDs are rejected instead of making other boards.
+     */
+    public static final int GENERATOR_VERSION = 2;
+
+    /** Source of the seeds of boards not made from a board ID. */
+    private static final Random SEEDS = new Random();
+
+    /** Seed the mines were placed from. */
+    private long seed;
+
+    /** First click kept free of mines (y * width + x, -1 for none). */
+    private int seedStart = -1;
+
+    /** True if the mines have been placed before the first uncover. */
+    private boolean generated;
+
+    /** True if a mine under the first click must be moved elsewhere. */
+    private boolean moveFirstMine;
+
+    /** Generator which placed the mines, kept to move the first one. */
+    private Random placement;
+
+    /** Incremented every time the visible state of the minefield changes. */
+    private long version;
+
+    /**
+     * Initializes a new Minefield class with the given properties.
+     *
+     * The mine locations are not allocated until the first click is made
+     *
+     * @param width width of the minefield in tiles
+     * @param height height of the minefield in tiles
+     * @param minen number of mines
+     */
+    public Minefield(final int width, final int height, final int minen) {
+        this(width, height, minen, Topology.RECTANGULAR);
+    }
+
+    /**
+     * Initializes a new Minefield with the given properties and shape.
+     *
+     * The mine locations are not allocated until the first click is made
+     *
+     * @param width width of the minefield in tiles
+     * @param height height of the minefield in tiles
+     * @param minen number of mines
+     * @param shape which tiles surround each tile
+     */
+    public Minefield(final int width, final int height, final int minen,
+            final Topology shape) {
+
+        int tilesLinks = (width * height) - minen;
+
+        // Validate arguments
+        if (width < 1 || height < 1 || minen < 0) {
+
+            throw new IllegalArgumentException("invalid minefield dimensions");
+        }
+
+
+        if (tilesLinks <= 0) {
+
+            throw new IllegalArgumentException("too many mines");
+        }
+
+
+        // Save initial properties
+        this.mines = minen;
+        this.tilesLeft = tilesLinks;
+        this.width = width;
+        this.height = height;
+        this.stride = width + 2;
+
+        Adjacency adjacency = Adjacency.get(shape, width, height);
+        this.topology = shape;
+        this.neighbourOffsets = adjacency.getOffsets();
+        this.neighbourStart = adjacency.getStart();
+        this.neighbourTargets = adjacency.getTargets();
+
+        // Create arrays (empty + covered, with an uncovered sentinel border)
+        int size = stride * (height + 2);
+        this.valuesArray = new byte[size];
+        this.stateArray = new byte[size];
+        this.flagCounts = new byte[size];
+
+        clearValues();
+        Arrays.fill(stateArray, UNCOVERED);
+
+        for (int y = 0; y < height; y++) {
+            int row = (y + 1) * stride;
+            Arrays.fill(stateArray, row + 1, row + 1 + width, COVERED);
+        }
+    }
+
+    /**
+     * Resets all tile values to 0 (or UNKNOWN) and the sentinels to SENTINEL.
+     */
+    private void clearValues() {
+        byte empty = lazyValues ? UNKNOWN : 0;
+        Arrays.fill(valuesArray, SENTINEL);
+
+        for (int y = 0; y < height; y++) {
+            int row = (y + 1) * stride;
+            Arrays.fill(valuesArray, row + 1, row + 1 + width, empty);
+        }
+    }
+
+    /**
+     * Gets the value of a tile, counting it first if it is UNKNOWN.
+     *
+     * @param index array index of tile
+     * @return value of that tile (-1 = mine)
+     */
+    private int value(final int index) {
+        byte v = valuesArray[index];
+
+        if (v == UNKNOWN) {
+            // Count the surrounding mines and cache the result
+            int[] list = neighbourList();
+            int base = neighbourBase(index);
+            int last = neighbourLast(index);
+            v = 0;
+
+            for (int k = neighbourFirst(index); k < last; k++) {
+                if (valuesArray[base + list[k]] == -1) {
+                    v++;
+                }
+            }
+
+            valuesArray[index] = v;
+        }
+
+        return v;
+    }
+
+    /**
+     * Gets the array index of a tile.
+     *
+     * @param x x position of tile
+     * @param y y position of tile
+     * @return index into the tile arrays
+     * @throws IndexOutOfBoundsException if the tile does not exist
+     */
+    private int index(final int x, final int y) {
+        if (x < 0 || y < 0 || x >= width || y >= height) {
+            throw new IndexOutOfBoundsException("tile (" + x + ", " + y
+                    + ") is outside the minefield");
+        }
+
+        return (y + 1) * stride + x + 1;
+    }
+
+    /**
+     * Gets the width of the minefield in tiles.
+     *
+     * @return width of the minefield
+     */
+   public final int getWidth() {
+        return width;
+    }
+
+    /**
+     * Gets the height of the minefield in tiles.
+     *
+     * @return height of the minefield
+     */
+    public final int getHeight() {
+        return height;
+    }
+
+    /**
+     * Gets the total number of mines in the minefield.
+     *
+     * @return total number of mines
+     */
+    public final int getMines() {
+        return mines;
+    }
+
+    /**
+     * Gets the shape of the minefield.
+     *
+     * @return topology of the minefield
+     */
+    public final Topology getTopology() {
+        return topology;
+    }
+
+    /**
+     * Gets the tiles surrounding a tile.
+     *
+     * Tiles are returned as {@code y * getWidth() + x}.
+     *
+     * @param x x position of tile
+     * @param y y position of tile
+     * @param out array to store the tiles in (at least
+     *            {@link Topology#MAX_NEIGHBOURS} long)
+     * @return number of tiles stored in out
+     */
+    public final int getNeighbours(final int x, final int y, final int[] out) {
+        int index = index(x, y);
+        int[] list = neighbourList();
+        int base = neighbourBase(index);
+        int last = neighbourLast(index);
+        int count = 0;
+
+        for (int k = neighbourFirst(index); k < last; k++) {
+            int next = base + list[k];
+
+            // Skip the sentinels
+            if (valuesArray[next] != SENTINEL) {
+                out[count++] = (next / stride - 1) * width + next % stride - 1;
+            }
+        }
+
+        return count;
+    }
+
+    /**
+     * Gets the length of a row in the tile arrays.
+     *
+     * The array index of tile (x, y) is {@code (y + 1) * stride + x + 1}.
+     *
+     * @return width plus the sentinels on each side
+     */
+    final int getStride() {
+        return stride;
+    }
+
+    /**
+     * Gets the value of a tile from its array index.
+     *
+     * No checks are made; the mines must have been placed.
+     *
+     * @param index array index of tile
+     * @return value of that tile (-1 = mine, -2 = sentinel)
+     */
+    final int valueAt(final int index) {
+        return value(index);
+    }
+
+    /**
+     * Gets a value which is true if
+     * all mines are uncovered at the end of the game.
+     *
+     * @return true if mines are uncovered at the end
+     */
+    public final boolean isUncoveringMinesAtEnd() {
+        return uncoverMinesAtEnd;
+    }
+
+    /**
+     * Sets a value determining whether
+     * mines are uncovered at the end of the game.
+     *
+     * @param uncoverMinesatEnd true if mines are uncovered at the end
+     */
+    public final void setUncoverMinesAtEnd(final boolean uncoverMinesatEnd) {
+        this.uncoverMinesAtEnd = uncoverMinesatEnd;
+    }
+
+    /**
+     * Returns true if tiles are chorded automatically.
+     *
+     * @return true if auto-chord is enabled
+     */
+    public final boolean isAutoChord() {
+        return autoChord;
+    }
+
+    /**
+     * Sets whether tiles are chorded automatically.
+     *
+     * When enabled, placing a flag chords every uncovered tile next to it
+     * which then has as many surrounding flags as its value, and so on for
+     * the tiles that uncovers.
+     *
+     * @param enabled true to enable auto-chord
+     */
+    public final void setAutoChord(final boolean enabled) {
+        this.autoChord = enabled;
+    }
+
+    /**
+     * Returns true if tile values are counted lazily.
+     *
+     * @return true if lazy values are enabled
+     */
+    public final boolean isLazyValues() {
+        return lazyValues;
+    }
+
+    /**
+     * Sets whether tile values are counted lazily.
+     *
+     * When enabled, generating the minefield only places the mines, and
+     * each tile's value is counted (and cached) the first time
+     * {@link #getTileValue} or an uncover needs it. The first click then
+     * only costs as much as the region it opens. The values are exactly the
+     * same as when they are counted up front.
+     *
+     * @param enabled true to enable lazy values
+     * @throws IllegalStateException if the mines have already been placed
+     */
+    public final void setLazyValues(final boolean enabled) {
+        if (isGenerated()) {
+            throw new IllegalStateException(
+                    "the mines have already been placed");
+        }
+
+        if (lazyValues != enabled) {
+            lazyValues = enabled;
+            clearValues();
+        }
+    }
+
+    /**
+     * Returns true if proven mines are flagged automatically.
+     *
+     * @return true if auto-flag is enabled
+     */
+    public final boolean isAutoFlag() {
+        return autoFlag;
+    }
+
+    /**
+     * Sets whether proven mines are flagged automatically.
+     *
+     * After each move, every uncovered number next to a tile the move
+     * changed is checked: if its remaining mines equal its remaining
+     * covered tiles, they are all flagged. Only the changed area is looked
+     * at, so the cost depends on the size of the move, not the board.
+     * The deduction trusts the flags which are already placed.
+     *
+     * @param enabled true to enable auto-flag
+     */
+    public final void setAutoFlag(final boolean enabled) {
+        this.autoFlag = enabled;
+        this.journalCount = 0;
+    }
+
+    /**
+     * Gets the frontier: covered tiles next to an uncovered number.
+     *
+     * The first call scans the board; after that the frontier is kept up
+     * to date as tiles are uncovered, so later calls only copy it. Flagged
+     * and question tiles are still covered, so they are included.
+     *
+     * @return frontier tiles as {@code y * getWidth() + x} (in no order)
+     */
+    public final int[] getFrontier() {
+        IndexSet set = getFrontierSet();
+        int[] tiles = new int[set.size()];
+
+        for (int n = 0; n < tiles.length; n++) {
+            int i = set.get(n);
+            tiles[n] = (i / stride - 1) * width + i % stride - 1;
+        }
+
+        return tiles;
+    }
+
+    /**
+     * Gets the frontier set, starting to track it if needed.
+     *
+     * @return frontier (array indexes)
+     */
+    final IndexSet getFrontierSet() {
+        if (frontier == null) {
+            frontier = new IndexSet(valuesArray.length);
+
+            for (int y = 0; y < height; y++) {
+                int rowEnd = (y + 1) * stride + width + 1;
+
+                for (int i = rowEnd - width; i < rowEnd; i++) {
+                    if (stateArray[i] == UNCOVERED && valuesArray[i] > 0) {
+                        addToFrontier(i);
+                    }
+                }
+            }
+        }
+
+        return frontier;
+    }
+
+    /**
+     * Gets the current state of the game.
+     *
+     * @return the state of the game
+     */
+    public final GameState getGameState() {
+        return gameState;
+    }
+
+    /**
+     * Returns true if the game has finished.
+     *
+     * @return true if the game has finished
+     */
+    public final boolean isFinished() {
+
+        return gameState != GameState.RUNNING
+               && gameState != GameState.NOT_STARTED;
+    }
+
+    /**
+     * Gets the value of the given tile (mine / surrounding mines).
+     *
+     * This should only be called AFTER
+     * the first tile is clicked (or when a tile is uncovered).
+     *
+     * @param x x position of tile
+     * @param y y position of tile
+     * @return value of that tile (-1 = mine)
+     */
+    public final int getTileValue(final int x, final int y) {
+        if (gameState == GameState.NOT_STARTED) {
+
+            throw new IllegalStateException("you must call "
+                    + "uncover at least once before using getTileValue");
+        }
+
+
+        return value(index(x, y));
+    }
+
+    /**
+     * Gets the state of the given tile.
+     *
+     * @param x x position of tile
+     * @param y y position of tile
+     * @return state of that tile
+     */
+    public final TileState getTileState(final int x, final int y) {
+        return TILE_STATES[stateArray[index(x, y)]];
+    }
+
+    /**
+     * Gets the visible state of the given tile as a single code.
+     *
+     * Unlike {@link #getTileValue}, this never reveals covered tiles so it
+     * can be called at any time.
+     *
+     * @param x x position of tile
+     * @param y y position of tile
+     * @return visible tile code (see {@link VisibleTile})
+     */
+    public final int getVisibleTile(final int x, final int y) {
+        int i = index(x, y);
+
+        if (stateArray[i] != UNCOVERED) {
+            // COVERED, FLAGGED and QUESTION are in the same order
+            return VisibleTile.COVERED + stateArray[i];
+        }
+
+        // Uncovered tiles have always been counted
+        int tileValue = valuesArray[i];
+        return tileValue < 0 ? VisibleTile.MINE : tileValue;
+    }
+
+    /**
+     * Gets the version of the minefield's visible state.
+     *
+     * The version changes every time a tile or the game state changes, so
+     * it can be used to tell whether a {@link BoardSnapshot} is out of date.
+     *
+     * @return current version
+     */
+    public final long getVersion() {
+        return version;
+    }
+
+    /**
+     * Takes an immutable snapshot of the visible state of the minefield.
+     *
+     * This must be called from the thread which is playing the game.
+     *
+     * @return snapshot of the whole minefield
+     */
+    public final BoardSnapshot snapshot() {
+        return snapshot(0, 0, getWidth(), getHeight());
+    }
+
+    /**
+     * Takes an immutable snapshot of the visible state of part of the
+     * minefield.
+     *
+     * The region is clipped to the minefield. This must be called from the
+     * thread which is playing the game.
+     *
+     * @param x left of the region
+     * @param y top of the region
+     * @param width width of the region
+     * @param height height of the region
+     * @return snapshot of the region
+     */
+    public final BoardSnapshot snapshot(final int x, final int y,
+            final int width, final int height) {
+        int x1 = Math.max(0, x);
+        int y1 = Math.max(0, y);
+        int x2 = Math.min(this.width, x + width);
+        int y2 = Math.min(this.height, y + height);
+        int regionWidth = Math.max(0, x2 - x1);
+        int regionHeight = Math.max(0, y2 - y1);
+        byte[] tiles = new byte[regionWidth * regionHeight];
+
+        for (int tileY = y1; tileY < y2; tileY++) {
+            int offset = (tileY - y1) * regionWidth - x1;
+
+            for (int tileX = x1; tileX < x2; tileX++) {
+                tiles[offset + tileX] = (byte) getVisibleTile(tileX, tileY);
+            }
+        }
+
+        return new BoardSnapshot(version, gameState, getWidth(), getHeight(),
+                x1, y1, regionWidth, regionHeight, tiles);
+    }
+
+    /**
+     * Updates the state of the given tile
+     *
+     * Can be used to add flags and uncover tiles.
+     * You cannot cover a tile that has already been uncovered.
+     * If a tile is uncovered,
+     * other tile states and the game state may be updated.
+     *
+     * @param x x position of tile
+     * @param y y position of tile
+     * @param newState the tile's new state
+     */
+    public final void setTileState(final int x,
+             final int y, final TileState newState) {
+
+        if (isFinished()) {
+
+            throw new IllegalStateException("the game has finished");
+        }
+
+
+        switch (newState) {
+            case COVERED:
+            case FLAGGED:
+            case QUESTION:
+                // Set unless we're recovering a tile
+                int index = index(x, y);
+                boolean notify = startChanges();
+                boolean marked;
+
+                try {
+                    marked = markMove(index, (byte) newState.ordinal());
+                } finally {
+                    finishChanges(notify);
+                }
+
+                if (!marked) {
+
+                    throw new UnsupportedOperationException("you cannot"
+                            + " cover a tile once uncovered");
+                }
+
+                break;
+
+            case UNCOVERED:
+                // Forward to uncover
+                uncover(x, y);
+                break;
+
+            default:
+                throw new IllegalArgumentException("newState is"
+                        + " not a valid tile state");
+        }
+    }
+/**
+* Places the mines before the first tile is uncovered.
+*
+* This does the work which is otherwise done by the first call to
+* {@link #uncover}, so that it can be run on a background thread for large
+* minefields. The minefield must not be used by any other thread until this
+* returns. The game is still not started afterwards; the first uncover
+* should be made at the same start position.
+*
+* @param startX x position to prevent mines for
+* @param startY y position to prevent mines for
+* @param monitor progress monitor (may be null)
+* @throws java.util.concurrent.CancellationException if the monitor
+*         cancelled generation (the minefield is left empty)
+*/
+    public final void generate(final int startX, final int startY,
+            final GenerationMonitor monitor) {
+        if (gameState != GameState.NOT_STARTED || generated) {
+            throw new IllegalStateException(
+                    "the mines have already been placed");
+        }
+
+        initValues(index(startX, startY), monitor, SEEDS.nextLong());
+        generated = true;
+    }
+
+    /**
+* Places the mines from a seed.
+*
+* The same seed always gives the same board, so benchmarks and checks can
+* reproduce one.
+*
+* @param startX x position to prevent mines for
+* @param startY y position to prevent mines for
+* @param placementSeed seed of the random number generator placing the mines
+*/
+    public final void generate(final int startX, final int startY,
+            final long placementSeed) {
+        if (gameState != GameState.NOT_STARTED || generated) {
+            throw new IllegalStateException(
+                    "the mines have already been placed");
+        }
+
+        initValues(index(startX, startY), null, placementSeed);
+        generated = true;
+    }
+
+    /**
+* Places the mines before the first click is known.
+*
+* Used to prepare boards ahead of time (see {@link BoardFactory}). If the
+* first uncover then hits a mine, the mine is moved to a random free tile,
+* so the first click is still always safe.
+*/
+    final void generateAnywhere() {
+        if (gameState != GameState.NOT_STARTED || generated) {
+            throw new IllegalStateException(
+                    "the mines have already been placed");
+        }
+
+        initValues(-1, null, SEEDS.nextLong());
+        generated = true;
+        moveFirstMine = true;
+    }
+
+    /**
+* Creates the minefield a board ID was taken from.
+*
+* The mines are placed exactly as they were on the original board. If the
+* ID has a first click, the first uncover should be made there (elsewhere
+* may hit a mine); otherwise a mine under the first click is moved to the
+* same random free tile as it was for the original.
+*
+* @param id board ID
+* @return a new minefield with the mines placed
+* @throws IllegalArgumentException if the ID was made by another version of
+*         the mine placement
+*/
+    public static Minefield fromBoardId(final BoardId id) {
+        if (id.getGeneratorVersion() != GENERATOR_VERSION) {
+            throw new IllegalArgumentException("board id has generator version "
+                    + id.getGeneratorVersion() + ", expected "
+                    + GENERATOR_VERSION);
+        }
+
+        Minefield minefield = new Minefield(id.getWidth(), id.getHeight(),
+                id.getMines(), id.getTopology());
+
+        if (id.hasStart()) {
+            minefield.generate(id.getStartX(), id.getStartY(), id.getSeed());
+        } else {
+            minefield.initValues(-1, null, id.getSeed());
+            minefield.generated = true;
+            minefield.moveFirstMine = true;
+        }
+
+        return minefield;
+    }
+
+    /**
+* Gets an ID which recreates this board with {@link #fromBoardId}.
+*
+* @return the board ID or null if the mines have not been placed yet
+*/
+    public final BoardId getBoardId() {
+        if (!generated && gameState == GameState.NOT_STARTED) {
+            return null;
+        }
+
+        int startX = -1;
+        int startY = -1;
+
+        if (seedStart >= 0) {
+            startX = seedStart % width;
+            startY = seedStart / width;
+        }
+
+        return new BoardId(width, height, mines, topology, startX, startY,
+                GENERATOR_VERSION, seed);
+    }
+
+    /**
+* Changes the mark on a covered tile without checking the game state.
+*
+* @param i array index of tile
+* @param state new state (COVERED, FLAGGED or QUESTION ordinal)
+* @return false if the tile is uncovered (so cannot be changed)
+*/
+    private boolean markMove(final int i, final byte state) {
+        byte oldState = stateArray[i];
+
+        if (oldState == UNCOVERED) {
+            return false;
+        }
+
+        if (oldState != state) {
+            stateArray[i] = state;
+            version++;
+            recordChange(i);
+
+            // Keep the surrounding flag counts up to date
+            if (state == FLAGGED) {
+                addFlag(i);
+                runAutoChord();
+                runAssist();
+            } else if (oldState == FLAGGED) {
+                removeFlag(i);
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Applies a list of moves in one call.
+     *
+     * Each move is three ints: an operation from {@link MoveBatch} followed
+     * by the x and y position of the tile. The moves are applied in order
+     * until the game finishes; any moves after that are skipped. Moves on
+     * tiles outside the minefield, unknown operations and marks on
+     * uncovered tiles are reported as invalid instead of throwing.
+     *
+     * @param moves (operation, x, y) triples
+     * @return the outcome of each move and every tile which changed
+     */
+    public final MoveBatch applyMoves(final int[] moves) {
+        if (moves.length % 3 != 0) {
+            throw new IllegalArgumentException(
+                    "moves must be (op, x, y) triples");
+        }
+
+        byte[] outcomes = new byte[moves.length / 3];
+
+        if (changeBits == null) {
+            changeBits = new long[(valuesArray.length + 63) >>> 6];
+        }
+
+        changes = changeBits;
+        int count;
+
+        try {
+            for (int m = 0; m < outcomes.length; m++) {
+                if (isFinished()) {
+                    Arrays.fill(outcomes, m, outcomes.length,
+                            MoveBatch.SKIPPED);
+                    break;
+                }
+
+                outcomes[m] = applyMove(moves[m * 3],
+                        moves[m * 3 + 1], moves[m * 3 + 2]);
+            }
+        } finally {
+            count = collectChanges();
+        }
+
+        // The listeners see the whole batch as one move
+        if (count > 0) {
+            for (MoveListener listener : moveListeners) {
+                listener.moveMade(this, changedTiles, count);
+            }
+        }
+
+        return new MoveBatch(outcomes,
+                Arrays.copyOf(changedTiles, count), gameState);
+    }
+
+    /**
+     * Adds a listener which is told about the tiles changed by each move.
+     *
+     * @param listener listener to add
+     */
+    public final void addMoveListener(final MoveListener listener) {
+        if (listener == null) {
+            throw new IllegalArgumentException("listener cannot be null");
+        }
+
+        MoveListener[] listeners =
+                Arrays.copyOf(moveListeners, moveListeners.length + 1);
+        listeners[listeners.length - 1] = listener;
+        moveListeners = listeners;
+    }
+
+    /**
+     * Removes a listener added by {@link #addMoveListener}.
+     *
+     * @param listener listener to remove
+     */
+    public final void removeMoveListener(final MoveListener listener) {
+        for (int n = 0; n < moveListeners.length; n++) {
+            if (moveListeners[n] == listener) {
+                MoveListener[] listeners =
+                        new MoveListener[moveListeners.length - 1];
+                System.arraycopy(moveListeners, 0, listeners, 0, n);
+                System.arraycopy(moveListeners, n + 1,
+                        listeners, n, listeners.length - n);
+                moveListeners = listeners;
+                return;
+            }
+        }
+    }
+
+    /**
+     * Starts recording changes for a single move if anyone is listening.
+     *
+     * @return true if the move must be passed to
+     *         {@link #finishChanges(boolean)}
+     */
+    private boolean startChanges() {
+        if (moveListeners.length == 0 || changes != null) {
+            return false;
+        }
+
+        if (changeBits == null) {
+            changeBits = new long[(valuesArray.length + 63) >>> 6];
+        }
+
+        changes = changeBits;
+        return true;
+    }
+
+    /**
+     * Stops recording changes and tells the listeners about them.
+     *
+     * @param notify result of {@link #startChanges()}
+     */
+    private void finishChanges(final boolean notify) {
+        if (!notify) {
+            return;
+        }
+
+        int count = collectChanges();
+
+        if (count > 0) {
+            for (MoveListener listener : moveListeners) {
+                listener.moveMade(this, changedTiles, count);
+            }
+        }
+    }
+
+    /**
+     * Stops recording changes and moves them into changedTiles.
+     *
+     * The bits are cleared so they can be reused by the next move.
+     *
+     * @return number of changed tiles
+     */
+    private int collectChanges() {
+        changes = null;
+
+        int count = changeCount;
+
+        if (changedTiles.length < count) {
+            changedTiles = new int[Math.max(count, changedTiles.length * 2)];
+        }
+
+        for (int n = 0; n < count; n++) {
+            int i = changeList[n];
+            changedTiles[n] = (i / stride - 1) * width + i % stride - 1;
+            changeBits[i >>> 6] = 0;
+        }
+
+        changeCount = 0;
+        return count;
+    }
+
+    /**
+* Applies one move of a batch.
+*
+* @param op operation
+* @param x x position of tile
+* @param y y position of tile
+* @return outcome of the move
+*/
+    private byte applyMove(final int op, final int x, final int y) {
+        if (x < 0 || y < 0 || x >= width || y >= height) {
+            return MoveBatch.INVALID;
+        }
+
+        int i = (y + 1) * stride + x + 1;
+        long oldVersion = version;
+
+        switch (op) {
+            case MoveBatch.UNCOVER:
+                uncoverMove(i);
+                break;
+
+            case MoveBatch.CHORD:
+                chordMove(i);
+                break;
+
+            case MoveBatch.FLAG:
+                if (!markMove(i, FLAGGED)) {
+                    return MoveBatch.INVALID;
+                }
+                break;
+
+            case MoveBatch.QUESTION:
+                if (!markMove(i, (byte) TileState.QUESTION.ordinal())) {
+                    return MoveBatch.INVALID;
+                }
+                break;
+
+            case MoveBatch.COVER:
+                if (!markMove(i, COVERED)) {
+                    return MoveBatch.INVALID;
+                }
+                break;
+
+            default:
+                return MoveBatch.INVALID;
+        }
+
+        if (gameState == GameState.LOST) {
+            return MoveBatch.LOST;
+        } else if (gameState == GameState.WON) {
+            return MoveBatch.WON;
+        }
+
+        return version != oldVersion ? MoveBatch.CHANGED : MoveBatch.UNCHANGED;
+    }
+
+    /**
+* Returns true if the mines have been placed.
+*
+* @return true if the minefield has been generated or started
+*/
+    public final boolean isGenerated() {
+        return generated || gameState != GameState.NOT_STARTED;
+    }
+
+/**
+* Uncovers the tile at the given location.
+*
+* This method is equivalent
+* to calling {@code setTileState(x, y, TileState.UNCOVERED)}
+*
+* @param x x position of tile
+* @param y y position of tile
+*/
+    public final void uncover(final int x, final int y) {
+        if (isFinished()) {
+
+            throw new IllegalStateException("the game has finished");
+        }
+
+
+        int index = index(x, y);
+        boolean notify = startChanges();
+
+        try {
+            uncoverMove(index);
+        } finally {
+            finishChanges(notify);
+        }
+    }
+
+    /**
+* Performs an uncover move without checking the game state.
+*
+* @param i array index of tile
+*/
+    private void uncoverMove(final int i) {
+        long startTime = 0;
+        int startTilesLeft = 0;
+
+        if (MinefieldMetrics.ENABLED) {
+            startTime = System.nanoTime();
+        }
+
+        // New game?
+        if (gameState == GameState.NOT_STARTED) {
+            if (!generated) {
+                initValues(i, null, SEEDS.nextLong());
+            } else if (moveFirstMine && valuesArray[i] == -1) {
+                moveMine(i);
+            }
+
+            placement = null;
+
+            gameState = GameState.RUNNING;
+
+            if (MinefieldMetrics.ENABLED) {
+                MinefieldMetrics.gameStarted();
+            }
+        }
+
+        if (MinefieldMetrics.ENABLED) {
+            startTilesLeft = tilesLeft;
+        }
+
+        // Perform any uncovering
+        uncoverNoChecks(i);
+        runAutoChord();
+        runAssist();
+
+        if (MinefieldMetrics.ENABLED) {
+            recordMove(MinefieldMetrics.UNCOVER_NANOS,
+                    startTime, startTilesLeft);
+        }
+    }
+
+    /**
+     * Records the latency and flood fill size of a move.
+     *
+     * @param histogram latency histogram of the move type
+     * @param startTime value of System.nanoTime() when the move started
+     * @param startTilesLeft value of tilesLeft when the move started
+     */
+    private void recordMove(final Histogram histogram,
+            final long startTime, final int startTilesLeft) {
+        histogram.record(System.nanoTime() - startTime);
+
+        // Only record moves which opened up more than one tile
+        int uncovered = startTilesLeft - tilesLeft;
+        if (uncovered > 1) {
+            MinefieldMetrics.FLOOD_FILL_TILES.record(uncovered);
+        }
+    }
+
+    /**
+* Uncovers the given tile and
+* surrounding tiles without performing state checks.
+*
+* @param index array index of tile
+*/
+    private void uncoverNoChecks(final int index) {
+        // Ignore if the tile is already uncovered (or a sentinel)
+        if (!uncoverTile(index)) {
+
+            return;
+        }
+
+
+        // Flood fill outwards from the opened tile
+        int[] stack = floodStack;
+        int size = 0;
+        stack[size++] = index;
+
+        while (size > 0) {
+            int centre = stack[--size];
+
+            int[] list = neighbourList();
+            int base = neighbourBase(centre);
+            int last = neighbourLast(centre);
+
+            for (int k = neighbourFirst(centre); k < last; k++) {
+                int next = base + list[k];
+
+                if (stateArray[next] != UNCOVERED && uncoverTile(next)) {
+                    if (size == stack.length) {
+                        stack = Arrays.copyOf(stack, size * 2);
+                        floodStack = stack;
+                    }
+
+                    stack[size++] = next;
+                }
+            }
+        }
+    }
+
+    /**
+* Uncovers a single tile and updates the game state.
+*
+* @param index array index of tile
+* @return true if the tile was opened and has no surrounding mines
+*/
+    private boolean uncoverTile(final int index) {
+        byte oldState = stateArray[index];
+
+        if (oldState == UNCOVERED) {
+
+            return false;
+        }
+
+
+        // Uncover this tile
+        if (oldState == FLAGGED) {
+            removeFlag(index);
+        }
+
+        stateArray[index] = UNCOVERED;
+        tilesLeft--;
+        version++;
+
+        int value = value(index);
+
+        // Numbered tiles may already have all their flags
+        if (autoChord && value > 0) {
+            pushAutoChord(index);
+        }
+
+        if (frontier != null) {
+            frontier.remove(index);
+
+            if (value > 0) {
+                addToFrontier(index);
+            }
+        }
+
+        recordChange(index);
+
+        // Check for special tiles (mines and the last safe tile)
+        if (value < 0) {
+            // Hit a mine
+            gameState = GameState.LOST;
+            uncoverAllMines();
+
+            if (MinefieldMetrics.ENABLED) {
+                MinefieldMetrics.gameFinished(false);
+            }
+        } else if (tilesLeft <= 0 && gameState == GameState.RUNNING) {
+            // Uncovered all the non-mines!
+            // The gameState check is required for
+            //chording since you may hit a mine and then win.
+            // later on the same move (which we don't want to overwrite)
+            gameState = GameState.WON;
+            uncoverAllMines();
+
+            if (MinefieldMetrics.ENABLED) {
+                MinefieldMetrics.gameFinished(true);
+            }
+        }
+
+        return value == 0;
+    }
+
+    /**
+* Uncovers all mines if uncoverMinesAtEnd is set
+*
+* This does not uncover correctly flagged mines, but sets incorrectly
+* flagged mines to questions.
+*/
+    private void uncoverAllMines() {
+        version++;
+
+        if (uncoverMinesAtEnd) {
+            // Set state of all mines to uncovered
+            for (int y = 0; y < height; y++) {
+                int rowEnd = (y + 1) * stride + width + 1;
+
+                for (int i = rowEnd - width; i < rowEnd; i++) {
+                    if (valuesArray[i] == -1) {
+                        // Uncover if not flagged
+                        if (stateArray[i] != FLAGGED) {
+
+                            stateArray[i] = UNCOVERED;
+                            recordChange(i);
+
+                            if (frontier != null) {
+                                frontier.remove(i);
+                            }
+                        }
+
+                    } else {
+                        // Set flags to questions
+                        if (stateArray[i] == FLAGGED) {
+
+                            stateArray[i] = (byte) TileState.QUESTION.ordinal();
+                            removeFlag(i);
+                            recordChange(i);
+                        }
+
+                    }
+                }
+            }
+        }
+    }
+    /**
+* Attempts to chord using the given central position
+*
+* Chording causes all the
+* surrounding tiles to be uncovered if the number of.
+* surrounding flags is equal to the value on the central tile.
+*
+* This method does nothing if the
+* central tile is still covered of the number of
+* surrounding flags in incorrect.
+*
+* @param x x position of central tile
+* @param y y position of central tile
+*/
+    public final void chord(final int x, final int y) {
+        if (isFinished()) {
+
+            throw new IllegalStateException("the game has finished");
+        }
+
+
+        int index = index(x, y);
+        boolean notify = startChanges();
+
+        try {
+            chordMove(index);
+        } finally {
+            finishChanges(notify);
+        }
+    }
+
+    /**
+* Performs a chord move without checking the game state.
+*
+* @param i array index of central tile
+*/
+    private void chordMove(final int i) {
+        // Ensure the tile is uncovered
+        if (stateArray[i] != UNCOVERED) {
+
+            return;
+        }
+
+
+        long startTime = 0;
+        int startTilesLeft = 0;
+
+        if (MinefieldMetrics.ENABLED) {
+            startTime = System.nanoTime();
+            startTilesLeft = tilesLeft;
+        }
+
+        // Check number of surrounding flags
+        if (valuesArray[i] == flagCounts[i]) {
+            // Uncover all surrounding tiles which are not flagged
+            chordNoChecks(i);
+            runAutoChord();
+            runAssist();
+        }
+
+        if (MinefieldMetrics.ENABLED) {
+            recordMove(MinefieldMetrics.CHORD_NANOS,
+                    startTime, startTilesLeft);
+        }
+    }
+    /**
+* Initializes the values grid for a new game.
+*
+* startIndex is used to
+* prevent mines from appearing at the start location
+*
+* @param startIndex array index to prevent mines for (-1 for none)
+* @param monitor progress monitor (may be null)
+* @param placementSeed seed of the random number generator placing the mines
+*/
+    private void initValues(final int startIndex,
+            final GenerationMonitor monitor, final long placementSeed) {
+        long startTime = 0;
+
+        if (MinefieldMetrics.ENABLED) {
+            startTime = System.nanoTime();
+        }
+
+        // Randomly place all the mines (java.util.Random is specified, so a
+        // seed gives the same board on every JVM)
+        Random rnd = new Random(placementSeed);
+        placement = rnd;
+        seed = placementSeed;
+
+        if (startIndex < 0) {
+            seedStart = -1;
+        } else {
+            seedStart = (startIndex / stride - 1) * width
+                    + startIndex % stride - 1;
+        }
+
+        for (int i = 0; i < mines; i++) {
+            int x, y, tile;
+
+            if (monitor != null && i % MONITOR_INTERVAL == 0) {
+                if (monitor.isCancelled()) {
+                    // Remove all the mines placed so far
+                    clearValues();
+
+                    throw new CancellationException("generation cancelled");
+                }
+
+                monitor.progress(i, mines);
+            }
+
+            // Keep trying random positions until we've found an acceptable one
+            do {
+                x = rnd.nextInt(width);
+                y = rnd.nextInt(height);
+                tile = (y + 1) * stride + x + 1;
+            }
+            while(valuesArray[tile] == -1 || tile == startIndex);
+
+            // Set as a mine
+            valuesArray[tile] = -1;
+
+            if (lazyValues) {
+                continue;
+            }
+
+            // Increment number of mines in all surrounding tiles
+            // (mines and sentinels are negative so are left alone)
+            int[] list = neighbourList();
+            int base = neighbourBase(tile);
+            int last = neighbourLast(tile);
+
+            for (int k = neighbourFirst(tile); k < last; k++) {
+                if (valuesArray[base + list[k]] >= 0) {
+                    valuesArray[base + list[k]]++;
+                }
+            }
+        }
+
+        if (monitor != null) {
+            monitor.progress(mines, mines);
+        }
+
+        if (MinefieldMetrics.ENABLED) {
+            MinefieldMetrics.INIT_VALUES_NANOS.record(
+                    System.nanoTime() - startTime);
+        }
+    }
+
+    /**
+* Moves a mine to a random free tile.
+*
+* The tile is drawn from the generator which placed the mines, so a board
+* ID still gives the same board, and every free tile is equally likely, so
+* the mines end up placed as if the first click had been known.
+*
+* @param index array index of the mine
+*/
+    private void moveMine(final int index) {
+        int[] list = neighbourList();
+        int free;
+
+        do {
+            int x = placement.nextInt(width);
+            int y = placement.nextInt(height);
+            free = (y + 1) * stride + x + 1;
+        }
+        while (valuesArray[free] == -1);
+
+        // Place the new mine (UNKNOWN values are counted later anyway)
+        valuesArray[free] = -1;
+
+        int base = neighbourBase(free);
+        int last = neighbourLast(free);
+
+        for (int k = neighbourFirst(free); k < last; k++) {
+            if (valuesArray[base + list[k]] >= 0) {
+                valuesArray[base + list[k]]++;
+            }
+        }
+
+        // Remove the old one and count the mines around it instead
+        int count = 0;
+
+        base = neighbourBase(index);
+        last = neighbourLast(index);
+
+        for (int k = neighbourFirst(index); k < last; k++) {
+            int next = base + list[k];
+
+            if (valuesArray[next] >= 0) {
+                valuesArray[next]--;
+            } else if (valuesArray[next] == -1) {
+                count++;
+            }
+        }
+
+        valuesArray[index] = (byte) count;
+    }
+
+    /**
+* Adds the covered tiles around an uncovered number to the frontier.
+*
+* @param index array index of the number
+*/
+    private void addToFrontier(final int index) {
+        int[] list = neighbourList();
+        int base = neighbourBase(index);
+        int last = neighbourLast(index);
+
+        for (int k = neighbourFirst(index); k < last; k++) {
+            int next = base + list[k];
+
+            // Sentinels are uncovered so are never added
+            if (stateArray[next] != UNCOVERED) {
+                frontier.add(next);
+            }
+        }
+    }
+
+    /**
+* Records a changed tile for the auto-flag assist and the current batch.
+*
+* @param index array index of tile
+*/
+    private void recordChange(final int index) {
+        if (changes != null && (changes[index >>> 6] & 1L << index) == 0) {
+            changes[index >>> 6] |= 1L << index;
+
+            if (changeCount == changeList.length) {
+                changeList = Arrays.copyOf(changeList, changeCount * 2);
+            }
+
+            changeList[changeCount++] = index;
+        }
+
+        if (!autoFlag) {
+            return;
+        }
+
+        if (journalCount == journal.length) {
+            journal = Arrays.copyOf(journal, journalCount * 2);
+        }
+
+        journal[journalCount++] = index;
+    }
+
+    /**
+* Runs the auto-flag assist over the tiles changed by the last move.
+*
+* Flags placed by the assist are changes too, so their neighbours are
+* checked in turn (and auto-chord runs again if it is enabled).
+*/
+    private void runAssist() {
+        while (journalCount > 0) {
+            if (isFinished()) {
+                journalCount = 0;
+                break;
+            }
+
+            int changed = journal[--journalCount];
+            int[] list = neighbourList();
+            int base = neighbourBase(changed);
+            int last = neighbourLast(changed);
+
+            // Only the changed tile and its neighbours can have new deductions
+            checkAutoFlag(changed);
+
+            for (int k = neighbourFirst(changed); k < last; k++) {
+                checkAutoFlag(base + list[k]);
+            }
+
+            if (journalCount == 0) {
+                runAutoChord();
+            }
+        }
+    }
+
+    /**
+* Flags the covered tiles around a number if they must all be mines.
+*
+* @param index array index of tile
+*/
+    private void checkAutoFlag(final int index) {
+        // Uncovered tiles have always been counted (sentinels are -2)
+        if (stateArray[index] != UNCOVERED || valuesArray[index] <= 0) {
+            return;
+        }
+
+        int[] list = neighbourList();
+        int base = neighbourBase(index);
+        int last = neighbourLast(index);
+        int unknown = 0;
+
+        for (int k = neighbourFirst(index); k < last; k++) {
+            byte state = stateArray[base + list[k]];
+
+            if (state != UNCOVERED && state != FLAGGED) {
+                unknown++;
+            }
+        }
+
+        if (unknown == 0 || valuesArray[index] - flagCounts[index] != unknown) {
+            return;
+        }
+
+        for (int k = neighbourFirst(index); k < last; k++) {
+            int next = base + list[k];
+            byte state = stateArray[next];
+
+            if (state != UNCOVERED && state != FLAGGED) {
+                stateArray[next] = FLAGGED;
+                version++;
+                addFlag(next);
+                recordChange(next);
+            }
+        }
+    }
+
+    /**
+* Gets the list of surrounding tiles used by the neighbour loops.
+*
+* The surrounding tiles of tile i are
+* {@code neighbourBase(i) + list[k]} for k from {@code neighbourFirst(i)}
+* to {@code neighbourLast(i) - 1}.
+*
+* @return neighbourOffsets or neighbourTargets
+*/
+    int[] neighbourList() {
+        return neighbourOffsets != null ? neighbourOffsets : neighbourTargets;
+    }
+
+    /**
+* Gets the value added to entries of {@link #neighbourList()}.
+*
+* @param index array index of central tile
+* @return index for relative offsets, 0 for absolute targets
+*/
+    int neighbourBase(final int index) {
+        return neighbourOffsets != null ? index : 0;
+    }
+
+    /**
+* Gets the first entry of {@link #neighbourList()} for a tile.
+*
+* @param index array index of central tile
+* @return first entry (inclusive)
+*/
+    int neighbourFirst(final int index) {
+        return neighbourOffsets != null ? 0 : neighbourStart[index];
+    }
+
+    /**
+* Gets the end of a tile's entries in {@link #neighbourList()}.
+*
+* @param index array index of central tile
+* @return last entry (exclusive)
+*/
+    int neighbourLast(final int index) {
+        return neighbourOffsets != null
+                ? neighbourOffsets.length : neighbourStart[index + 1];
+    }
+
+    /**
+* Uncovers all the surrounding tiles which are not flagged.
+*
+* @param index array index of central tile
+*/
+    private void chordNoChecks(final int index) {
+        int[] list = neighbourList();
+        int base = neighbourBase(index);
+        int last = neighbourLast(index);
+
+        for (int k = neighbourFirst(index); k < last; k++) {
+            int next = base + list[k];
+
+            // Sentinels are uncovered so are skipped by uncoverNoChecks
+            if (stateArray[next] != FLAGGED) {
+                uncoverNoChecks(next);
+            }
+        }
+    }
+
+    /**
+* Records a new flag in the surrounding flag counts.
+*
+* @param index array index of the flagged tile
+*/
+    private void addFlag(final int index) {
+        int[] list = neighbourList();
+        int base = neighbourBase(index);
+        int last = neighbourLast(index);
+
+        for (int k = neighbourFirst(index); k < last; k++) {
+            int next = base + list[k];
+            flagCounts[next]++;
+
+            // The tile may now be ready to chord
+            if (autoChord && stateArray[next] == UNCOVERED
+                    && valuesArray[next] > 0) {
+                pushAutoChord(next);
+            }
+        }
+    }
+
+    /**
+* Removes a flag from the surrounding flag counts.
+*
+* @param index array index of the tile which was flagged
+*/
+    private void removeFlag(final int index) {
+        int[] list = neighbourList();
+        int base = neighbourBase(index);
+        int last = neighbourLast(index);
+
+        for (int k = neighbourFirst(index); k < last; k++) {
+            flagCounts[base + list[k]]--;
+        }
+    }
+
+    /**
+* Adds a tile to the auto-chord worklist.
+*
+* @param index array index of tile
+*/
+    private void pushAutoChord(final int index) {
+        if (autoChordCount == autoChordWorklist.length) {
+            autoChordWorklist = Arrays.copyOf(autoChordWorklist,
+                    autoChordCount * 2);
+        }
+
+        autoChordWorklist[autoChordCount++] = index;
+    }
+
+    /**
+* Chords every tile in the auto-chord worklist which has the right number
+* of surrounding flags.
+*
+* Chording may uncover more numbered tiles, which are added to the
+* worklist in turn.
+*/
+    private void runAutoChord() {
+        while (autoChordCount > 0) {
+            int index = autoChordWorklist[--autoChordCount];
+
+            if (isFinished()) {
+                autoChordCount = 0;
+                break;
+            }
+
+            if (valuesArray[index] > 0
+                    && valuesArray[index] == flagCounts[index]) {
+                chordNoChecks(index);
+            }
+        }
+    }
+
+    /**
+* Gets a string representing the minefield's current visible state.
+*
+* Use {@link TextRenderer} to stream large minefields instead.
+* @return String
+*/
+    @Override
+    public final String toString() {
+        StringBuilder builder = new StringBuilder(
+                (getWidth() + 3) * (getHeight() + 2));
+
+        try {
+            TextRenderer.render(this, builder);
+        } catch (IOException e) {
+            // StringBuilder never throws
+            throw new AssertionError(e);
+        }
+
+        return builder.toString();
+    }
+}
@@ -0,0 +1,366 @@
+package uk.ac.york.minesweeper;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Logger;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Static class containing the game engine's counters and histograms.
+ *
+ * Instrumentation is only active when the system property
+ * {@code minesweeper.metrics} is {@code true} at startup. {@link #ENABLED} is
+ * a compile-time style constant, so when it is false the JIT removes every
+ * guarded call site and the engine pays nothing for it.
+ */
+public final class MinefieldMetrics {
+
+    /**
+     * Logger.
+     */
+    private static final Logger
+    LOGGER = Logger.getLogger(MinefieldMetrics.class.getName());
+
+    /** True if instrumentation is enabled. */
+    public static final boolean ENABLED =
+            Boolean.getBoolean("minesweeper.metrics");
+
+    /** Name the MBean is registered under. */
+    public static final String OBJECT_NAME =
+            "uk.ac.york.minesweeper:type=MinefieldMetrics";
+
+    /** Time taken by each uncover call (ns). */
+    static final Histogram UNCOVER_NANOS = new Histogram("uncoverNanos");
+
+    /** Time taken by each chord call (ns). */
+    static final Histogram CHORD_NANOS = new Histogram("chordNanos");
+
+    /** Number of tiles uncovered by each move which opened a region. */
+    static final Histogram FLOOD_FILL_TILES =
+            new Histogram("floodFillTiles");
+
+    /** Time taken to generate the mines and values (ns). */
+    static final Histogram INIT_VALUES_NANOS =
+            new Histogram("initValuesNanos");
+
+    /** Time taken by each paintComponent call (ns). */
+    static final Histogram PAINT_NANOS = new Histogram("paintNanos");
+
+    /** Number of tiles drawn by each paintComponent call. */
+    static final Histogram TILES_PAINTED = new Histogram("tilesPainted");
+
+    /** Number of games started. */
+    private static final AtomicLong GAMES_STARTED = new AtomicLong();
+
+    /** Number of games won. */
+    private static final AtomicLong GAMES_WON = new AtomicLong();
+
+    /** Number of games lost. */
+    private static final AtomicLong GAMES_LOST = new AtomicLong();
+
+    /** All histograms in snapshot order. */
+    private static final Histogram[] HISTOGRAMS = {
+        UNCOVER_NANOS, CHORD_NANOS, FLOOD_FILL_TILES,
+        INIT_VALUES_NANOS, PAINT_NANOS, TILES_PAINTED,
+    };
+
+    /** Listeners receiving periodic snapshots. */
+    private static final CopyOnWriteArrayList<MetricsSnapshotListener>
+    LISTENERS = new CopyOnWriteArrayList<MetricsSnapshotListener>();
+
+    /** Scheduler for periodic snapshots (created on demand). */
+    private static ScheduledExecutorService scheduler;
+
+    /** The currently scheduled periodic snapshot task. */
+    private static ScheduledFuture<?> periodicTask;
+
+    private MinefieldMetrics() {
+
+    }
+
+    /**
+     * Records that a new game has started.
+     */
+    static void gameStarted() {
+        GAMES_STARTED.incrementAndGet();
+    }
+
+    /**
+     * Records that a game has finished.
+     *
+     * @param won true if the game was won
+     */
+    static void gameFinished(final boolean won) {
+        if (won) {
+            GAMES_WON.incrementAndGet();
+        } else {
+            GAMES_LOST.incrementAndGet();
+        }
+    }
+
+    /**
+     * Records a paint of a minefield component.
+     *
+     * Called by the UI module, which cannot see the histograms.
+     *
+     * @param nanos time taken by the paint (ns)
+     * @param tiles number of tiles drawn
+     */
+    public static void framePainted(final long nanos, final long tiles) {
+        PAINT_NANOS.record(nanos);
+        TILES_PAINTED.record(tiles);
+    }
+
+    /**
+     * Gets the number of games started.
+     *
+     * @return number of games started
+     */
+    public static long getGamesStarted() {
+        return GAMES_STARTED.get();
+    }
+
+    /**
+     * Gets the number of games won.
+     *
+     * @return number of games won
+     */
+    public static long getGamesWon() {
+        return GAMES_WON.get();
+    }
+
+    /**
+     * Gets the number of games lost.
+     *
+     * @return number of games lost
+     */
+    public static long getGamesLost() {
+        return GAMES_LOST.get();
+    }
+
+    /**
+     * Takes a snapshot of all counters and histograms.
+     *
+     * @return current metrics
+     */
+    public static MetricsSnapshot snapshot() {
+        Histogram.Snapshot[] histograms =
+                new Histogram.Snapshot[HISTOGRAMS.length];
+
+        for (int i = 0; i < HISTOGRAMS.length; i++) {
+            histograms[i] = HISTOGRAMS[i].snapshot();
+        }
+
+        return new MetricsSnapshot(System.currentTimeMillis(),
+                GAMES_STARTED.get(), GAMES_WON.get(), GAMES_LOST.get(),
+                histograms);
+    }
+
+    /**
+     * Resets all counters and histograms to zero.
+     */
+    public static void reset() {
+        GAMES_STARTED.set(0);
+        GAMES_WON.set(0);
+        GAMES_LOST.set(0);
+
+        for (Histogram histogram : HISTOGRAMS) {
+            histogram.reset();
+        }
+    }
+
+    /**
+     * Adds a listener which receives periodic snapshots.
+     *
+     * @param listener listener to add
+     */
+    public static void
+    addSnapshotListener(final MetricsSnapshotListener listener) {
+        LISTENERS.addIfAbsent(listener);
+    }
+
+    /**
+     * Removes a listener which received periodic snapshots.
+     *
+     * @param listener listener to remove
+     */
+    public static void
+    removeSnapshotListener(final MetricsSnapshotListener listener) {
+        LISTENERS.remove(listener);
+    }
+
+    /**
+     * Starts delivering snapshots to the listeners at a fixed rate.
+     *
+     * Any previous schedule is replaced. Listeners are called on a
+     * background daemon thread.
+     *
+     * @param period time between snapshots
+     * @param unit unit of period
+     */
+    public static synchronized void
+    startPeriodicSnapshots(final long period, final TimeUnit unit) {
+        if (period <= 0) {
+            throw new IllegalArgumentException("period must be positive");
+        }
+
+        stopPeriodicSnapshots();
+
+        if (scheduler == null) {
+            scheduler = Executors.newSingleThreadScheduledExecutor(
+                    new ThreadFactory() {
+                @Override
+                public Thread newThread(final Runnable r) {
+                    Thread thread = new Thread(r, "minefield-metrics");
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+        }
+
+        periodicTask = scheduler.scheduleAtFixedRate(new Runnable() {
+            @Override
+            public void run() {
+                MetricsSnapshot snapshot = snapshot();
+
+                for (MetricsSnapshotListener listener : LISTENERS) {
+                    listener.snapshotTaken(snapshot);
+                }
+            }
+        }, period, period, unit);
+    }
+
+    /**
+     * Stops delivering periodic snapshots.
+     */
+    public static synchronized void stopPeriodicSnapshots() {
+        if (periodicTask != null) {
+            periodicTask.cancel(false);
+            periodicTask = null;
+        }
+    }
+
+    /**
+     * Registers the metrics MBean with the platform MBean server.
+     *
+     * Does nothing if it is already registered.
+     */
+    public static synchronized void registerMBean() {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+
+        try {
+            ObjectName name = new ObjectName(OBJECT_NAME);
+
+            if (!server.isRegistered(name)) {
+                server.registerMBean(new MBean(), name);
+            }
+        } catch (JMException e) {
+            LOGGER.warning("Could not register metrics MBean: " + e);
+        }
+    }
+
+    /**
+     * MXBean implementation forwarding to the static metrics.
+     */
+    private static final class MBean implements MinefieldMetricsMXBean {
+
+        @Override
+        public boolean isEnabled() {
+            return ENABLED;
+        }
+
+        @Override
+        public long getGamesStarted() {
+            return MinefieldMetrics.getGamesStarted();
+        }
+
+        @Override
+        public long getGamesWon() {
+            return MinefieldMetrics.getGamesWon();
+        }
+
+        @Override
+        public long getGamesLost() {
+            return MinefieldMetrics.getGamesLost();
+        }
+
+        @Override
+        public long getUncoverCount() {
+            return UNCOVER_NANOS.snapshot().getCount();
+        }
+
+        @Override
+        public double getUncoverMeanNanos() {
+            return UNCOVER_NANOS.snapshot().getMean();
+        }
+
+        @Override
+        public long getUncoverP99Nanos() {
+            return UNCOVER_NANOS.snapshot().getPercentile(99);
+        }
+
+        @Override
+        public long getChordCount() {
+            return CHORD_NANOS.snapshot().getCount();
+        }
+
+        @Override
+        public double getChordMeanNanos() {
+            return CHORD_NANOS.snapshot().getMean();
+        }
+
+        @Override
+        public long getChordP99Nanos() {
+            return CHORD_NANOS.snapshot().getPercentile(99);
+        }
+
+        @Override
+        public double getFloodFillMeanTiles() {
+            return FLOOD_FILL_TILES.snapshot().getMean();
+        }
+
+        @Override
+        public long getFloodFillMaxTiles() {
+            return FLOOD_FILL_TILES.snapshot().getMax();
+        }
+
+        @Override
+        public double getInitValuesMeanNanos() {
+            return INIT_VALUES_NANOS.snapshot().getMean();
+        }
+
+        @Override
+        public long getPaintCount() {
+            return PAINT_NANOS.snapshot().getCount();
+        }
+
+        @Override
+        public double getPaintMeanNanos() {
+            return PAINT_NANOS.snapshot().getMean();
+        }
+
+        @Override
+        public long getPaintP99Nanos() {
+            return PAINT_NANOS.snapshot().getPercentile(99);
+        }
+
+        @Override
+        public double getTilesPaintedMean() {
+            return TILES_PAINTED.snapshot().getMean();
+        }
+
+        @Override
+        public void reset() {
+            MinefieldMetrics.reset();
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package uk.ac.york.minesweeper;
+
+/**
+ * JMX view of the game engine metrics.
+ *
+ * All times are in nanoseconds.
+ */
+public interface MinefieldMetricsMXBean
+{
+    /**
+     * Returns true if instrumentation is enabled.
+     *
+     * @return true if metrics are being recorded
+     */
+    boolean isEnabled();
+
+    /**
+     * Gets the number of games started.
+     *
+     * @return number of games started
+     */
+    long getGamesStarted();
+
+    /**
+     * Gets the number of games won.
+     *
+     * @return number of games won
+     */
+    long getGamesWon();
+
+    /**
+     * Gets the number of games lost.
+     *
+     * @return number of games lost
+     */
+    long getGamesLost();
+
+    /**
+     * Gets the number of uncover calls.
+     *
+     * @return number of uncover calls
+     */
+    long getUncoverCount();
+
+    /**
+     * Gets the mean latency of uncover.
+     *
+     * @return mean latency
+     */
+    double getUncoverMeanNanos();
+
+    /**
+     * Gets the 99th percentile latency of uncover.
+     *
+     * @return 99th percentile latency
+     */
+    long getUncoverP99Nanos();
+
+    /**
+     * Gets the number of chord calls.
+     *
+     * @return number of chord calls
+     */
+    long getChordCount();
+
+    /**
+     * Gets the mean latency of chord.
+     *
+     * @return mean latency
+     */
+    double getChordMeanNanos();
+
+    /**
+     * Gets the 99th percentile latency of chord.
+     *
+     * @return 99th percentile latency
+     */
+    long getChordP99Nanos();
+
+    /**
+     * Gets the mean number of tiles uncovered by an opening.
+     *
+     * @return mean flood fill size
+     */
+    double getFloodFillMeanTiles();
+
+    /**
+     * Gets the largest number of tiles uncovered by an opening.
+     *
+     * @return largest flood fill size
+     */
+    long getFloodFillMaxTiles();
+
+    /**
+     * Gets the mean time taken to generate a board.
+     *
+     * @return mean generation time
+     */
+    double getInitValuesMeanNanos();
+
+    /**
+     * Gets the number of frames painted.
+     *
+     * @return number of frames painted
+     */
+    long getPaintCount();
+
+    /**
+     * Gets the mean time taken to paint a frame.
+     *
+     * @return mean paint time
+     */
+    double getPaintMeanNanos();
+
+    /**
+     * Gets the 99th percentile time taken to paint a frame.
+     *
+     * @return 99th percentile paint time
+     */
+    long getPaintP99Nanos();
+
+    /**
+     * Gets the mean number of tiles painted per frame.
+     *
+     * @return mean tiles per frame
+     */
+    double getTilesPaintedMean();
+
+    /**
+     * Resets all metrics to zero.
+     */
+    void reset();
+}
@@ -0,0 +1,112 @@
+package uk.ac.york.minesweeper;
+
+/**
+ * The result of {@link Minefield#applyMoves(int[])}, and the operation and
+ * outcome codes it uses.
+ */
+public final class MoveBatch {
+
+    /** Operation: uncover the tile. */
+    public static final int UNCOVER = 0;
+
+    /** Operation: chord on the tile. */
+    public static final int CHORD = 1;
+
+    /** Operation: flag the tile. */
+    public static final int FLAG = 2;
+
+    /** Operation: put a question on the tile. */
+    public static final int QUESTION = 3;
+
+    /** Operation: remove any flag or question from the tile. */
+    public static final int COVER = 4;
+
+    /** Outcome: the move changed nothing. */
+    public static final byte UNCHANGED = 0;
+
+    /** Outcome: the move changed at least one tile. */
+    public static final byte CHANGED = 1;
+
+    /** Outcome: the move hit a mine. */
+    public static final byte LOST = 2;
+
+    /** Outcome: the move won the game. */
+    public static final byte WON = 3;
+
+    /** Outcome: the move was not valid (and was ignored). */
+    public static final byte INVALID = 4;
+
+    /** Outcome: the game had already finished (so the move was skipped). */
+    public static final byte SKIPPED = 5;
+
+    /** Outcome of each move. */
+    private final byte[] outcomes;
+
+    /** Tiles which changed (y * width + x). */
+    private final int[] changedTiles;
+
+    /** State of the game after the batch. */
+    private final GameState gameState;
+
+    /**
+     * Initializes a new MoveBatch.
+     *
+     * @param moveOutcomes outcome of each move (not copied)
+     * @param changed tiles which changed (not copied)
+     * @param state state of the game after the batch
+     */
+    MoveBatch(final byte[] moveOutcomes, final int[] changed,
+            final GameState state) {
+        this.outcomes = moveOutcomes;
+        this.changedTiles = changed;
+        this.gameState = state;
+    }
+
+    /**
+     * Gets the number of moves in the batch.
+     *
+     * @return number of moves
+     */
+    public int getMoveCount() {
+        return outcomes.length;
+    }
+
+    /**
+     * Gets the outcome of a move.
+     *
+     * @param move position of the move in the batch
+     * @return one of the outcome constants
+     */
+    public byte getOutcome(final int move) {
+        return outcomes[move];
+    }
+
+    /**
+     * Gets the outcome of every move.
+     *
+     * @return copy of the outcomes
+     */
+    public byte[] getOutcomes() {
+        return outcomes.clone();
+    }
+
+    /**
+     * Gets every tile whose visible state changed during the batch.
+     *
+     * Each tile is listed once, however many moves changed it.
+     *
+     * @return changed tiles as {@code y * width + x} (in no order)
+     */
+    public int[] getChangedTiles() {
+        return changedTiles.clone();
+    }
+
+    /**
+     * Gets the state of the game after the batch.
+     *
+     * @return game state
+     */
+    public GameState getGameState() {
+        return gameState;
+    }
+}
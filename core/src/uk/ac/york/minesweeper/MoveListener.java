@@ -0,0 +1,23 @@
+package uk.ac.york.minesweeper;
+
+/**
+ * Listener told about the tiles changed by each move on a {@link Minefield}.
+ *
+ * Listeners are called on the thread playing the game, straight after the
+ * move, so they must not take long.
+ */
+public interface MoveListener {
+
+    /**
+     * Called after a move which changed at least one tile.
+     *
+     * A batch of moves from {@link Minefield#applyMoves(int[])} is reported
+     * as one call. The array is reused by the minefield, so it is only
+     * valid until this method returns.
+     *
+     * @param minefield minefield the move was made on
+     * @param tiles changed tiles as {@code y * width + x} (in no order)
+     * @param count number of tiles used in the array
+     */
+    void moveMade(Minefield minefield, int[] tiles, int count);
+}
@@ -12,6 +12,13 @@ public class OwnFormatter extends Formatter {
 
     private final DateFormat dateformatter = DateFormat.getDateTimeInstance(DateFormat.SHORT, DateFormat.MEDIUM);
 
+    /**
+     * Initializes a new OwnFormatter.
+     */
+    public OwnFormatter() {
+
+    }
+
     @Override
     public final String format(LogRecord record) {
 
@@ -0,0 +1,174 @@
+package uk.ac.york.minesweeper;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * Writes an 8 bit RGB PNG image one piece of a row at a time.
+ *
+ * Only the compressor's window and a fixed output buffer are kept in
+ * memory, so any size of image can be written. Each row must be given as
+ * a filter type byte followed by width * 3 bytes of pixels (in any number
+ * of calls to {@link #write}).
+ */
+public final class PngEncoder {
+
+    /** The PNG file signature. */
+    private static final byte[] SIGNATURE = {
+        (byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n',
+    };
+
+    /** Filter type byte meaning the row is not filtered. */
+    public static final int FILTER_NONE = 0;
+
+    /** Size of each IDAT chunk. */
+    private static final int CHUNK_SIZE = 1 << 16;
+
+    /** Stream the image is written to. */
+    private final OutputStream out;
+
+    /** Compressor of the image data. */
+    private final Deflater deflater;
+
+    /** Compressed data waiting to be written as a chunk. */
+    private final byte[] chunk = new byte[CHUNK_SIZE];
+
+    /** Number of bytes used in chunk. */
+    private int chunkSize;
+
+    /** Checksum of the current chunk. */
+    private final CRC32 crc = new CRC32();
+
+    /** Data of the image header chunk. */
+    private final byte[] scratch = new byte[13];
+
+    /** Buffer for chunk headers and checksums. */
+    private final byte[] header = new byte[8];
+
+    /**
+     * Initializes a new PngEncoder and writes the image header.
+     *
+     * @param stream stream to write to (not closed by the encoder)
+     * @param width width of the image in pixels
+     * @param height height of the image in pixels
+     * @param level compression level (see {@link Deflater})
+     * @throws IOException if the stream cannot be written
+     */
+    public PngEncoder(final OutputStream stream, final int width,
+            final int height, final int level) throws IOException {
+        if (width < 1 || height < 1) {
+            throw new IllegalArgumentException("image must not be empty");
+        }
+
+        this.out = stream;
+        this.deflater = new Deflater(level);
+
+        out.write(SIGNATURE);
+
+        putInt(scratch, 0, width);
+        putInt(scratch, 4, height);
+        scratch[8] = 8;     // Bit depth
+        scratch[9] = 2;     // Colour type: RGB
+        scratch[10] = 0;    // Compression: deflate
+        scratch[11] = 0;    // Filter method: adaptive
+        scratch[12] = 0;    // Interlace: none
+        writeChunk("IHDR", scratch, 13);
+    }
+
+    /**
+     * Adds image data (filter bytes and pixels).
+     *
+     * @param data array holding the data
+     * @param offset position of the first byte
+     * @param length number of bytes
+     * @throws IOException if the stream cannot be written
+     */
+    public void write(final byte[] data, final int offset, final int length)
+            throws IOException {
+        deflater.setInput(data, offset, length);
+
+        while (!deflater.needsInput()) {
+            drain();
+        }
+    }
+
+    /**
+     * Writes the rest of the image data and the end of the image.
+     *
+     * @throws IOException if the stream cannot be written
+     */
+    public void finish() throws IOException {
+        deflater.finish();
+
+        while (!deflater.finished()) {
+            drain();
+        }
+
+        if (chunkSize > 0) {
+            writeChunk("IDAT", chunk, chunkSize);
+            chunkSize = 0;
+        }
+
+        writeChunk("IEND", chunk, 0);
+        deflater.end();
+        out.flush();
+    }
+
+    /**
+     * Moves compressed data into the chunk, writing it out when full.
+     *
+     * @throws IOException if the stream cannot be written
+     */
+    private void drain() throws IOException {
+        chunkSize += deflater.deflate(chunk, chunkSize,
+                CHUNK_SIZE - chunkSize);
+
+        if (chunkSize == CHUNK_SIZE) {
+            writeChunk("IDAT", chunk, chunkSize);
+            chunkSize = 0;
+        }
+    }
+
+    /**
+     * Writes a chunk.
+     *
+     * @param type chunk type (4 ASCII characters)
+     * @param data chunk data
+     * @param length length of the data
+     * @throws IOException if the stream cannot be written
+     */
+    private void writeChunk(final String type, final byte[] data,
+            final int length) throws IOException {
+        putInt(header, 0, length);
+
+        for (int n = 0; n < 4; n++) {
+            header[4 + n] = (byte) type.charAt(n);
+        }
+
+        crc.reset();
+        crc.update(header, 4, 4);
+        crc.update(data, 0, length);
+
+        out.write(header);
+        out.write(data, 0, length);
+        putInt(header, 0, (int) crc.getValue());
+        out.write(header, 0, 4);
+    }
+
+    /**
+     * Stores a big endian int.
+     *
+     * @param array array to store in
+     * @param offset position to store at
+     * @param value value to store
+     */
+    private static void putInt(final byte[] array, final int offset,
+            final int value) {
+        array[offset] = (byte) (value >>> 24);
+        array[offset + 1] = (byte) (value >>> 16);
+        array[offset + 2] = (byte) (value >>> 8);
+        array[offset + 3] = (byte) value;
+    }
+}
@@ -0,0 +1,1253 @@
+package uk.ac.york.minesweeper;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Estimates the chance of each covered tile being a mine by sampling.
+ *
+ * Only what the player can see is used: the numbers on uncovered tiles
+ * and the total number of mines ({@link Minefield#getMines()}). Flags and
+ * question marks are treated as covered tiles, as they may be wrong.
+ *
+ * Covered tiles next to a number (the frontier) which the numbers force,
+ * alone or in pairs, are settled first. The rest are sampled by Markov
+ * chains which flip one tile or swap two tiles sharing a number. Each unit
+ * a number is out by costs a factor of e^-BETA, so a chain can pass
+ * through impossible layouts to get between possible ones. A tile is
+ * counted whenever every number near it matches: its own numbers and
+ * those of the tiles sharing them. Flips are weighted by the number of
+ * ways to place the remaining mines on the other covered tiles (the
+ * interior), which are all alike, so the counts follow the boards
+ * matching what is shown. The interior's own chance is what is left of
+ * the mines over its tiles.
+ *
+ * Several chains run in parallel. Their counts are collected in batches
+ * which grow as the chains run; the spread of the batches gives a 95%
+ * confidence bound for every tile, and sampling stops when all bounds are
+ * within the tolerance or the time budget runs out. Each chain keeps
+ * MAX_BATCHES batches of the frontier as floats, so memory is fixed.
+ *
+ * The estimates are approximate: a tile is counted while numbers further
+ * away do not match. Waiting for a whole frontier to match is hopeless
+ * once it has thousands of numbers, and the numbers further away change
+ * the chance of a tile very little.
+ */
+public final class ProbabilitySampler {
+
+    /** Cost of each unit a number is out by (as a power of e). */
+    private static final double BETA = 4.0;
+
+    /** Sweeps (one step per free tile) in each chain's first batch. */
+    private static final int FIRST_BATCH_SWEEPS = 4;
+
+    /** Batches kept by each chain. */
+    private static final int MAX_BATCHES = 16;
+
+    /** Sweeps each chain makes before counting (raising BETA to its value). */
+    private static final int BURN_IN_SWEEPS = 100;
+
+    /** Batches needed (from all chains) before bounds are given. */
+    private static final int MIN_BATCHES = MAX_BATCHES / 2;
+
+    /** Time between convergence checks (ms). */
+    private static final long CHECK_MILLIS = 50;
+
+    /** Normal quantile of a two sided 95% confidence bound. */
+    private static final double Z95 = 1.96;
+
+    /** Offset of energy changes in the weight table. */
+    private static final int DELTA_OFFSET = 4 * Topology.MAX_NEIGHBOURS;
+
+    /** e^(-BETA * (n - DELTA_OFFSET)), the weight of an energy change. */
+    private static final double[] WEIGHT = weights(BETA);
+
+    /** Marks uncovered tiles in slotOf. */
+    private static final int UNCOVERED_SLOT = -2;
+
+    /** Marks covered tiles away from the frontier in slotOf. */
+    private static final int INTERIOR_SLOT = -1;
+
+    /** Marks frontier tiles left to the chains in forced. */
+    private static final byte FREE = 0;
+
+    /** Marks frontier tiles which cannot be mines in forced. */
+    private static final byte FORCED_SAFE = 1;
+
+    /** Marks frontier tiles which must be mines in forced. */
+    private static final byte FORCED_MINE = 2;
+
+    /** Width of the board. */
+    private final int width;
+
+    /** Total number of mines. */
+    private final int mines;
+
+    /** Frontier slot of each tile, or UNCOVERED_SLOT / INTERIOR_SLOT. */
+    private final int[] slotOf;
+
+    /** Number of frontier tiles. */
+    private final int frontierCount;
+
+    /** Number of covered tiles away from the frontier. */
+    private final int interiorCount;
+
+    /** Start of each frontier tile's numbers in tileNumbers. */
+    private final int[] tileNumberStart;
+
+    /** Numbers next to each frontier tile. */
+    private final int[] tileNumbers;
+
+    /** Value of each number. */
+    private final int[] numberValue;
+
+    /** Start of each number's frontier tiles in numberTiles. */
+    private final int[] numberTileStart;
+
+    /** Frontier tiles next to each number. */
+    private final int[] numberTiles;
+
+    /** FREE, FORCED_SAFE or FORCED_MINE for each frontier tile. */
+    private final byte[] forced;
+
+    /** Frontier tiles left to the chains. */
+    private final int[] freeSlots;
+
+    /**
+     * Reads the visible state of a minefield.
+     *
+     * Must be called on the thread which owns the minefield. Sampling
+     * afterwards does not touch it.
+     *
+     * @param minefield minefield to estimate
+     * @throws IllegalStateException if the game has finished
+     */
+    public ProbabilitySampler(final Minefield minefield) {
+        if (minefield.isFinished()) {
+            throw new IllegalStateException("the game has finished");
+        }
+
+        width = minefield.getWidth();
+        mines = minefield.getMines();
+
+        int height = minefield.getHeight();
+        int tiles = width * height;
+        int[] neighbours = new int[Topology.MAX_NEIGHBOURS];
+
+        // Find the frontier and count the links between tiles and numbers
+        slotOf = new int[tiles];
+        int frontier = 0;
+        int numbers = 0;
+        int links = 0;
+
+        for (int tile = 0; tile < tiles; tile++) {
+            int code = minefield.getVisibleTile(tile % width, tile / width);
+            slotOf[tile] = (code < VisibleTile.MINE)
+                    ? UNCOVERED_SLOT : INTERIOR_SLOT;
+        }
+
+        for (int tile = 0; tile < tiles; tile++) {
+            int code = minefield.getVisibleTile(tile % width, tile / width);
+
+            if (code == 0 || code >= VisibleTile.MINE) {
+                continue;
+            }
+
+            int count = minefield.getNeighbours(tile % width, tile / width,
+                    neighbours);
+            int covered = 0;
+
+            for (int n = 0; n < count; n++) {
+                int next = neighbours[n];
+
+                if (slotOf[next] == INTERIOR_SLOT) {
+                    slotOf[next] = frontier++;
+                }
+
+                if (slotOf[next] >= 0) {
+                    covered++;
+                }
+            }
+
+            if (covered > 0) {
+                numbers++;
+                links += covered;
+            }
+        }
+
+        frontierCount = frontier;
+        interiorCount = countInterior();
+
+        // Build both link lists
+        numberValue = new int[numbers];
+        numberTileStart = new int[numbers + 1];
+        numberTiles = new int[links];
+        tileNumberStart = new int[frontier + 1];
+        tileNumbers = new int[links];
+
+        int number = 0;
+        int link = 0;
+
+        for (int tile = 0; tile < tiles; tile++) {
+            int code = minefield.getVisibleTile(tile % width, tile / width);
+
+            if (code == 0 || code >= VisibleTile.MINE) {
+                continue;
+            }
+
+            int count = minefield.getNeighbours(tile % width, tile / width,
+                    neighbours);
+            int first = link;
+
+            for (int n = 0; n < count; n++) {
+                int slot = slotOf[neighbours[n]];
+
+                if (slot >= 0) {
+                    numberTiles[link++] = slot;
+                    tileNumberStart[slot + 1]++;
+                }
+            }
+
+            if (link > first) {
+                numberValue[number] = code;
+                numberTileStart[++number] = link;
+            }
+        }
+
+        for (int slot = 0; slot < frontier; slot++) {
+            tileNumberStart[slot + 1] += tileNumberStart[slot];
+        }
+
+        int[] fill = new int[frontier];
+
+        for (number = 0; number < numbers; number++) {
+            for (int k = numberTileStart[number];
+                    k < numberTileStart[number + 1]; k++) {
+                int slot = numberTiles[k];
+                tileNumbers[tileNumberStart[slot] + fill[slot]++] = number;
+            }
+        }
+
+        forced = new byte[frontier];
+        forceTiles();
+
+        int free = 0;
+
+        for (int slot = 0; slot < frontier; slot++) {
+            if (forced[slot] == FREE) {
+                fill[free++] = slot;
+            }
+        }
+
+        freeSlots = Arrays.copyOf(fill, free);
+    }
+
+    /**
+     * Settles the frontier tiles which the numbers force, looking at one
+     * number and at pairs of numbers sharing tiles, until nothing more is
+     * forced. Chains leave these tiles alone, as a chain which has one of
+     * them wrong can take very long to correct it.
+     */
+    private void forceTiles() {
+        boolean changed = true;
+
+        while (changed) {
+            changed = false;
+
+            for (int number = 0; number < numberValue.length; number++) {
+                int free = countFree(number, -1);
+
+                if (free == 0) {
+                    continue;
+                }
+
+                int lacking = countLacking(number);
+
+                if (lacking == 0 || lacking == free) {
+                    force(number, -1, lacking == 0);
+                    changed = true;
+                    continue;
+                }
+
+                changed |= forcePairs(number, free, lacking);
+            }
+        }
+    }
+
+    /**
+     * Settles the tiles of the numbers sharing tiles with a number which
+     * the two numbers together force. Of the free tiles of a neighbouring
+     * number, those it does not share hold between its lack less the most
+     * the shared tiles can hold and its lack less the least they must hold.
+     *
+     * @param number number to look from
+     * @param free free tiles of the number
+     * @param lacking mines the number lacks
+     * @return true if any tile was settled
+     */
+    private boolean forcePairs(final int number, final int free,
+            final int lacking) {
+        boolean changed = false;
+
+        for (int k = numberTileStart[number];
+                k < numberTileStart[number + 1]; k++) {
+            int slot = numberTiles[k];
+
+            if (forced[slot] != FREE) {
+                continue;
+            }
+
+            for (int j = tileNumberStart[slot]; j < tileNumberStart[slot + 1];
+                    j++) {
+                int other = tileNumbers[j];
+
+                if (other == number) {
+                    continue;
+                }
+
+                int otherFree = countFree(other, -1);
+                int outside = countFree(other, number);
+                int shared = otherFree - outside;
+
+                if (outside == 0) {
+                    continue;
+                }
+
+                int otherLacking = countLacking(other);
+                int least = otherLacking - Math.min(lacking, shared);
+                int most = otherLacking
+                        - Math.max(0, lacking - (free - shared));
+
+                if (least >= outside || most <= 0) {
+                    force(other, number, most <= 0);
+                    changed = true;
+                }
+            }
+        }
+
+        return changed;
+    }
+
+    /**
+     * Counts the free tiles of a number.
+     *
+     * @param number number
+     * @param except number whose tiles are not counted, or -1
+     * @return free tiles
+     */
+    private int countFree(final int number, final int except) {
+        int free = 0;
+
+        for (int k = numberTileStart[number];
+                k < numberTileStart[number + 1]; k++) {
+            int slot = numberTiles[k];
+
+            if (forced[slot] == FREE
+                    && (except < 0 || !isNextTo(slot, except))) {
+                free++;
+            }
+        }
+
+        return free;
+    }
+
+    /**
+     * Counts the mines a number lacks besides its forced mines.
+     *
+     * @param number number
+     * @return mines left for its free tiles
+     */
+    private int countLacking(final int number) {
+        int lacking = numberValue[number];
+
+        for (int k = numberTileStart[number];
+                k < numberTileStart[number + 1]; k++) {
+            if (forced[numberTiles[k]] == FORCED_MINE) {
+                lacking--;
+            }
+        }
+
+        return lacking;
+    }
+
+    /**
+     * Settles the free tiles of a number.
+     *
+     * @param number number
+     * @param except number whose tiles are left free, or -1
+     * @param safe true to make them safe, false to make them mines
+     */
+    private void force(final int number, final int except,
+            final boolean safe) {
+        for (int k = numberTileStart[number];
+                k < numberTileStart[number + 1]; k++) {
+            int slot = numberTiles[k];
+
+            if (forced[slot] == FREE
+                    && (except < 0 || !isNextTo(slot, except))) {
+                forced[slot] = safe ? FORCED_SAFE : FORCED_MINE;
+            }
+        }
+    }
+
+    /**
+     * Returns true if a frontier tile is next to a number.
+     *
+     * @param slot frontier tile
+     * @param number number
+     * @return true if the number counts the tile
+     */
+    private boolean isNextTo(final int slot, final int number) {
+        for (int k = tileNumberStart[slot]; k < tileNumberStart[slot + 1];
+                k++) {
+            if (tileNumbers[k] == number) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Creates a table of the weights of energy changes.
+     *
+     * @param beta cost of each unit a number is out by
+     * @return e^(-beta * (n - DELTA_OFFSET)) for each n
+     */
+    private static double[] weights(final double beta) {
+        double[] table = new double[2 * DELTA_OFFSET + 1];
+
+        for (int n = 0; n < table.length; n++) {
+            table[n] = Math.exp(-beta * (n - DELTA_OFFSET));
+        }
+
+        return table;
+    }
+
+    /**
+     * Counts the covered tiles away from the frontier.
+     *
+     * @return number of interior tiles
+     */
+    private int countInterior() {
+        int count = 0;
+
+        for (int slot : slotOf) {
+            if (slot == INTERIOR_SLOT) {
+                count++;
+            }
+        }
+
+        return count;
+    }
+
+    /**
+     * Gets the number of frontier tiles.
+     *
+     * @return covered tiles next to a number
+     */
+    public int getFrontierSize() {
+        return frontierCount;
+    }
+
+    /**
+     * Gets the number of frontier tiles forced by the numbers.
+     *
+     * @return tiles which are certainly mines or certainly safe
+     */
+    public int getForcedCount() {
+        return frontierCount - freeSlots.length;
+    }
+
+    /**
+     * Samples until the estimates converge or the time runs out.
+     *
+     * @param threads number of chains (each on its own thread)
+     * @param budgetMillis most time to spend sampling
+     * @param tolerance stop once every 95% confidence bound is within this
+     *                  much of its estimate
+     * @param seed seed of the chains' random number generators
+     * @return the estimates
+     */
+    public Result sample(final int threads, final long budgetMillis,
+            final double tolerance, final long seed) {
+        int count = Math.max(1, threads);
+        long start = System.nanoTime();
+        long deadline = start + budgetMillis * 1000000L;
+        Chain[] chains = new Chain[count];
+        ExecutorService executor = Executors.newFixedThreadPool(count);
+        List<Future<?>> futures = new ArrayList<Future<?>>();
+        SplittableRandom seeds = new SplittableRandom(seed);
+        boolean converged = false;
+
+        try {
+            for (int i = 0; i < count; i++) {
+                chains[i] = new Chain(seeds.split());
+                futures.add(executor.submit(chains[i]));
+            }
+
+            while (System.nanoTime() < deadline) {
+                Thread.sleep(Math.max(1, Math.min(CHECK_MILLIS,
+                        (deadline - System.nanoTime()) / 1000000L)));
+
+                if (new Estimates(chains).getMaxHalfWidth() <= tolerance) {
+                    converged = true;
+                    break;
+                }
+            }
+
+            stopChains(chains);
+
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("interrupted", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+
+            throw new IllegalStateException(e.getCause());
+        } finally {
+            stopChains(chains);
+            executor.shutdownNow();
+        }
+
+        Estimates estimates = new Estimates(chains);
+        long steps = 0;
+
+        for (Chain chain : chains) {
+            steps += chain.getSteps();
+        }
+
+        return new Result(width, slotOf, estimates.probabilities,
+                estimates.halfWidths, converged, estimates.batches,
+                estimates.fewestSamples, steps, System.nanoTime() - start);
+    }
+
+    /**
+     * Tells chains to stop after their current sweep.
+     *
+     * @param chains chains to stop (null entries are skipped)
+     */
+    private static void stopChains(final Chain[] chains) {
+        for (Chain chain : chains) {
+            if (chain != null) {
+                chain.stop = true;
+            }
+        }
+    }
+
+    /**
+     * Gets the Student's t quantile for a two sided 95% confidence bound.
+     *
+     * @param degrees degrees of freedom (at least 1)
+     * @return quantile (approximated by its series in 1 / degrees)
+     */
+    private static double tQuantile(final int degrees) {
+        double z = Z95;
+        double z3 = z * z * z;
+        double z5 = z3 * z * z;
+
+        return z + (z3 + z) / (4.0 * degrees)
+                + (5 * z5 + 16 * z3 + 3 * z) / (96.0 * degrees * degrees);
+    }
+
+    /**
+     * Estimates and confidence bounds pooled from the batches of all chains.
+     *
+     * Each free tile's estimate is its total count over the number of
+     * times it was counted (batches are not weighted equally, as a batch
+     * spent mostly on impossible layouts counts few). The bound is the
+     * usual one for such a ratio, from the spread of the batches about it,
+     * but at least 3 / counted (so a tile which never changed is not taken
+     * as certain). Forced tiles are exact.
+     */
+    private final class Estimates {
+
+        /** Estimate of each frontier tile, then the interior. */
+        private final float[] probabilities;
+
+        /** 95% confidence bound of each estimate. */
+        private final float[] halfWidths;
+
+        /** Number of batches pooled. */
+        private int batches;
+
+        /** Fewest layouts counted for any free tile. */
+        private long fewestSamples;
+
+        /**
+         * Pools the finished batches of some chains.
+         *
+         * @param chains chains to pool (null entries are skipped)
+         */
+        Estimates(final Chain[] chains) {
+            int free = freeSlots.length;
+            double[] counts = new double[free];
+            double[] squares = new double[free];
+            double[] valid = new double[free];
+            probabilities = new float[frontierCount + 1];
+            halfWidths = new float[frontierCount + 1];
+
+            // First the totals, then the spread about their ratio
+            for (Chain chain : chains) {
+                if (chain == null) {
+                    continue;
+                }
+
+                synchronized (chain) {
+                    for (int b = 0; b < chain.batchCount; b++) {
+                        float[] batch = chain.batchCounts[b];
+                        float[] batchValid = chain.batchValid[b];
+
+                        for (int n = 0; n < free; n++) {
+                            counts[n] += batch[n];
+                            valid[n] += batchValid[n];
+                        }
+                    }
+
+                    batches += chain.batchCount;
+                }
+            }
+
+            double fewest = (free == 0) ? 0 : Double.MAX_VALUE;
+            double[] ratios = new double[free];
+
+            for (int n = 0; n < free; n++) {
+                fewest = Math.min(fewest, valid[n]);
+                ratios[n] = (valid[n] == 0) ? Double.NaN : counts[n] / valid[n];
+            }
+
+            fewestSamples = (long) fewest;
+
+            for (Chain chain : chains) {
+                if (chain == null) {
+                    continue;
+                }
+
+                synchronized (chain) {
+                    for (int b = 0; b < chain.batchCount; b++) {
+                        float[] batch = chain.batchCounts[b];
+                        float[] batchValid = chain.batchValid[b];
+
+                        for (int n = 0; n < free; n++) {
+                            double error = batch[n]
+                                    - ratios[n] * batchValid[n];
+                            squares[n] += error * error;
+                        }
+                    }
+                }
+            }
+
+            boolean bounded = batches >= MIN_BATCHES;
+            double t = tQuantile(Math.max(1, batches - 1));
+            double frontierMines = 0;
+            double frontierBound = 0;
+
+            for (int slot = 0; slot < frontierCount; slot++) {
+                if (forced[slot] == FORCED_MINE) {
+                    probabilities[slot] = 1;
+                    frontierMines++;
+                }
+            }
+
+            for (int n = 0; n < free; n++) {
+                int slot = freeSlots[n];
+                double meanValid = valid[n] / batches;
+                double bound = Double.POSITIVE_INFINITY;
+
+                if (bounded && meanValid > 0) {
+                    double variance = squares[n]
+                            / ((double) batches * (batches - 1)
+                            * meanValid * meanValid);
+                    bound = Math.max(t * Math.sqrt(variance), 3 / valid[n]);
+                }
+
+                probabilities[slot] = (float) ratios[n];
+                halfWidths[slot] = (float) bound;
+                frontierMines += ratios[n];
+                frontierBound += bound;
+            }
+
+            // The interior holds the mines the frontier does not (the bound
+            // assumes the worst, that all the frontier errors add up)
+            if (interiorCount > 0) {
+                probabilities[frontierCount] = (float) Math.min(1,
+                        Math.max(0, (mines - frontierMines) / interiorCount));
+                halfWidths[frontierCount] = (float)
+                        (frontierBound / interiorCount);
+            }
+        }
+
+        /**
+         * Gets the widest confidence bound.
+         *
+         * @return largest half width (NaN counts as infinite)
+         */
+        double getMaxHalfWidth() {
+            double max = 0;
+
+            for (float bound : halfWidths) {
+                if (!(bound <= max)) {
+                    max = bound;
+                }
+            }
+
+            return Double.isNaN(max) ? Double.POSITIVE_INFINITY : max;
+        }
+    }
+
+    /**
+     * One Markov chain over the frontier tiles.
+     *
+     * Counts are kept in at most MAX_BATCHES batches. When they are all
+     * full, neighbouring batches are merged and the batch length doubles,
+     * so the batches stay long compared with how slowly the chain mixes
+     * (and memory stays fixed however long it runs).
+     */
+    private final class Chain implements Runnable {
+
+        /** Set to stop the chain after its current sweep. */
+        private volatile boolean stop;
+
+        /** Random number generator of this chain. */
+        private final SplittableRandom rnd;
+
+        /** True for each frontier tile holding a mine. */
+        private final boolean[] mine = new boolean[frontierCount];
+
+        /** Mines next to each number. */
+        private final int[] numberMines = new int[numberValue.length];
+
+        /**
+         * Numbers which do not match next to the tiles of each number
+         * (counted once for each tile they share).
+         */
+        private final int[] nearMismatches = new int[numberValue.length];
+
+        /** Mines on the frontier. */
+        private int frontierMines;
+
+        /** Weights of energy changes used now (WEIGHT after burn in). */
+        private double[] weight;
+
+        /** Counts of each free tile in each batch (guarded by this). */
+        private final float[][] batchCounts =
+                new float[MAX_BATCHES][freeSlots.length];
+
+        /** Times each free tile was counted in each batch (guarded by this). */
+        private final float[][] batchValid =
+                new float[MAX_BATCHES][freeSlots.length];
+
+        /** Number of finished batches (guarded by this). */
+        private int batchCount;
+
+        /** Steps made so far (guarded by this). */
+        private long steps;
+
+        /**
+         * Initializes a new Chain.
+         *
+         * @param random random number generator of this chain
+         */
+        Chain(final SplittableRandom random) {
+            this.rnd = random;
+        }
+
+        /**
+         * Gets the number of steps made.
+         *
+         * @return steps
+         */
+        synchronized long getSteps() {
+            return steps;
+        }
+
+        @Override
+        public void run() {
+            // The frontier needs at least the mines the interior cannot hold
+            int startMines = Math.max(0, mines - interiorCount);
+
+            if (freeSlots.length == 0 || startMines > frontierCount) {
+                return;
+            }
+
+            // No mines yet, so no number (all at least 1) matches
+            for (int number = 0; number < numberValue.length; number++) {
+                for (int k = numberTileStart[number];
+                        k < numberTileStart[number + 1]; k++) {
+                    int slot = numberTiles[k];
+                    nearMismatches[number] += tileNumberStart[slot + 1]
+                            - tileNumberStart[slot];
+                }
+            }
+
+            placeGreedily();
+
+            while (frontierMines < startMines) {
+                int slot = freeSlots[rnd.nextInt(freeSlots.length)];
+
+                if (!mine[slot]) {
+                    flip(slot);
+                }
+            }
+
+            double[] counts = new double[freeSlots.length];
+            double[] valid = new double[freeSlots.length];
+            int sweeps = 0;
+            int batchSweeps = FIRST_BATCH_SWEEPS;
+
+            // Anneal from half BETA to shake out the greedy layout
+            for (int n = 1; n <= BURN_IN_SWEEPS && !stop; n++) {
+                weight = weights(BETA * (BURN_IN_SWEEPS + n)
+                        / (2 * BURN_IN_SWEEPS));
+                sweep();
+            }
+
+            weight = WEIGHT;
+
+            while (!stop) {
+                sweep();
+                sweeps++;
+
+                for (int n = 0; n < freeSlots.length; n++) {
+                    int slot = freeSlots[n];
+
+                    if (isMatched(slot)) {
+                        valid[n]++;
+
+                        if (mine[slot]) {
+                            counts[n]++;
+                        }
+                    }
+                }
+
+                if (sweeps == batchSweeps) {
+                    batchSweeps = finishBatch(counts, valid, batchSweeps);
+                    Arrays.fill(counts, 0);
+                    Arrays.fill(valid, 0);
+                    sweeps = 0;
+                }
+            }
+        }
+
+        /**
+         * Places a first layout which matches most numbers, giving each
+         * number the mines it lacks on tiles where no other number would
+         * get too many. A random layout has so many mismatches on a large
+         * frontier that the chain would take very long to settle.
+         */
+        private void placeGreedily() {
+            for (int slot = 0; slot < frontierCount; slot++) {
+                if (forced[slot] == FORCED_MINE) {
+                    flip(slot);
+                }
+            }
+
+            int numbers = numberValue.length;
+            int offset = rnd.nextInt(numbers);
+
+            for (int n = 0; n < numbers && frontierMines < mines; n++) {
+                int number = (n + offset) % numbers;
+                int first = numberTileStart[number];
+                int count = numberTileStart[number + 1] - first;
+                int start = rnd.nextInt(count);
+
+                for (int j = 0; j < count
+                        && numberMines[number] < numberValue[number]
+                        && frontierMines < mines; j++) {
+                    int slot = numberTiles[first + (start + j) % count];
+
+                    if (!mine[slot] && forced[slot] == FREE
+                            && hasRoom(slot)) {
+                        flip(slot);
+                    }
+                }
+            }
+        }
+
+        /**
+         * Returns true if every number next to a frontier tile lacks mines.
+         *
+         * @param slot frontier tile
+         * @return true if a mine can be added without exceeding a number
+         */
+        private boolean hasRoom(final int slot) {
+            for (int k = tileNumberStart[slot]; k < tileNumberStart[slot + 1];
+                    k++) {
+                int number = tileNumbers[k];
+
+                if (numberMines[number] >= numberValue[number]) {
+                    return false;
+                }
+            }
+
+            return true;
+        }
+
+        /**
+         * Returns true if every number near a frontier tile matches (its
+         * own numbers and those of the tiles next to them).
+         *
+         * @param slot frontier tile
+         * @return true if the tile can be counted
+         */
+        private boolean isMatched(final int slot) {
+            for (int k = tileNumberStart[slot]; k < tileNumberStart[slot + 1];
+                    k++) {
+                if (nearMismatches[tileNumbers[k]] != 0) {
+                    return false;
+                }
+            }
+
+            return true;
+        }
+
+        /**
+         * Stores a finished batch, merging batches if they are all full.
+         *
+         * @param counts counts of the batch
+         * @param valid times each tile was counted in the batch
+         * @param batchSweeps length of the batch
+         * @return length of the next batch
+         */
+        private synchronized int finishBatch(final double[] counts,
+                final double[] valid, final int batchSweeps) {
+            float[] batch = batchCounts[batchCount];
+            float[] batchTimes = batchValid[batchCount];
+
+            for (int n = 0; n < counts.length; n++) {
+                batch[n] = (float) counts[n];
+                batchTimes[n] = (float) valid[n];
+            }
+
+            batchCount++;
+            steps += (long) batchSweeps * freeSlots.length;
+
+            if (batchCount < MAX_BATCHES) {
+                return batchSweeps;
+            }
+
+            // Batches 2b and 2b + 1 become batch b (which is never written
+            // before it is read)
+            for (int b = 0; b < MAX_BATCHES / 2; b++) {
+                float[] first = batchCounts[2 * b];
+                float[] second = batchCounts[2 * b + 1];
+                float[] merged = batchCounts[b];
+                float[] firstValid = batchValid[2 * b];
+                float[] secondValid = batchValid[2 * b + 1];
+                float[] mergedValid = batchValid[b];
+
+                for (int n = 0; n < merged.length; n++) {
+                    merged[n] = first[n] + second[n];
+                    mergedValid[n] = firstValid[n] + secondValid[n];
+                }
+            }
+
+            batchCount = MAX_BATCHES / 2;
+            return batchSweeps * 2;
+        }
+
+        /**
+         * Makes one step from each free tile in turn (in order rather than
+         * at random, which is as valid and much kinder to the cache on a
+         * large frontier).
+         */
+        private void sweep() {
+            for (int n = 0; n < freeSlots.length; n++) {
+                step(freeSlots[n]);
+            }
+        }
+
+        /**
+         * Makes one random move (a flip or a swap) from a free tile.
+         *
+         * @param slot frontier tile
+         */
+        private void step(final int slot) {
+
+            if (rnd.nextBoolean()) {
+                // Flip, which changes the number of mines left inside
+                int left = mines - frontierMines;
+                double ratio;
+
+                if (mine[slot]) {
+                    ratio = (double) (interiorCount - left) / (left + 1);
+                } else {
+                    ratio = (double) left / (interiorCount - left + 1);
+                }
+
+                int delta = energyChange(slot, mine[slot] ? -1 : 1, -1);
+
+                if (rnd.nextDouble() < ratio * weight[delta + DELTA_OFFSET]) {
+                    flip(slot);
+                }
+            } else {
+                // Swap with a tile next to one of the same numbers (the
+                // pair is as likely to be picked either way round, so
+                // this is symmetric)
+                int numbers = tileNumberStart[slot + 1]
+                        - tileNumberStart[slot];
+                int number = tileNumbers[tileNumberStart[slot]
+                        + rnd.nextInt(numbers)];
+                int first = numberTileStart[number];
+                int other = numberTiles[first
+                        + rnd.nextInt(numberTileStart[number + 1] - first)];
+
+                if (mine[other] == mine[slot] || forced[other] != FREE) {
+                    return;
+                }
+
+                int change = mine[slot] ? -1 : 1;
+                int delta = energyChange(slot, change, other)
+                        + energyChange(other, -change, slot);
+
+                if (rnd.nextDouble() < weight[delta + DELTA_OFFSET]) {
+                    flip(slot);
+                    flip(other);
+                }
+            }
+        }
+
+        /**
+         * Updates nearMismatches when a number starts or stops matching.
+         *
+         * @param number number which changed
+         * @param step 1 if it stopped matching, -1 if it started
+         */
+        private void mismatchChanged(final int number, final int step) {
+            for (int j = numberTileStart[number];
+                    j < numberTileStart[number + 1]; j++) {
+                int slot = numberTiles[j];
+
+                for (int k = tileNumberStart[slot];
+                        k < tileNumberStart[slot + 1]; k++) {
+                    nearMismatches[tileNumbers[k]] += step;
+                }
+            }
+        }
+
+        /**
+         * Works out how much the numbers of a frontier tile would be out by
+         * if its mine changed, without changing it.
+         *
+         * @param slot frontier tile
+         * @param change 1 to add a mine, -1 to remove it
+         * @param partner tile changing the other way at the same time
+         *                (whose shared numbers do not change), or -1
+         * @return change in energy
+         */
+        private int energyChange(final int slot, final int change,
+                final int partner) {
+            int delta = 0;
+
+            for (int k = tileNumberStart[slot]; k < tileNumberStart[slot + 1];
+                    k++) {
+                int number = tileNumbers[k];
+
+                if (partner >= 0 && isNextTo(partner, number)) {
+                    continue;
+                }
+
+                int before = numberMines[number] - numberValue[number];
+                delta += Math.abs(before + change) - Math.abs(before);
+            }
+
+            return delta;
+        }
+
+        /**
+         * Adds or removes the mine on a frontier tile.
+         *
+         * @param slot frontier tile
+         */
+        private void flip(final int slot) {
+            int change = mine[slot] ? -1 : 1;
+
+            mine[slot] = !mine[slot];
+            frontierMines += change;
+
+            for (int k = tileNumberStart[slot]; k < tileNumberStart[slot + 1];
+                    k++) {
+                int number = tileNumbers[k];
+                int before = numberMines[number] - numberValue[number];
+                int after = before + change;
+                numberMines[number] = numberValue[number] + after;
+
+                if (before == 0 || after == 0) {
+                    mismatchChanged(number, (before == 0) ? 1 : -1);
+                }
+            }
+        }
+    }
+
+    /**
+     * Estimated mine probabilities of every tile.
+     */
+    public static final class Result {
+
+        /** Width of the board. */
+        private final int width;
+
+        /** Frontier slot of each tile (negative if not on the frontier). */
+        private final int[] slotOf;
+
+        /** Estimate of each frontier tile, then the interior. */
+        private final float[] estimates;
+
+        /** 95% confidence bound of each estimate. */
+        private final float[] bounds;
+
+        /** True if every bound met the tolerance. */
+        private final boolean converged;
+
+        /** Number of batches collected. */
+        private final int batches;
+
+        /** Fewest layouts counted for any frontier tile. */
+        private final long samples;
+
+        /** Number of chain steps made. */
+        private final long steps;
+
+        /** Time spent sampling (ns). */
+        private final long nanos;
+
+        /**
+         * Initializes a new Result.
+         *
+         * @param boardWidth width of the board
+         * @param slots frontier slot of each tile
+         * @param tileEstimates estimate of each frontier tile and interior
+         * @param tileBounds confidence bound of each estimate
+         * @param done true if the tolerance was met
+         * @param batchCount number of batches
+         * @param sampleCount fewest layouts counted for any tile
+         * @param stepCount number of chain steps
+         * @param time time spent sampling (ns)
+         */
+        Result(final int boardWidth, final int[] slots,
+                final float[] tileEstimates, final float[] tileBounds,
+                final boolean done, final int batchCount,
+                final long sampleCount, final long stepCount,
+                final long time) {
+            this.width = boardWidth;
+            this.slotOf = slots;
+            this.estimates = tileEstimates;
+            this.bounds = tileBounds;
+            this.converged = done;
+            this.batches = batchCount;
+            this.samples = sampleCount;
+            this.steps = stepCount;
+            this.nanos = time;
+        }
+
+        /**
+         * Gets the estimated chance of a tile being a mine.
+         *
+         * @param x x position of tile
+         * @param y y position of tile
+         * @return probability (0 for uncovered tiles, NaN if no layout
+         *         matching the numbers around it was found)
+         */
+        public double getProbability(final int x, final int y) {
+            int slot = slotOf[y * width + x];
+
+            if (slot == UNCOVERED_SLOT) {
+                return 0;
+            }
+
+            return estimates[slot < 0 ? estimates.length - 1 : slot];
+        }
+
+        /**
+         * Gets the 95% confidence bound of a tile's estimate.
+         *
+         * @param x x position of tile
+         * @param y y position of tile
+         * @return half width of the bound (0 for uncovered tiles)
+         */
+        public double getHalfWidth(final int x, final int y) {
+            int slot = slotOf[y * width + x];
+
+            if (slot == UNCOVERED_SLOT) {
+                return 0;
+            }
+
+            return bounds[slot < 0 ? bounds.length - 1 : slot];
+        }
+
+        /**
+         * Gets the widest confidence bound of any tile.
+         *
+         * @return largest half width
+         */
+        public double getMaxHalfWidth() {
+            double max = 0;
+
+            for (float bound : bounds) {
+                if (!(bound <= max)) {
+                    max = bound;
+                }
+            }
+
+            return max;
+        }
+
+        /**
+         * Returns true if sampling stopped because every bound met the
+         * tolerance (rather than because the time ran out).
+         *
+         * @return true if converged
+         */
+        public boolean isConverged() {
+            return converged;
+        }
+
+        /**
+         * Gets the number of batches collected.
+         *
+         * @return batches
+         */
+        public int getBatches() {
+            return batches;
+        }
+
+        /**
+         * Gets the number of layouts counted for the frontier tile which
+         * matched least often.
+         *
+         * @return fewest layouts counted
+         */
+        public long getSamples() {
+            return samples;
+        }
+
+        /**
+         * Gets the number of steps made by all the chains.
+         *
+         * @return steps
+         */
+        public long getSteps() {
+            return steps;
+        }
+
+        /**
+         * Gets the time spent sampling.
+         *
+         * @return nanoseconds
+         */
+        public long getNanos() {
+            return nanos;
+        }
+    }
+}
@@ -0,0 +1,454 @@
+package uk.ac.york.minesweeper;
+
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Streams the visible state of one game to any number of spectators.
+ *
+ * Each move is encoded once, as a delta of the tiles it changed, and the
+ * same message is handed to every subscriber. Every so often a keyframe
+ * holding the whole board is sent instead, so spectators can join or
+ * recover at any point. A keyframe is due once enough moves have been
+ * made and the deltas since the last one add up to at least its size, so
+ * on big boards keyframes never more than double the bandwidth.
+ *
+ * Each subscriber has its own bounded queue and publishing never waits.
+ * If a subscriber's queue is full, everything queued for it is dropped and
+ * it gets nothing more until the next keyframe, so a slow spectator skips
+ * forward instead of holding up the game or the other spectators.
+ *
+ * Messages are byte arrays. Numbers are unsigned varints (7 bits per byte,
+ * low bits first, high bit set on all but the last byte):
+ *
+ * <pre>
+ * keyframe: KEYFRAME, sequence, game state, width, height,
+ *           tiles (two visible tile codes per byte, low nibble first)
+ * delta:    DELTA, sequence, game state, count,
+ *           count x ((gap &lt;&lt; 4) | code)
+ * </pre>
+ *
+ * The sequence goes up by one for every move or standalone keyframe; a
+ * keyframe sent to new subscribers along with a delta has the same
+ * sequence as the delta, since both describe the board after the move.
+ * Delta tiles are in ascending order and each gap is the number of tiles
+ * skipped since the previous one. {@link SpectatorView} decodes the
+ * messages.
+ */
+public final class SpectatorBroadcaster implements MoveListener {
+
+    /** Message type of a keyframe. */
+    public static final byte KEYFRAME = 0;
+
+    /** Message type of a delta. */
+    public static final byte DELTA = 1;
+
+    /** The minefield being broadcast. */
+    private final Minefield minefield;
+
+    /** Least number of moves between keyframes. */
+    private final int keyframeInterval;
+
+    /** Capacity of each subscriber's queue. */
+    private final int queueCapacity;
+
+    /** Current subscribers. */
+    private final CopyOnWriteArrayList<Subscription> subscriptions =
+            new CopyOnWriteArrayList<Subscription>();
+
+    /** Total bytes of messages published (each counted once). */
+    private final AtomicLong bytesPublished = new AtomicLong();
+
+    /** Set when a new subscriber is waiting for its first keyframe. */
+    private volatile boolean keyframeWanted;
+
+    /** Sequence number of the last move or keyframe published. */
+    private long sequence;
+
+    /** Number of moves since the last keyframe. */
+    private int movesSinceKeyframe;
+
+    /** Size of the deltas since the last keyframe. */
+    private long bytesSinceKeyframe;
+
+    /** Buffer messages are encoded into. */
+    private byte[] buffer = new byte[64];
+
+    /** Sorted copy of the changed tiles of a move. */
+    private int[] sorted = new int[16];
+
+    /**
+     * Initializes a new SpectatorBroadcaster and starts listening to the
+     * minefield.
+     *
+     * @param field minefield to broadcast
+     * @param interval least number of moves between keyframes
+     * @param capacity number of messages each subscriber can fall behind
+     *        before it is skipped forward
+     */
+    public SpectatorBroadcaster(final Minefield field, final int interval,
+            final int capacity) {
+        if (interval < 1 || capacity < 1) {
+            throw new IllegalArgumentException(
+                    "interval and capacity must be positive");
+        }
+
+        this.minefield = field;
+        this.keyframeInterval = interval;
+        this.queueCapacity = capacity;
+        field.addMoveListener(this);
+    }
+
+    /**
+     * Stops listening to the minefield and closes every subscription.
+     */
+    public void stop() {
+        minefield.removeMoveListener(this);
+
+        for (Subscription subscription : subscriptions) {
+            subscription.close();
+        }
+    }
+
+    /**
+     * Adds a spectator.
+     *
+     * Can be called from any thread. The spectator's first message is the
+     * keyframe sent with the next move (or the next call to
+     * {@link #publishKeyframe()}).
+     *
+     * @return the new subscription
+     */
+    public Subscription subscribe() {
+        Subscription subscription = new Subscription(this, queueCapacity);
+        subscriptions.add(subscription);
+        keyframeWanted = true;
+        return subscription;
+    }
+
+    /**
+     * Gets the number of current subscribers.
+     *
+     * @return number of subscribers
+     */
+    public int getSubscriberCount() {
+        return subscriptions.size();
+    }
+
+    /**
+     * Gets the total size of the messages published.
+     *
+     * Each message is counted once, however many subscribers it went to.
+     *
+     * @return number of bytes
+     */
+    public long getBytesPublished() {
+        return bytesPublished.get();
+    }
+
+    /**
+     * Sends a keyframe to every subscriber now.
+     *
+     * Like the moves themselves, this must be called from the thread which
+     * is playing the game.
+     */
+    public void publishKeyframe() {
+        byte[] keyframe = encodeKeyframe(++sequence);
+        movesSinceKeyframe = 0;
+        bytesSinceKeyframe = 0;
+
+        for (Subscription subscription : subscriptions) {
+            subscription.offerKeyframe(keyframe);
+        }
+    }
+
+    @Override
+    public void moveMade(final Minefield field, final int[] tiles,
+            final int count) {
+        movesSinceKeyframe++;
+
+        // A delta costs about a byte a tile and a keyframe half a byte
+        int keyframeSize = (field.getWidth() * field.getHeight() + 1) / 2;
+
+        if (movesSinceKeyframe >= keyframeInterval
+                && bytesSinceKeyframe >= keyframeSize
+                || count >= keyframeSize) {
+            publishKeyframe();
+            return;
+        }
+
+        long moveSequence = ++sequence;
+        byte[] keyframe = null;
+
+        if (keyframeWanted) {
+            keyframeWanted = false;
+            keyframe = encodeKeyframe(moveSequence);
+        }
+
+        byte[] delta = encodeDelta(moveSequence, tiles, count);
+        bytesSinceKeyframe += delta.length;
+
+        for (Subscription subscription : subscriptions) {
+            if (!subscription.waiting) {
+                subscription.offer(delta);
+            } else if (keyframe != null) {
+                subscription.offerKeyframe(keyframe);
+            }
+        }
+    }
+
+    /**
+     * Encodes the whole board.
+     *
+     * @param messageSequence sequence number of the message
+     * @return the message
+     */
+    private byte[] encodeKeyframe(final long messageSequence) {
+        int width = minefield.getWidth();
+        int height = minefield.getHeight();
+        int size = 0;
+
+        ensureCapacity(32 + (width * height + 1) / 2);
+        buffer[size++] = KEYFRAME;
+        size = writeVarint(messageSequence, size);
+        buffer[size++] = (byte) minefield.getGameState().ordinal();
+        size = writeVarint(width, size);
+        size = writeVarint(height, size);
+
+        int half = 0;
+        boolean high = false;
+
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                int code = minefield.getVisibleTile(x, y);
+
+                if (high) {
+                    buffer[size++] = (byte) (half | code << 4);
+                } else {
+                    half = code;
+                }
+
+                high = !high;
+            }
+        }
+
+        if (high) {
+            buffer[size++] = (byte) half;
+        }
+
+        return publish(size);
+    }
+
+    /**
+     * Encodes the tiles changed by a move.
+     *
+     * @param messageSequence sequence number of the message
+     * @param tiles changed tiles (y * width + x)
+     * @param count number of changed tiles
+     * @return the message
+     */
+    private byte[] encodeDelta(final long messageSequence,
+            final int[] tiles, final int count) {
+        if (sorted.length < count) {
+            sorted = new int[Math.max(count, sorted.length * 2)];
+        }
+
+        System.arraycopy(tiles, 0, sorted, 0, count);
+        Arrays.sort(sorted, 0, count);
+
+        int width = minefield.getWidth();
+        int size = 0;
+
+        ensureCapacity(32 + count * 6);
+        buffer[size++] = DELTA;
+        size = writeVarint(messageSequence, size);
+        buffer[size++] = (byte) minefield.getGameState().ordinal();
+        size = writeVarint(count, size);
+
+        int previous = -1;
+
+        for (int n = 0; n < count; n++) {
+            int tile = sorted[n];
+            int code = minefield.getVisibleTile(tile % width, tile / width);
+
+            size = writeVarint((long) (tile - previous - 1) << 4 | code, size);
+            previous = tile;
+        }
+
+        return publish(size);
+    }
+
+    /**
+     * Copies the encoded message out of the buffer.
+     *
+     * @param size size of the message
+     * @return the message
+     */
+    private byte[] publish(final int size) {
+        bytesPublished.addAndGet(size);
+        return Arrays.copyOf(buffer, size);
+    }
+
+    /**
+     * Makes sure the buffer has room for a message.
+     *
+     * @param size largest size of the message
+     */
+    private void ensureCapacity(final int size) {
+        if (buffer.length < size) {
+            buffer = new byte[Math.max(size, buffer.length * 2)];
+        }
+    }
+
+    /**
+     * Writes an unsigned varint into the buffer.
+     *
+     * @param value value to write
+     * @param position position to write at
+     * @return position after the value
+     */
+    private int writeVarint(final long value, final int position) {
+        long rest = value;
+        int pos = position;
+
+        while ((rest & ~0x7FL) != 0) {
+            buffer[pos++] = (byte) (rest & 0x7F | 0x80);
+            rest >>>= 7;
+        }
+
+        buffer[pos++] = (byte) rest;
+        return pos;
+    }
+
+    /**
+     * One spectator's queue of messages.
+     *
+     * Messages are taken by the spectator's own thread (for example the
+     * one writing them to a socket).
+     */
+    public static final class Subscription {
+
+        /** The broadcaster this came from. */
+        private final SpectatorBroadcaster broadcaster;
+
+        /** Messages waiting to be taken. */
+        private final ArrayBlockingQueue<byte[]> queue;
+
+        /** Number of messages queued. */
+        private final AtomicLong queued = new AtomicLong();
+
+        /** Number of times the spectator fell behind and was skipped. */
+        private final AtomicLong skips = new AtomicLong();
+
+        /** True while the spectator is waiting for a keyframe. */
+        private volatile boolean waiting = true;
+
+        /**
+         * Initializes a new Subscription.
+         *
+         * @param owner the broadcaster
+         * @param capacity capacity of the queue
+         */
+        private Subscription(final SpectatorBroadcaster owner,
+                final int capacity) {
+            this.broadcaster = owner;
+            this.queue = new ArrayBlockingQueue<byte[]>(capacity);
+        }
+
+        /**
+         * Waits for the next message.
+         *
+         * @return the next message
+         * @throws InterruptedException if interrupted while waiting
+         */
+        public byte[] take() throws InterruptedException {
+            return queue.take();
+        }
+
+        /**
+         * Waits a limited time for the next message.
+         *
+         * @param timeout how long to wait
+         * @param unit unit of timeout
+         * @return the next message, or null if none arrived in time
+         * @throws InterruptedException if interrupted while waiting
+         */
+        public byte[] poll(final long timeout, final TimeUnit unit)
+                throws InterruptedException {
+            return queue.poll(timeout, unit);
+        }
+
+        /**
+         * Returns true if no messages are waiting.
+         *
+         * @return true if the queue is empty
+         */
+        public boolean isEmpty() {
+            return queue.isEmpty();
+        }
+
+        /**
+         * Gets the number of messages queued for the spectator.
+         *
+         * @return number of messages
+         */
+        public long getQueued() {
+            return queued.get();
+        }
+
+        /**
+         * Gets the number of times the spectator fell behind and was
+         * skipped forward to the next keyframe.
+         *
+         * @return number of skips
+         */
+        public long getSkips() {
+            return skips.get();
+        }
+
+        /**
+         * Stops receiving messages.
+         */
+        public void close() {
+            broadcaster.subscriptions.remove(this);
+            queue.clear();
+        }
+
+        /**
+         * Queues a delta, skipping the spectator forward if it is full.
+         *
+         * @param message the message
+         */
+        private void offer(final byte[] message) {
+            if (queue.offer(message)) {
+                queued.incrementAndGet();
+            } else {
+                // Too far behind: drop the backlog and wait for a keyframe
+                waiting = true;
+                queue.clear();
+                skips.incrementAndGet();
+            }
+        }
+
+        /**
+         * Queues a keyframe, dropping the backlog if it does not fit.
+         *
+         * @param message the message
+         */
+        private void offerKeyframe(final byte[] message) {
+            waiting = false;
+
+            if (!queue.offer(message)) {
+                // The keyframe replaces everything queued before it
+                queue.clear();
+                skips.incrementAndGet();
+                queue.offer(message);
+            }
+
+            queued.incrementAndGet();
+        }
+    }
+}
@@ -0,0 +1,236 @@
+package uk.ac.york.minesweeper;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Sends the messages of a {@link SpectatorBroadcaster} to socket clients.
+ *
+ * Every connection gets its own subscription and writer thread, so a slow
+ * connection only holds up its own thread (and is skipped forward by the
+ * broadcaster). Each message is sent as a 4 byte big endian length
+ * followed by the message; {@link #readMessage(DataInputStream)} reads
+ * one back.
+ */
+public final class SpectatorServer implements Closeable {
+
+    /** The broadcaster messages come from. */
+    private final SpectatorBroadcaster broadcaster;
+
+    /** Socket connections are accepted from. */
+    private final ServerSocket serverSocket;
+
+    /** Open connections. */
+    private final CopyOnWriteArrayList<Socket> sockets =
+            new CopyOnWriteArrayList<Socket>();
+
+    /** Writer threads of open connections. */
+    private final CopyOnWriteArrayList<Thread> writers =
+            new CopyOnWriteArrayList<Thread>();
+
+    /** Subscriptions of open connections. */
+    private final List<SpectatorBroadcaster.Subscription> subscriptions =
+            new CopyOnWriteArrayList<SpectatorBroadcaster.Subscription>();
+
+    /** Number of connections accepted (used to name threads). */
+    private final AtomicInteger connections = new AtomicInteger();
+
+    /** Total bytes written to all connections. */
+    private final AtomicLong bytesSent = new AtomicLong();
+
+    /**
+     * Initializes a new SpectatorServer and starts accepting connections.
+     *
+     * @param source broadcaster to send messages from
+     * @param socket bound server socket (closed by {@link #close()})
+     */
+    public SpectatorServer(final SpectatorBroadcaster source,
+            final ServerSocket socket) {
+        this.broadcaster = source;
+        this.serverSocket = socket;
+
+        Thread acceptor = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                acceptLoop();
+            }
+        }, "spectator-accept");
+        acceptor.setDaemon(true);
+        acceptor.start();
+    }
+
+    /**
+     * Gets the port the server is listening on.
+     *
+     * @return local port
+     */
+    public int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    /**
+     * Gets the total number of bytes written to all connections.
+     *
+     * @return number of bytes (including the length prefixes)
+     */
+    public long getBytesSent() {
+        return bytesSent.get();
+    }
+
+    /**
+     * Gets the writer threads of the open connections.
+     *
+     * @return copy of the list of threads
+     */
+    public Thread[] getWriterThreads() {
+        return writers.toArray(new Thread[0]);
+    }
+
+    /**
+     * Gets the subscriptions of the open connections, in the order they
+     * were accepted.
+     *
+     * @return copy of the list of subscriptions
+     */
+    public SpectatorBroadcaster.Subscription[] getSubscriptions() {
+        return subscriptions.toArray(
+                new SpectatorBroadcaster.Subscription[0]);
+    }
+
+    /**
+     * Stops accepting connections and closes every open one.
+     *
+     * @throws IOException if the server socket cannot be closed
+     */
+    @Override
+    public void close() throws IOException {
+        serverSocket.close();
+
+        for (Socket socket : sockets) {
+            closeQuietly(socket);
+        }
+
+        for (Thread writer : writers) {
+            writer.interrupt();
+        }
+    }
+
+    /**
+     * Reads one message sent by a SpectatorServer.
+     *
+     * @param in stream from the server
+     * @return the message, or null at the end of the stream
+     * @throws IOException if the stream cannot be read
+     */
+    public static byte[] readMessage(final DataInputStream in)
+            throws IOException {
+        int length;
+
+        try {
+            length = in.readInt();
+        } catch (EOFException e) {
+            return null;
+        }
+
+        byte[] message = new byte[length];
+        in.readFully(message);
+        return message;
+    }
+
+    /**
+     * Accepts connections until the server socket is closed.
+     */
+    private void acceptLoop() {
+        while (!serverSocket.isClosed()) {
+            final Socket socket;
+
+            try {
+                socket = serverSocket.accept();
+            } catch (IOException e) {
+                // Closed
+                return;
+            }
+
+            sockets.add(socket);
+
+            final SpectatorBroadcaster.Subscription subscription =
+                    broadcaster.subscribe();
+
+            Thread writer = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        writeLoop(socket, subscription);
+                    } finally {
+                        subscription.close();
+                        subscriptions.remove(subscription);
+                        sockets.remove(socket);
+                        writers.remove(Thread.currentThread());
+                        closeQuietly(socket);
+                    }
+                }
+            }, "spectator-" + connections.incrementAndGet());
+            writer.setDaemon(true);
+            subscriptions.add(subscription);
+            writers.add(writer);
+            writer.start();
+        }
+    }
+
+    /**
+     * Writes messages to one connection until it fails or is closed.
+     *
+     * @param socket the connection
+     * @param subscription the connection's subscription
+     */
+    private void writeLoop(final Socket socket,
+            final SpectatorBroadcaster.Subscription subscription) {
+        try {
+            socket.setTcpNoDelay(true);
+            DataOutputStream out = new DataOutputStream(
+                    new BufferedOutputStream(socket.getOutputStream()));
+
+            while (true) {
+                byte[] message = subscription.take();
+                out.writeInt(message.length);
+                out.write(message);
+                bytesSent.addAndGet(4 + message.length);
+
+                // Only flush once the queue has been drained
+                if (subscription.isEmpty()) {
+                    out.flush();
+                }
+            }
+        } catch (IOException e) {
+            // Connection closed by the spectator
+            return;
+        } catch (InterruptedException e) {
+            // Server closed
+            return;
+        }
+    }
+
+    /**
+     * Closes a socket, ignoring any error.
+     *
+     * @param socket socket to close
+     */
+    private static void closeQuietly(final Socket socket) {
+        try {
+            socket.close();
+        } catch (IOException e) {
+            // Already closed
+            return;
+        }
+    }
+}
@@ -0,0 +1,180 @@
+package uk.ac.york.minesweeper;
+
+/**
+ * A spectator's copy of a board, rebuilt from the messages of a
+ * {@link SpectatorBroadcaster}.
+ *
+ * Deltas are ignored until the first keyframe arrives, and again after a
+ * gap in the sequence (messages dropped because the spectator fell
+ * behind) until the next keyframe.
+ */
+public final class SpectatorView {
+
+    /** Every game state, indexed by ordinal. */
+    private static final GameState[] GAME_STATES = GameState.values();
+
+    /** Width of the board (0 until the first keyframe). */
+    private int width;
+
+    /** Height of the board (0 until the first keyframe). */
+    private int height;
+
+    /** Visible tile codes (row major). */
+    private byte[] tiles = new byte[0];
+
+    /** State of the game. */
+    private GameState gameState = GameState.NOT_STARTED;
+
+    /** Sequence number of the last message applied. */
+    private long sequence;
+
+    /** True if the view matches the board as of sequence. */
+    private boolean synced;
+
+    /** Position of the next byte in the message being read. */
+    private int position;
+
+    /**
+     * Initializes a new SpectatorView, empty until the first keyframe.
+     */
+    public SpectatorView() {
+
+    }
+
+    /**
+     * Applies a message.
+     *
+     * @param message message from the broadcaster
+     * @return true if the message was applied, false if it was ignored
+     *         because the view is waiting for a keyframe
+     */
+    public boolean apply(final byte[] message) {
+        position = 1;
+
+        byte type = message[0];
+        long messageSequence = readVarint(message);
+        GameState state = GAME_STATES[message[position++]];
+
+        if (type == SpectatorBroadcaster.KEYFRAME) {
+            int newWidth = (int) readVarint(message);
+            int newHeight = (int) readVarint(message);
+            int count = newWidth * newHeight;
+
+            if (tiles.length != count) {
+                tiles = new byte[count];
+            }
+
+            for (int i = 0; i < count; i += 2) {
+                int pair = message[position++];
+                tiles[i] = (byte) (pair & 0xF);
+
+                if (i + 1 < count) {
+                    tiles[i + 1] = (byte) (pair >> 4 & 0xF);
+                }
+            }
+
+            width = newWidth;
+            height = newHeight;
+        } else {
+            if (!synced || messageSequence != sequence + 1) {
+                synced = false;
+                return false;
+            }
+
+            int count = (int) readVarint(message);
+            int tile = -1;
+
+            for (int n = 0; n < count; n++) {
+                long entry = readVarint(message);
+                tile += (int) (entry >>> 4) + 1;
+                tiles[tile] = (byte) (entry & 0xF);
+            }
+        }
+
+        sequence = messageSequence;
+        gameState = state;
+        synced = true;
+        return true;
+    }
+
+    /**
+     * Returns true if the view is up to date with the messages received.
+     *
+     * @return false before the first keyframe and after a gap
+     */
+    public boolean isSynced() {
+        return synced;
+    }
+
+    /**
+     * Gets the sequence number of the last message applied.
+     *
+     * @return sequence number (0 if none)
+     */
+    public long getSequence() {
+        return sequence;
+    }
+
+    /**
+     * Gets the width of the board.
+     *
+     * @return width in tiles (0 before the first keyframe)
+     */
+    public int getWidth() {
+        return width;
+    }
+
+    /**
+     * Gets the height of the board.
+     *
+     * @return height in tiles (0 before the first keyframe)
+     */
+    public int getHeight() {
+        return height;
+    }
+
+    /**
+     * Gets the state of the game.
+     *
+     * @return game state
+     */
+    public GameState getGameState() {
+        return gameState;
+    }
+
+    /**
+     * Gets the visible tile code of a tile.
+     *
+     * @param x x position of tile
+     * @param y y position of tile
+     * @return visible tile code (see {@link VisibleTile})
+     */
+    public int getVisibleTile(final int x, final int y) {
+        if (x < 0 || x >= width || y < 0 || y >= height) {
+            throw new IndexOutOfBoundsException(
+                    "tile " + x + ", " + y + " is outside the board");
+        }
+
+        return tiles[y * width + x];
+    }
+
+    /**
+     * Reads an unsigned varint from the message.
+     *
+     * @param message the message
+     * @return the value
+     */
+    private long readVarint(final byte[] message) {
+        long value = 0;
+        int shift = 0;
+        byte b;
+
+        do {
+            b = message[position++];
+            value |= (long) (b & 0x7F) << shift;
+            shift += 7;
+        } while (b < 0);
+
+        return value;
+    }
+}
@@ -0,0 +1,303 @@
+package uk.ac.york.minesweeper;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Renders a minefield as text.
+ *
+ * The static methods stream a whole board or a viewport of it to any
+ * {@link Appendable} one row at a time. An instance renders successive
+ * frames of the same viewport to an ANSI terminal, sending only the tiles
+ * which changed since the previous frame.
+ *
+ * Nothing in this class depends on AWT, so it can be used by headless
+ * front-ends.
+ */
+public final class TextRenderer {
+
+    /** Escape sequence which clears the screen and homes the cursor. */
+    private static final String ANSI_CLEAR = "\u001B[2J\u001B[H";
+
+    /** Left of the viewport (in tiles). */
+    private final int viewX;
+
+    /** Top of the viewport (in tiles). */
+    private final int viewY;
+
+    /** Width of the viewport (in tiles). */
+    private final int viewWidth;
+
+    /** Height of the viewport (in tiles). */
+    private final int viewHeight;
+
+    /** Terminal row of the top border (1 based). */
+    private final int screenRow;
+
+    /** Terminal column of the left border (1 based). */
+    private final int screenColumn;
+
+    /** Codes drawn in the previous frame (row major). */
+    private final byte[] previous;
+
+    /** Reusable buffer for each line of output. */
+    private final StringBuilder line;
+
+    /** True once the whole viewport has been drawn. */
+    private boolean drawn;
+
+    /**
+     * Initializes a new TextRenderer for a viewport drawn at the top left
+     * of the terminal.
+     *
+     * @param x left of the viewport (in tiles)
+     * @param y top of the viewport (in tiles)
+     * @param width width of the viewport (in tiles)
+     * @param height height of the viewport (in tiles)
+     */
+    public TextRenderer(final int x, final int y,
+            final int width, final int height) {
+        this(x, y, width, height, 1, 1);
+    }
+
+    /**
+     * Initializes a new TextRenderer.
+     *
+     * @param x left of the viewport (in tiles)
+     * @param y top of the viewport (in tiles)
+     * @param width width of the viewport (in tiles)
+     * @param height height of the viewport (in tiles)
+     * @param row terminal row to draw the top border on (1 based)
+     * @param column terminal column to draw the left border on (1 based)
+     */
+    public TextRenderer(final int x, final int y, final int width,
+            final int height, final int row, final int column) {
+        if (x < 0 || y < 0 || width < 1 || height < 1) {
+            throw new IllegalArgumentException("invalid viewport");
+        }
+
+        if (row < 1 || column < 1) {
+            throw new IllegalArgumentException("invalid screen position");
+        }
+
+        this.viewX = x;
+        this.viewY = y;
+        this.viewWidth = width;
+        this.viewHeight = height;
+        this.screenRow = row;
+        this.screenColumn = column;
+        this.previous = new byte[width * height];
+        this.line = new StringBuilder(width + 2);
+    }
+
+    /**
+     * Forces the next call to {@link #renderFrame} to redraw everything.
+     */
+    public void invalidate() {
+        drawn = false;
+    }
+
+    /**
+     * Renders the next frame of the viewport to an ANSI terminal.
+     *
+     * The first frame (or the first after {@link #invalidate()}) clears the
+     * screen and draws the whole viewport. Later frames only move the cursor
+     * to and redraw the runs of tiles which changed.
+     *
+     * Parts of the viewport outside the minefield are left blank.
+     *
+     * @param minefield minefield to render
+     * @param out destination
+     * @return number of tiles redrawn
+     * @throws IOException if out throws an IOException
+     */
+    public int renderFrame(final Minefield minefield, final Appendable out)
+            throws IOException {
+        if (!drawn) {
+            // Clear the screen, draw the border and force every tile to be
+            // seen as changed
+            out.append(ANSI_CLEAR);
+            renderBorder(out);
+            Arrays.fill(previous, (byte) -1);
+            drawn = true;
+        }
+
+        int xEnd = Math.min(viewX + viewWidth, minefield.getWidth());
+        int yEnd = Math.min(viewY + viewHeight, minefield.getHeight());
+        int redrawn = 0;
+
+        for (int y = viewY; y < yEnd; y++) {
+            int rowOffset = (y - viewY) * viewWidth;
+            int runStart = -1;
+            line.setLength(0);
+
+            for (int x = viewX; x <= xEnd; x++) {
+                boolean changed = false;
+
+                if (x < xEnd) {
+                    byte code = (byte) minefield.getVisibleTile(x, y);
+                    int index = rowOffset + x - viewX;
+
+                    if (previous[index] != code) {
+                        previous[index] = code;
+                        changed = true;
+
+                        if (runStart < 0) {
+                            runStart = x;
+                        }
+
+                        line.append(VisibleTile.toChar(code));
+                        redrawn++;
+                    }
+                }
+
+                // Flush the current run of changed tiles
+                if (!changed && runStart >= 0) {
+                    moveTo(out, screenRow + 1 + y - viewY,
+                            screenColumn + 1 + runStart - viewX);
+                    out.append(line);
+                    line.setLength(0);
+                    runStart = -1;
+                }
+            }
+        }
+
+        // Park the cursor below the board
+        if (redrawn > 0) {
+            moveTo(out, screenRow + viewHeight + 2, 1);
+        }
+
+        return redrawn;
+    }
+
+    /**
+     * Draws the border around the viewport.
+     *
+     * @param out destination
+     * @throws IOException if out throws an IOException
+     */
+    private void renderBorder(final Appendable out) throws IOException {
+        line.setLength(0);
+        appendBorder(line, viewWidth);
+        line.setLength(line.length() - 1);
+
+        moveTo(out, screenRow, screenColumn);
+        out.append(line);
+
+        for (int row = 1; row <= viewHeight; row++) {
+            moveTo(out, screenRow + row, screenColumn);
+            out.append('|');
+            moveTo(out, screenRow + row, screenColumn + viewWidth + 1);
+            out.append('|');
+        }
+
+        moveTo(out, screenRow + viewHeight + 1, screenColumn);
+        out.append(line);
+        line.setLength(0);
+    }
+
+    /**
+     * Appends an ANSI cursor movement.
+     *
+     * @param out destination
+     * @param row terminal row (1 based)
+     * @param column terminal column (1 based)
+     * @throws IOException if out throws an IOException
+     */
+    private static void moveTo(final Appendable out,
+            final int row, final int column) throws IOException {
+        out.append("\u001B[")
+           .append(Integer.toString(row))
+           .append(';')
+           .append(Integer.toString(column))
+           .append('H');
+    }
+
+    /**
+     * Streams the whole visible state of a minefield.
+     *
+     * @param minefield minefield to render
+     * @param out destination
+     * @throws IOException if out throws an IOException
+     */
+    public static void render(final Minefield minefield,
+            final Appendable out) throws IOException {
+        render(minefield, out, 0, 0,
+                minefield.getWidth(), minefield.getHeight());
+    }
+
+    /**
+     * Streams the visible state of part of a minefield.
+     *
+     * The output has the same format as {@link Minefield#toString()}: a
+     * border of '+', '-' and '|' around one line per row. The viewport is
+     * clipped to the minefield (on every side, so x and y may be negative);
+     * parts outside it are written as spaces so the border stays the
+     * requested size.
+     *
+     * @param minefield minefield to render
+     * @param out destination
+     * @param x left of the viewport (in tiles)
+     * @param y top of the viewport (in tiles)
+     * @param width width of the viewport (in tiles)
+     * @param height height of the viewport (in tiles)
+     * @throws IOException if out throws an IOException
+     */
+    public static void render(final Minefield minefield, final Appendable out,
+            final int x, final int y, final int width, final int height)
+            throws IOException {
+        int xStart = Math.max(x, 0);
+        int xEnd = Math.min(x + width, minefield.getWidth());
+        StringBuilder builder = new StringBuilder(width + 3);
+
+        // Write top line
+        appendBorder(builder, width);
+        out.append(builder);
+
+        // Write each line of the minefield
+        for (int row = y; row < y + height; row++) {
+            builder.setLength(0);
+            builder.append('|');
+
+            if (row >= 0 && row < minefield.getHeight() && xStart < xEnd) {
+                for (int column = x; column < xStart; column++) {
+                    builder.append(' ');
+                }
+
+                for (int column = xStart; column < xEnd; column++) {
+                    builder.append(VisibleTile.toChar(
+                            minefield.getVisibleTile(column, row)));
+                }
+            }
+
+            while (builder.length() <= width) {
+                builder.append(' ');
+            }
+
+            builder.append("|\n");
+            out.append(builder);
+        }
+
+        // Write bottom line
+        builder.setLength(0);
+        appendBorder(builder, width);
+        out.append(builder);
+    }
+
+    /**
+     * Appends a top or bottom border line.
+     *
+     * @param builder destination
+     * @param width width of the viewport (in tiles)
+     */
+    private static void appendBorder(final StringBuilder builder,
+            final int width) {
+        builder.append('+');
+
+        for (int i = 0; i < width; i++) {
+            builder.append('-');
+        }
+
+        builder.append("+\n");
+    }
+}
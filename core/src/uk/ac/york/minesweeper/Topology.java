@@ -0,0 +1,152 @@
+package uk.ac.york.minesweeper;
+
+/**
+ * The shape of a minefield (which tiles surround each tile).
+ *
+ * A minefield compiles its topology into an adjacency table once when it is
+ * created, so the topology methods here are never called while playing.
+ */
+public enum Topology {
+
+    /**
+     * The normal rectangular grid (eight surrounding tiles).
+     */
+    RECTANGULAR {
+        @Override
+        public int getNeighbours(final int x, final int y,
+                final int width, final int height, final int[] out) {
+            int count = 0;
+
+            for (int dy = -1; dy <= 1; dy++) {
+                for (int dx = -1; dx <= 1; dx++) {
+                    if (dx != 0 || dy != 0) {
+                        count = add(out, count, x + dx, y + dy, width, height);
+                    }
+                }
+            }
+
+            return count;
+        }
+    },
+
+    /**
+     * A rectangular grid where the edges wrap around to the opposite side.
+     */
+    TORUS {
+        @Override
+        public int getNeighbours(final int x, final int y,
+                final int width, final int height, final int[] out) {
+            int count = 0;
+
+            for (int dy = -1; dy <= 1; dy++) {
+                for (int dx = -1; dx <= 1; dx++) {
+                    int wrappedX = (x + dx + width) % width;
+                    int wrappedY = (y + dy + height) % height;
+
+                    // Narrow boards can wrap back onto the tile itself
+                    if (wrappedX != x || wrappedY != y) {
+                        count = add(out, count, wrappedX, wrappedY,
+                                width, height);
+                    }
+                }
+            }
+
+            return count;
+        }
+    },
+
+    /**
+     * Hexagonal tiles (six surrounding tiles) with odd rows shifted right.
+     */
+    HEXAGONAL {
+        @Override
+        public int getNeighbours(final int x, final int y,
+                final int width, final int height, final int[] out) {
+            // Odd rows are shifted half a tile to the right
+            int shift = y & 1;
+            int count = 0;
+
+            count = add(out, count, x - 1, y, width, height);
+            count = add(out, count, x + 1, y, width, height);
+            count = add(out, count, x - 1 + shift, y - 1, width, height);
+            count = add(out, count, x + shift, y - 1, width, height);
+            count = add(out, count, x - 1 + shift, y + 1, width, height);
+            count = add(out, count, x + shift, y + 1, width, height);
+            return count;
+        }
+    },
+
+    /**
+     * A rectangular grid where the surrounding tiles are a knight's move away.
+     */
+    KNIGHT {
+        @Override
+        public int getNeighbours(final int x, final int y,
+                final int width, final int height, final int[] out) {
+            int count = 0;
+
+            for (int i = 0; i < KNIGHT_MOVES.length; i += 2) {
+                count = add(out, count, x + KNIGHT_MOVES[i],
+                        y + KNIGHT_MOVES[i + 1], width, height);
+            }
+
+            return count;
+        }
+    };
+
+    /** Maximum number of tiles surrounding any tile. */
+    public static final int MAX_NEIGHBOURS = 8;
+
+    /** Knight moves as (dx, dy) pairs. */
+    private static final int[] KNIGHT_MOVES = {
+        -1, -2,  1, -2,  -2, -1,  2, -1,
+        -2,  1,  2,  1,  -1,  2,  1,  2,
+    };
+
+    /**
+     * Gets the tiles surrounding a tile.
+     *
+     * Tiles are returned as {@code y * width + x}. No tile is returned more
+     * than once and a tile never surrounds itself.
+     *
+     * @param x x position of tile
+     * @param y y position of tile
+     * @param width width of the minefield
+     * @param height height of the minefield
+     * @param out array to store the tiles in (at least
+     *            {@link #MAX_NEIGHBOURS} long)
+     * @return number of tiles stored in out
+     */
+    public abstract int getNeighbours(int x, int y,
+            int width, int height, int[] out);
+
+    /**
+     * Adds a tile to a neighbour list if it exists and is not already there.
+     *
+     * @param out neighbour list
+     * @param count number of tiles in the list
+     * @param x x position of tile
+     * @param y y position of tile
+     * @param width width of the minefield
+     * @param height height of the minefield
+     * @return new number of tiles in the list
+     */
+    private static int add(final int[] out, final int count,
+            final int x, final int y, final int width, final int height) {
+        if (x < 0 || y < 0 || x >= width || y >= height) {
+            return count;
+        }
+
+        int tile = y * width + x;
+
+        // Small wrapped boards can reach the same tile more than once
+        for (int i = 0; i < count; i++) {
+            if (out[i] == tile) {
+                return count;
+            }
+        }
+
+        out[count] = tile;
+        return count + 1;
+    }
+}
@@ -0,0 +1,46 @@
+package uk.ac.york.minesweeper;
+
+/**
+ * Static class containing the codes returned by
+ * {@link Minefield#getVisibleTile(int, int)}.
+ *
+ * A visible tile code combines a tile's state and (if uncovered) its value
+ * into a single number. Codes 0 to 8 are uncovered tiles with that many
+ * surrounding mines.
+ */
+public final class VisibleTile {
+
+    /** Uncovered mine. */
+    public static final int MINE = 9;
+
+    /** Covered tile. */
+    public static final int COVERED = 10;
+
+    /** Covered tile with a flag. */
+    public static final int FLAGGED = 11;
+
+    /** Covered tile with a question. */
+    public static final int QUESTION = 12;
+
+    /** Number of different codes. */
+    public static final int COUNT = 13;
+
+    /** Characters used to display each code in text. */
+    private static final char[] CHARS = {
+        ' ', '1', '2', '3', '4', '5', '6', '7', '8', '!', '#', 'f', '?',
+    };
+
+    private VisibleTile() {
+
+    }
+
+    /**
+     * Gets the character used to display a tile in text.
+     *
+     * @param code visible tile code
+     * @return character representing the tile
+     */
+    public static char toChar(final int code) {
+        return CHARS[code];
+    }
+}
@@ -0,0 +1,11 @@
+/**
+ * The Swing front-end: the game window, the minefield component, its
+ * painting and image export.
+ */
+module uk.ac.york.minesweeper.ui {
+    requires transitive java.desktop;
+    requires java.logging;
+    requires transitive uk.ac.york.minesweeper;
+
+    exports uk.ac.york.minesweeper.ui;
+}
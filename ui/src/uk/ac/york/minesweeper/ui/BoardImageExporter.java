@@ -0,0 +1,233 @@
+package uk.ac.york.minesweeper.ui;
+
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.zip.Deflater;
+
+import uk.ac.york.minesweeper.Minefield;
+import uk.ac.york.minesweeper.PngEncoder;
+import uk.ac.york.minesweeper.VisibleTile;
+
+/**
+ * Static class which writes minefields to PNG images without a display.
+ *
+ * Each kind of tile is drawn once by {@link TilePainter} (exactly as
+ * {@link MinefieldPanel} draws it) and the image is then streamed to the
+ * PNG encoder a pixel row at a time, copying the matching row of each
+ * tile. Memory use is the same whatever the size of the board: nothing
+ * proportional to the image (not even one row of it) is ever held.
+ *
+ * The minefield is read while exporting, so this must be called from the
+ * thread which owns it.
+ */
+public final class BoardImageExporter {
+
+    /** Size of the buffer rows are collected in before compression. */
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    /** Bytes per pixel. */
+    private static final int PIXEL_SIZE = 3;
+
+    /** RGB pixels of each visible tile code (null until first needed). */
+    private static byte[][] tileImages;
+
+    /** Average RGB colour of each visible tile code. */
+    private static int[] tileColours;
+
+    private BoardImageExporter() {
+
+    }
+
+    /**
+     * Writes a minefield as a full size image.
+     *
+     * Each tile is {@link TilePainter#TILE_SIZE} pixels square.
+     *
+     * @param minefield minefield to export
+     * @param out stream to write the PNG to (not closed)
+     * @throws IOException if the stream cannot be written
+     */
+    public static void writePng(final Minefield minefield,
+            final OutputStream out) throws IOException {
+        int width = minefield.getWidth();
+        int height = minefield.getHeight();
+        int tileSize = TilePainter.TILE_SIZE;
+
+        if ((long) width * tileSize > Integer.MAX_VALUE
+                || (long) height * tileSize > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException(
+                    "minefield is too large for a full size image");
+        }
+
+        byte[][] tiles = getTileImages();
+        int tileRow = tileSize * PIXEL_SIZE;
+        byte[] buffer = new byte[BUFFER_SIZE];
+        int used = 0;
+
+        PngEncoder png = new PngEncoder(out, width * tileSize,
+                height * tileSize, Deflater.BEST_SPEED);
+
+        for (int y = 0; y < height; y++) {
+            for (int row = 0; row < tileSize; row++) {
+                if (used == BUFFER_SIZE) {
+                    png.write(buffer, 0, used);
+                    used = 0;
+                }
+
+                buffer[used++] = PngEncoder.FILTER_NONE;
+                int offset = row * tileRow;
+
+                for (int x = 0; x < width; x++) {
+                    if (used + tileRow > BUFFER_SIZE) {
+                        png.write(buffer, 0, used);
+                        used = 0;
+                    }
+
+                    System.arraycopy(tiles[minefield.getVisibleTile(x, y)],
+                            offset, buffer, used, tileRow);
+                    used += tileRow;
+                }
+            }
+        }
+
+        png.write(buffer, 0, used);
+        png.finish();
+    }
+
+    /**
+     * Writes a minefield as a small image.
+     *
+     * Each pixel covers a square block of tiles and has their average
+     * colour (where the colour of a tile is the average of how it is
+     * drawn), so mines, flags and open areas still show up at any size.
+     * A board smaller than the limit gets one pixel per tile.
+     *
+     * @param minefield minefield to export
+     * @param maxSize largest width or height of the image in pixels
+     * @param out stream to write the PNG to (not closed)
+     * @throws IOException if the stream cannot be written
+     */
+    public static void writeThumbnail(final Minefield minefield,
+            final int maxSize, final OutputStream out) throws IOException {
+        if (maxSize < 1) {
+            throw new IllegalArgumentException("maxSize must be positive");
+        }
+
+        int width = minefield.getWidth();
+        int height = minefield.getHeight();
+        int block = (Math.max(width, height) + maxSize - 1) / maxSize;
+        int imageWidth = (width + block - 1) / block;
+        int imageHeight = (height + block - 1) / block;
+
+        int[] colours = getTileColours();
+        long[] sums = new long[imageWidth * PIXEL_SIZE];
+        byte[] row = new byte[1 + imageWidth * PIXEL_SIZE];
+        row[0] = PngEncoder.FILTER_NONE;
+
+        PngEncoder png = new PngEncoder(out, imageWidth, imageHeight,
+                Deflater.DEFAULT_COMPRESSION);
+
+        for (int imageY = 0; imageY < imageHeight; imageY++) {
+            int y1 = imageY * block;
+            int y2 = Math.min(height, y1 + block);
+
+            for (int y = y1; y < y2; y++) {
+                for (int x = 0; x < width; x++) {
+                    int colour = colours[minefield.getVisibleTile(x, y)];
+                    int sum = x / block * PIXEL_SIZE;
+                    sums[sum] += colour >> 16 & 0xFF;
+                    sums[sum + 1] += colour >> 8 & 0xFF;
+                    sums[sum + 2] += colour & 0xFF;
+                }
+            }
+
+            for (int imageX = 0; imageX < imageWidth; imageX++) {
+                int x1 = imageX * block;
+                long count = (long) (Math.min(width, x1 + block) - x1)
+                        * (y2 - y1);
+
+                for (int c = 0; c < PIXEL_SIZE; c++) {
+                    int sum = imageX * PIXEL_SIZE + c;
+                    row[1 + sum] = (byte) ((sums[sum] + count / 2) / count);
+                    sums[sum] = 0;
+                }
+            }
+
+            png.write(row, 0, row.length);
+        }
+
+        png.finish();
+    }
+
+    /**
+     * Gets the pixels of every kind of tile, drawing them the first time.
+     *
+     * @return RGB pixels (row major) indexed by visible tile code
+     */
+    private static synchronized byte[][] getTileImages() {
+        if (tileImages != null) {
+            return tileImages;
+        }
+
+        int tileSize = TilePainter.TILE_SIZE;
+        BufferedImage image = new BufferedImage(tileSize,
+                tileSize * VisibleTile.COUNT, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = image.createGraphics();
+
+        try {
+            g.setColor(TilePainter.COLOUR_BACKGROUND);
+            g.fillRect(0, 0, image.getWidth(), image.getHeight());
+            TilePainter.prepare(g);
+
+            for (int code = 0; code < VisibleTile.COUNT; code++) {
+                TilePainter.paintTile(g, 0, code * tileSize, code, false, 1.0);
+            }
+        } finally {
+            g.dispose();
+        }
+
+        byte[][] images = new byte[VisibleTile.COUNT][];
+        int[] colours = new int[VisibleTile.COUNT];
+        int[] pixels = new int[tileSize * tileSize];
+
+        for (int code = 0; code < VisibleTile.COUNT; code++) {
+            image.getRGB(0, code * tileSize, tileSize, tileSize,
+                    pixels, 0, tileSize);
+
+            byte[] rgb = new byte[pixels.length * PIXEL_SIZE];
+            long red = 0;
+            long green = 0;
+            long blue = 0;
+
+            for (int p = 0; p < pixels.length; p++) {
+                rgb[p * PIXEL_SIZE] = (byte) (pixels[p] >> 16);
+                rgb[p * PIXEL_SIZE + 1] = (byte) (pixels[p] >> 8);
+                rgb[p * PIXEL_SIZE + 2] = (byte) pixels[p];
+                red += pixels[p] >> 16 & 0xFF;
+                green += pixels[p] >> 8 & 0xFF;
+                blue += pixels[p] & 0xFF;
+            }
+
+            images[code] = rgb;
+            colours[code] = (int) (red / pixels.length) << 16
+                    | (int) (green / pixels.length) << 8
+                    | (int) (blue / pixels.length);
+        }
+
+        tileColours = colours;
+        tileImages = images;
+        return images;
+    }
+
+    /**
+     * Gets the average colour of every kind of tile.
+     *
+     * @return RGB colours indexed by visible tile code
+     */
+    private static synchronized int[] getTileColours() {
+        getTileImages();
+        return tileColours;
+    }
+}
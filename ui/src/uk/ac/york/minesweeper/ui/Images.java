@@ -0,0 +1,374 @@
+package uk.ac.york.minesweeper.ui;
+
+import java.awt.AlphaComposite;
+import java.awt.Graphics2D;
+import java.awt.GraphicsConfiguration;
+import java.awt.GraphicsEnvironment;
+import java.awt.RenderingHints;
+import java.awt.Transparency;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.logging.ConsoleHandler;
+import java.util.logging.Logger;
+
+import javax.imageio.ImageIO;
+import javax.swing.ImageIcon;
+
+import uk.ac.york.minesweeper.OwnFormatter;
+
+/**
+ * Static class containing the game's images.
+ *
+ * Images are decoded the first time they are requested (or in the
+ * background by {@link #preload()}), and scaled display-compatible copies
+ * are cached for each tile size and display scale they are drawn at.
+ */
+public final class Images {
+
+    /**
+     * Logger für Images.
+     */
+    private static final Logger
+    LOGGER = Logger.getLogger(Images.class.getName());
+
+    /**
+     * Der Handler für den Logger.
+     */
+    private static final ConsoleHandler HANDLER = new ConsoleHandler();
+
+    /** Resources directory (beginning and ending with forward slash). */
+    private static final String RES_DIRECTORY = "/res/";
+
+    /** Image of a sea mine. */
+    public static final int MINE = 0;
+
+    /** Image of a generic flag. */
+    public static final int FLAG = 1;
+
+    /** Image of a normal face. */
+    public static final int FACE_NORMAL = 2;
+
+    /** Image of a face when you win. */
+    public static final int FACE_WON = 3;
+
+    /** Image of a face when you lose. */
+    public static final int FACE_LOST = 4;
+
+    /** File names of each image (indexed by the constants above). */
+    private static final String[] FILE_NAMES = {
+        "mine.png", "flag.png", "default.png", "won.png", "lost.png",
+    };
+
+    /** Locks used while loading each image. */
+    private static final Object[] LOAD_LOCKS = {
+        new Object(), new Object(), new Object(), new Object(), new Object(),
+    };
+
+    /** Decoded images (null until loaded). */
+    private static final AtomicReferenceArray<BufferedImage> IMAGES =
+            new AtomicReferenceArray<BufferedImage>(FILE_NAMES.length);
+
+    /** Icons wrapping each image (null until first requested). */
+    private static final AtomicReferenceArray<ImageIcon> ICONS =
+            new AtomicReferenceArray<ImageIcon>(FILE_NAMES.length);
+
+    /** Most recently used scaled variant of each image. */
+    private static final AtomicReferenceArray<ScaledImage> LAST_SCALED =
+            new AtomicReferenceArray<ScaledImage>(FILE_NAMES.length);
+
+    /** All scaled variants keyed by image, tile size and scale. */
+    private static final ConcurrentHashMap<String, ScaledImage>
+    SCALED = new ConcurrentHashMap<String, ScaledImage>();
+
+    private Images() {
+
+    }
+
+    public static BufferedImage getMine() {
+        return get(MINE);
+    }
+
+    public static BufferedImage getFlag() {
+        return get(FLAG);
+    }
+
+    public static BufferedImage getFaceNormal() {
+        return get(FACE_NORMAL);
+    }
+
+    public static BufferedImage getFaceWon() {
+        return get(FACE_WON);
+    }
+
+    public static BufferedImage getFaceLost() {
+        return get(FACE_LOST);
+    }
+
+    /**
+     * Gets an image, loading it if needed.
+     *
+     * @param image image constant (for example {@link #MINE})
+     * @return the loaded image
+     */
+    public static BufferedImage get(final int image) {
+        BufferedImage result = IMAGES.get(image);
+
+        if (result == null) {
+            synchronized (LOAD_LOCKS[image]) {
+                result = IMAGES.get(image);
+
+                if (result == null) {
+                    result = loadImageResource(FILE_NAMES[image]);
+                    IMAGES.set(image, result);
+                }
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Gets a shared icon wrapping an image.
+     *
+     * @param image image constant (for example {@link #FACE_NORMAL})
+     * @return the icon (the same instance is returned every time)
+     */
+    public static ImageIcon getIcon(final int image) {
+        ImageIcon icon = ICONS.get(image);
+
+        if (icon == null) {
+            ICONS.compareAndSet(image, null, new ImageIcon(get(image)));
+            icon = ICONS.get(image);
+        }
+
+        return icon;
+    }
+
+    /**
+     * Gets a display-compatible copy of an image for drawing on a tile.
+     *
+     * The copy has the image's natural size (or is shrunk to fit the tile)
+     * multiplied by the display scale, so drawing it at
+     * {@link ScaledImage#getLogicalWidth()} by
+     * {@link ScaledImage#getLogicalHeight()} under a transform
+     * with that scale is a straight pixel copy.
+     *
+     * @param image image constant (for example {@link #MINE})
+     * @param tileSize size of the tile in logical pixels
+     * @param scale display scale (1.0 for normal displays)
+     * @return the scaled image
+     */
+    public static ScaledImage getScaled(final int image,
+            final int tileSize, final double scale) {
+        // Fast path: same size as last time
+        ScaledImage last = LAST_SCALED.get(image);
+        if (last != null && last.matches(tileSize, scale)) {
+            return last;
+        }
+
+        String key = image + ":" + tileSize + ":" + scale;
+        ScaledImage result = SCALED.get(key);
+
+        if (result == null) {
+            result = createScaled(get(image), tileSize, scale);
+
+            ScaledImage existing = SCALED.putIfAbsent(key, result);
+            if (existing != null) {
+                result = existing;
+            }
+        }
+
+        LAST_SCALED.set(image, result);
+        return result;
+    }
+
+    /**
+     * Starts decoding all the images on background threads.
+     *
+     * This is optional; images which have not been loaded by the time they
+     * are needed are loaded on the calling thread.
+     */
+    public static void preload() {
+        int threads = Math.min(FILE_NAMES.length,
+                Runtime.getRuntime().availableProcessors());
+        ExecutorService executor = Executors.newFixedThreadPool(threads,
+                new ThreadFactory() {
+            @Override
+            public Thread newThread(final Runnable r) {
+                Thread thread = new Thread(r, "image-preload");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+
+        for (int i = 0; i < FILE_NAMES.length; i++) {
+            final int image = i;
+
+            executor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    get(image);
+                }
+            });
+        }
+
+        executor.shutdown();
+    }
+
+    /**
+     * Creates a scaled, display-compatible copy of an image.
+     *
+     * @param source source image
+     * @param tileSize size of the tile in logical pixels
+     * @param scale display scale
+     * @return the scaled image
+     */
+    private static ScaledImage createScaled(final BufferedImage source,
+            final int tileSize, final double scale) {
+        // Shrink to fit the tile, never enlarge
+        double fit = Math.min(1.0, (double) tileSize
+                / Math.max(source.getWidth(), source.getHeight()));
+        int logicalWidth =
+                Math.max(1, (int) Math.round(source.getWidth() * fit));
+        int logicalHeight =
+                Math.max(1, (int) Math.round(source.getHeight() * fit));
+        int pixelWidth = Math.max(1, (int) Math.round(logicalWidth * scale));
+        int pixelHeight = Math.max(1, (int) Math.round(logicalHeight * scale));
+
+        BufferedImage result;
+        if (GraphicsEnvironment.isHeadless()) {
+            result = new BufferedImage(pixelWidth, pixelHeight,
+                    BufferedImage.TYPE_INT_ARGB_PRE);
+        } else {
+            GraphicsConfiguration config = GraphicsEnvironment
+                    .getLocalGraphicsEnvironment()
+                    .getDefaultScreenDevice()
+                    .getDefaultConfiguration();
+            result = config.createCompatibleImage(pixelWidth, pixelHeight,
+                    Transparency.TRANSLUCENT);
+        }
+
+        Graphics2D g = result.createGraphics();
+        try {
+            g.setComposite(AlphaComposite.Src);
+            g.setRenderingHint(RenderingHints.KEY_INTERPOLATION,
+                    RenderingHints.VALUE_INTERPOLATION_BICUBIC);
+            g.setRenderingHint(RenderingHints.KEY_RENDERING,
+                    RenderingHints.VALUE_RENDER_QUALITY);
+            g.drawImage(source, 0, 0, pixelWidth, pixelHeight, null);
+        } finally {
+            g.dispose();
+        }
+
+        return new ScaledImage(result, tileSize, scale,
+                logicalWidth, logicalHeight);
+    }
+
+    /**
+     * Loads an image from the resources directory.
+     *
+     * @param name image name
+     * @return the loaded image
+     */
+    private static BufferedImage loadImageResource(final String name) {
+
+
+        try (InputStream imgStream =
+                Images.class.getResourceAsStream(RES_DIRECTORY + name)) {
+            HANDLER.setFormatter(new OwnFormatter());
+            LOGGER.addHandler(HANDLER);
+
+            // Decompress image
+            return ImageIO.read(imgStream);
+        }
+        catch (IOException e) {
+
+            LOGGER.severe("FEHLER BEIM LADEN DES BILDES.");
+
+            throw new RuntimeException("Could not load image file: " + name, e);
+        }
+    }
+
+    /**
+     * A scaled copy of an image together with the size to draw it at.
+     */
+    public static final class ScaledImage {
+
+        /** The scaled image (in device pixels). */
+        private final BufferedImage image;
+
+        /** Tile size the image was created for. */
+        private final int tileSize;
+
+        /** Display scale the image was created for. */
+        private final double scale;
+
+        /** Width to draw the image at (logical pixels). */
+        private final int logicalWidth;
+
+        /** Height to draw the image at (logical pixels). */
+        private final int logicalHeight;
+
+        /**
+         * Initializes a new ScaledImage.
+         *
+         * @param scaledImage the scaled image
+         * @param size tile size
+         * @param displayScale display scale
+         * @param width logical width
+         * @param height logical height
+         */
+        private ScaledImage(final BufferedImage scaledImage, final int size,
+                final double displayScale, final int width, final int height) {
+            this.image = scaledImage;
+            this.tileSize = size;
+            this.scale = displayScale;
+            this.logicalWidth = width;
+            this.logicalHeight = height;
+        }
+
+        /**
+         * Returns true if this image was created for the given size.
+         *
+         * @param size tile size
+         * @param displayScale display scale
+         * @return true if the image can be reused
+         */
+        private boolean matches(final int size, final double displayScale) {
+            return tileSize == size && scale == displayScale;
+        }
+
+        /**
+         * Gets the scaled image.
+         *
+         * @return image in device pixels
+         */
+        public BufferedImage getImage() {
+            return image;
+        }
+
+        /**
+         * Gets the width to draw the image at.
+         *
+         * @return width in logical pixels
+         */
+        public int getLogicalWidth() {
+            return logicalWidth;
+        }
+
+        /**
+         * Gets the height to draw the image at.
+         *
+         * @return height in logical pixels
+         */
+        public int getLogicalHeight() {
+            return logicalHeight;
+        }
+    }
+}
@@ -0,0 +1,302 @@
+package uk.ac.york.minesweeper.ui;
+
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.Graphics;
+import java.awt.Rectangle;
+import java.util.logging.Logger;
+
+import javax.swing.JComponent;
+
+import uk.ac.york.minesweeper.Histogram;
+
+/**
+ * Traces mouse events from the input handler to the frame which shows them.
+ *
+ * Each traced event is split into phases:
+ * <ul>
+ * <li>dispatch: from the event being created to the handler running</li>
+ * <li>model: the handler updating the minefield</li>
+ * <li>queue: from the repaint request to the paint which shows the event
+ * starting</li>
+ * <li>paint: that paintComponent itself</li>
+ * <li>total: from the handler running to the frame being painted</li>
+ * </ul>
+ *
+ * An event is shown by the first frame drawn from a minefield version at
+ * least as new as the one its handler left. With offscreen rendering the
+ * first paint after a click usually copies an older frame to the screen,
+ * so the queue phase includes the time spent rendering on the background
+ * thread.
+ *
+ * All methods must be called on the event dispatch thread.
+ */
+public final class InputLatencyTracer {
+
+    /**
+     * Logger.
+     */
+    private static final Logger
+    LOGGER = Logger.getLogger(InputLatencyTracer.class.getName());
+
+    /** Maximum number of events waiting for a single frame. */
+    private static final int MAX_PENDING = 16;
+
+    /** Font used to draw the overlay. */
+    private static final Font OVERLAY_FONT =
+            new Font(Font.MONOSPACED, Font.PLAIN, 11);
+
+    /** Height of each overlay line. */
+    private static final int OVERLAY_LINE_HEIGHT = 12;
+
+    /** Width of the overlay. */
+    private static final int OVERLAY_WIDTH = 230;
+
+    /** Background of the overlay (translucent black). */
+    private static final Color OVERLAY_BACKGROUND = new Color(0, 0, 0, 0xA0);
+
+    /** Nanoseconds in a millisecond. */
+    private static final long NANOS_PER_MILLI = 1000000L;
+
+    /** Time between the event being created and the handler (ns). */
+    private final Histogram dispatchNanos = new Histogram("dispatchNanos");
+
+    /** Time spent updating the minefield (ns). */
+    private final Histogram modelNanos = new Histogram("modelNanos");
+
+    /** Time waiting for paintComponent after repaint (ns). */
+    private final Histogram queueNanos = new Histogram("queueNanos");
+
+    /** Time spent in paintComponent (ns). */
+    private final Histogram paintNanos = new Histogram("paintNanos");
+
+    /** Time from the handler running to the end of the frame (ns). */
+    private final Histogram totalNanos = new Histogram("totalNanos");
+
+    /** All histograms in display order. */
+    private final Histogram[] histograms = {
+        dispatchNanos, modelNanos, queueNanos, paintNanos, totalNanos,
+    };
+
+    /** Handler start times of events waiting to be painted. */
+    private final long[] pendingStart = new long[MAX_PENDING];
+
+    /** Repaint request times of events waiting to be painted. */
+    private final long[] pendingRepaint = new long[MAX_PENDING];
+
+    /** Minefield versions left by the events waiting to be painted. */
+    private final long[] pendingVersion = new long[MAX_PENDING];
+
+    /** Number of events waiting to be painted. */
+    private int pendingCount;
+
+    /** Time the current paint started (0 if not painting). */
+    private long paintStart;
+
+    /** True to draw the overlay over the minefield. */
+    private boolean overlayVisible;
+
+    /** Area the overlay is drawn in (reused). */
+    private final Rectangle overlayBounds = new Rectangle();
+
+    /**
+     * Initializes a new InputLatencyTracer with no events recorded and the
+     * overlay hidden.
+     */
+    public InputLatencyTracer() {
+
+    }
+
+    /**
+     * Returns true if the overlay is drawn over the minefield.
+     *
+     * @return true if the overlay is visible
+     */
+    public boolean isOverlayVisible() {
+        return overlayVisible;
+    }
+
+    /**
+     * Sets whether the overlay is drawn over the minefield.
+     *
+     * @param visible true to show the overlay
+     */
+    public void setOverlayVisible(final boolean visible) {
+        this.overlayVisible = visible;
+    }
+
+    /**
+     * Records that an input handler has finished updating the minefield and
+     * is about to request a repaint.
+     *
+     * @param handlerStart System.nanoTime() when the handler started
+     * @param eventWhen the event's timestamp (MouseEvent.getWhen())
+     * @param version minefield version after the handler
+     */
+    void eventHandled(final long handlerStart, final long eventWhen,
+            final long version) {
+        long now = System.nanoTime();
+
+        dispatchNanos.record(
+                (System.currentTimeMillis() - eventWhen) * NANOS_PER_MILLI
+                - (now - handlerStart));
+        modelNanos.record(now - handlerStart);
+
+        // Drop the oldest event if too many are waiting
+        if (pendingCount == MAX_PENDING) {
+            System.arraycopy(pendingStart, 1, pendingStart, 0, MAX_PENDING - 1);
+            System.arraycopy(pendingRepaint, 1,
+                    pendingRepaint, 0, MAX_PENDING - 1);
+            System.arraycopy(pendingVersion, 1,
+                    pendingVersion, 0, MAX_PENDING - 1);
+            pendingCount--;
+        }
+
+        pendingStart[pendingCount] = handlerStart;
+        pendingRepaint[pendingCount] = now;
+        pendingVersion[pendingCount] = version;
+        pendingCount++;
+    }
+
+    /**
+     * Records that paintComponent has started.
+     */
+    void paintStarted() {
+        paintStart = System.nanoTime();
+    }
+
+    /**
+     * Records that paintComponent has finished the current frame.
+     *
+     * The events whose changes the frame shows are attributed to it; the
+     * rest keep waiting for a newer frame.
+     *
+     * @param shownVersion minefield version the frame was drawn from (-1
+     *        if nothing was drawn)
+     */
+    void paintFinished(final long shownVersion) {
+        long now = System.nanoTime();
+
+        if (paintStart == 0) {
+            return;
+        }
+
+        int waiting = 0;
+
+        for (int i = 0; i < pendingCount; i++) {
+            if (pendingVersion[i] > shownVersion) {
+                pendingStart[waiting] = pendingStart[i];
+                pendingRepaint[waiting] = pendingRepaint[i];
+                pendingVersion[waiting] = pendingVersion[i];
+                waiting++;
+                continue;
+            }
+
+            queueNanos.record(paintStart - pendingRepaint[i]);
+            totalNanos.record(now - pendingStart[i]);
+        }
+
+        if (waiting < pendingCount) {
+            paintNanos.record(now - paintStart);
+            pendingCount = waiting;
+        }
+
+        paintStart = 0;
+    }
+
+    /**
+     * Forgets the events waiting to be painted (their minefield has been
+     * replaced, so no frame will show them).
+     */
+    void clearPending() {
+        pendingCount = 0;
+    }
+
+    /**
+     * Clears all recorded latencies.
+     */
+    public void reset() {
+        for (Histogram histogram : histograms) {
+            histogram.reset();
+        }
+
+        pendingCount = 0;
+    }
+
+    /**
+     * Takes snapshots of the per-phase histograms.
+     *
+     * @return snapshots in phase order (dispatch, model, queue, paint, total)
+     */
+    public Histogram.Snapshot[] snapshot() {
+        Histogram.Snapshot[] result = new Histogram.Snapshot[histograms.length];
+
+        for (int i = 0; i < histograms.length; i++) {
+            result[i] = histograms[i].snapshot();
+        }
+
+        return result;
+    }
+
+    /**
+     * Gets a textual dump of the per-phase histograms.
+     *
+     * @return one line per phase
+     */
+    public String dump() {
+        StringBuilder builder = new StringBuilder();
+
+        for (Histogram.Snapshot snapshot : snapshot()) {
+            builder.append(snapshot).append('\n');
+        }
+
+        return builder.toString();
+    }
+
+    /**
+     * Writes the per-phase histograms to the log.
+     */
+    public void log() {
+        LOGGER.info("Input latency:\n" + dump());
+    }
+
+    /**
+     * Gets the area the overlay is drawn in (the top left of the visible
+     * part of the component).
+     *
+     * @param component component the overlay is drawn over
+     * @return overlay bounds (reused by each call)
+     */
+    Rectangle getOverlayBounds(final JComponent component) {
+        component.computeVisibleRect(overlayBounds);
+        overlayBounds.setSize(OVERLAY_WIDTH,
+                OVERLAY_LINE_HEIGHT * histograms.length + 4);
+        return overlayBounds;
+    }
+
+    /**
+     * Draws the overlay in the top left of the visible part of a component.
+     *
+     * @param g graphics object
+     * @param component component being painted
+     */
+    void paintOverlay(final Graphics g, final JComponent component) {
+        Histogram.Snapshot[] snapshots = snapshot();
+        Rectangle bounds = getOverlayBounds(component);
+
+        g.setColor(OVERLAY_BACKGROUND);
+        g.fillRect(bounds.x, bounds.y, bounds.width, bounds.height);
+        g.setColor(Color.WHITE);
+        g.setFont(OVERLAY_FONT);
+
+        for (int i = 0; i < snapshots.length; i++) {
+            Histogram.Snapshot s = snapshots[i];
+
+            g.drawString(String.format("%-8s p50 %6.2f p99 %6.2f ms",
+                    s.getName().replace("Nanos", ""),
+                    s.getPercentile(50) / (double) NANOS_PER_MILLI,
+                    s.getPercentile(99) / (double) NANOS_PER_MILLI),
+                    bounds.x + 2, bounds.y + OVERLAY_LINE_HEIGHT * (i + 1));
+        }
+    }
+}
@@ -0,0 +1,843 @@
+package uk.ac.york.minesweeper.ui;
+
+import java.awt.Dimension;
+import java.awt.Graphics;
+import java.awt.Graphics2D;
+import java.awt.GraphicsConfiguration;
+import java.awt.Point;
+import java.awt.Rectangle;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.beans.PropertyChangeEvent;
+import java.beans.PropertyChangeListener;
+import java.util.ArrayList;
+import java.util.concurrent.CancellationException;
+import java.util.logging.ConsoleHandler;
+import java.util.logging.Logger;
+
+import javax.swing.JComponent;
+import javax.swing.SwingUtilities;
+import javax.swing.SwingWorker;
+
+import uk.ac.york.minesweeper.GameState;
+import uk.ac.york.minesweeper.GenerationMonitor;
+import uk.ac.york.minesweeper.Minefield;
+import uk.ac.york.minesweeper.MinefieldMetrics;
+import uk.ac.york.minesweeper.MinefieldStateChangeEvent;
+import uk.ac.york.minesweeper.MinefieldStateChangeListener;
+import uk.ac.york.minesweeper.MoveListener;
+import uk.ac.york.minesweeper.OwnFormatter;
+import uk.ac.york.minesweeper.TileState;
+
+/**
+ * A component which can display
+ * a minefield graphically and handle various events.
+ */
+public class MinefieldPanel extends JComponent {
+
+    /**
+     * Logger.
+     */
+    private static final Logger
+    LOGGER = Logger.getLogger(MinefieldPanel.class.getName());
+
+    /**
+     * ConsoleHandler.
+     */
+    private static final ConsoleHandler CH = new ConsoleHandler();
+
+    static {
+        // Once only, not for every message (each call added it again)
+        CH.setFormatter(new OwnFormatter());
+        LOGGER.addHandler(CH);
+    }
+
+    /**
+     * Version.
+     */
+    private static final long serialVersionUID = 1L;
+
+    /** Size of all the tiles. */
+    public static final int TILE_SIZE = TilePainter.TILE_SIZE;
+
+    /** Name of the bound property fired when generation starts / stops. */
+    public static final String GENERATING_PROPERTY = "generating";
+
+    /** Name of the bound property fired with generation progress (0-100). */
+    public static final String GENERATION_PROGRESS_PROPERTY =
+            "generationProgress";
+
+    /**
+     * Minefields with at least this many tiles have their mines placed on a
+     * background thread after the first click.
+     */
+    private static final int ASYNC_GENERATION_TILES = 1 << 18;
+
+    /** Current minefield. */
+    private Minefield minefield;
+
+    /** Currently selected tile (null most of the time). */
+    private Point selectedTile;
+
+    /** Point selectedTile refers to while a tile is selected. */
+    private final Point selection = new Point();
+
+    /** Tile under the last mouse event (reused for every event). */
+    private final Point eventTile = new Point();
+
+    /** Returned by getPreferredSize (reset on every call). */
+    private final Dimension preferredSize = new Dimension();
+
+    /** Returned by getMinimumSize (reset on every call). */
+    private final Dimension minimumSize = new Dimension();
+
+    /** Returned by getMaximumSize (reset on every call). */
+    private final Dimension maximumSize = new Dimension();
+
+    /** Clip bounds of the graphics object being painted. */
+    private final Rectangle clipBounds = new Rectangle();
+
+    /** Device configuration displayScale was read from. */
+    private transient GraphicsConfiguration scaleConfiguration;
+
+    /** Display scale of scaleConfiguration. */
+    private double displayScale = 1.0;
+
+    /** Event passed to the state change listeners (its source is fixed). */
+    private final MinefieldStateChangeEvent stateChangeEvent =
+            new MinefieldStateChangeEvent(this);
+
+    /** Worker placing the mines (null when not generating). */
+    private GenerationWorker generationWorker;
+
+    /** Renderer used when drawing off the EDT (null when disabled). */
+    private SnapshotRenderer snapshotRenderer;
+
+    /** Version of the last snapshot submitted to the renderer. */
+    private long submittedVersion = -1;
+
+    /** Minefield version the last painted frame showed (-1 for none). */
+    private long shownVersion = -1;
+
+    /** Region and selection of the last snapshot submitted. */
+    private final int[] submittedRequest = new int[6];
+
+    /** Input latency tracer (null when tracing is disabled). */
+    private InputLatencyTracer latencyTracer;
+
+    /** Paces repaints to the target frame rate. */
+    private final RepaintScheduler repaintScheduler =
+            new RepaintScheduler(this, TILE_SIZE);
+
+    /** Marks the tiles changed by each move as dirty. */
+    private final MoveListener moveListener = new MoveListener() {
+        @Override
+        public void moveMade(final Minefield changed, final int[] tiles,
+                final int count) {
+            repaintScheduler.invalidateTiles(tiles, count, changed.getWidth());
+        }
+    };
+
+    /** List of state change listeners. */
+    private ArrayList<MinefieldStateChangeListener>
+    listeners = new ArrayList<MinefieldStateChangeListener>();
+
+    /**
+     * Initializes a new MinefieldPanel with the given Minefield.
+     *
+     * There must always be a minefield to display (you cannot pass null)
+     *
+     * @param minefield minefield to display
+     */
+    public MinefieldPanel(final Minefield mineField) {
+        this.addMouseListener(new MouseEventListener());
+        this.setBackground(TilePainter.COLOUR_BACKGROUND);
+        this.setOpaque(true);
+        this.setFont(TilePainter.FONT);
+        this.setMinefield(mineField);
+
+        if (Boolean.getBoolean("minesweeper.offscreen")) {
+            this.setOffscreenRendering(true);
+        }
+
+        repaintScheduler.setTargetFps(Integer.getInteger("minesweeper.fps",
+                RepaintScheduler.DEFAULT_FPS));
+        repaintScheduler.setOverlayVisible(
+                Boolean.getBoolean("minesweeper.fps.overlay"));
+
+        if (Boolean.getBoolean("minesweeper.trace")) {
+            this.setLatencyTracing(true);
+            latencyTracer.setOverlayVisible(
+                    Boolean.getBoolean("minesweeper.trace.overlay"));
+        }
+    }
+
+    /**
+     * Enables or disables input latency tracing.
+     *
+     * @param enabled true to trace mouse events through to the screen
+     */
+    public final void setLatencyTracing(final boolean enabled) {
+        if (!enabled) {
+            latencyTracer = null;
+        } else if (latencyTracer == null) {
+            latencyTracer = new InputLatencyTracer();
+        }
+
+        repaintScheduler.setLatencyTracer(latencyTracer);
+        repaintScheduler.invalidateAll();
+    }
+
+    /**
+     * Enables or disables rendering on a background thread.
+     *
+     * When enabled, paintComponent only publishes a snapshot of the visible
+     * part of the minefield and copies the most recently rendered frame to
+     * the screen, so painting time no longer depends on the board.
+     *
+     * @param enabled true to render off the event dispatch thread
+     */
+    public final void setOffscreenRendering(final boolean enabled) {
+        if (snapshotRenderer != null) {
+            snapshotRenderer.stop();
+            snapshotRenderer = null;
+        }
+
+        if (enabled) {
+            snapshotRenderer = new SnapshotRenderer(new Runnable() {
+                @Override
+                public void run() {
+                    // Tiles may be invalidated from any thread
+                    repaintScheduler.invalidateAll();
+                }
+            });
+        }
+
+        submittedVersion = -1;
+        repaintScheduler.invalidateAll();
+    }
+
+    /**
+     * Returns true if rendering happens off the event dispatch thread.
+     *
+     * @return true if offscreen rendering is enabled
+     */
+    public final boolean isOffscreenRendering() {
+        return snapshotRenderer != null;
+    }
+
+    /**
+     * Gets the scheduler which paces repaints.
+     *
+     * @return the repaint scheduler
+     */
+    public final RepaintScheduler getRepaintScheduler() {
+        return repaintScheduler;
+    }
+
+    /**
+     * Gets the input latency tracer.
+     *
+     * @return the tracer or null if tracing is disabled
+     */
+    public final InputLatencyTracer getLatencyTracer() {
+        return latencyTracer;
+    }
+
+    /**
+     * Adds a listener to which received game state change events.
+     *
+     * @param listener listener to add
+     */
+    public final void
+    addStateChangeListener(final MinefieldStateChangeListener listener) {
+        if (!listeners.contains(listener)) {
+            listeners.add(listener);
+
+        }
+
+    }
+
+    /**
+     * Removes a listener which received game state change events.
+     *
+     * @param listener listener to remove
+     */
+    public final void
+    removeStateChangeListener(final MinefieldStateChangeListener listener) {
+
+        listeners.remove(listener);
+    }
+
+    /**
+     * Fires the state changed event.
+     */
+    private void fireStateChangeEvent() {
+        for (int n = 0; n < listeners.size(); n++) {
+            listeners.get(n).stateChanged(stateChangeEvent);
+        }
+
+    }
+
+    /**
+     * Gets the current minefield.
+     *
+     * @return current minefield
+     */
+    public final Minefield getMinefield() {
+        return minefield;
+    }
+
+    /**
+     * Sets a new minefield for the component.
+     *
+     * @param newMinefield the new minefield
+     */
+    public void setMinefield(Minefield newMinefield) {
+        if (newMinefield == null) {
+
+            throw new IllegalArgumentException("newMinefield cannot be null");
+        }
+
+        // Forget the old worker now so clicks on the new minefield are not
+        // dropped until it notices (generationFinished ignores it later)
+        if (generationWorker != null) {
+            cancelGeneration();
+            generationWorker = null;
+            firePropertyChange(GENERATING_PROPERTY, true, false);
+        }
+
+        if (this.minefield != null) {
+            this.minefield.removeMoveListener(moveListener);
+        }
+
+        this.minefield = newMinefield;
+        newMinefield.addMoveListener(moveListener);
+
+        // Versions of the new minefield say nothing about the old events
+        shownVersion = -1;
+
+        if (latencyTracer != null) {
+            latencyTracer.clearPending();
+        }
+
+        // Discard frames rendered from the old minefield
+        if (snapshotRenderer != null) {
+            snapshotRenderer.clear();
+            submittedVersion = -1;
+        }
+
+        // Reset selected tile
+        this.selectedTile = null;
+
+        // Update all visuals
+        this.setSize(getPreferredSize());
+        repaintScheduler.invalidateAll();
+
+        // Fire event
+        this.fireStateChangeEvent();
+
+        LOGGER.info("MINENFELD initiiert.");
+
+    }
+
+    /**
+     * Returns true while the mines are being placed in the background.
+     *
+     * Mouse input is ignored during this time.
+     *
+     * @return true if generating
+     */
+    public final boolean isGenerating() {
+        return generationWorker != null;
+    }
+
+    /**
+     * Cancels background mine placement.
+     *
+     * The minefield is left unstarted so the next click starts generation
+     * again.
+     */
+    public final void cancelGeneration() {
+        if (generationWorker != null) {
+            generationWorker.cancel(false);
+        }
+    }
+
+    /**
+     * Starts placing the mines in the background for the first click.
+     *
+     * @param x x position of the first click
+     * @param y y position of the first click
+     */
+    private void startGeneration(final int x, final int y) {
+        generationWorker = new GenerationWorker(minefield, x, y);
+        generationWorker.addPropertyChangeListener(
+                new PropertyChangeListener() {
+            @Override
+            public void propertyChange(final PropertyChangeEvent event) {
+                if ("progress".equals(event.getPropertyName())) {
+                    firePropertyChange(GENERATION_PROGRESS_PROPERTY,
+                            event.getOldValue(), event.getNewValue());
+                }
+            }
+        });
+
+        firePropertyChange(GENERATING_PROPERTY, false, true);
+        generationWorker.execute();
+    }
+
+    /**
+     * Called on the event dispatch thread when a generation worker stops.
+     *
+     * @param worker the worker which stopped
+     * @param succeeded true if the mines were placed
+     */
+    private void generationFinished(final GenerationWorker worker,
+            final boolean succeeded) {
+        if (worker != generationWorker) {
+            return;
+        }
+
+        generationWorker = null;
+        firePropertyChange(GENERATING_PROPERTY, true, false);
+
+        // Make the first move now the mines are in place
+        if (succeeded && worker.target == minefield) {
+            GameState state = minefield.getGameState();
+
+            minefield.uncover(worker.startX, worker.startY);
+
+            if (minefield.getGameState() != state) {
+                fireStateChangeEvent();
+            }
+        }
+
+        repaintScheduler.invalidateAll();
+    }
+
+    @Override
+    public final void paintComponent(final Graphics gOld) {
+        InputLatencyTracer tracer = latencyTracer;
+        long startTime = System.nanoTime();
+
+        if (tracer != null) {
+            tracer.paintStarted();
+        }
+
+        int tilesPainted;
+        if (snapshotRenderer != null) {
+            tilesPainted = paintFromSnapshots((Graphics2D) gOld);
+        } else {
+            tilesPainted = paintTiles((Graphics2D) gOld);
+        }
+
+        repaintScheduler.paintOverlay(gOld);
+
+        if (tracer != null) {
+            if (tracer.isOverlayVisible()) {
+                tracer.paintOverlay(gOld, this);
+            }
+
+            tracer.paintFinished(shownVersion);
+        }
+
+        long paintNanos = System.nanoTime() - startTime;
+        repaintScheduler.framePainted(paintNanos);
+
+        if (MinefieldMetrics.ENABLED) {
+            MinefieldMetrics.framePainted(paintNanos, tilesPainted);
+        }
+    }
+
+    /**
+     * Gets the display scale of a graphics object.
+     *
+     * The scale is read from the device's default transform and kept until
+     * the panel is painted on another device (getTransform makes a new
+     * AffineTransform on every call).
+     *
+     * @param g graphics object
+     * @return display scale
+     */
+    private double getDisplayScale(final Graphics2D g) {
+        GraphicsConfiguration configuration = g.getDeviceConfiguration();
+
+        if (configuration != scaleConfiguration) {
+            scaleConfiguration = configuration;
+            displayScale = configuration.getDefaultTransform().getScaleX();
+        }
+
+        return displayScale;
+    }
+
+    /**
+     * Paints the background and the tiles of the minefield inside the clip.
+     *
+     * @param g graphics object
+     * @return number of tiles painted
+     */
+    private int paintTiles(final Graphics2D g) {
+        double scale = getDisplayScale(g);
+        int selectedX;
+        int selectedY;
+        if (selectedTile == null) {
+            selectedX = -1;
+        } else {
+            selectedX = selectedTile.x;
+        }
+        if (selectedTile == null) {
+            selectedY = -1;
+        } else {
+            selectedY = selectedTile.y;
+        }
+        TilePainter.prepare(g);
+        if (isOpaque()) {
+            g.setColor(getBackground());
+            g.fillRect(0, 0, getWidth(), getHeight());
+        }
+
+        // Only paint the tiles inside the clip (large minefields are
+        // normally inside a scroll pane)
+        int xStart = 0;
+        int yStart = 0;
+        int xEnd = minefield.getWidth();
+        int yEnd = minefield.getHeight();
+        // Left as the whole panel if there is no clip
+        Rectangle clip = clipBounds;
+        clip.setBounds(0, 0, getWidth(), getHeight());
+        g.getClipBounds(clip);
+
+        if (!clip.isEmpty()) {
+            xStart = Math.max(0, clip.x / TILE_SIZE);
+            yStart = Math.max(0, clip.y / TILE_SIZE);
+            xEnd = Math.min(xEnd, (clip.x + clip.width) / TILE_SIZE + 1);
+            yEnd = Math.min(yEnd, (clip.y + clip.height) / TILE_SIZE + 1);
+        }
+
+        for (int x = xStart; x < xEnd; x++) {
+            for (int y = yStart; y < yEnd; y++) {
+                TilePainter.paintTile(g, x * TILE_SIZE, y * TILE_SIZE,
+                        minefield.getVisibleTile(x, y),
+                        x == selectedX && y == selectedY, scale);
+            }
+        }
+
+        shownVersion = minefield.getVersion();
+
+        return (xEnd - xStart) * (yEnd - yStart);
+    }
+
+    /**
+     * Copies the latest rendered frame to the screen, and submits a new
+     * snapshot if it is out of date.
+     *
+     * @param g graphics object
+     * @return number of tiles painted on this thread (always 0)
+     */
+    private int paintFromSnapshots(final Graphics2D g) {
+        SnapshotRenderer renderer = snapshotRenderer;
+        Rectangle view = getVisibleRect();
+
+        // Tiles which are visible
+        int x1 = view.x / TILE_SIZE;
+        int y1 = view.y / TILE_SIZE;
+        int x2 = Math.min(minefield.getWidth(),
+                (view.x + view.width + TILE_SIZE - 1) / TILE_SIZE);
+        int y2 = Math.min(minefield.getHeight(),
+                (view.y + view.height + TILE_SIZE - 1) / TILE_SIZE);
+        int selectedX = (selectedTile == null) ? -1 : selectedTile.x;
+        int selectedY = (selectedTile == null) ? -1 : selectedTile.y;
+
+        // Is the latest frame (or the one being rendered) good enough?
+        SnapshotRenderer.Frame frame = renderer.getLatestFrame();
+        boolean frameCurrent = frame != null
+                && frame.getVersion() == minefield.getVersion()
+                && frame.getSelectedX() == selectedX
+                && frame.getSelectedY() == selectedY
+                && x1 >= frame.getX() && y1 >= frame.getY()
+                && x2 <= frame.getX() + frame.getWidth()
+                && y2 <= frame.getY() + frame.getHeight();
+        boolean requested = submittedVersion == minefield.getVersion()
+                && submittedRequest[0] == x1 && submittedRequest[1] == y1
+                && submittedRequest[2] == x2 && submittedRequest[3] == y2
+                && submittedRequest[4] == selectedX
+                && submittedRequest[5] == selectedY;
+
+        if (!frameCurrent && !requested) {
+            renderer.submit(minefield.snapshot(x1, y1, x2 - x1, y2 - y1),
+                    selectedX, selectedY);
+            submittedVersion = minefield.getVersion();
+            submittedRequest[0] = x1;
+            submittedRequest[1] = y1;
+            submittedRequest[2] = x2;
+            submittedRequest[3] = y2;
+            submittedRequest[4] = selectedX;
+            submittedRequest[5] = selectedY;
+        }
+
+        if (isOpaque()) {
+            g.setColor(getBackground());
+            g.fillRect(view.x, view.y, view.width, view.height);
+        }
+
+        if (frame != null) {
+            synchronized (frame) {
+                g.drawImage(frame.getImage(), frame.getX() * TILE_SIZE,
+                        frame.getY() * TILE_SIZE, null);
+                shownVersion = frame.getVersion();
+            }
+        } else {
+            shownVersion = -1;
+        }
+
+        return 0;
+    }
+
+    @Override
+    public final Dimension getPreferredSize() {
+        return getBoardSize(preferredSize);
+    }
+
+    @Override
+    public final Dimension getMaximumSize() {
+        return getBoardSize(maximumSize);
+    }
+
+    @Override
+    public final Dimension getMinimumSize() {
+        return getBoardSize(minimumSize);
+    }
+
+    /**
+     * Sets a dimension to the size of the board.
+     *
+     * Each size getter has its own Dimension, which is reset on every call,
+     * so callers which change the returned object do no lasting harm.
+     *
+     * @param size dimension to set
+     * @return size
+     */
+    private Dimension getBoardSize(final Dimension size) {
+        size.setSize(TILE_SIZE * minefield.getWidth(),
+                TILE_SIZE * minefield.getHeight());
+        return size;
+    }
+
+    /**
+     * Handles all mouse events within the game area.
+     */
+    private class MouseEventListener extends MouseAdapter {
+        /**
+         * Calculates the selected tile from a mouse event.
+         *
+         * The same Point is returned every time (it is only valid until
+         * the next event).
+         * @return Point
+         * @param e MouseEvent
+         */
+        private Point getTileFromEvent(final MouseEvent e) {
+            eventTile.setLocation(e.getX() / TILE_SIZE, e.getY() / TILE_SIZE);
+            return eventTile;
+        }
+
+        @Override
+        public void mouseExited(final MouseEvent e) {
+            // Clear selected tile
+            if (selectedTile != null) {
+                repaintScheduler.invalidateTile(selectedTile.x, selectedTile.y);
+                selectedTile = null;
+            }
+        }
+
+        @Override
+        public void mousePressed(final MouseEvent e) {
+            long handlerStart = startTrace();
+
+            // Ignore if finished or still generating
+            if (minefield.isFinished() || generationWorker != null) {
+                return;
+
+            }
+
+
+            // Get tile position
+            Point tile = getTileFromEvent(e);
+
+            // Right or left click?
+            if (SwingUtilities.isLeftMouseButton(e)) {
+                // Do not select tiles with flags on
+                if (minefield.getTileState(tile.x, tile.y)
+                        == TileState.FLAGGED) {
+
+                    return;
+                }
+
+
+                // Set new selected tile
+                selection.setLocation(tile);
+                selectedTile = selection;
+                repaintScheduler.invalidateTile(tile.x, tile.y);
+            } else if (SwingUtilities.isRightMouseButton(e)) {
+                TileState newState;
+
+                // Change flagged state
+                switch(minefield.getTileState(tile.x, tile.y)) {
+                    case COVERED:   newState = TileState.FLAGGED;   break;
+                    case FLAGGED:   newState = TileState.QUESTION;  break;
+                    case UNCOVERED: newState = TileState.UNCOVERED; break;
+                    default:        newState = TileState.COVERED;   break;
+                }
+
+                GameState state = minefield.getGameState();
+
+                minefield.setTileState(tile.x, tile.y, newState);
+
+                // Flags can finish the game when auto-chord is enabled
+                if (minefield.getGameState() != state) {
+                    fireStateChangeEvent();
+                }
+            }
+
+            // Changed tiles are marked dirty by the move listener
+            endTrace(handlerStart, e);
+        }
+
+        @Override
+        public void mouseReleased(final MouseEvent e) {
+            long handlerStart = startTrace();
+
+            // Ignore if finished or still generating
+            if (minefield.isFinished() || generationWorker != null) {
+
+                return;
+            }
+
+
+            // Ensure there was a tile selected
+            if (selectedTile != null) {
+                // Ensure the tile was the same as the one clicked on
+                if (selectedTile.equals(getTileFromEvent(e))) {
+                    // Either chord or uncover depending on the number of clicks
+                    GameState state = minefield.getGameState();
+
+                    if (e.getClickCount() == 2) {
+
+                         minefield.chord(selectedTile.x, selectedTile.y);
+                    } else if (e.getClickCount() == 1) {
+
+                        if (!minefield.isGenerated()
+                                && (long) minefield.getWidth()
+                                * minefield.getHeight()
+                                >= ASYNC_GENERATION_TILES) {
+                            // Place mines in the background for big boards
+                            startGeneration(selectedTile.x, selectedTile.y);
+                        } else {
+                            minefield.uncover(selectedTile.x, selectedTile.y);
+                        }
+                    }
+
+
+                    // Fire state changed event if needed
+                    if (minefield.getGameState() != state) {
+
+                         fireStateChangeEvent();
+                    }
+
+                }
+
+                // Clear selected tile
+                repaintScheduler.invalidateTile(selectedTile.x, selectedTile.y);
+                selectedTile = null;
+                endTrace(handlerStart, e);
+            }
+        }
+
+        /**
+         * Gets the start time of an event handler if tracing is enabled.
+         *
+         * @return System.nanoTime() or 0 if tracing is disabled
+         */
+        private long startTrace() {
+            if (latencyTracer == null) {
+                return 0;
+            }
+
+            return System.nanoTime();
+        }
+
+        /**
+         * Passes a handled event to the tracer before repainting.
+         *
+         * @param handlerStart value returned by startTrace
+         * @param e the handled event
+         */
+        private void endTrace(final long handlerStart, final MouseEvent e) {
+            InputLatencyTracer tracer = latencyTracer;
+
+            if (tracer != null && handlerStart != 0) {
+                tracer.eventHandled(handlerStart, e.getWhen(),
+                        minefield.getVersion());
+            }
+        }
+    }
+
+    /**
+     * Places the mines of a minefield on a background thread.
+     */
+    private class GenerationWorker extends SwingWorker<Void, Void>
+            implements GenerationMonitor {
+
+        /** Minefield being generated. */
+        private final Minefield target;
+
+        /** x position of the first click. */
+        private final int startX;
+
+        /** y position of the first click. */
+        private final int startY;
+
+        /**
+         * Initializes a new GenerationWorker.
+         *
+         * @param minefield minefield to generate
+         * @param x x position of the first click
+         * @param y y position of the first click
+         */
+        GenerationWorker(final Minefield minefield, final int x, final int y) {
+            this.target = minefield;
+            this.startX = x;
+            this.startY = y;
+        }
+
+        @Override
+        protected Void doInBackground() {
+            boolean succeeded = false;
+
+            try {
+                target.generate(startX, startY, this);
+                succeeded = true;
+            } catch (CancellationException e) {
+                LOGGER.info("Generation cancelled.");
+            } finally {
+                // Report back once this thread has really stopped using the
+                // minefield (done() runs as soon as cancel is called)
+                final boolean result = succeeded;
+
+                SwingUtilities.invokeLater(new Runnable() {
+                    @Override
+                    public void run() {
+                        generationFinished(GenerationWorker.this, result);
+                    }
+                });
+            }
+
+            return null;
+        }
+
+        @Override
+        public void progress(final int done, final int total) {
+            setProgress((int) (100L * done / Math.max(total, 1)));
+        }
+    }
+}
@@ -0,0 +1,532 @@
+package uk.ac.york.minesweeper.ui;
+
+import java.awt.BorderLayout;
+import java.awt.Color;
+import java.awt.Dimension;
+import java.awt.FlowLayout;
+import java.awt.GridLayout;
+import java.awt.Rectangle;
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
+import java.beans.PropertyChangeEvent;
+import java.beans.PropertyChangeListener;
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.ExecutionException;
+import java.util.logging.ConsoleHandler;
+import java.util.logging.FileHandler;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import javax.swing.JButton;
+import javax.swing.JComboBox;
+import javax.swing.JFrame;
+import javax.swing.JLabel;
+import javax.swing.JOptionPane;
+import javax.swing.JPanel;
+import javax.swing.JProgressBar;
+import javax.swing.JScrollPane;
+import javax.swing.JSpinner;
+import javax.swing.SpinnerNumberModel;
+import javax.swing.SwingUtilities;
+import javax.swing.SwingWorker;
+import javax.swing.Timer;
+
+import uk.ac.york.minesweeper.BoardFactory;
+import uk.ac.york.minesweeper.GameHistory;
+import uk.ac.york.minesweeper.GameResult;
+import uk.ac.york.minesweeper.GameState;
+import uk.ac.york.minesweeper.HTMLFormatter;
+import uk.ac.york.minesweeper.Minefield;
+import uk.ac.york.minesweeper.MinefieldMetrics;
+import uk.ac.york.minesweeper.MinefieldStateChangeEvent;
+import uk.ac.york.minesweeper.MinefieldStateChangeListener;
+import uk.ac.york.minesweeper.OwnFormatter;
+/**
+ *
+ * @author Niklas
+ * Stellt das Fenster dar.
+ *
+ */
+public class MinesweeperFrame extends JFrame implements ActionListener {
+
+    private static final Logger
+    LOGGER = Logger.getLogger(MinesweeperFrame.class.getName());
+
+    /**
+     * Handler.
+     */
+    private static final ConsoleHandler CH = new ConsoleHandler();
+
+    static {
+        // Once only, not for every message (each call added it again)
+        CH.setFormatter(new OwnFormatter());
+        LOGGER.addHandler(CH);
+    }
+
+    /**
+     * Version.
+     */
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Konstanten.
+     */
+    private static final String[] DIFFICULTIES =
+        {"Easy", "Medium", "Hard", "Custom..."};
+    /**
+     * Konstanten.
+     */
+    private static final int CUSTOM_INDEX = 3;
+    /**
+     * Konstanten.
+     */
+    private static final String CANCEL = "cancel";
+    /**
+     * Konstanten.
+     */
+    private static final String INCREMENT = "incr";
+    /**
+     * Konstanten.
+     */
+    private static final String RESET = "reset";
+    /**
+     * Konstanten.
+     */
+    private static final int POOL_SIZE = 4;
+    /**
+     * Konstanten.
+     */
+    private static final String HISTORY_FILE = ".minesweeper-history";
+
+    /**
+     * Interface.
+     */
+    private JPanel mainPanel =  new JPanel(new BorderLayout(10, 10));
+    /**
+     * Interface.
+     */
+    private JComboBox<String>
+    difficultyBox = new JComboBox<String>(DIFFICULTIES);
+    /**
+     * Interface.
+     */
+    private MinefieldPanel minePanel;
+
+    /**
+     * Timer.
+     */
+    private Timer scoreTimer = new Timer(1000, this);
+    /**
+     * Label TopTimer.
+     */
+    private JLabel topTimer;
+    /**
+     * Zeit.
+     */
+    private int time = 0;
+    /**
+     * Startzeit des laufenden Spiels (System.nanoTime, 0 wenn keins läuft).
+     */
+    private long gameStart = 0;
+
+    /**
+     * Spielverlauf (null if the history file could not be opened).
+     */
+    private GameHistory history;
+
+    /**
+     * Button.
+     */
+    private JButton topResetBtn;
+
+    /**
+     * Fortschrittsanzeige (board creation / mine placement).
+     */
+    private JPanel progressPanel = new JPanel(new BorderLayout(10, 0));
+    /**
+     * Fortschrittsanzeige.
+     */
+    private JProgressBar progressBar = new JProgressBar(0, 100);
+
+    /**
+     * Worker creating a custom minefield (null when not creating one).
+     */
+    private SwingWorker<Minefield, Void> boardWorker;
+
+    /**
+     * Vorbereitete Spielfelder für die Schwierigkeitsstufen.
+     */
+    // Keeps boards for the preset difficulties ready so resets are instant
+    private final BoardFactory boardFactory = new BoardFactory(POOL_SIZE);
+
+    /**
+     * Custom minefield size.
+     */
+    private int customWidth = 100;
+    /**
+     * Custom minefield size.
+     */
+    private int customHeight = 100;
+    /**
+     * Custom minefield size.
+     */
+    private int customMines = 2000;
+
+    /**
+     * Konstruktor für das Frame.
+     */
+    public MinesweeperFrame() {
+        // Basic Interface Settings
+        this.setDefaultCloseOperation(EXIT_ON_CLOSE);
+        this.setLayout(new BorderLayout(0, 0));
+        this.getContentPane().setBackground(Color.white);
+        this.setSize(new Dimension(400, 500));
+        this.setMinimumSize(new Dimension(400, 500));
+        this.setTitle("Minesweeper");
+        openHistory();
+        JPanel topPanel = new JPanel(new GridLayout(1, 3, 10, 10));
+        topPanel.setBackground(Color.white);
+        JPanel centerPanel = new JPanel(
+                new FlowLayout(FlowLayout.CENTER, 10, 10));
+        centerPanel.setBackground(Color.white);
+        JPanel centerMidPanel = new JPanel(
+                new FlowLayout(FlowLayout.CENTER, 10, 10));
+        boardFactory.configure(9, 9, 10);
+        boardFactory.configure(16, 16, 40);
+        boardFactory.configure(30, 16, 99);
+        minePanel = new MinefieldPanel(boardFactory.take(16, 16, 40));
+        minePanel.addStateChangeListener(new MinefieldStateChangeListener()
+        {
+            @Override
+            public void stateChanged(final MinefieldStateChangeEvent event) {
+                Minefield minefield = minePanel.getMinefield();
+                if (minefield.isFinished()) {
+                    scoreTimer.stop();
+                    recordResult(minefield);
+                    LOGGER.severe("MINE Getroffen.");
+                    if (minefield.getGameState() == GameState.WON) {
+                        topResetBtn.setIcon(Images.getIcon(Images.FACE_WON));
+                    } else {
+                    topResetBtn.setIcon(Images.getIcon(Images.FACE_LOST));
+                    }
+
+                } else {
+                    topResetBtn.setIcon(Images.getIcon(Images.FACE_NORMAL));
+                    if (minefield.getGameState() == GameState.RUNNING) {
+                            gameStart = System.nanoTime();
+                            scoreTimer.start();
+                    } else {
+                        // A new minefield has been set
+                        gameStart = 0;
+                    }
+                }
+                topResetBtn.repaint();
+            }
+        });
+        minePanel.addPropertyChangeListener(new PropertyChangeListener() {
+            @Override
+            public void propertyChange(final PropertyChangeEvent event) {
+                String name = event.getPropertyName();
+
+                if (MinefieldPanel.GENERATING_PROPERTY.equals(name)) {
+                    setProgressVisible((Boolean) event.getNewValue(),
+                            "Placing mines...");
+                } else if (MinefieldPanel.GENERATION_PROGRESS_PROPERTY
+                        .equals(name)) {
+                    progressBar.setIndeterminate(false);
+                    progressBar.setValue((Integer) event.getNewValue());
+                }
+            }
+        });
+        centerMidPanel.add(minePanel);
+        // Difficulty Chooser
+        difficultyBox.setSelectedIndex(1);
+        topResetBtn = new JButton();
+        topResetBtn.setPreferredSize(new Dimension(50, 50));
+        topResetBtn.setActionCommand(RESET);
+        topResetBtn.addActionListener(this);
+        centerPanel.add(topResetBtn);
+        topResetBtn.setIcon(Images.getIcon(Images.FACE_NORMAL));
+        topTimer = new JLabel(String.valueOf(time) + " Seconds");
+        scoreTimer.setActionCommand(INCREMENT);
+        topPanel.add(difficultyBox);
+        topPanel.add(centerPanel);
+        topPanel.add(topTimer);
+        // Progress bar with cancel button (hidden until needed)
+        JButton cancelBtn = new JButton("Cancel");
+        cancelBtn.setActionCommand(CANCEL);
+        cancelBtn.addActionListener(this);
+        progressBar.setStringPainted(true);
+        progressPanel.add(progressBar, BorderLayout.CENTER);
+        progressPanel.add(cancelBtn, BorderLayout.EAST);
+        progressPanel.setVisible(false);
+        // Large minefields scroll
+        JScrollPane scrollPane = new JScrollPane(centerMidPanel);
+        scrollPane.setBorder(null);
+        scrollPane.getVerticalScrollBar().setUnitIncrement(16);
+        scrollPane.getHorizontalScrollBar().setUnitIncrement(16);
+        mainPanel.add(topPanel, BorderLayout.NORTH);
+        mainPanel.add(scrollPane, BorderLayout.CENTER);
+        mainPanel.add(progressPanel, BorderLayout.SOUTH);
+        this.getContentPane().add(mainPanel, BorderLayout.CENTER);
+        this.packToScreen();
+    }
+
+    /**
+     * Opens the game history in the user's home directory.
+     *
+     * The game still works without it if it cannot be opened.
+     */
+    private void openHistory() {
+        try {
+            history = new GameHistory(new File(
+                    System.getProperty("user.home"), HISTORY_FILE));
+        } catch (IOException e) {
+            LOGGER.warning("Could not open game history: " + e);
+            return;
+        }
+
+        // Writes the index snapshot so the next start is quick
+        this.addWindowListener(new WindowAdapter() {
+            @Override
+            public void windowClosing(final WindowEvent event) {
+                try {
+                    history.close();
+                } catch (IOException e) {
+                    LOGGER.warning("Could not close game history: " + e);
+                }
+            }
+        });
+    }
+
+    /**
+     * Stores the result of a finished game in the history.
+     *
+     * @param minefield the finished minefield
+     */
+    private void recordResult(final Minefield minefield) {
+        // A game won by the first click never started running, so it has
+        // no time worth recording
+        if (gameStart == 0 || history == null) {
+            gameStart = 0;
+            return;
+        }
+
+        int duration = (int) ((System.nanoTime() - gameStart) / 1000000);
+        gameStart = 0;
+
+        try {
+            history.record(new GameResult(System.currentTimeMillis(),
+                    minefield.getWidth(), minefield.getHeight(),
+                    minefield.getMines(), duration, minefield.getGameState()));
+            history.flush();
+        } catch (IOException e) {
+            LOGGER.warning("Could not record game: " + e);
+        }
+    }
+
+    /**
+     * Packs the frame, but never larger than the screen.
+     */
+    private void packToScreen() {
+        pack();
+
+        Rectangle screen = getGraphicsConfiguration().getBounds();
+        int width = Math.min(getWidth(), screen.width * 9 / 10);
+        int height = Math.min(getHeight(), screen.height * 9 / 10);
+
+        if (width != getWidth() || height != getHeight()) {
+            setSize(width, height);
+            validate();
+        }
+    }
+
+    /**
+     * Shows or hides the progress bar.
+     *
+     * @param visible true to show the progress bar
+     * @param text text to display in it
+     */
+    private void setProgressVisible(final boolean visible, final String text) {
+        progressBar.setIndeterminate(true);
+        progressBar.setValue(0);
+        progressBar.setString(text);
+        progressPanel.setVisible(visible);
+        difficultyBox.setEnabled(!visible);
+        topResetBtn.setEnabled(!visible);
+        mainPanel.revalidate();
+    }
+
+    /**
+     * Asks for a custom minefield size and creates it in the background.
+     */
+    private void startCustomGame() {
+        JSpinner widthSpinner = new JSpinner(
+                new SpinnerNumberModel(customWidth, 1, 1 << 14, 1));
+        JSpinner heightSpinner = new JSpinner(
+                new SpinnerNumberModel(customHeight, 1, 1 << 14, 1));
+        JSpinner minesSpinner = new JSpinner(
+                new SpinnerNumberModel(customMines, 0, Integer.MAX_VALUE, 1));
+        JPanel sizePanel = new JPanel(new GridLayout(3, 2, 5, 5));
+        sizePanel.add(new JLabel("Width"));
+        sizePanel.add(widthSpinner);
+        sizePanel.add(new JLabel("Height"));
+        sizePanel.add(heightSpinner);
+        sizePanel.add(new JLabel("Mines"));
+        sizePanel.add(minesSpinner);
+
+        if (JOptionPane.showConfirmDialog(this, sizePanel, "Custom game",
+                JOptionPane.OK_CANCEL_OPTION, JOptionPane.PLAIN_MESSAGE)
+                != JOptionPane.OK_OPTION) {
+            return;
+        }
+
+        final int width = (Integer) widthSpinner.getValue();
+        final int height = (Integer) heightSpinner.getValue();
+        final int mines = (Integer) minesSpinner.getValue();
+
+        if ((long) width * height <= mines) {
+            JOptionPane.showMessageDialog(this, "Too many mines.",
+                    "Custom game", JOptionPane.ERROR_MESSAGE);
+            return;
+        }
+
+        customWidth = width;
+        customHeight = height;
+        customMines = mines;
+
+        // Allocate the board off the event dispatch thread
+        setProgressVisible(true, "Creating minefield...");
+        boardWorker = new SwingWorker<Minefield, Void>() {
+            @Override
+            protected Minefield doInBackground() {
+                return new Minefield(width, height, mines);
+            }
+
+            @Override
+            protected void done() {
+                if (boardWorker != this) {
+                    return;
+                }
+
+                boardWorker = null;
+                setProgressVisible(false, null);
+
+                if (isCancelled()) {
+                    return;
+                }
+
+                try {
+                    // Swap the finished minefield in
+                    minePanel.setMinefield(get());
+                    packToScreen();
+                } catch (InterruptedException | ExecutionException e) {
+                    LOGGER.severe("Could not create minefield: " + e);
+                } catch (OutOfMemoryError e) {
+                    LOGGER.severe("Minefield too large: " + e);
+                }
+            }
+        };
+        boardWorker.execute();
+    }
+
+    @Override
+    public final void actionPerformed(final ActionEvent event) {
+        if (event.getActionCommand().equals(INCREMENT)) {
+            time++;
+
+        } else if (event.getActionCommand().equals(CANCEL)) {
+            // Cancel board creation or mine placement
+            if (boardWorker != null) {
+                boardWorker.cancel(false);
+            }
+
+            minePanel.cancelGeneration();
+
+        } else if (event.getActionCommand().equals(RESET)) {
+            // Reset timer
+            scoreTimer.stop();
+            time = 0;
+
+            // Reset minefield
+            if (difficultyBox.getSelectedIndex() == CUSTOM_INDEX) {
+                startCustomGame();
+            } else {
+                if (difficultyBox.getSelectedIndex() == 0) {
+                    minePanel.setMinefield(boardFactory.take(9, 9, 10));
+                } else if (difficultyBox.getSelectedIndex() == 2) {
+                    minePanel.setMinefield(boardFactory.take(30, 16, 99));
+                } else if (difficultyBox.getSelectedIndex() == 1) {
+                    minePanel.setMinefield(boardFactory.take(16, 16, 40));
+                }
+
+                packToScreen();
+            }
+        }
+
+        topTimer.setText((time) + " Seconds   ");
+    }
+
+    /**
+     * Main-Methode.
+     * @param args
+     */
+    public static void main(final String[] args) {
+
+        final Logger logger = Logger.getLogger(Minefield.class.getName());
+
+        final ConsoleHandler handler = new ConsoleHandler();
+
+        final Logger logger2 = Logger.getLogger(Minefield.class.getName());
+
+        try {
+
+            final FileHandler fh = new FileHandler(
+                    "C:/Users/Niklas/Desktop/java-minesweeper/log/loggy.html");
+
+            fh.setFormatter(new HTMLFormatter());
+
+            logger2.addHandler(fh);
+
+        } catch (SecurityException | IOException e) {
+
+            e.printStackTrace();
+
+        }
+
+
+
+        handler.setFormatter(new OwnFormatter());
+        logger.addHandler(handler);
+
+        logger.info("LOG Gestartet!");
+
+        // Decode images while the frame is being created
+        Images.preload();
+
+        logger.setLevel(Level.FINEST);
+        logger.log(Level.FINE, "logging ALL");
+
+        if (MinefieldMetrics.ENABLED) {
+            MinefieldMetrics.registerMBean();
+        }
+
+        SwingUtilities.invokeLater(new Runnable()
+        {
+            @Override
+            public void run() {
+
+
+
+                new MinesweeperFrame().setVisible(true);
+
+
+            }
+        });
+
+        logger.info("LOGGING BEENDET!");
+    }
+}
@@ -0,0 +1,411 @@
+package uk.ac.york.minesweeper.ui;
+
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.Graphics;
+import java.awt.Rectangle;
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+
+import javax.swing.JComponent;
+import javax.swing.Timer;
+
+/**
+ * Paces the repaints of a tile grid to a target frame rate.
+ *
+ * Updates only mark tiles as dirty. The first update after an idle frame
+ * starts a timer, which repaints the bounding box of all tiles made dirty
+ * since the last frame, so however many updates arrive (from the mouse,
+ * bots or assists) the component is painted at most once per frame. The
+ * timer keeps running while updates arrive and stops after a second with
+ * none (so play with short pauses does not keep restarting it).
+ *
+ * Tiles may be invalidated from any thread. Everything else must be called
+ * on the event dispatch thread.
+ */
+public final class RepaintScheduler {
+
+    /** Frame rate used unless another is set. */
+    public static final int DEFAULT_FPS = 60;
+
+    /** Nanoseconds in a second. */
+    private static final long NANOS_PER_SECOND = 1000000000L;
+
+    /** Nanoseconds in a millisecond. */
+    private static final long NANOS_PER_MILLI = 1000000L;
+
+    /** Font used to draw the overlay. */
+    private static final Font OVERLAY_FONT =
+            new Font(Font.MONOSPACED, Font.PLAIN, 11);
+
+    /** Height of each overlay line. */
+    private static final int OVERLAY_LINE_HEIGHT = 12;
+
+    /** Width of the overlay. */
+    private static final int OVERLAY_WIDTH = 170;
+
+    /** Height of the overlay. */
+    private static final int OVERLAY_HEIGHT = OVERLAY_LINE_HEIGHT * 3 + 4;
+
+    /** Colour behind the overlay text. */
+    private static final Color OVERLAY_BACKGROUND = new Color(0, 0, 0, 0xA0);
+
+    /** Component being repainted. */
+    private final JComponent component;
+
+    /** Size of each tile in pixels. */
+    private final int tileSize;
+
+    /** Timer which runs once per frame while there are updates. */
+    private final Timer timer;
+
+    /** Target number of frames per second. */
+    private int targetFps;
+
+    /** Length of a frame (ns). */
+    private long frameNanos;
+
+    /** Dirty region: first column (MAX_VALUE when clean). */
+    private int dirtyX1 = Integer.MAX_VALUE;
+
+    /** Dirty region: first row. */
+    private int dirtyY1 = Integer.MAX_VALUE;
+
+    /** Dirty region: column after the last. */
+    private int dirtyX2;
+
+    /** Dirty region: row after the last. */
+    private int dirtyY2;
+
+    /** True from starting the timer until it stops itself. */
+    private boolean timerRunning;
+
+    /** Frames in a row which had no updates. */
+    private int idleFrames;
+
+    /** Number of updates merged into the next frame. */
+    private int dirtyUpdates;
+
+    /** Time the last frame was requested (ns). */
+    private long lastFrame;
+
+    /** Tiles in the region repainted by the last frame. */
+    private int frameTiles;
+
+    /** Updates merged into the last frame. */
+    private int frameUpdates;
+
+    /** Time spent painting the last frame (ns). */
+    private long paintNanos;
+
+    /** Frames painted since fpsWindowStart. */
+    private int fpsFrames;
+
+    /** Start of the window frames are counted in (ns). */
+    private long fpsWindowStart;
+
+    /** Frames painted per second over the last full window. */
+    private double fps;
+
+    /** True to draw the overlay. */
+    private boolean overlayVisible;
+
+    /** Overlay area to repaint with every frame (reused). */
+    private final Rectangle overlayBounds = new Rectangle();
+
+    /** Tracer whose overlay is repainted with every frame (may be null). */
+    private InputLatencyTracer latencyTracer;
+
+    /**
+     * Initializes a new RepaintScheduler.
+     *
+     * @param target component to repaint
+     * @param size size of each tile in pixels
+     */
+    RepaintScheduler(final JComponent target, final int size) {
+        this.component = target;
+        this.tileSize = size;
+        this.timer = new Timer(0, new ActionListener() {
+            @Override
+            public void actionPerformed(final ActionEvent e) {
+                runFrame();
+            }
+        });
+
+        setTargetFps(DEFAULT_FPS);
+    }
+
+    /**
+     * Gets the target frame rate.
+     *
+     * @return frames per second
+     */
+    public int getTargetFps() {
+        return targetFps;
+    }
+
+    /**
+     * Sets the target frame rate.
+     *
+     * @param fps frames per second (at least 1)
+     */
+    public void setTargetFps(final int fps) {
+        if (fps < 1) {
+            throw new IllegalArgumentException("fps must be positive");
+        }
+
+        synchronized (this) {
+            this.targetFps = fps;
+            this.frameNanos = NANOS_PER_SECOND / fps;
+        }
+
+        timer.setDelay((int) Math.max(1, frameNanos / NANOS_PER_MILLI));
+    }
+
+    /**
+     * Returns true if the overlay is drawn over the component.
+     *
+     * @return true if the overlay is visible
+     */
+    public boolean isOverlayVisible() {
+        return overlayVisible;
+    }
+
+    /**
+     * Sets whether the overlay (frame rate, paint time and dirty tiles) is
+     * drawn over the component.
+     *
+     * @param visible true to show the overlay
+     */
+    public void setOverlayVisible(final boolean visible) {
+        this.overlayVisible = visible;
+        invalidateAll();
+    }
+
+    /**
+     * Marks one tile as needing to be repainted.
+     *
+     * @param x x position of tile
+     * @param y y position of tile
+     */
+    public void invalidateTile(final int x, final int y) {
+        invalidateTiles(x, y, x + 1, y + 1);
+    }
+
+    /**
+     * Marks a rectangle of tiles as needing to be repainted.
+     *
+     * @param x1 first column
+     * @param y1 first row
+     * @param x2 column after the last
+     * @param y2 row after the last
+     */
+    public void invalidateTiles(final int x1, final int y1, final int x2,
+            final int y2) {
+        boolean start;
+
+        synchronized (this) {
+            dirtyX1 = Math.min(dirtyX1, x1);
+            dirtyY1 = Math.min(dirtyY1, y1);
+            dirtyX2 = Math.max(dirtyX2, x2);
+            dirtyY2 = Math.max(dirtyY2, y2);
+            dirtyUpdates++;
+            start = !timerRunning;
+            timerRunning = true;
+        }
+
+        if (start) {
+            startTimer();
+        }
+    }
+
+    /**
+     * Marks a list of tiles as needing to be repainted.
+     *
+     * @param tiles tiles as {@code y * width + x}
+     * @param count number of tiles used in the array
+     * @param width width of the grid in tiles
+     */
+    public void invalidateTiles(final int[] tiles, final int count,
+            final int width) {
+        if (count == 0) {
+            return;
+        }
+
+        boolean start;
+
+        synchronized (this) {
+            for (int n = 0; n < count; n++) {
+                int x = tiles[n] % width;
+                int y = tiles[n] / width;
+                dirtyX1 = Math.min(dirtyX1, x);
+                dirtyY1 = Math.min(dirtyY1, y);
+                dirtyX2 = Math.max(dirtyX2, x + 1);
+                dirtyY2 = Math.max(dirtyY2, y + 1);
+            }
+
+            dirtyUpdates++;
+            start = !timerRunning;
+            timerRunning = true;
+        }
+
+        if (start) {
+            startTimer();
+        }
+    }
+
+    /**
+     * Marks the whole component as needing to be repainted.
+     */
+    public void invalidateAll() {
+        invalidateTiles(0, 0, Integer.MAX_VALUE / 2, Integer.MAX_VALUE / 2);
+    }
+
+    /**
+     * Starts the timer for the first update after it stopped.
+     *
+     * The first frame is due one frame after the last one (straight away
+     * if that has already passed). Updates while the timer runs do not
+     * touch it, as the Timer methods are not free.
+     */
+    private void startTimer() {
+        long wait;
+
+        synchronized (this) {
+            wait = lastFrame + frameNanos - System.nanoTime();
+        }
+
+        timer.setInitialDelay((int) Math.max(0,
+                (wait + NANOS_PER_MILLI - 1) / NANOS_PER_MILLI));
+        timer.start();
+    }
+
+    /**
+     * Repaints the dirty region (on the event dispatch thread).
+     */
+    private void runFrame() {
+        int x1;
+        int y1;
+        int x2;
+        int y2;
+
+        synchronized (this) {
+            if (dirtyUpdates == 0) {
+                // Stop after a second with no updates
+                if (++idleFrames >= targetFps) {
+                    idleFrames = 0;
+                    timerRunning = false;
+                    timer.stop();
+                }
+
+                return;
+            }
+
+            idleFrames = 0;
+            x1 = dirtyX1;
+            y1 = dirtyY1;
+            x2 = dirtyX2;
+            y2 = dirtyY2;
+            frameUpdates = dirtyUpdates;
+            dirtyX1 = Integer.MAX_VALUE;
+            dirtyY1 = Integer.MAX_VALUE;
+            dirtyX2 = 0;
+            dirtyY2 = 0;
+            dirtyUpdates = 0;
+            lastFrame = System.nanoTime();
+        }
+
+        // Clip to the component
+        x2 = Math.min(x2, (component.getWidth() + tileSize - 1) / tileSize);
+        y2 = Math.min(y2, (component.getHeight() + tileSize - 1) / tileSize);
+        frameTiles = Math.max(0, x2 - x1) * Math.max(0, y2 - y1);
+
+        if (frameTiles > 0) {
+            component.repaint(x1 * tileSize, y1 * tileSize,
+                    (x2 - x1) * tileSize + 1, (y2 - y1) * tileSize + 1);
+        }
+
+        if (overlayVisible) {
+            component.repaint(getOverlayBounds());
+        }
+
+        InputLatencyTracer tracer = latencyTracer;
+
+        if (tracer != null && tracer.isOverlayVisible()) {
+            component.repaint(tracer.getOverlayBounds(component));
+        }
+    }
+
+    /**
+     * Sets the tracer whose overlay is repainted with every frame.
+     *
+     * Its overlay covers no dirty tiles of its own, so it would go stale
+     * whenever the dirty tiles were elsewhere.
+     *
+     * @param tracer input latency tracer (null for none)
+     */
+    void setLatencyTracer(final InputLatencyTracer tracer) {
+        this.latencyTracer = tracer;
+    }
+
+    /**
+     * Records that the component has painted a frame.
+     *
+     * @param nanos time spent painting
+     */
+    void framePainted(final long nanos) {
+        long now = System.nanoTime();
+        paintNanos = nanos;
+        fpsFrames++;
+
+        if (fpsWindowStart == 0) {
+            fpsWindowStart = now;
+        } else if (now - fpsWindowStart >= NANOS_PER_SECOND) {
+            fps = fpsFrames * (double) NANOS_PER_SECOND
+                    / (now - fpsWindowStart);
+            fpsFrames = 0;
+            fpsWindowStart = now;
+        }
+    }
+
+    /**
+     * Gets the area the overlay is drawn in (the top right of the visible
+     * part of the component).
+     *
+     * @return overlay bounds (reused by each call)
+     */
+    private Rectangle getOverlayBounds() {
+        component.computeVisibleRect(overlayBounds);
+        overlayBounds.setBounds(
+                overlayBounds.x + overlayBounds.width - OVERLAY_WIDTH,
+                overlayBounds.y, OVERLAY_WIDTH, OVERLAY_HEIGHT);
+        return overlayBounds;
+    }
+
+    /**
+     * Draws the overlay if it is visible.
+     *
+     * @param g graphics object
+     */
+    void paintOverlay(final Graphics g) {
+        if (!overlayVisible) {
+            return;
+        }
+
+        Rectangle bounds = getOverlayBounds();
+        int x = bounds.x + 2;
+        int y = bounds.y;
+
+        g.setColor(OVERLAY_BACKGROUND);
+        g.fillRect(bounds.x, bounds.y, bounds.width, bounds.height);
+        g.setColor(Color.WHITE);
+        g.setFont(OVERLAY_FONT);
+        g.drawString(String.format("fps   %5.1f / %d", fps, targetFps),
+                x, y + OVERLAY_LINE_HEIGHT);
+        g.drawString(String.format("paint %6.2f ms",
+                paintNanos / (double) NANOS_PER_MILLI),
+                x, y + OVERLAY_LINE_HEIGHT * 2);
+        g.drawString(String.format("dirty %d tiles, %d updates",
+                frameTiles, frameUpdates), x, y + OVERLAY_LINE_HEIGHT * 3);
+    }
+}
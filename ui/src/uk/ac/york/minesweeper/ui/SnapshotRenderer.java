@@ -0,0 +1,362 @@
+package uk.ac.york.minesweeper.ui;
+
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+
+import uk.ac.york.minesweeper.BoardSnapshot;
+
+/**
+ * Renders board snapshots into back buffers on a background thread.
+ *
+ * The thread playing the game submits {@link BoardSnapshot}s; the render
+ * thread always draws the most recent one (older unrendered snapshots are
+ * dropped) and publishes the finished frame. The event dispatch thread then
+ * only has to copy {@link #getLatestFrame()} to the screen.
+ */
+public final class SnapshotRenderer {
+
+    /** Called on the render thread each time a frame is finished. */
+    private final Runnable frameListener;
+
+    /** Lock protecting the pending request. */
+    private final Object lock = new Object();
+
+    /** The render thread. */
+    private final Thread thread;
+
+    /** Most recently submitted snapshot (null once taken). */
+    private BoardSnapshot pending;
+
+    /** Selected tile x of the pending request. */
+    private int pendingSelectedX;
+
+    /** Selected tile y of the pending request. */
+    private int pendingSelectedY;
+
+    /** True once stop has been called. */
+    private boolean stopped;
+
+    /** Number of times clear has been called. */
+    private int generation;
+
+    /** Most recently finished frame. */
+    private volatile Frame latest;
+
+    /**
+     * Buffer which is not the latest frame (reused for the next frame,
+     * null while it is being rendered).
+     */
+    private Frame spare;
+
+    /**
+     * Initializes a new SnapshotRenderer and starts its thread.
+     *
+     * @param listener called on the render thread after each frame
+     *        (for example to request a repaint)
+     */
+    public SnapshotRenderer(final Runnable listener) {
+        this.frameListener = listener;
+        this.thread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                renderLoop();
+            }
+        }, "snapshot-renderer");
+        this.thread.setDaemon(true);
+        this.thread.start();
+    }
+
+    /**
+     * Requests a snapshot to be rendered.
+     *
+     * Replaces any snapshot which has not been started yet.
+     *
+     * @param snapshot snapshot to render
+     * @param selectedX x position of the pressed tile (-1 for none)
+     * @param selectedY y position of the pressed tile (-1 for none)
+     */
+    public void submit(final BoardSnapshot snapshot,
+            final int selectedX, final int selectedY) {
+        synchronized (lock) {
+            pending = snapshot;
+            pendingSelectedX = selectedX;
+            pendingSelectedY = selectedY;
+            lock.notifyAll();
+        }
+    }
+
+    /**
+     * Gets the most recently finished frame.
+     *
+     * The frame's image must only be drawn while holding the frame's lock
+     * (synchronize on the frame).
+     *
+     * @return the latest frame or null if nothing has been rendered yet
+     */
+    public Frame getLatestFrame() {
+        return latest;
+    }
+
+    /**
+     * Drops the latest frame and any snapshot not started yet, for example
+     * when the minefield is replaced.
+     *
+     * A frame being rendered is dropped when it finishes. The thread and
+     * its buffers are kept.
+     */
+    public void clear() {
+        synchronized (lock) {
+            generation++;
+            pending = null;
+
+            if (spare == null) {
+                spare = latest;
+            }
+
+            latest = null;
+        }
+    }
+
+    /**
+     * Stops the render thread.
+     */
+    public void stop() {
+        synchronized (lock) {
+            stopped = true;
+            lock.notifyAll();
+        }
+    }
+
+    /**
+     * Main loop of the render thread.
+     */
+    private void renderLoop() {
+        for (;;) {
+            BoardSnapshot snapshot;
+            int selectedX;
+            int selectedY;
+            int frameGeneration;
+            Frame frame;
+
+            // Wait for the next request
+            synchronized (lock) {
+                while (pending == null && !stopped) {
+                    try {
+                        lock.wait();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                }
+
+                if (stopped) {
+                    return;
+                }
+
+                snapshot = pending;
+                selectedX = pendingSelectedX;
+                selectedY = pendingSelectedY;
+                pending = null;
+                frameGeneration = generation;
+                frame = spare;
+                spare = null;
+            }
+
+            if (frame == null || !frame.fits(snapshot)) {
+                frame = new Frame(snapshot);
+            }
+
+            synchronized (frame) {
+                frame.render(snapshot, selectedX, selectedY);
+            }
+
+            synchronized (lock) {
+                if (frameGeneration != generation) {
+                    // Cleared while rendering: keep the buffer only
+                    if (spare == null) {
+                        spare = frame;
+                    }
+
+                    continue;
+                }
+
+                // Publish the finished frame and keep the old one for reuse
+                if (latest != null) {
+                    spare = latest;
+                }
+
+                latest = frame;
+            }
+
+            frameListener.run();
+        }
+    }
+
+    /**
+     * A rendered frame covering part of the minefield.
+     */
+    public static final class Frame {
+
+        /** The back buffer. */
+        private final BufferedImage image;
+
+        /** Version of the snapshot which was rendered. */
+        private long version;
+
+        /** Left of the rendered region (in tiles). */
+        private int x;
+
+        /** Top of the rendered region (in tiles). */
+        private int y;
+
+        /** Width of the rendered region (in tiles). */
+        private int width;
+
+        /** Height of the rendered region (in tiles). */
+        private int height;
+
+        /** Selected tile x (-1 for none). */
+        private int selectedX;
+
+        /** Selected tile y (-1 for none). */
+        private int selectedY;
+
+        /**
+         * Initializes a new Frame large enough for a snapshot.
+         *
+         * @param snapshot snapshot which will be rendered
+         */
+        private Frame(final BoardSnapshot snapshot) {
+            this.image = new BufferedImage(
+                    Math.max(1, snapshot.getWidth() * TilePainter.TILE_SIZE),
+                    Math.max(1, snapshot.getHeight() * TilePainter.TILE_SIZE),
+                    BufferedImage.TYPE_INT_RGB);
+        }
+
+        /**
+         * Returns true if the buffer is the right size for a snapshot.
+         *
+         * @param snapshot snapshot to render
+         * @return true if this frame can be reused
+         */
+        private boolean fits(final BoardSnapshot snapshot) {
+            return image.getWidth() == Math.max(1,
+                        snapshot.getWidth() * TilePainter.TILE_SIZE)
+                && image.getHeight() == Math.max(1,
+                        snapshot.getHeight() * TilePainter.TILE_SIZE);
+        }
+
+        /**
+         * Renders a snapshot into the buffer.
+         *
+         * @param snapshot snapshot to render
+         * @param selX x position of the pressed tile (-1 for none)
+         * @param selY y position of the pressed tile (-1 for none)
+         */
+        private void render(final BoardSnapshot snapshot,
+                final int selX, final int selY) {
+            Graphics2D g = image.createGraphics();
+
+            try {
+                TilePainter.prepare(g);
+                g.setColor(TilePainter.COLOUR_BACKGROUND);
+                g.fillRect(0, 0, image.getWidth(), image.getHeight());
+
+                for (int tileY = 0; tileY < snapshot.getHeight(); tileY++) {
+                    int boardY = snapshot.getY() + tileY;
+
+                    for (int tileX = 0; tileX < snapshot.getWidth(); tileX++) {
+                        int boardX = snapshot.getX() + tileX;
+
+                        TilePainter.paintTile(g,
+                                tileX * TilePainter.TILE_SIZE,
+                                tileY * TilePainter.TILE_SIZE,
+                                snapshot.getTile(boardX, boardY),
+                                boardX == selX && boardY == selY, 1.0);
+                    }
+                }
+            } finally {
+                g.dispose();
+            }
+
+            this.version = snapshot.getVersion();
+            this.x = snapshot.getX();
+            this.y = snapshot.getY();
+            this.width = snapshot.getWidth();
+            this.height = snapshot.getHeight();
+            this.selectedX = selX;
+            this.selectedY = selY;
+        }
+
+        /**
+         * Gets the rendered image.
+         *
+         * @return the back buffer
+         */
+        public BufferedImage getImage() {
+            return image;
+        }
+
+        /**
+         * Gets the minefield version which was rendered.
+         *
+         * @return snapshot version
+         */
+        public long getVersion() {
+            return version;
+        }
+
+        /**
+         * Gets the left of the rendered region.
+         *
+         * @return x position in tiles
+         */
+        public int getX() {
+            return x;
+        }
+
+        /**
+         * Gets the top of the rendered region.
+         *
+         * @return y position in tiles
+         */
+        public int getY() {
+            return y;
+        }
+
+        /**
+         * Gets the width of the rendered region.
+         *
+         * @return width in tiles
+         */
+        public int getWidth() {
+            return width;
+        }
+
+        /**
+         * Gets the height of the rendered region.
+         *
+         * @return height in tiles
+         */
+        public int getHeight() {
+            return height;
+        }
+
+        /**
+         * Gets the selected tile x the frame was rendered with.
+         *
+         * @return x position or -1
+         */
+        public int getSelectedX() {
+            return selectedX;
+        }
+
+        /**
+         * Gets the selected tile y the frame was rendered with.
+         *
+         * @return y position or -1
+         */
+        public int getSelectedY() {
+            return selectedY;
+        }
+    }
+}
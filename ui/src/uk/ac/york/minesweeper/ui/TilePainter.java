@@ -0,0 +1,167 @@
+package uk.ac.york.minesweeper.ui;
+
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+
+import uk.ac.york.minesweeper.VisibleTile;
+
+/**
+ * Static class which draws individual minefield tiles.
+ *
+ * Used by {@link MinefieldPanel} and anything else which draws tiles the
+ * same way the panel does.
+ */
+final class TilePainter {
+
+    /** Size of all the tiles. */
+    static final int TILE_SIZE = 32;
+
+    /** Width of the bevel. */
+    private static final int BEVEL_WIDTH = 2;
+
+    /** Font vertical offset (from top to BASELINE). */
+    private static final int FONT_VOFFSET = 24;
+
+    /** The font to draw numbers with. */
+    static final Font FONT = new Font(Font.MONOSPACED, Font.BOLD, 24);
+
+    /** Default background colour. */
+    static final Color COLOUR_BACKGROUND = new Color(0xC0, 0xC0, 0xC0);
+
+    /** Light grey for bevels. */
+    private static final Color COLOUR_LIGHT = new Color(0xE0, 0xE0, 0xE0);
+
+    /** Dark grey for bevels. */
+    private static final Color COLOUR_DARK = new Color(0x80, 0x80, 0x80);
+
+    /** Colour of question marks. */
+    private static final Color COLOUR_QUESTION = Color.WHITE;
+
+    /** The colours of the numbers (0 is unused). */
+    private static final Color[] COLOUR_NUMBERS = new Color[]
+    {
+        null,                           // 0 = Unused
+        new Color(0x00, 0x00, 0xFF),    // 1 = Blue
+        new Color(0x00, 0x7F, 0x00),    // 2 = Green
+        new Color(0xFF, 0x00, 0x00),    // 3 = Red
+        new Color(0x2F, 0x2F, 0x9F),    // 4 = Dark Blue
+        new Color(0x7F, 0x00, 0x00),    // 5 = Maroon
+        new Color(0x9F, 0x9F, 0x2F),    // 6 = Turquoise
+        new Color(0x00, 0x00, 0x00),    // 7 = Black
+        new Color(0x7F, 0x7F, 0x7F),    // 8 = Grey
+    };
+
+    /** Characters drawn on tiles ('?' and the numbers 1 to 8). */
+    private static final char[] CHARACTERS = "?12345678".toCharArray();
+
+    private TilePainter() {
+
+    }
+
+    /**
+     * Sets up a graphics object for drawing tiles.
+     *
+     * @param g graphics object
+     */
+    static void prepare(final Graphics2D g) {
+        g.setRenderingHint(RenderingHints.KEY_ANTIALIASING,
+                RenderingHints.VALUE_ANTIALIAS_ON);
+        g.setFont(FONT);
+    }
+
+    /**
+     * Draws one tile.
+     *
+     * The tile's background must already have been filled with
+     * {@link #COLOUR_BACKGROUND}.
+     *
+     * @param g graphics object (set up with {@link #prepare})
+     * @param graphicsX1 x position of top-left of tile
+     * @param graphicsY1 y position of top-left of tile
+     * @param code visible tile code (see {@link VisibleTile})
+     * @param selected true if the tile is pressed down
+     * @param scale display scale of the graphics object
+     */
+    static void paintTile(final Graphics2D g, final int graphicsX1,
+            final int graphicsY1, final int code, final boolean selected,
+            final double scale) {
+        g.setColor(COLOUR_DARK);
+        g.drawLine(graphicsX1, graphicsY1,
+                graphicsX1 + TILE_SIZE, graphicsY1);
+        g.drawLine(graphicsX1, graphicsY1,
+                graphicsX1, graphicsY1 + TILE_SIZE);
+
+        if (code <= VisibleTile.MINE) {
+            // Uncovered tile
+            if (code == VisibleTile.MINE) {
+                drawImage(g, graphicsX1, graphicsY1, Images.MINE, scale);
+            } else if (code > 0) {
+                g.setColor(COLOUR_NUMBERS[code]);
+                drawCharacter(g, graphicsX1, graphicsY1, code);
+            }
+        } else {
+            if (!selected) {
+                int bevelX2 = graphicsX1 + TILE_SIZE - BEVEL_WIDTH;
+                int bevelY2 = graphicsY1 + TILE_SIZE - BEVEL_WIDTH;
+                g.setColor(COLOUR_LIGHT);
+                g.fillRect(graphicsX1, graphicsY1, TILE_SIZE, BEVEL_WIDTH);
+                g.fillRect(graphicsX1, graphicsY1, BEVEL_WIDTH, TILE_SIZE);
+                g.setColor(COLOUR_DARK);
+                g.fillRect(graphicsX1, bevelY2, TILE_SIZE, BEVEL_WIDTH);
+                g.fillRect(bevelX2, graphicsY1, BEVEL_WIDTH, TILE_SIZE);
+            }
+
+            if (code == VisibleTile.FLAGGED) {
+                drawImage(g, graphicsX1, graphicsY1, Images.FLAG, scale);
+            } else if (code == VisibleTile.QUESTION) {
+                g.setColor(COLOUR_QUESTION);
+                drawCharacter(g, graphicsX1, graphicsY1, 0);
+            }
+        }
+    }
+
+    /**
+     * Draws a character on a tile.
+     *
+     * @param g graphics object
+     * @param x x position of top-left of tile
+     * @param y y position of top-left of tile
+     * @param c position of the character in CHARACTERS
+     */
+    private static void
+    drawCharacter(final Graphics2D g, final int x, final int y, final int c) {
+        // Get coordinates to draw at
+        int drawX = x + (TILE_SIZE
+                - g.getFontMetrics().charWidth(CHARACTERS[c])) / 2;
+        int drawY = y + FONT_VOFFSET;
+
+        // Draw the character
+        g.drawChars(CHARACTERS, c, 1, drawX, drawY);
+    }
+
+    /**
+     * Draws an image at the given tile location.
+     *
+     * @param g graphics object
+     * @param tileX x position of top-left of tile
+     * @param tileY y position of top-left of tile
+     * @param image image constant from {@link Images}
+     * @param scale display scale of the graphics object
+     */
+    private static void drawImage(final Graphics2D g, final int tileX,
+            final int tileY, final int image, final double scale) {
+        Images.ScaledImage img = Images.getScaled(image, TILE_SIZE, scale);
+        int width = img.getLogicalWidth();
+        int height = img.getLogicalHeight();
+        int xOff = tileX + (TILE_SIZE - width) / 2;
+        int yOff = tileY + (TILE_SIZE - height) / 2;
+
+        if (scale == 1.0) {
+            g.drawImage(img.getImage(), xOff, yOff, null);
+        } else {
+            g.drawImage(img.getImage(), xOff, yOff, width, height, null);
+        }
+    }
+}